@@ -0,0 +1,370 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.stevenpaligo.spacetrack.client.PartitionedQuery.WindowSizing;
+import com.stevenpaligo.spacetrack.client.query.Limit;
+import com.stevenpaligo.spacetrack.client.query.QueryField;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Downloads the results of a large query as a series of segments, either pages (using a {@link Limit} with an offset) or windows of time over a date field, saving each completed segment to a
+ * directory. If the job is interrupted by a crash or a network error, running it again with the same directory skips the segments that were already saved and continues from the next one.
+ * 
+ * <p>
+ * The directory holds one JSON file per segment, exactly as returned by <a href="https://www.space-track.org/">Space-Track.org</a>, and a manifest recording which segments are complete. Segment files
+ * and the manifest are written to temporary files first and then moved into place, so a crash never leaves a partial segment that looks complete. The manifest identifies the job, and a directory
+ * can't be reused for a different job.
+ * </p>
+ * 
+ * @author Steven Paligo
+ * @param <R> The type of the query results
+ */
+@Slf4j
+public class BulkDownloadJob<R> {
+
+  private static final String MANIFEST_FILE_NAME = "job.properties";
+  private static final String JOB_PROPERTY = "job";
+  private static final String COMPLETED_SEGMENTS_PROPERTY = "completedSegments";
+  private static final String COMPLETE_PROPERTY = "complete";
+  private static final JsonFactory jsonFactory = new JsonFactory();
+
+
+  /**
+   * Receives the results of each saved segment, in order
+   * 
+   * @author Steven Paligo
+   * @param <R> The type of the query results
+   */
+  @FunctionalInterface
+  public static interface SegmentListener<R> {
+
+    public void onSegment(int segmentIndex, List<R> results) throws IOException;
+  }
+
+
+  /**
+   * Saves a segment's response (replaceable for testing)
+   */
+  @FunctionalInterface
+  static interface SegmentDownloader<R> {
+
+    public void download(CompiledQuery<R> query, Path file) throws IOException;
+  }
+
+
+  /**
+   * Creates the query for a segment
+   */
+  @FunctionalInterface
+  private static interface SegmentQueryFactory<R> {
+
+    public CompiledQuery<R> createQuery(int segmentIndex);
+  }
+
+
+  private final CompiledQuery<R> query;
+  private final String description;
+  private final SegmentQueryFactory<R> segmentQueryFactory;
+  private final int pageSize; // zero for windowed jobs
+  private final int windowCount; // zero for paged jobs
+  private final Path directory;
+
+  @Setter(AccessLevel.PACKAGE)
+  private SegmentDownloader<R> segmentDownloader = CompiledQuery::download;
+
+  /**
+   * The number of segments that have been saved
+   */
+  @Getter
+  private int completedSegments = 0;
+
+  /**
+   * Whether every segment has been saved
+   */
+  @Getter
+  private boolean complete = false;
+
+
+  private BulkDownloadJob(CompiledQuery<R> query, String description, SegmentQueryFactory<R> segmentQueryFactory, int pageSize, int windowCount, Path directory) throws IOException {
+
+    this.query = query;
+    this.description = description;
+    this.segmentQueryFactory = segmentQueryFactory;
+    this.pageSize = pageSize;
+    this.windowCount = windowCount;
+    this.directory = directory;
+
+    readManifest();
+  }
+
+
+  /**
+   * Creates a job that downloads the results in pages. The query must be sorted on a combination of fields that is unique for each result (e.g. the catalog number for a "satcat" query), so that
+   * the pages don't overlap or leave gaps.
+   * 
+   * @param <T> The type of the query fields
+   * @param <R> The type of the query results
+   * @param query A non-null query with credentials and at least one sort, but no limit (the query is copied, so changing it afterwards has no effect on the job)
+   * @param pageSize The maximum number of results in each page (must be positive)
+   * @param directory The non-null directory to save the segments in, which is created if it doesn't exist
+   * @return The job, which resumes from any segments already saved in the directory
+   * @throws IOException The directory was unable to be created or the manifest in it was unable to be read
+   */
+  public static <T extends QueryField, R> BulkDownloadJob<R> paged(@NonNull Query<T, R, ?> query, int pageSize, @NonNull Path directory) throws IOException {
+
+    // more validation
+    if (pageSize <= 0) {
+
+      throw new IllegalArgumentException("The pageSize parameter is not positive: " + pageSize);
+
+    } else if (query.getSorts().isEmpty()) {
+
+      throw new IllegalArgumentException("The query isn't sorted, so its pages wouldn't be stable");
+
+    } else if (query.getLimit().isPresent()) {
+
+      throw new IllegalArgumentException("The query already has a limit");
+    }
+
+
+    Query<T, R, ?> baseQuery = query.copy();
+    CompiledQuery<R> compiledQuery = baseQuery.compile();
+
+    return new BulkDownloadJob<>(compiledQuery, "paged " + pageSize + " " + compiledQuery.getCacheKey(),
+        segmentIndex -> baseQuery.copy().setLimit(new Limit(pageSize, segmentIndex * pageSize)).compile(), pageSize, 0, directory);
+  }
+
+
+  /**
+   * Creates a job that downloads the results in windows of time, partitioning an {@link com.stevenpaligo.spacetrack.client.predicate.InclusiveRange} over a date field like a
+   * {@link PartitionedQuery}
+   * 
+   * @param <T> The type of the query fields
+   * @param <R> The type of the query results
+   * @param query A non-null query with credentials and an inclusive range over the date field with dates as its values, but no limit (the query is copied, so changing it afterwards has no effect on
+   *        the job)
+   * @param dateField The non-null date field to partition on
+   * @param windowSize The non-null size of each window (must be at least one millisecond)
+   * @param directory The non-null directory to save the segments in, which is created if it doesn't exist
+   * @return The job, which resumes from any segments already saved in the directory
+   * @throws IOException The directory was unable to be created or the manifest in it was unable to be read
+   */
+  public static <T extends QueryField, R> BulkDownloadJob<R> windowed(@NonNull Query<T, R, ?> query, @NonNull T dateField, @NonNull Duration windowSize, @NonNull Path directory)
+      throws IOException {
+
+    PartitionedQuery<T, R> partitionedQuery = new PartitionedQuery<>(query, dateField).setWindowSizing(WindowSizing.fixed(windowSize));
+    Instant start = partitionedQuery.getStart();
+    Instant end = partitionedQuery.getEnd();
+
+    long windowMillis = windowSize.toMillis();
+    long rangeMillis = Duration.between(start, end).toMillis();
+    long windowCount = Math.max(1L, (rangeMillis + windowMillis - 1) / windowMillis);
+
+    if (windowCount > Integer.MAX_VALUE) {
+
+      throw new IllegalArgumentException("The windowSize parameter is too small for the range: " + windowSize);
+    }
+
+    CompiledQuery<R> compiledQuery = query.compile();
+
+    return new BulkDownloadJob<>(compiledQuery, "windowed " + windowSize + " " + dateField.getQueryFieldName() + " " + compiledQuery.getCacheKey(), segmentIndex -> {
+
+      Instant windowStart = start.plusMillis(segmentIndex * windowMillis);
+      boolean last = (segmentIndex == windowCount - 1);
+
+      return partitionedQuery.createWindowQuery(windowStart, last ? end : windowStart.plusMillis(windowMillis), last);
+
+    }, 0, (int) windowCount, directory);
+  }
+
+
+  /**
+   * Downloads the segments that haven't been saved yet. If a segment fails, the segments before it remain saved and running the job again continues from the failed segment.
+   * 
+   * @throws IOException A segment was unable to be downloaded or saved
+   */
+  public void run() throws IOException {
+
+    while (!complete) {
+
+      int segmentIndex = completedSegments;
+      CompiledQuery<R> segmentQuery = segmentQueryFactory.createQuery(segmentIndex);
+      Path segmentFile = getSegmentFile(segmentIndex);
+
+      log.debug("Downloading segment {} of the job in {}: {}", segmentIndex, directory, segmentQuery.getQueryString());
+      segmentDownloader.download(segmentQuery, segmentFile);
+
+
+      // the job ends with the last window or with a page that isn't full
+      completedSegments++;
+
+      if (windowCount > 0) {
+
+        complete = (completedSegments == windowCount);
+
+      } else {
+
+        complete = (countResults(segmentFile) < pageSize);
+      }
+
+      writeManifest();
+    }
+  }
+
+
+  /**
+   * Reads the results of every saved segment
+   * 
+   * @return The results, in segment order
+   * @throws IOException A saved segment was unable to be read
+   */
+  public List<R> getResults() throws IOException {
+
+    List<R> results = new ArrayList<>();
+    forEachSegment((segmentIndex, segmentResults) -> results.addAll(segmentResults));
+
+    return results;
+  }
+
+
+  /**
+   * Reads the results of every saved segment, one segment at a time
+   * 
+   * @param listener The non-null listener to deliver each segment's results to
+   * @throws IOException A saved segment was unable to be read, or the listener failed
+   */
+  public void forEachSegment(@NonNull SegmentListener<R> listener) throws IOException {
+
+    for (int segmentIndex = 0; segmentIndex < completedSegments; segmentIndex++) {
+
+      try (Reader reader = Files.newBufferedReader(getSegmentFile(segmentIndex), StandardCharsets.UTF_8)) {
+
+        listener.onSegment(segmentIndex, query.parse(reader));
+      }
+    }
+  }
+
+
+  private Path getSegmentFile(int segmentIndex) {
+
+    return directory.resolve(String.format("segment-%06d.json", segmentIndex));
+  }
+
+
+  private static int countResults(Path segmentFile) throws IOException {
+
+    try (JsonParser parser = jsonFactory.createParser(segmentFile.toFile())) {
+
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+
+        throw new IOException("The saved segment is not a JSON array: " + segmentFile);
+      }
+
+      int count = 0;
+
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+
+        parser.skipChildren();
+        count++;
+      }
+
+      return count;
+    }
+  }
+
+
+  private void readManifest() throws IOException {
+
+    Files.createDirectories(directory);
+    Path manifestFile = directory.resolve(MANIFEST_FILE_NAME);
+
+    if (!Files.exists(manifestFile)) {
+
+      return;
+    }
+
+
+    Properties manifest = new Properties();
+
+    try (InputStream inputStream = Files.newInputStream(manifestFile)) {
+
+      manifest.load(inputStream);
+    }
+
+    if (!description.equals(manifest.getProperty(JOB_PROPERTY))) {
+
+      throw new IllegalArgumentException("The directory belongs to a different job: " + directory);
+    }
+
+    try {
+
+      completedSegments = Integer.parseInt(manifest.getProperty(COMPLETED_SEGMENTS_PROPERTY, "0"));
+
+    } catch (NumberFormatException e) {
+
+      throw new IOException("The job manifest is corrupt: " + manifestFile, e);
+    }
+
+    complete = Boolean.parseBoolean(manifest.getProperty(COMPLETE_PROPERTY));
+    log.debug("Resuming the job in {} after {} segments", directory, completedSegments);
+  }
+
+
+  private void writeManifest() throws IOException {
+
+    Properties manifest = new Properties();
+    manifest.setProperty(JOB_PROPERTY, description);
+    manifest.setProperty(COMPLETED_SEGMENTS_PROPERTY, Integer.toString(completedSegments));
+    manifest.setProperty(COMPLETE_PROPERTY, Boolean.toString(complete));
+
+
+    // replace the manifest in one step
+    Path partFile = Files.createTempFile(directory, MANIFEST_FILE_NAME + ".", ".part");
+
+    try {
+
+      try (OutputStream outputStream = Files.newOutputStream(partFile)) {
+
+        manifest.store(outputStream, "Space-Track bulk download job");
+      }
+
+      Files.move(partFile, directory.resolve(MANIFEST_FILE_NAME), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    } finally {
+
+      Files.deleteIfExists(partFile);
+    }
+  }
+}
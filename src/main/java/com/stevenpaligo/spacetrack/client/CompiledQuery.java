@@ -0,0 +1,150 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.stevenpaligo.spacetrack.client.exception.CircuitBreakerOpenException;
+import com.stevenpaligo.spacetrack.client.exception.SpaceTrackException;
+import com.stevenpaligo.spacetrack.client.execution.CircuitBreaker;
+import com.stevenpaligo.spacetrack.client.execution.RetryPolicy;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An immutable snapshot of a {@link Query}, created by {@link Query#compile()}. The query string is built once, when the query is compiled, and changes made to the original query afterwards have no
+ * effect on it.
+ * 
+ * <p>
+ * Compiled queries are thread-safe: one instance can be executed by many threads at the same time and reused indefinitely, for example on every tick of a scheduler. Execution settings that
+ * coordinate between requests, such as a {@link com.stevenpaligo.spacetrack.client.execution.RateLimiter} or a {@link CircuitBreaker}, are shared with the original query rather than copied.
+ * </p>
+ * 
+ * @author Steven Paligo
+ * @param <R> The type of the query results
+ */
+@Slf4j
+@Getter
+public final class CompiledQuery<R> {
+
+  /**
+   * The Space-Track.org query class (e.g. "tle_latest")
+   */
+  private final String queryClass;
+
+  /**
+   * The <a href="https://www.space-track.org/">Space-Track.org</a> URL that is sent when this query is executed
+   */
+  private final String queryString;
+
+  /**
+   * A key that identifies the results of this query, for use in caches and for recognizing duplicate requests
+   * 
+   * @see Query#getCacheKey()
+   */
+  private final String cacheKey;
+
+  /**
+   * Whether the query's predicates were optimized and found to be impossible to satisfy, in which case executing the query returns no results without contacting Space-Track.org
+   */
+  private final boolean contradictory;
+
+  @Getter(AccessLevel.NONE)
+  private final QueryExecutor<R> executor;
+
+
+  CompiledQuery(@NonNull Query<?, R, ?> query) {
+
+    this.queryClass = query.getQueryClass();
+    this.queryString = query.getQueryString();
+    this.cacheKey = query.getCacheKey();
+    this.contradictory = !query.getEffectivePredicates().isPresent();
+    this.executor = new QueryExecutor<>(query);
+  }
+
+
+  /**
+   * Executes the query against the <a href="https://www.space-track.org/">Space-Track.org</a> API and returns the results. Failed attempts are retried according to the query's {@link RetryPolicy}.
+   * 
+   * @return The results from executing the query
+   * @throws JsonParseException Space-Track.org returned results that are unable to be parsed
+   * @throws JsonMappingException Space-Track.org returned unexpected fields in the results
+   * @throws CircuitBreakerOpenException The query's {@link CircuitBreaker} is open, so Space-Track.org was not contacted
+   * @throws SpaceTrackException Space-Track.org was contacted but did not return a usable response
+   * @throws IOException The Space-Track.org API was unable to be queried successfully
+   */
+  public List<R> execute() throws JsonParseException, JsonMappingException, IOException {
+
+    if (contradictory) {
+
+      log.debug("Not sending the query because its predicates can't all be true: {}", queryString);
+      return new ArrayList<>();
+    }
+
+    return executor.execute(queryString);
+  }
+
+
+  /**
+   * Executes the query against the <a href="https://www.space-track.org/">Space-Track.org</a> API and saves the JSON response to a file instead of converting it. The file is only replaced once the
+   * whole response has been received, so a failed download never leaves a partial file behind. Saved responses can be converted later with {@link #parse(Reader)}.
+   * 
+   * @param file The non-null file to save the response to, which is replaced if it exists
+   * @throws CircuitBreakerOpenException The query's {@link CircuitBreaker} is open, so Space-Track.org was not contacted
+   * @throws SpaceTrackException Space-Track.org was contacted but did not return a usable response
+   * @throws IOException The Space-Track.org API was unable to be queried successfully, or the file was unable to be written
+   */
+  public void download(@NonNull Path file) throws IOException {
+
+    if (contradictory) {
+
+      log.debug("Not sending the query because its predicates can't all be true: {}", queryString);
+      Files.write(file, "[]".getBytes(StandardCharsets.UTF_8));
+      return;
+    }
+
+    executor.download(queryString, file);
+  }
+
+
+  /**
+   * Converts a response saved by {@link #download(Path)} into result objects
+   * 
+   * @param reader The non-null saved response
+   * @return The results in the response
+   * @throws JsonParseException The response is unable to be parsed
+   * @throws JsonMappingException The response has unexpected fields
+   * @throws IOException The response was unable to be read
+   */
+  public List<R> parse(@NonNull Reader reader) throws JsonParseException, JsonMappingException, IOException {
+
+    return executor.parse(reader);
+  }
+
+
+  @Override
+  public String toString() {
+
+    return queryString;
+  }
+}
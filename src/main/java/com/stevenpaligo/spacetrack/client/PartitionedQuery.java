@@ -0,0 +1,561 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import com.stevenpaligo.spacetrack.client.predicate.InclusiveRange;
+import com.stevenpaligo.spacetrack.client.predicate.LessThan;
+import com.stevenpaligo.spacetrack.client.predicate.Predicate;
+import com.stevenpaligo.spacetrack.client.query.QueryField;
+import com.stevenpaligo.spacetrack.client.query.Sort;
+import com.stevenpaligo.spacetrack.client.util.DaemonThreadFactory;
+import com.stevenpaligo.spacetrack.client.util.SpaceTrackDateTimeFormatter;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executes a query with an {@link InclusiveRange} over a date field as a series of smaller queries, one per window of time, so that long histories (e.g. years of TLEs) don't have to be returned in a
+ * single very large response. Several windows are queried at the same time, and the windows' results are delivered in order with each window's results sorted by the date field.
+ * 
+ * <p>
+ * Each window's query is a copy of the original with the range replaced, so all of the windows count against the original query's
+ * {@link com.stevenpaligo.spacetrack.client.execution.RateLimiter}. Windows can be a fixed size or sized adaptively, aiming for a number of results per window based on the number of results in the
+ * windows so far.
+ * </p>
+ * 
+ * <p>
+ * The end of each delivered window is a checkpoint: all results before it have been delivered. If execution fails, it can be resumed from the last checkpoint with {@link #setResumeFrom(Instant)}.
+ * </p>
+ * 
+ * @author Steven Paligo
+ * @param <T> The type of the query fields
+ * @param <R> The type of the query results
+ */
+@Slf4j
+public class PartitionedQuery<T extends QueryField, R> {
+
+  /**
+   * How the range is divided into windows
+   * 
+   * @author Steven Paligo
+   */
+  @Getter
+  public static class WindowSizing {
+
+    private final Duration initialSize;
+    private final Duration minSize;
+    private final Duration maxSize;
+
+    /**
+     * The number of results to aim for in each window, or zero if the windows are a fixed size
+     */
+    private final int targetResults;
+
+
+    private WindowSizing(Duration initialSize, Duration minSize, Duration maxSize, int targetResults) {
+
+      this.initialSize = initialSize;
+      this.minSize = minSize;
+      this.maxSize = maxSize;
+      this.targetResults = targetResults;
+    }
+
+
+    /**
+     * Creates windows of the same size (the last window may be shorter)
+     * 
+     * @param size The non-null size of each window (must be at least one millisecond)
+     * @return The window sizing
+     */
+    public static WindowSizing fixed(@NonNull Duration size) {
+
+      // more validation
+      if (size.compareTo(Duration.ofMillis(1)) < 0) {
+
+        throw new IllegalArgumentException("The size parameter is less than one millisecond: " + size);
+      }
+
+
+      return new WindowSizing(size, size, size, 0);
+    }
+
+
+    /**
+     * Creates windows sized by the density of the results seen so far, aiming for a number of results in each window
+     * 
+     * @param targetResults The number of results to aim for in each window (must be positive)
+     * @param initialSize The non-null size of the windows queried before any results have been seen (must be between the minimum and maximum sizes)
+     * @param minSize The non-null minimum window size (must be at least one millisecond)
+     * @param maxSize The non-null maximum window size (must be at least the minimum size)
+     * @return The window sizing
+     */
+    public static WindowSizing adaptive(int targetResults, @NonNull Duration initialSize, @NonNull Duration minSize, @NonNull Duration maxSize) {
+
+      // more validation
+      if (targetResults <= 0) {
+
+        throw new IllegalArgumentException("The targetResults parameter is not positive: " + targetResults);
+
+      } else if (minSize.compareTo(Duration.ofMillis(1)) < 0) {
+
+        throw new IllegalArgumentException("The minSize parameter is less than one millisecond: " + minSize);
+
+      } else if (maxSize.compareTo(minSize) < 0) {
+
+        throw new IllegalArgumentException("The maxSize parameter is less than the minimum size: " + maxSize);
+
+      } else if (initialSize.compareTo(minSize) < 0 || initialSize.compareTo(maxSize) > 0) {
+
+        throw new IllegalArgumentException("The initialSize parameter is not between the minimum and maximum sizes: " + initialSize);
+      }
+
+
+      return new WindowSizing(initialSize, minSize, maxSize, targetResults);
+    }
+
+
+    /**
+     * Gets the size of the next window
+     * 
+     * @param observedResults The number of results in the windows completed so far
+     * @param observedSpan The total size of the windows completed so far
+     * @return The size of the next window
+     */
+    Duration getNextSize(long observedResults, Duration observedSpan) {
+
+      if (targetResults == 0 || observedSpan.isZero()) {
+
+        return initialSize;
+
+      } else if (observedResults == 0L) {
+
+        return maxSize;
+      }
+
+
+      // scale the window so the expected number of results is the target
+      double millis = (double) observedSpan.toMillis() * targetResults / observedResults;
+      Duration size = Duration.ofMillis((long) Math.min(millis, Long.MAX_VALUE));
+
+      if (size.compareTo(minSize) < 0) {
+
+        return minSize;
+
+      } else if (size.compareTo(maxSize) > 0) {
+
+        return maxSize;
+      }
+
+      return size;
+    }
+  }
+
+
+  /**
+   * Receives the results of each window, in order
+   * 
+   * @author Steven Paligo
+   * @param <R> The type of the query results
+   */
+  @FunctionalInterface
+  public static interface WindowListener<R> {
+
+    /**
+     * Called when a window's results are ready and the results of all earlier windows have been delivered
+     * 
+     * @param windowStart The start of the window (inclusive)
+     * @param windowEnd The end of the window (exclusive, except for the last window), which is a checkpoint that execution can be resumed from
+     * @param results The window's results, sorted by the date field
+     * @throws IOException The results were unable to be processed, which stops the execution
+     */
+    public void onWindowCompleted(Instant windowStart, Instant windowEnd, List<R> results) throws IOException;
+  }
+
+
+  /**
+   * Sends a window's query (replaceable for testing)
+   */
+  @FunctionalInterface
+  static interface WindowExecutor<R> {
+
+    public List<R> execute(CompiledQuery<R> query) throws IOException;
+  }
+
+
+  private final Query<T, R, ?> query;
+  private final T dateField;
+  private final Predicate<T> range;
+  @Getter(AccessLevel.PACKAGE)
+  private final Instant start;
+
+  @Getter(AccessLevel.PACKAGE)
+  private final Instant end;
+
+  private WindowSizing windowSizing = WindowSizing.fixed(Duration.ofDays(30));
+  private int parallelism = 4;
+  private Optional<Instant> resumeFrom = Optional.empty();
+
+  @Setter(AccessLevel.PACKAGE)
+  private WindowExecutor<R> windowExecutor = CompiledQuery::execute;
+
+
+  /**
+   * Creates a partitioned query. The query is copied, so changing it afterwards has no effect on the partitioned query.
+   * 
+   * @param query A non-null query containing an {@link InclusiveRange} predicate over the date field with dates as its values (not
+   *        {@link com.stevenpaligo.spacetrack.client.predicate.CurrentDateTimeOffset}s), and without a limit
+   * @param dateField The non-null date field to partition on
+   */
+  @SuppressWarnings("unchecked")
+  public PartitionedQuery(@NonNull Query<T, R, ?> query, @NonNull T dateField) {
+
+    this.query = query.copy();
+    this.dateField = dateField;
+
+
+    // find the range
+    InclusiveRange<T> dateRange = null;
+
+    for (Predicate<T> predicate : this.query.getPredicates()) {
+
+      if (predicate instanceof InclusiveRange && ((InclusiveRange<T>) predicate).getField().getQueryFieldName().equals(dateField.getQueryFieldName())) {
+
+        dateRange = (InclusiveRange<T>) predicate;
+        break;
+      }
+    }
+
+
+    // more validation
+    if (dateRange == null) {
+
+      throw new IllegalArgumentException("The query doesn't have an inclusive range over " + dateField.getQueryFieldName());
+
+    } else if (this.query.getLimit().isPresent()) {
+
+      throw new IllegalArgumentException("A query with a limit can't be partitioned");
+    }
+
+    try {
+
+      this.start = SpaceTrackDateTimeFormatter.parse(dateRange.getLowerValue()).toInstant();
+      this.end = SpaceTrackDateTimeFormatter.parse(dateRange.getUpperValue()).toInstant();
+
+    } catch (DateTimeParseException e) {
+
+      throw new IllegalArgumentException("The range over " + dateField.getQueryFieldName() + " doesn't have dates as its values: " + dateRange.toQueryParameter(), e);
+    }
+
+    if (start.isAfter(end)) {
+
+      throw new IllegalArgumentException("The range over " + dateField.getQueryFieldName() + " is empty: " + dateRange.toQueryParameter());
+    }
+
+
+    this.range = dateRange;
+  }
+
+
+  /**
+   * Sets how the range is divided into windows. By default, the windows are 30 days long.
+   * 
+   * @param windowSizing The non-null window sizing
+   * @return This partitioned query, for use in the builder pattern
+   */
+  public PartitionedQuery<T, R> setWindowSizing(@NonNull WindowSizing windowSizing) {
+
+    this.windowSizing = windowSizing;
+    return this;
+  }
+
+
+  /**
+   * Divides the range into a number of windows of the same size
+   * 
+   * @param windowCount The number of windows (must be positive)
+   * @return This partitioned query, for use in the builder pattern
+   */
+  public PartitionedQuery<T, R> setWindowCount(int windowCount) {
+
+    // more validation
+    if (windowCount <= 0) {
+
+      throw new IllegalArgumentException("The windowCount parameter is not positive: " + windowCount);
+    }
+
+
+    long windowMillis = (Duration.between(start, end).toMillis() + windowCount - 1) / windowCount; // round up so there are no extra windows
+    return setWindowSizing(WindowSizing.fixed(Duration.ofMillis(Math.max(windowMillis, 1L))));
+  }
+
+
+  /**
+   * Sets the maximum number of windows that are queried at the same time. The default is 4.
+   * 
+   * @param parallelism The number of windows (must be positive)
+   * @return This partitioned query, for use in the builder pattern
+   */
+  public PartitionedQuery<T, R> setParallelism(int parallelism) {
+
+    // more validation
+    if (parallelism <= 0) {
+
+      throw new IllegalArgumentException("The parallelism parameter is not positive: " + parallelism);
+    }
+
+
+    this.parallelism = parallelism;
+    return this;
+  }
+
+
+  /**
+   * Sets a checkpoint to resume from, which skips the part of the range before it
+   * 
+   * @param resumeFrom The non-null checkpoint (the end of the last window that was delivered), if any
+   * @return This partitioned query, for use in the builder pattern
+   */
+  public PartitionedQuery<T, R> setResumeFrom(@NonNull Optional<Instant> resumeFrom) {
+
+    this.resumeFrom = resumeFrom;
+    return this;
+  }
+
+
+  /**
+   * Sets a checkpoint to resume from, which skips the part of the range before it
+   * 
+   * @param resumeFrom The non-null checkpoint (the end of the last window that was delivered)
+   * @return This partitioned query, for use in the builder pattern
+   */
+  public PartitionedQuery<T, R> setResumeFrom(@NonNull Instant resumeFrom) {
+
+    return setResumeFrom(Optional.of(resumeFrom));
+  }
+
+
+  /**
+   * Executes the windows' queries and returns all of the results
+   * 
+   * @return The results of every window, in order
+   * @throws IOException A window was unable to be queried successfully
+   */
+  public List<R> execute() throws IOException {
+
+    List<R> results = new ArrayList<>();
+    execute((windowStart, windowEnd, windowResults) -> results.addAll(windowResults));
+
+    return results;
+  }
+
+
+  /**
+   * Executes the windows' queries, delivering each window's results to a listener as soon as the results of the windows before it have been delivered
+   * 
+   * @param listener The non-null listener to deliver the results to
+   * @throws IOException A window was unable to be queried successfully, or the listener failed
+   */
+  public void execute(@NonNull WindowListener<R> listener) throws IOException {
+
+    // start after the checkpoint, if there is one
+    Instant windowStart = start;
+
+    if (resumeFrom.isPresent()) {
+
+      if (!resumeFrom.get().isBefore(end)) {
+
+        return; // everything has been delivered
+      }
+
+      if (resumeFrom.get().isAfter(start)) {
+
+        windowStart = resumeFrom.get().truncatedTo(ChronoUnit.MILLIS); // the query values only have millisecond precision
+      }
+    }
+
+
+    ExecutorService threads = Executors.newFixedThreadPool(parallelism, new DaemonThreadFactory("spacetrack-partitioned-query-"));
+
+    try {
+
+      CompletionService<List<R>> completionService = new ExecutorCompletionService<>(threads);
+      Map<Future<List<R>>, Window> windowsInProgress = new HashMap<>();
+      TreeMap<Integer, Window> completedWindows = new TreeMap<>();
+      int windowCount = 0;
+      int nextWindowToDeliver = 0;
+      long observedResults = 0L;
+      Duration observedSpan = Duration.ZERO;
+
+      while (true) {
+
+
+        // start windows until the parallelism is reached
+        while (windowStart != null && windowsInProgress.size() < parallelism) {
+
+          Instant windowEnd = windowStart.plus(windowSizing.getNextSize(observedResults, observedSpan));
+          boolean last = !windowEnd.isBefore(end);
+
+          Window window = new Window(windowCount++, windowStart, last ? end : windowEnd, last);
+          CompiledQuery<R> windowQuery = createWindowQuery(window.start, window.end, window.last);
+
+          log.debug("Querying window {} of the {} range: {}", window.index, dateField.getQueryFieldName(), windowQuery.getQueryString());
+          windowsInProgress.put(completionService.submit(() -> windowExecutor.execute(windowQuery)), window);
+
+          windowStart = last ? null : window.end;
+        }
+
+        if (windowsInProgress.isEmpty()) {
+
+          break;
+        }
+
+
+        // wait for a window to complete
+        Future<List<R>> future;
+
+        try {
+
+          future = completionService.take();
+
+        } catch (InterruptedException e) {
+
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while waiting for a window of the " + dateField.getQueryFieldName() + " range");
+        }
+
+        Window window = windowsInProgress.remove(future);
+        window.results = getResults(future);
+
+        observedResults += window.results.size();
+        observedSpan = observedSpan.plus(Duration.between(window.start, window.end));
+
+
+        // deliver the windows that are ready, in order
+        completedWindows.put(window.index, window);
+
+        while (!completedWindows.isEmpty() && completedWindows.firstKey() == nextWindowToDeliver) {
+
+          Window completedWindow = completedWindows.pollFirstEntry().getValue();
+          listener.onWindowCompleted(completedWindow.start, completedWindow.end, completedWindow.results);
+          nextWindowToDeliver++;
+        }
+      }
+
+
+    } finally {
+
+      threads.shutdownNow();
+    }
+  }
+
+
+  /**
+   * Creates the query for a window of the range
+   * 
+   * @param windowStart The start of the window (inclusive)
+   * @param windowEnd The end of the window (exclusive unless it is the last window)
+   * @param last Whether the window is the last one, which includes the end of the range
+   * @return The window's query
+   */
+  CompiledQuery<R> createWindowQuery(Instant windowStart, Instant windowEnd, boolean last) {
+
+    Query<T, R, ?> windowQuery = query.copy();
+
+
+    // replace the range with the window (windows include their start but not their end, except for the last window which includes the end of the range)
+    windowQuery.getPredicates().remove(range);
+    windowQuery.addPredicate(new InclusiveRange<>(dateField, windowStart, windowEnd));
+
+    if (!last) {
+
+      windowQuery.addPredicate(new LessThan<>(dateField, windowEnd));
+    }
+
+
+    // sort by the date field first
+    List<Sort<T>> sorts = new ArrayList<>(windowQuery.getSorts());
+    windowQuery.clearSorts().addSort(new Sort<>(dateField)).addSorts(sorts);
+
+
+    return windowQuery.compile();
+  }
+
+
+  private static <R> List<R> getResults(Future<List<R>> future) throws IOException {
+
+    try {
+
+      return future.get();
+
+    } catch (InterruptedException e) {
+
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while getting the results of a window");
+
+    } catch (ExecutionException e) {
+
+      if (e.getCause() instanceof IOException) {
+
+        throw (IOException) e.getCause();
+
+      } else if (e.getCause() instanceof RuntimeException) {
+
+        throw (RuntimeException) e.getCause();
+
+      } else {
+
+        throw new IOException("A window was unable to be queried", e.getCause());
+      }
+    }
+  }
+
+
+  private class Window {
+
+    private final int index;
+    private final Instant start;
+    private final Instant end;
+    private final boolean last;
+    private List<R> results;
+
+
+    Window(int index, Instant start, Instant end, boolean last) {
+
+      this.index = index;
+      this.start = start;
+      this.end = end;
+      this.last = last;
+    }
+  }
+}
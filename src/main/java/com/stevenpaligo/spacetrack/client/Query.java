@@ -14,31 +14,32 @@
 package com.stevenpaligo.spacetrack.client;
 
 import java.io.IOException;
-import java.io.OutputStream;
-import java.net.URL;
-import java.nio.charset.Charset;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import javax.net.ssl.HttpsURLConnection;
-import org.apache.commons.io.IOUtils;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 import org.threeten.extra.scale.TaiInstant;
 import org.threeten.extra.scale.UtcInstant;
 import com.fasterxml.jackson.core.JsonParseException;
-import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.google.json.JsonSanitizer;
 import com.stevenpaligo.spacetrack.client.credential.CredentialProvider;
 import com.stevenpaligo.spacetrack.client.credential.DefaultCredentialProvider;
+import com.stevenpaligo.spacetrack.client.diagnostics.ResponseDiagnostics;
+import com.stevenpaligo.spacetrack.client.exception.CircuitBreakerOpenException;
+import com.stevenpaligo.spacetrack.client.exception.SpaceTrackException;
+import com.stevenpaligo.spacetrack.client.execution.CircuitBreaker;
+import com.stevenpaligo.spacetrack.client.execution.HedgingPolicy;
+import com.stevenpaligo.spacetrack.client.execution.RateLimiter;
+import com.stevenpaligo.spacetrack.client.execution.RetryPolicy;
+import com.stevenpaligo.spacetrack.client.metrics.QueryMetrics;
 import com.stevenpaligo.spacetrack.client.predicate.Contains;
 import com.stevenpaligo.spacetrack.client.predicate.CurrentDateTimeOffset;
 import com.stevenpaligo.spacetrack.client.predicate.Equal;
@@ -52,10 +53,13 @@ import com.stevenpaligo.spacetrack.client.predicate.NotEqual;
 import com.stevenpaligo.spacetrack.client.predicate.Predicate;
 import com.stevenpaligo.spacetrack.client.predicate.StartsWith;
 import com.stevenpaligo.spacetrack.client.query.Limit;
+import com.stevenpaligo.spacetrack.client.query.PredicateOptimizer;
 import com.stevenpaligo.spacetrack.client.query.QueryField;
 import com.stevenpaligo.spacetrack.client.query.Sort;
+import com.stevenpaligo.spacetrack.client.util.SanitizationMode;
+import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.NonNull;
-import lombok.extern.slf4j.Slf4j;
 
 /**
  * Base class for querying from <a href="https://www.space-track.org/">Space-Track.org</a>. The class follows the builder pattern: the query is constructed using methods like
@@ -63,27 +67,56 @@ import lombok.extern.slf4j.Slf4j;
  * 
  * @author Steven Paligo
  */
-@Slf4j
 public abstract class Query<T extends QueryField, R, Q extends Query<T, R, Q>> {
 
-  private static final ObjectMapper jsonMapper;
-  private static final Charset charsetUtf8 = Charset.forName("UTF-8");
-
-
-  static {
-
-    // instantiate and configure the JSON mapper
-    jsonMapper = new ObjectMapper().registerModule(new Jdk8Module()).registerModule(new JavaTimeModule()).configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
-  }
-
-
+  @Getter(AccessLevel.PACKAGE)
   private String queryClass;
+
+  @Getter(AccessLevel.PACKAGE)
   private Class<R> resultType;
+
+  @Getter(AccessLevel.PACKAGE)
   private CredentialProvider credentials;
+
+  @Getter(AccessLevel.PACKAGE)
   private Collection<Predicate<T>> predicates = new LinkedList<>();
+
+  @Getter(AccessLevel.PACKAGE)
   private Optional<Limit> limit = Optional.empty();
+
+  @Getter(AccessLevel.PACKAGE)
   private List<Sort<T>> sorts = new LinkedList<>();
-  private Set<String> favorites = new HashSet<>();
+
+  private Set<String> favorites = new LinkedHashSet<>();
+
+  private boolean optimizePredicates = false;
+
+  @Getter(AccessLevel.PACKAGE)
+  private RetryPolicy retryPolicy = RetryPolicy.NONE;
+
+  @Getter(AccessLevel.PACKAGE)
+  private Optional<CircuitBreaker> circuitBreaker = Optional.empty();
+
+  @Getter(AccessLevel.PACKAGE)
+  private Optional<RateLimiter> rateLimiter = Optional.empty();
+
+  @Getter(AccessLevel.PACKAGE)
+  private Optional<HedgingPolicy> hedgingPolicy = Optional.empty();
+
+  @Getter(AccessLevel.PACKAGE)
+  private Optional<Duration> connectTimeout = Optional.empty();
+
+  @Getter(AccessLevel.PACKAGE)
+  private Optional<Duration> readTimeout = Optional.empty();
+
+  @Getter(AccessLevel.PACKAGE)
+  private QueryMetrics metrics = QueryMetrics.NO_OP;
+
+  @Getter(AccessLevel.PACKAGE)
+  private ResponseDiagnostics diagnostics = ResponseDiagnostics.DEFAULT;
+
+  @Getter(AccessLevel.PACKAGE)
+  private SanitizationMode sanitizationMode = SanitizationMode.STREAMING;
 
 
   public Query(@NonNull String queryClass, @NonNull Class<R> resultType) {
@@ -999,6 +1032,207 @@ public abstract class Query<T extends QueryField, R, Q extends Query<T, R, Q>> {
   }
 
 
+  /**
+   * Sets whether the predicates are simplified by a {@link PredicateOptimizer} before the query is sent. Redundant predicates are merged or removed, which shortens the URL, and if the predicates
+   * can't all be true at once the query returns no results without contacting Space-Track.org. This is off by default.
+   * 
+   * @param optimizePredicates True to simplify the predicates
+   * @return This query, for use in the builder pattern
+   */
+  @SuppressWarnings("unchecked")
+  public Q setOptimizePredicates(boolean optimizePredicates) {
+
+    this.optimizePredicates = optimizePredicates;
+    return (Q) this;
+  }
+
+
+  /**
+   * Sets how failed attempts to execute the query are retried. By default, the query is attempted once and never retried ({@link RetryPolicy#NONE}).
+   * 
+   * @param retryPolicy A non-null retry policy
+   * @return This query, for use in the builder pattern
+   */
+  @SuppressWarnings("unchecked")
+  public Q setRetryPolicy(@NonNull RetryPolicy retryPolicy) {
+
+    this.retryPolicy = retryPolicy;
+    return (Q) this;
+  }
+
+
+  /**
+   * Set or remove the query's circuit breaker, based on whether or not the {@link Optional} is empty
+   * 
+   * @param circuitBreaker A non-null {@link Optional} that may or may not contain a {@link CircuitBreaker} object
+   * @return This query, for use in the builder pattern
+   */
+  @SuppressWarnings("unchecked")
+  public Q setCircuitBreaker(@NonNull Optional<CircuitBreaker> circuitBreaker) {
+
+    this.circuitBreaker = circuitBreaker;
+    return (Q) this;
+  }
+
+
+  /**
+   * Set the query's circuit breaker. The same breaker should be shared by all of the queries that use the same Space-Track.org account.
+   * 
+   * @param circuitBreaker A non-null {@link CircuitBreaker} to set on the query
+   * @return This query, for use in the builder pattern
+   */
+  @SuppressWarnings("unchecked")
+  public Q setCircuitBreaker(@NonNull CircuitBreaker circuitBreaker) {
+
+    this.circuitBreaker = Optional.of(circuitBreaker);
+    return (Q) this;
+  }
+
+
+  /**
+   * Set or remove the query's rate limiter, based on whether or not the {@link Optional} is empty
+   * 
+   * @param rateLimiter A non-null {@link Optional} that may or may not contain a {@link RateLimiter} object
+   * @return This query, for use in the builder pattern
+   */
+  @SuppressWarnings("unchecked")
+  public Q setRateLimiter(@NonNull Optional<RateLimiter> rateLimiter) {
+
+    this.rateLimiter = rateLimiter;
+    return (Q) this;
+  }
+
+
+  /**
+   * Set the query's rate limiter. Every request sent for the query, including retries and hedges, takes a permit from it. The same rate limiter should be shared by all of the queries that use the same
+   * Space-Track.org account.
+   * 
+   * @param rateLimiter A non-null {@link RateLimiter} to set on the query
+   * @return This query, for use in the builder pattern
+   */
+  @SuppressWarnings("unchecked")
+  public Q setRateLimiter(@NonNull RateLimiter rateLimiter) {
+
+    this.rateLimiter = Optional.of(rateLimiter);
+    return (Q) this;
+  }
+
+
+  /**
+   * Set or remove the query's hedging policy, based on whether or not the {@link Optional} is empty
+   * 
+   * @param hedgingPolicy A non-null {@link Optional} that may or may not contain a {@link HedgingPolicy} object
+   * @return This query, for use in the builder pattern
+   */
+  @SuppressWarnings("unchecked")
+  public Q setHedgingPolicy(@NonNull Optional<HedgingPolicy> hedgingPolicy) {
+
+    this.hedgingPolicy = hedgingPolicy;
+    return (Q) this;
+  }
+
+
+  /**
+   * Set the query's hedging policy, which sends a second, identical request when the first one is slow. Hedging is intended for small, latency-sensitive queries such as a {@link LatestTleQuery} with
+   * {@link Limit#ONE}.
+   * 
+   * @param hedgingPolicy A non-null {@link HedgingPolicy} to set on the query
+   * @return This query, for use in the builder pattern
+   */
+  @SuppressWarnings("unchecked")
+  public Q setHedgingPolicy(@NonNull HedgingPolicy hedgingPolicy) {
+
+    this.hedgingPolicy = Optional.of(hedgingPolicy);
+    return (Q) this;
+  }
+
+
+  /**
+   * Set or remove the maximum time to wait while connecting to Space-Track.org, based on whether or not the {@link Optional} is empty. Without a timeout, a connection attempt may wait indefinitely.
+   * 
+   * @param connectTimeout A non-null {@link Optional} that may or may not contain a positive timeout
+   * @return This query, for use in the builder pattern
+   */
+  @SuppressWarnings("unchecked")
+  public Q setConnectTimeout(@NonNull Optional<Duration> connectTimeout) {
+
+    // more validation
+    if (connectTimeout.isPresent() && (connectTimeout.get().isNegative() || connectTimeout.get().isZero())) {
+
+      throw new IllegalArgumentException("The connectTimeout parameter is not positive: " + connectTimeout.get());
+    }
+
+
+    this.connectTimeout = connectTimeout;
+    return (Q) this;
+  }
+
+
+  /**
+   * Set or remove the maximum time to wait for data from Space-Track.org once connected, based on whether or not the {@link Optional} is empty. Without a timeout, a stalled response may wait
+   * indefinitely.
+   * 
+   * @param readTimeout A non-null {@link Optional} that may or may not contain a positive timeout
+   * @return This query, for use in the builder pattern
+   */
+  @SuppressWarnings("unchecked")
+  public Q setReadTimeout(@NonNull Optional<Duration> readTimeout) {
+
+    // more validation
+    if (readTimeout.isPresent() && (readTimeout.get().isNegative() || readTimeout.get().isZero())) {
+
+      throw new IllegalArgumentException("The readTimeout parameter is not positive: " + readTimeout.get());
+    }
+
+
+    this.readTimeout = readTimeout;
+    return (Q) this;
+  }
+
+
+  /**
+   * Sets where observations of the query's requests (per-phase timings, response sizes, result counts, and errors) are reported. By default, they are discarded ({@link QueryMetrics#NO_OP}).
+   * 
+   * @param metrics A non-null metrics sink, such as a {@link com.stevenpaligo.spacetrack.client.metrics.MicrometerQueryMetrics}
+   * @return This query, for use in the builder pattern
+   */
+  @SuppressWarnings("unchecked")
+  public Q setMetrics(@NonNull QueryMetrics metrics) {
+
+    this.metrics = metrics;
+    return (Q) this;
+  }
+
+
+  /**
+   * Sets what is kept from response bodies for troubleshooting: the size of the preview that is logged at debug level and, optionally, a sample of complete responses to copy to capture files. By
+   * default, a 1 KiB preview is kept and nothing is captured ({@link ResponseDiagnostics#DEFAULT}).
+   * 
+   * @param diagnostics Non-null response diagnostics settings
+   * @return This query, for use in the builder pattern
+   */
+  @SuppressWarnings("unchecked")
+  public Q setDiagnostics(@NonNull ResponseDiagnostics diagnostics) {
+
+    this.diagnostics = diagnostics;
+    return (Q) this;
+  }
+
+
+  /**
+   * Sets how the JSON in responses is checked and repaired before it is converted into result objects. The default is {@link SanitizationMode#STREAMING}.
+   * 
+   * @param sanitizationMode The non-null sanitization mode
+   * @return This query, for use in the builder pattern
+   */
+  @SuppressWarnings("unchecked")
+  public Q setSanitizationMode(@NonNull SanitizationMode sanitizationMode) {
+
+    this.sanitizationMode = sanitizationMode;
+    return (Q) this;
+  }
+
+
   /**
    * Gets the <a href="https://www.space-track.org/">Space-Track.org</a> URL that represents this query. This URL is the same as what will be generated by invoking {@link #execute()}.
    * 
@@ -1010,15 +1244,54 @@ public abstract class Query<T extends QueryField, R, Q extends Query<T, R, Q>> {
    */
   public String getQueryString() {
 
+    return buildQueryString(getEffectivePredicates().orElse(predicates).stream().map(Predicate::toQueryParameter).collect(Collectors.toList()), favorites);
+  }
+
+
+  /**
+   * Gets a key that identifies the results of this query, for use in caches and for recognizing duplicate requests. Queries that differ only in the order of their predicates, the order of the values
+   * in an {@link In} predicate, or the order of their favorites have the same key, because Space-Track.org returns the same results for them. Repeated predicates are also ignored. The order of the
+   * sorts is kept because it affects the order of the results.
+   * 
+   * <p>
+   * <strong>Note:</strong> Predicates using a {@link CurrentDateTimeOffset} are relative to the time the query is executed, so their results change over time even though the key doesn't.
+   * </p>
+   * 
+   * @return A non-null key in the form of a <a href="https://www.space-track.org/">Space-Track.org</a> URL
+   */
+  public String getCacheKey() {
+
+    return buildQueryString(getEffectivePredicates().orElse(predicates).stream().map(Predicate::toCanonicalQueryParameter).distinct().sorted().collect(Collectors.toList()), new TreeSet<>(favorites));
+  }
+
+
+  /**
+   * Gets the predicates that are sent to Space-Track.org, which have been simplified if predicate optimization is on
+   * 
+   * @return The predicates, or an empty optional if they have been optimized and can't all be true at once
+   */
+  Optional<Collection<Predicate<T>>> getEffectivePredicates() {
+
+    if (!optimizePredicates) {
+
+      return Optional.of(predicates);
+    }
+
+    return PredicateOptimizer.optimize(predicates).map(Collections::unmodifiableCollection);
+  }
+
+
+  private String buildQueryString(List<String> predicateParameters, Collection<String> favorites) {
+
     // query class
     StringBuilder builder = new StringBuilder("https://www.space-track.org/basicspacedata/query");
     builder.append("/class/").append(queryClass);
 
 
     // predicates
-    for (Predicate<T> predicate : predicates) {
+    for (String predicateParameter : predicateParameters) {
 
-      builder.append("/").append(predicate.toQueryParameter());
+      builder.append("/").append(predicateParameter);
     }
 
 
@@ -1058,106 +1331,87 @@ public abstract class Query<T extends QueryField, R, Q extends Query<T, R, Q>> {
 
 
   /**
-   * Executes the query against the <a href="https://www.space-track.org/">Space-Track.org</a> API and returns the results
+   * Creates a copy of this query that can be changed without affecting this query. Execution settings that coordinate between requests, such as a {@link RateLimiter} or a {@link CircuitBreaker},
+   * are shared with the copy rather than copied.
    * 
-   * @return The results from executing the query
-   * @throws JsonParseException Space-Track.org returned results that are unable to be parsed
-   * @throws JsonMappingException Space-Track.org returned unexpected fields in the results
-   * @throws IOException The Space-Track.org API was unable to be queried successfully
+   * @return A new query of the same type with the same settings
+   * @throws IllegalStateException The query's class doesn't have a public constructor without parameters
    */
-  public List<R> execute() throws JsonParseException, JsonMappingException, IOException {
-
-    // validate
-    if (credentials == null) {
-
-      throw new IllegalStateException("The credentials have not been set");
-    }
-
+  @SuppressWarnings("unchecked")
+  public Q copy() {
 
-    // execute the query
-    HttpsURLConnection connection = null;
-    OutputStream outputStream = null;
+    // create a new instance of the subclass
+    Query<T, R, Q> copy;
 
     try {
 
-      String userName = credentials.getUserName();
-      String queryString = getQueryString();
-      log.debug("Querying Space-Track (user: {}, query: {})", userName, queryString);
-
-
-      // connect to the Space-Track API
-      URL url = new URL("https://www.space-track.org/ajaxauth/login");
-
-      connection = (HttpsURLConnection) url.openConnection();
-      connection.setDoOutput(true);
-      connection.setRequestMethod("POST");
-      connection.addRequestProperty("Content-Type", "application/x-www-form-urlencoded");
-
-
-      // send the request (log in and query at the same time)
-      String request = "identity=" + userName + "&password=" + credentials.getPassword() + "&query=" + queryString;
-
-      outputStream = connection.getOutputStream();
-      outputStream.write(request.getBytes(charsetUtf8));
-      outputStream.flush();
-
-
-      // read the entire response
-      String response = IOUtils.toString(connection.getInputStream(), charsetUtf8);
-      log.debug("Space-Track response message: {}", connection.getResponseMessage());
-      log.debug("Space-Track response body: {}", response);
-
-      if (response.length() == 0) {
-
-        throw new IOException("Space-Track returned an empty response");
-      }
-
-      if (connection.getResponseCode() != HttpsURLConnection.HTTP_OK) {
-
-        throw new IOException("Space-Track returned an unsuccessful response: " + connection.getResponseMessage());
-      }
-
-      if (response.contains("Horribly Wrong")) { // currently Space-Track returns an HTML page when there is an error instead of using a proper HTTP response code - TODO: this is brittle
-
-        throw new IOException("Space-Track returned an unsuccessful response");
-      }
-
+      copy = getClass().getConstructor().newInstance();
 
-      // ensure the response is well-formed JSON
-      String wellFormedResponse = JsonSanitizer.sanitize(response);
+    } catch (ReflectiveOperationException e) {
 
-
-      // convert the response to a list of the return data type
-      JavaType listType = jsonMapper.getTypeFactory().constructCollectionType(List.class, resultType);
-      List<R> results = jsonMapper.readValue(wellFormedResponse, listType);
-
-      log.debug("Space-Track returned {} {} results", results.size(), queryClass);
+      throw new IllegalStateException("Unable to copy a query of type " + getClass().getName(), e);
+    }
 
 
-      return results;
+    // copy the settings
+    copy.queryClass = queryClass;
+    copy.resultType = resultType;
+    copy.credentials = credentials;
+    copy.predicates = new LinkedList<>(predicates);
+    copy.limit = limit;
+    copy.sorts = new LinkedList<>(sorts);
+    copy.favorites = new LinkedHashSet<>(favorites);
+    copy.optimizePredicates = optimizePredicates;
+    copy.retryPolicy = retryPolicy;
+    copy.circuitBreaker = circuitBreaker;
+    copy.rateLimiter = rateLimiter;
+    copy.hedgingPolicy = hedgingPolicy;
+    copy.connectTimeout = connectTimeout;
+    copy.readTimeout = readTimeout;
+    copy.metrics = metrics;
+    copy.diagnostics = diagnostics;
+    copy.sanitizationMode = sanitizationMode;
 
 
-    } finally {
+    return (Q) copy;
+  }
 
 
-      // clean up
-      try {
+  /**
+   * Freezes this query into an immutable, thread-safe {@link CompiledQuery} that can be executed repeatedly, including from many threads at the same time, without rebuilding the query string
+   * 
+   * @return A compiled snapshot of this query
+   * @throws IllegalStateException The credentials have not been set
+   */
+  public CompiledQuery<R> compile() {
 
-        outputStream.close();
+    // validate
+    if (credentials == null) {
 
-      } catch (Exception e) {
+      throw new IllegalStateException("The credentials have not been set");
+    }
 
-        log.error("An exception occurred while closing the Space-Track request stream", e);
-      }
 
-      try {
+    return new CompiledQuery<>(this);
+  }
 
-        connection.disconnect();
 
-      } catch (Exception e) {
+  /**
+   * Executes the query against the <a href="https://www.space-track.org/">Space-Track.org</a> API and returns the results. Failed attempts are retried according to the query's {@link RetryPolicy}.
+   * 
+   * <p>
+   * To execute the same query repeatedly, {@link #compile()} it once and execute the {@link CompiledQuery} instead.
+   * </p>
+   * 
+   * @return The results from executing the query
+   * @throws JsonParseException Space-Track.org returned results that are unable to be parsed
+   * @throws JsonMappingException Space-Track.org returned unexpected fields in the results
+   * @throws CircuitBreakerOpenException The query's {@link CircuitBreaker} is open, so Space-Track.org was not contacted
+   * @throws SpaceTrackException Space-Track.org was contacted but did not return a usable response
+   * @throws IOException The Space-Track.org API was unable to be queried successfully
+   */
+  public List<R> execute() throws JsonParseException, JsonMappingException, IOException {
 
-        log.error("An exception occurred while disconnecting from the Space-Track API", e);
-      }
-    }
+    return compile().execute();
   }
 }
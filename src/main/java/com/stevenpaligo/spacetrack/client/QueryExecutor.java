@@ -0,0 +1,433 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import javax.net.ssl.HttpsURLConnection;
+import org.apache.commons.io.IOUtils;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.json.JsonSanitizer;
+import com.stevenpaligo.spacetrack.client.credential.CredentialProvider;
+import com.stevenpaligo.spacetrack.client.diagnostics.DiagnosticInputStream;
+import com.stevenpaligo.spacetrack.client.diagnostics.ResponseDiagnostics;
+import com.stevenpaligo.spacetrack.client.exception.SpaceTrackResponseException;
+import com.stevenpaligo.spacetrack.client.execution.CancellationToken;
+import com.stevenpaligo.spacetrack.client.execution.HedgedExecutor;
+import com.stevenpaligo.spacetrack.client.execution.RateLimiter;
+import com.stevenpaligo.spacetrack.client.execution.RetryingExecutor;
+import com.stevenpaligo.spacetrack.client.metrics.QueryMetrics;
+import com.stevenpaligo.spacetrack.client.metrics.QueryObservation;
+import com.stevenpaligo.spacetrack.client.metrics.QueryPhase;
+import com.stevenpaligo.spacetrack.client.util.JsonSanitizingReader;
+import com.stevenpaligo.spacetrack.client.util.ResponseBodyReader;
+import com.stevenpaligo.spacetrack.client.util.SanitizationMode;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends query strings to <a href="https://www.space-track.org/">Space-Track.org</a> and converts the responses into result objects. Instances hold only the settings captured from a {@link Query} and
+ * can be used from any thread.
+ * 
+ * @author Steven Paligo
+ */
+@Slf4j
+class QueryExecutor<R> {
+
+  private static final ObjectMapper jsonMapper;
+  private static final Charset charsetUtf8 = Charset.forName("UTF-8");
+
+
+  static {
+
+    // instantiate and configure the JSON mapper
+    jsonMapper = new ObjectMapper().registerModule(new Jdk8Module()).registerModule(new JavaTimeModule()).configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+  }
+
+
+  private final String queryClass;
+  private final JavaType listType;
+  private final CredentialProvider credentials;
+  private final RetryingExecutor retryingExecutor;
+  private final Optional<RateLimiter> rateLimiter;
+  private final Optional<HedgedExecutor> hedgedExecutor;
+  private final Optional<Duration> connectTimeout;
+  private final Optional<Duration> readTimeout;
+  private final QueryMetrics metrics;
+  private final ResponseDiagnostics diagnostics;
+  private final SanitizationMode sanitizationMode;
+
+
+  /**
+   * Captures the execution settings of a query
+   * 
+   * @param query A non-null query whose credentials have been set
+   */
+  QueryExecutor(@NonNull Query<?, R, ?> query) {
+
+    this.queryClass = query.getQueryClass();
+    this.listType = jsonMapper.getTypeFactory().constructCollectionType(List.class, query.getResultType());
+    this.credentials = query.getCredentials();
+    this.retryingExecutor = new RetryingExecutor(query.getRetryPolicy(), query.getCircuitBreaker());
+    this.rateLimiter = query.getRateLimiter();
+    this.hedgedExecutor = query.getHedgingPolicy().map(hedgingPolicy -> new HedgedExecutor(hedgingPolicy, query.getRateLimiter()));
+    this.connectTimeout = query.getConnectTimeout();
+    this.readTimeout = query.getReadTimeout();
+    this.metrics = query.getMetrics();
+    this.diagnostics = query.getDiagnostics();
+    this.sanitizationMode = query.getSanitizationMode();
+  }
+
+
+  /**
+   * Executes a query string, retrying according to the retry policy
+   * 
+   * @param queryString The non-null query URL
+   * @return The results from executing the query
+   * @throws IOException The Space-Track.org API was unable to be queried successfully
+   */
+  List<R> execute(@NonNull String queryString) throws IOException {
+
+    return execute(queryString, this::bind);
+  }
+
+
+  /**
+   * Executes a query string and saves the JSON response to a file instead of converting it, retrying according to the retry policy. Each request writes to its own temporary file, which replaces
+   * the target file only once the whole response has been read.
+   * 
+   * @param queryString The non-null query URL
+   * @param file The non-null file to save the response to
+   * @throws IOException The Space-Track.org API was unable to be queried successfully, or the file was unable to be written
+   */
+  void download(@NonNull String queryString, @NonNull Path file) throws IOException {
+
+    Path directory = file.toAbsolutePath().getParent();
+
+    execute(queryString, (reader, observation, bytesRead) -> {
+
+      Path partFile = Files.createTempFile(directory, file.getFileName().toString() + ".", ".part");
+
+      try {
+
+        try (Writer writer = Files.newBufferedWriter(partFile, charsetUtf8)) {
+
+          IOUtils.copy(sanitize(reader, observation), writer);
+        }
+
+        Files.move(partFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        observation.addBytesReceived(bytesRead.getAsLong());
+        observation.succeed();
+
+        return null;
+
+      } finally {
+
+        Files.deleteIfExists(partFile);
+      }
+    });
+  }
+
+
+  /**
+   * Converts a response that was saved by {@link #download(String, Path)}
+   * 
+   * @param reader The non-null saved response
+   * @return The results in the response
+   * @throws IOException The response was unable to be converted
+   */
+  List<R> parse(@NonNull Reader reader) throws IOException {
+
+    return jsonMapper.readValue(reader, listType);
+  }
+
+
+  private <V> V execute(String queryString, ResponseHandler<V> responseHandler) throws IOException {
+
+    return retryingExecutor.execute(() -> {
+
+      // every request counts against the rate limits (hedges take their own permits)
+      Duration rateLimitWait = rateLimiter.isPresent() ? rateLimiter.get().acquire() : Duration.ZERO;
+
+      if (hedgedExecutor.isPresent()) {
+
+        AtomicReference<Duration> unreportedRateLimitWait = new AtomicReference<>(rateLimitWait); // reported by the first request only
+        return hedgedExecutor.get().execute(queryClass, cancellationToken -> executeOnce(queryString, cancellationToken, unreportedRateLimitWait.getAndSet(Duration.ZERO), responseHandler));
+      }
+
+      return executeOnce(queryString, new CancellationToken(), rateLimitWait, responseHandler);
+    });
+  }
+
+
+  private <V> V executeOnce(String queryString, CancellationToken cancellationToken, Duration rateLimitWait, ResponseHandler<V> responseHandler) throws IOException {
+
+    QueryObservation observation = new QueryObservation(queryClass, queryString);
+    observation.recordPhase(QueryPhase.RATE_LIMIT_WAIT, rateLimitWait);
+
+    HttpsURLConnection connection = null;
+    OutputStream outputStream = null;
+
+    try {
+
+      String userName = credentials.getUserName();
+      log.debug("Querying Space-Track (user: {}, query: {})", userName, queryString);
+
+
+      // connect to the Space-Track API
+      observation.beginPhase(QueryPhase.CONNECT);
+      URL url = new URL("https://www.space-track.org/ajaxauth/login");
+
+      connection = (HttpsURLConnection) url.openConnection();
+      cancellationToken.onCancel(connection::disconnect);
+      connection.setDoOutput(true);
+      connection.setRequestMethod("POST");
+      connection.addRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+
+      if (connectTimeout.isPresent()) {
+
+        connection.setConnectTimeout((int) Math.min(connectTimeout.get().toMillis(), Integer.MAX_VALUE));
+      }
+
+      if (readTimeout.isPresent()) {
+
+        connection.setReadTimeout((int) Math.min(readTimeout.get().toMillis(), Integer.MAX_VALUE));
+      }
+
+      connection.connect();
+
+
+      // send the request (log in and query at the same time)
+      observation.beginPhase(QueryPhase.SEND_REQUEST);
+      String request = "identity=" + userName + "&password=" + credentials.getPassword() + "&query=" + queryString;
+
+      outputStream = connection.getOutputStream();
+      outputStream.write(request.getBytes(charsetUtf8));
+      outputStream.flush();
+
+
+      // check the status before reading the body, since error statuses have no regular body
+      observation.beginPhase(QueryPhase.TIME_TO_FIRST_BYTE);
+      int responseCode = connection.getResponseCode();
+      log.debug("Space-Track response message: {}", connection.getResponseMessage());
+
+      if (responseCode != HttpsURLConnection.HTTP_OK) {
+
+        throw new SpaceTrackResponseException(responseCode, "Space-Track returned an unsuccessful response: " + responseCode + " " + connection.getResponseMessage(),
+            parseRetryAfter(connection.getHeaderField("Retry-After")));
+      }
+
+
+      // stream the response into the handler once it's clear the response contains results (reading begins with the download phase and continues through binding)
+      observation.beginPhase(QueryPhase.DOWNLOAD);
+      V result;
+
+      try (DiagnosticInputStream inputStream = diagnostics.wrap(queryClass, connection.getInputStream())) {
+
+        try (Reader reader = ResponseBodyReader.open(inputStream, Optional.ofNullable(connection.getContentType()))) {
+
+          result = responseHandler.handle(reader, observation, inputStream::getBytesRead);
+
+        } catch (IOException | RuntimeException e) {
+
+          // a successful handler counts the bytes itself, before it ends the observation
+          observation.addBytesReceived(inputStream.getBytesRead());
+          throw e;
+
+        } finally {
+
+          if (log.isDebugEnabled()) {
+
+            log.debug("Space-Track response body ({} bytes{}): {}", inputStream.getBytesRead(), inputStream.isPreviewTruncated() ? ", truncated" : "", inputStream.getPreview());
+          }
+        }
+      }
+
+      return result;
+
+
+    } catch (IOException | RuntimeException e) {
+
+      observation.fail(e);
+      throw e;
+
+
+    } finally {
+
+
+      // report what happened
+      try {
+
+        metrics.record(observation);
+
+      } catch (Exception e) {
+
+        log.error("An exception occurred while recording Space-Track query metrics", e);
+      }
+
+
+      // clean up
+      if (outputStream != null) {
+
+        try {
+
+          outputStream.close();
+
+        } catch (Exception e) {
+
+          log.error("An exception occurred while closing the Space-Track request stream", e);
+        }
+      }
+
+      if (connection != null) {
+
+        try {
+
+          connection.disconnect();
+
+        } catch (Exception e) {
+
+          log.error("An exception occurred while disconnecting from the Space-Track API", e);
+        }
+      }
+    }
+  }
+
+
+  /**
+   * Converts a response body to a list of the return data type, ensuring it is well-formed JSON along the way
+   */
+  List<R> bind(Reader reader, QueryObservation observation, LongSupplier bytesRead) throws IOException {
+
+    List<R> results;
+
+    if (sanitizationMode == SanitizationMode.FULL_BODY) {
+
+      String response = IOUtils.toString(reader);
+
+      observation.beginPhase(QueryPhase.SANITIZE);
+      String wellFormedResponse = JsonSanitizer.sanitize(response);
+
+      observation.beginPhase(QueryPhase.BIND);
+      results = jsonMapper.readValue(wellFormedResponse, listType);
+
+    } else {
+
+      // with streaming sanitization, repairs happen as the parser reads, so they are timed as part of binding
+      observation.beginPhase(QueryPhase.BIND);
+      results = jsonMapper.readValue(sanitize(reader, observation), listType);
+    }
+
+    log.debug("Space-Track returned {} {} results", results.size(), queryClass);
+    observation.addBytesReceived(bytesRead.getAsLong());
+    observation.succeed(results.size());
+
+    return results;
+  }
+
+
+  /**
+   * Ensures a response body is well-formed JSON according to the sanitization mode
+   */
+  private Reader sanitize(Reader reader, QueryObservation observation) throws IOException {
+
+    switch (sanitizationMode) {
+
+      case STRICT:
+
+        return reader;
+
+
+      case FULL_BODY:
+
+        String response = IOUtils.toString(reader);
+
+        observation.beginPhase(QueryPhase.SANITIZE);
+        return new StringReader(JsonSanitizer.sanitize(response));
+
+
+      default:
+
+        return new JsonSanitizingReader(reader);
+    }
+  }
+
+
+  /**
+   * Handles the body of a successful response. A handler that succeeds adds the bytes read so far to the observation before ending it, since ending it commits the Flight Recorder event.
+   */
+  @FunctionalInterface
+  private static interface ResponseHandler<V> {
+
+    public V handle(Reader reader, QueryObservation observation, LongSupplier bytesRead) throws IOException;
+  }
+
+
+  /**
+   * Parses the value of a <code>Retry-After</code> header, which is either a number of seconds or an HTTP date
+   * 
+   * @param headerValue The header value, or null if the header was not sent
+   * @return The non-null duration to wait, if one could be determined
+   */
+  static Optional<Duration> parseRetryAfter(String headerValue) {
+
+    if (headerValue == null || headerValue.trim().isEmpty()) {
+
+      return Optional.empty();
+    }
+
+
+    String value = headerValue.trim();
+
+    try {
+
+      return Optional.of(Duration.ofSeconds(Math.max(0L, Long.parseLong(value))));
+
+    } catch (NumberFormatException e) {
+
+      // not a number of seconds, so it should be a date
+    }
+
+    try {
+
+      Duration untilDate = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+      return Optional.of(untilDate.isNegative() ? Duration.ZERO : untilDate);
+
+    } catch (DateTimeParseException e) {
+
+      log.debug("Ignoring an unparseable Retry-After header: {}", value);
+      return Optional.empty();
+    }
+  }
+}
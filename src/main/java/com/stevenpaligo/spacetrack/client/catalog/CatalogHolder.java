@@ -0,0 +1,201 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.catalog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import com.stevenpaligo.spacetrack.client.CompiledQuery;
+import com.stevenpaligo.spacetrack.client.OrbitMeanElementsMessageQuery;
+import com.stevenpaligo.spacetrack.client.OrbitMeanElementsMessageQuery.OrbitMeanElementsMessage;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds the latest catalog from an {@link OrbitMeanElementsMessageQuery} for readers that must never wait for a refresh. Each refresh builds a complete new {@link CatalogSnapshot} off to the side
+ * and then publishes it with a single reference swap, so readers never lock, never see a partly refreshed catalog, and keep a consistent view for as long as they hold on to a snapshot. An old
+ * snapshot is garbage collected once the last reader holding it lets go.
+ *
+ * <p>
+ * Refreshes run in the calling thread or in the background with {@link #refreshAsync(Executor)}. The query runs without holding any lock, and its results are then published like any other, so
+ * refreshes started at the same time each publish when their query finishes. Run them from one thread (for example with a single-threaded executor) if they must be published in the order they
+ * were started. Results obtained elsewhere (for example from a {@link com.stevenpaligo.spacetrack.client.scheduling.PollingScheduler} subscription) can be published directly with
+ * {@link #publish(Collection)}.
+ * </p>
+ *
+ * <pre>
+ * CatalogHolder holder = new CatalogHolder(new OrbitMeanElementsMessageQuery().setCredentials(credentials).equal(OrbitMeanElementsMessageQueryField.DECAYED, false));
+ * holder.refresh();
+ *
+ * CatalogSnapshot snapshot = holder.getSnapshot();
+ * snapshot.get(25544).ifPresent(iss -&gt; ...);
+ * </pre>
+ *
+ * @author Steven Paligo
+ */
+@Slf4j
+public class CatalogHolder {
+
+  /**
+   * Receives each snapshot after it is published
+   *
+   * @author Steven Paligo
+   */
+  @FunctionalInterface
+  public static interface CatalogListener {
+
+    public void onCatalogPublished(CatalogSnapshot previous, CatalogSnapshot current);
+  }
+
+
+  /**
+   * Sends a refresh's query (replaceable for testing)
+   */
+  @FunctionalInterface
+  static interface MessageFetcher {
+
+    public List<OrbitMeanElementsMessage> fetch(CompiledQuery<OrbitMeanElementsMessage> query) throws IOException;
+  }
+
+
+  private final CompiledQuery<OrbitMeanElementsMessage> query;
+  private final List<CatalogListener> listeners = new CopyOnWriteArrayList<>();
+  private final Object publishLock = new Object();
+  private volatile CatalogSnapshot snapshot = CatalogSnapshot.empty();
+
+  @Setter(AccessLevel.PACKAGE)
+  private MessageFetcher fetcher = CompiledQuery::execute;
+
+
+  /**
+   * Creates a holder with an empty catalog. The query is compiled, so changing it afterwards has no effect.
+   *
+   * @param query The non-null query, with credentials
+   */
+  public CatalogHolder(@NonNull OrbitMeanElementsMessageQuery query) {
+
+    this.query = query.compile();
+  }
+
+
+  public CatalogHolder addListener(@NonNull CatalogListener listener) {
+
+    listeners.add(listener);
+
+    return this;
+  }
+
+
+  public CatalogHolder removeListener(@NonNull CatalogListener listener) {
+
+    listeners.remove(listener);
+
+    return this;
+  }
+
+
+  /**
+   * Gets the current snapshot. Readers that make several lookups should get the snapshot once and use it for all of them.
+   *
+   * @return The snapshot, which is empty (with generation zero) until the first refresh
+   */
+  public CatalogSnapshot getSnapshot() {
+
+    return snapshot;
+  }
+
+
+  /**
+   * Gets the latest message for an object from the current snapshot
+   *
+   * @param catalogNumber The object's NORAD catalog number
+   * @return The message, or empty if the object isn't in the catalog
+   */
+  public Optional<OrbitMeanElementsMessage> get(int catalogNumber) {
+
+    return snapshot.get(catalogNumber);
+  }
+
+
+  /**
+   * Runs the query and publishes its results as the new catalog. Readers keep using the current snapshot until the new one is complete.
+   *
+   * @return The new snapshot
+   * @throws IOException The query failed, in which case the current snapshot is kept
+   */
+  public CatalogSnapshot refresh() throws IOException {
+
+    return publish(fetcher.fetch(query));
+  }
+
+
+  /**
+   * Runs {@link #refresh()} in the background
+   *
+   * @param executor The non-null executor to run the refresh in
+   * @return A future that completes with the new snapshot, or exceptionally with an {@link UncheckedIOException} if the query failed
+   */
+  public CompletableFuture<CatalogSnapshot> refreshAsync(@NonNull Executor executor) {
+
+    return CompletableFuture.supplyAsync(() -> {
+
+      try {
+
+        return refresh();
+
+      } catch (IOException e) {
+
+        log.warn("Refreshing the catalog failed", e);
+        throw new UncheckedIOException(e);
+      }
+
+    }, executor);
+  }
+
+
+  /**
+   * Publishes results obtained elsewhere as the new catalog. Messages without a catalog number are ignored, and when an object has several messages the one with the latest epoch is kept. The
+   * listeners are called after the snapshot is swapped in, without holding any lock.
+   *
+   * @param results The non-null results of an Orbit Mean-Elements Message query, which must not be modified afterwards
+   * @return The new snapshot
+   */
+  public CatalogSnapshot publish(@NonNull Collection<OrbitMeanElementsMessage> results) {
+
+    CatalogSnapshot previous;
+    CatalogSnapshot current;
+
+    synchronized (publishLock) {
+
+      previous = snapshot;
+      current = CatalogSnapshot.of(previous.getGeneration() + 1, Instant.now(), results);
+      snapshot = current;
+    }
+
+    for (CatalogListener listener : listeners) {
+
+      listener.onCatalogPublished(previous, current);
+    }
+
+    return current;
+  }
+}
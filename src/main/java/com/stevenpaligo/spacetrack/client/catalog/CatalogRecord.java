@@ -0,0 +1,90 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.catalog;
+
+import java.util.Optional;
+import com.stevenpaligo.spacetrack.client.LatestTleQuery.LatestTle;
+import com.stevenpaligo.spacetrack.client.history.ElementSet;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * One object's entry in a shared catalog file (see {@link SharedCatalogWriter}): its identity, its latest mean elements and the orbit sizes derived from them
+ *
+ * @author Steven Paligo
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class CatalogRecord {
+
+  /**
+   * The NORAD catalog number of the object
+   */
+  private final int catalogNumber;
+
+  /**
+   * The object's name, which is truncated to {@value SharedCatalogLayout#NAME_BYTES} bytes of UTF-8 when it is written to a shared catalog
+   */
+  @NonNull
+  private final String objectName;
+
+  /**
+   * The object's international designator, which is truncated to {@value SharedCatalogLayout#INTERNATIONAL_DESIGNATOR_BYTES} bytes when it is written to a shared catalog
+   */
+  @NonNull
+  private final String internationalDesignator;
+
+  @NonNull
+  private final ElementSet elements;
+
+  private final double periodMinutes;
+  private final double apogeeHeightKilometers;
+  private final double perigeeHeightKilometers;
+
+
+  /**
+   * Creates a record from a result of a {@link com.stevenpaligo.spacetrack.client.LatestTleQuery}
+   *
+   * @param tle A non-null TLE
+   * @return The record
+   * @throws IllegalArgumentException The TLE is missing its catalog number, epoch, one of the elements, or one of the orbit sizes
+   */
+  public static CatalogRecord of(@NonNull LatestTle tle) {
+
+    int catalogNumber = tle.getCatalogNumber().orElseThrow(() -> new IllegalArgumentException("The TLE has no catalog number"));
+    String objectName = Optional.ofNullable(tle.getObjectName()).orElse("");
+    String internationalDesignator = Optional.ofNullable(tle.getInternationalDesignator()).flatMap(designator -> designator).orElse("");
+    double periodMinutes = Optional.ofNullable(tle.getPeriodMinutes()).flatMap(period -> period).orElseThrow(() -> new IllegalArgumentException("The TLE has no period"));
+
+    return new CatalogRecord(catalogNumber, objectName, internationalDesignator, ElementSet.of(tle), periodMinutes, required(tle.getApogeeHeightKilometers(), "apogee height"),
+        required(tle.getPerigeeHeightKilometers(), "perigee height"));
+  }
+
+
+  private static double required(Double value, String name) {
+
+    if (value == null) {
+
+      throw new IllegalArgumentException("The TLE has no " + name);
+    }
+
+
+    return value;
+  }
+}
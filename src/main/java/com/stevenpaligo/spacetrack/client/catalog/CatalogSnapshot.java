@@ -0,0 +1,145 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.catalog;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import com.stevenpaligo.spacetrack.client.OrbitMeanElementsMessageQuery.OrbitMeanElementsMessage;
+import com.stevenpaligo.spacetrack.client.util.IntObjectMap;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * An immutable catalog of the latest Orbit Mean-Elements Message for each object, published by a {@link CatalogHolder}. A snapshot never changes, so a reader that makes several lookups in one
+ * snapshot sees a consistent catalog even while a refresh publishes a newer one.
+ *
+ * <p>
+ * The messages in a snapshot are shared with other snapshots and must not be modified.
+ * </p>
+ *
+ * @author Steven Paligo
+ */
+public class CatalogSnapshot {
+
+  private static final Comparator<OrbitMeanElementsMessage> BY_CATALOG_NUMBER = Comparator.comparing(message -> message.getCatalogNumber().get());
+
+  /**
+   * The number of the refresh that built this snapshot, which starts at one
+   */
+  @Getter
+  private final long generation;
+
+  /**
+   * The time this snapshot was published
+   */
+  @Getter
+  private final Instant publishedTime;
+
+  private final IntObjectMap<OrbitMeanElementsMessage> messages; // never modified once published
+  private final List<OrbitMeanElementsMessage> sortedMessages;
+
+
+  private CatalogSnapshot(long generation, Instant publishedTime, IntObjectMap<OrbitMeanElementsMessage> messages) {
+
+    this.generation = generation;
+    this.publishedTime = publishedTime;
+    this.messages = messages;
+
+    List<OrbitMeanElementsMessage> sortedMessages = messages.values();
+    sortedMessages.sort(BY_CATALOG_NUMBER);
+    this.sortedMessages = Collections.unmodifiableList(sortedMessages);
+  }
+
+
+  /**
+   * Creates an empty snapshot, which a holder publishes until its first refresh
+   */
+  static CatalogSnapshot empty() {
+
+    return new CatalogSnapshot(0L, Instant.EPOCH, new IntObjectMap<>());
+  }
+
+
+  /**
+   * Builds a snapshot from the results of a query. Messages without a catalog number are ignored, and when an object has several messages the one with the latest epoch is kept.
+   */
+  static CatalogSnapshot of(long generation, Instant publishedTime, @NonNull Collection<OrbitMeanElementsMessage> results) {
+
+    IntObjectMap<OrbitMeanElementsMessage> messages = new IntObjectMap<>(results.size());
+
+    for (OrbitMeanElementsMessage message : results) {
+
+      if (message == null || message.getCatalogNumber() == null || !message.getCatalogNumber().isPresent()) {
+        continue;
+      }
+
+      int catalogNumber = message.getCatalogNumber().get();
+      OrbitMeanElementsMessage previous = messages.get(catalogNumber);
+
+      if (previous == null || getEpoch(message).compareTo(getEpoch(previous)) >= 0) {
+        messages.put(catalogNumber, message);
+      }
+    }
+
+    return new CatalogSnapshot(generation, publishedTime, messages);
+  }
+
+
+  /**
+   * Gets an epoch that orders correctly as a string, since Space-Track formats epochs as ISO-8601 date-times
+   */
+  private static String getEpoch(OrbitMeanElementsMessage message) {
+
+    return (message.getEpoch() == null) ? "" : message.getEpoch().orElse("");
+  }
+
+
+  /**
+   * Gets the latest message for an object
+   *
+   * @param catalogNumber The object's NORAD catalog number
+   * @return The message, or empty if the object isn't in the catalog
+   */
+  public Optional<OrbitMeanElementsMessage> get(int catalogNumber) {
+
+    return Optional.ofNullable(messages.get(catalogNumber));
+  }
+
+
+  /**
+   * Gets every message in the catalog
+   *
+   * @return An unmodifiable list of the messages, in catalog number order
+   */
+  public List<OrbitMeanElementsMessage> getAll() {
+
+    return sortedMessages;
+  }
+
+
+  public boolean contains(int catalogNumber) {
+
+    return messages.containsKey(catalogNumber);
+  }
+
+
+  public int size() {
+
+    return messages.size();
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.catalog;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import com.stevenpaligo.spacetrack.client.SatCatQuery.SatCat;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A change to the satellite catalog, published by a {@link SatCatChangeFeed} after it has been applied to the {@link SatCatStore}
+ *
+ * @author Steven Paligo
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class SatCatChangeEvent {
+
+  /**
+   * Kinds of changes
+   *
+   * @author Steven Paligo
+   */
+  public static enum Type {
+
+    /**
+     * A new object was added to the catalog (from <code>satcat_debut</code>)
+     */
+    DEBUT,
+
+    /**
+     * An existing object's catalog entry was changed (from <code>satcat_change</code>)
+     */
+    CHANGE
+  }
+
+
+  /**
+   * Catalog fields reported by <code>satcat_change</code>
+   *
+   * @author Steven Paligo
+   */
+  public static enum Field {
+    NAME, INTERNATIONAL_DESIGNATOR, COUNTRY, LAUNCH_DATE, DECAY_DATE
+  }
+
+
+  private final Type type;
+
+  /**
+   * The NORAD catalog number of the object
+   */
+  private final int catalogNumber;
+
+  /**
+   * When Space-Track.org made the change (the debut time or the change time)
+   */
+  private final Instant time;
+
+  /**
+   * The object's record before the change, or empty if the object wasn't in the store
+   */
+  private final Optional<SatCat> previousRecord;
+
+  /**
+   * The object's record after the change, as it is now in the store
+   */
+  private final SatCat record;
+
+  /**
+   * The fields whose values changed, which is empty for debuts
+   */
+  private final Set<Field> changedFields;
+}
@@ -0,0 +1,590 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.catalog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import com.stevenpaligo.spacetrack.client.CompiledQuery;
+import com.stevenpaligo.spacetrack.client.SatCatChangeQuery;
+import com.stevenpaligo.spacetrack.client.SatCatChangeQuery.SatCatChange;
+import com.stevenpaligo.spacetrack.client.SatCatChangeQuery.SatCatChangeQueryField;
+import com.stevenpaligo.spacetrack.client.SatCatDebutQuery;
+import com.stevenpaligo.spacetrack.client.SatCatDebutQuery.SatCatDebut;
+import com.stevenpaligo.spacetrack.client.SatCatDebutQuery.SatCatDebutQueryField;
+import com.stevenpaligo.spacetrack.client.SatCatQuery.SatCat;
+import com.stevenpaligo.spacetrack.client.catalog.SatCatChangeEvent.Field;
+import com.stevenpaligo.spacetrack.client.catalog.SatCatChangeEvent.Type;
+import com.stevenpaligo.spacetrack.client.query.Sort;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps a {@link SatCatStore} up to date from <code>satcat_debut</code> (new objects) and <code>satcat_change</code> (changes to existing objects) instead of comparing full catalog downloads. Each
+ * call to {@link #poll()} fetches only the records newer than the feed's watermarks (the latest debut time and change time already applied), applies them to the store in time order, and publishes a
+ * typed event for each record that changed the store.
+ * 
+ * <p>
+ * The watermarks can be saved to a checkpoint file after every poll, so a restarted process continues where it left off. Applying a record twice has no effect, so a store that was filled from a
+ * full {@link com.stevenpaligo.spacetrack.client.SatCatQuery} after the checkpoint was written is brought up to date without duplicate events.
+ * </p>
+ * 
+ * @author Steven Paligo
+ */
+@Slf4j
+public class SatCatChangeFeed {
+
+  private static final String DEBUT_WATERMARK_PROPERTY = "debutWatermark";
+  private static final String DEBUT_KEYS_PROPERTY = "debutKeys";
+  private static final String CHANGE_WATERMARK_PROPERTY = "changeWatermark";
+  private static final String CHANGE_KEYS_PROPERTY = "changeKeys";
+  private static final String KEY_SEPARATOR = ",";
+
+
+  /**
+   * Receives the changes applied by each poll
+   * 
+   * @author Steven Paligo
+   */
+  @FunctionalInterface
+  public static interface SatCatChangeListener {
+
+    public void onSatCatChange(SatCatChangeEvent event);
+  }
+
+
+  /**
+   * Sends a poll's query (replaceable for testing)
+   */
+  @FunctionalInterface
+  static interface RecordFetcher<R> {
+
+    public List<R> fetch(CompiledQuery<R> query) throws IOException;
+  }
+
+
+  /**
+   * The latest time applied from a query and the records applied at exactly that time. The next poll asks for records at or after the time and skips the ones already applied, so records added
+   * with the same time after a poll aren't missed.
+   */
+  private static class Watermark {
+
+    private Instant time;
+    private final Set<String> keysAtTime = new HashSet<>();
+
+
+    private Watermark(Instant time) {
+
+      this.time = time;
+    }
+
+
+    /**
+     * Records a record, returning false if it was already applied
+     */
+    private boolean advance(Instant recordTime, String key) {
+
+      if (recordTime.isBefore(time)) {
+        return false;
+      }
+
+      if (recordTime.isAfter(time)) {
+
+        time = recordTime;
+        keysAtTime.clear();
+      }
+
+      return keysAtTime.add(key);
+    }
+  }
+
+
+  /**
+   * A debut or change record with its time, for applying both kinds in one sequence
+   */
+  private static class Delta {
+
+    private final Instant time;
+    private final SatCatDebut debut;
+    private final SatCatChange change;
+
+
+    private Delta(Instant time, SatCatDebut debut, SatCatChange change) {
+
+      this.time = time;
+      this.debut = debut;
+      this.change = change;
+    }
+  }
+
+
+  private final SatCatDebutQuery debutQuery;
+  private final SatCatChangeQuery changeQuery;
+  private final SatCatStore store;
+  private final List<SatCatChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+  private Duration lookback = Duration.ofDays(30);
+  private Optional<Path> checkpointFile = Optional.empty();
+  private Watermark debutWatermark = null;
+  private Watermark changeWatermark = null;
+
+  @Setter(AccessLevel.PACKAGE)
+  private RecordFetcher<SatCatDebut> debutFetcher = CompiledQuery::execute;
+
+  @Setter(AccessLevel.PACKAGE)
+  private RecordFetcher<SatCatChange> changeFetcher = CompiledQuery::execute;
+
+
+  /**
+   * Creates a feed. The queries may have predicates of their own, for example to follow only some countries, and are copied, so changing them afterwards has no effect. Their sorts and limits are
+   * replaced.
+   * 
+   * @param debutQuery The non-null debut query, with credentials
+   * @param changeQuery The non-null change query, with credentials
+   * @param store The non-null store that the changes are applied to
+   */
+  public SatCatChangeFeed(@NonNull SatCatDebutQuery debutQuery, @NonNull SatCatChangeQuery changeQuery, @NonNull SatCatStore store) {
+
+    this.debutQuery = debutQuery.copy().clearSorts().setLimit(Optional.empty()).addSort(new Sort<>(SatCatDebutQueryField.DEBUT_TIME));
+    this.changeQuery = changeQuery.copy().clearSorts().setLimit(Optional.empty()).addSort(new Sort<>(SatCatChangeQueryField.UPDATE_TIME));
+    this.store = store;
+  }
+
+
+  /**
+   * Sets how far back the first poll looks for changes when there is no checkpoint (the default is 30 days)
+   * 
+   * @param lookback The non-null, positive lookback
+   * @return This feed
+   * @throws IllegalStateException The feed has already been polled or loaded from a checkpoint
+   */
+  public synchronized SatCatChangeFeed setLookback(@NonNull Duration lookback) {
+
+    // more validation
+    if (lookback.isNegative() || lookback.isZero()) {
+
+      throw new IllegalArgumentException("The lookback must be positive");
+    }
+
+    if (debutWatermark != null) {
+
+      throw new IllegalStateException("The feed has already been polled or loaded from a checkpoint");
+    }
+
+
+    this.lookback = lookback;
+
+    return this;
+  }
+
+
+  /**
+   * Sets the file that the watermarks are saved to after every poll. If the file exists, the watermarks are loaded from it.
+   * 
+   * @param checkpointFile The non-null file, whose directory must exist
+   * @return This feed
+   * @throws IOException The file exists but is unable to be read
+   */
+  public synchronized SatCatChangeFeed setCheckpointFile(@NonNull Path checkpointFile) throws IOException {
+
+    this.checkpointFile = Optional.of(checkpointFile);
+
+    if (Files.exists(checkpointFile)) {
+
+      Properties checkpoint = new Properties();
+
+      try (InputStream inputStream = Files.newInputStream(checkpointFile)) {
+
+        checkpoint.load(inputStream);
+      }
+
+      debutWatermark = readWatermark(checkpointFile, checkpoint, DEBUT_WATERMARK_PROPERTY, DEBUT_KEYS_PROPERTY);
+      changeWatermark = readWatermark(checkpointFile, checkpoint, CHANGE_WATERMARK_PROPERTY, CHANGE_KEYS_PROPERTY);
+
+      log.debug("Resuming the SATCAT change feed from debuts at {} and changes at {}", debutWatermark.time, changeWatermark.time);
+    }
+
+    return this;
+  }
+
+
+  public SatCatChangeFeed addListener(@NonNull SatCatChangeListener listener) {
+
+    listeners.add(listener);
+
+    return this;
+  }
+
+
+  public SatCatChangeFeed removeListener(@NonNull SatCatChangeListener listener) {
+
+    listeners.remove(listener);
+
+    return this;
+  }
+
+
+  /**
+   * Gets the time of the latest debut applied to the store
+   * 
+   * @return The debut watermark, or empty if the feed hasn't been polled or loaded from a checkpoint
+   */
+  public synchronized Optional<Instant> getDebutWatermark() {
+
+    return Optional.ofNullable(debutWatermark).map(watermark -> watermark.time);
+  }
+
+
+  /**
+   * Gets the time of the latest change applied to the store
+   * 
+   * @return The change watermark, or empty if the feed hasn't been polled or loaded from a checkpoint
+   */
+  public synchronized Optional<Instant> getChangeWatermark() {
+
+    return Optional.ofNullable(changeWatermark).map(watermark -> watermark.time);
+  }
+
+
+  /**
+   * Fetches the debuts and changes made since the last poll, applies them to the store in time order, saves the checkpoint (if there is one), and then notifies the listeners
+   * 
+   * @return The changes that were applied, in time order
+   * @throws IOException The records were unable to be fetched, in which case nothing is applied, or the checkpoint was unable to be saved, in which case the changes have been applied but the
+   *         listeners haven't been notified
+   */
+  public synchronized List<SatCatChangeEvent> poll() throws IOException {
+
+    if (debutWatermark == null) {
+
+      Instant start = Instant.now().minus(lookback);
+
+      debutWatermark = new Watermark(start);
+      changeWatermark = new Watermark(start);
+    }
+
+
+    // fetch both kinds of records before applying anything
+    List<SatCatDebut> debuts = debutFetcher.fetch(debutQuery.copy().greaterThan(SatCatDebutQueryField.DEBUT_TIME, debutWatermark.time.minusSeconds(1)).compile());
+    List<SatCatChange> changes = changeFetcher.fetch(changeQuery.copy().greaterThan(SatCatChangeQueryField.UPDATE_TIME, changeWatermark.time.minusSeconds(1)).compile());
+
+
+    // merge the records into one sequence, with debuts before changes made at the same time
+    List<Delta> deltas = new ArrayList<>(debuts.size() + changes.size());
+
+    for (SatCatDebut debut : debuts) {
+
+      if (debut != null && debut.getCatalogNumber().isPresent() && debut.getDebutTime().isPresent()) {
+        deltas.add(new Delta(debut.getDebutTime().get().toInstant(), debut, null));
+      }
+    }
+
+    for (SatCatChange change : changes) {
+
+      if (change != null && change.getCatalogNumber().isPresent() && change.getUpdateTime().isPresent()) {
+        deltas.add(new Delta(change.getUpdateTime().get().toInstant(), null, change));
+      }
+    }
+
+    deltas.sort(Comparator.comparing((Delta delta) -> delta.time).thenComparing(delta -> delta.debut == null));
+
+
+    // apply them
+    List<SatCatChangeEvent> events = new ArrayList<>();
+
+    for (Delta delta : deltas) {
+
+      Optional<SatCatChangeEvent> event;
+
+      if (delta.debut != null) {
+
+        if (!debutWatermark.advance(delta.time, debutKey(delta.debut))) {
+          continue;
+        }
+
+        event = applyDebut(delta.time, delta.debut);
+
+      } else {
+
+        if (!changeWatermark.advance(delta.time, changeKey(delta.change))) {
+          continue;
+        }
+
+        event = applyChange(delta.time, delta.change);
+      }
+
+      event.ifPresent(events::add);
+    }
+
+    log.debug("SATCAT change feed poll: {} debuts, {} changes, {} events", debuts.size(), changes.size(), events.size());
+
+
+    // save the checkpoint and notify the listeners
+    if (checkpointFile.isPresent()) {
+      writeCheckpoint(checkpointFile.get());
+    }
+
+    for (SatCatChangeEvent event : events) {
+
+      for (SatCatChangeListener listener : listeners) {
+
+        listener.onSatCatChange(event);
+      }
+    }
+
+
+    return events;
+  }
+
+
+  private Optional<SatCatChangeEvent> applyDebut(Instant time, SatCatDebut debut) {
+
+    int catalogNumber = debut.getCatalogNumber().get();
+    Optional<SatCat> previous = store.get(catalogNumber);
+
+    // the store already has the record (e.g. from a full download made after the debut)
+    if (previous.isPresent()) {
+      return Optional.empty();
+    }
+
+    SatCat record = toSatCat(debut);
+    store.put(record);
+
+    return Optional.of(new SatCatChangeEvent(Type.DEBUT, catalogNumber, time, previous, record, Collections.emptySet()));
+  }
+
+
+  private Optional<SatCatChangeEvent> applyChange(Instant time, SatCatChange change) {
+
+    int catalogNumber = change.getCatalogNumber().get();
+    Optional<SatCat> previous = store.get(catalogNumber);
+
+    SatCat record;
+
+    if (previous.isPresent()) {
+
+      record = copy(previous.get());
+
+    } else {
+
+      record = new SatCat();
+      record.setCatalogNumber(change.getCatalogNumber());
+      record.setObjectNumber(change.getObjectNumber());
+    }
+
+
+    // apply the fields that differ
+    Set<Field> changedFields = EnumSet.noneOf(Field.class);
+
+    // the record carries the name and designator twice (SATNAME/OBJECT_NAME and INTLDES/OBJECT_ID), and both copies follow the change
+    if (change.getCurrentName() != null && !change.getCurrentName().equals(record.getSatName())) {
+
+      record.setSatName(change.getCurrentName());
+      record.setObjectName(change.getCurrentName());
+      changedFields.add(Field.NAME);
+    }
+
+    if (change.getCurrentInternationalDesignator() != null && !change.getCurrentInternationalDesignator().equals(record.getInternationalDesignator())) {
+
+      record.setInternationalDesignator(change.getCurrentInternationalDesignator());
+      record.setObjectId(change.getCurrentInternationalDesignator());
+      changedFields.add(Field.INTERNATIONAL_DESIGNATOR);
+    }
+
+    if (change.getCurrentCountry() != null && !change.getCurrentCountry().equals(record.getCountry())) {
+
+      record.setCountry(change.getCurrentCountry());
+      changedFields.add(Field.COUNTRY);
+    }
+
+    if (!Objects.equals(normalize(change.getCurrentLaunchDate()), normalize(record.getLaunchDate()))) {
+
+      record.setLaunchDate(normalize(change.getCurrentLaunchDate()));
+      changedFields.add(Field.LAUNCH_DATE);
+    }
+
+    if (!Objects.equals(normalize(change.getCurrentDecayDate()), normalize(record.getDecayDate()))) {
+
+      record.setDecayDate(normalize(change.getCurrentDecayDate()));
+      changedFields.add(Field.DECAY_DATE);
+    }
+
+    // the store already has the change
+    if (changedFields.isEmpty() && previous.isPresent()) {
+      return Optional.empty();
+    }
+
+    store.put(record);
+
+    return Optional.of(new SatCatChangeEvent(Type.CHANGE, catalogNumber, time, previous, record, Collections.unmodifiableSet(changedFields)));
+  }
+
+
+  private static Optional<LocalDate> normalize(Optional<LocalDate> date) {
+
+    return (date == null) ? Optional.empty() : date;
+  }
+
+
+  private static String debutKey(SatCatDebut debut) {
+
+    return debut.getCatalogNumber().get().toString();
+  }
+
+
+  private static String changeKey(SatCatChange change) {
+
+    int hash = Objects.hash(change.getCurrentName(), change.getCurrentInternationalDesignator(), change.getCurrentCountry(), change.getCurrentLaunchDate(), change.getCurrentDecayDate());
+
+    return change.getCatalogNumber().get() + ":" + Integer.toHexString(hash);
+  }
+
+
+  private static Watermark readWatermark(Path file, Properties checkpoint, String timeProperty, String keysProperty) throws IOException {
+
+    Watermark watermark;
+
+    try {
+
+      watermark = new Watermark(Instant.parse(checkpoint.getProperty(timeProperty, "")));
+
+    } catch (DateTimeParseException e) {
+
+      throw new IOException("The checkpoint is corrupt: " + file, e);
+    }
+
+    String keys = checkpoint.getProperty(keysProperty, "");
+
+    if (!keys.isEmpty()) {
+      watermark.keysAtTime.addAll(Arrays.asList(keys.split(KEY_SEPARATOR)));
+    }
+
+    return watermark;
+  }
+
+
+  private void writeCheckpoint(Path file) throws IOException {
+
+    Properties checkpoint = new Properties();
+    checkpoint.setProperty(DEBUT_WATERMARK_PROPERTY, debutWatermark.time.toString());
+    checkpoint.setProperty(DEBUT_KEYS_PROPERTY, debutWatermark.keysAtTime.stream().sorted().collect(Collectors.joining(KEY_SEPARATOR)));
+    checkpoint.setProperty(CHANGE_WATERMARK_PROPERTY, changeWatermark.time.toString());
+    checkpoint.setProperty(CHANGE_KEYS_PROPERTY, changeWatermark.keysAtTime.stream().sorted().collect(Collectors.joining(KEY_SEPARATOR)));
+
+
+    // replace the checkpoint in one step
+    Path directory = file.toAbsolutePath().getParent();
+    Path partFile = Files.createTempFile(directory, file.getFileName().toString() + ".", ".part");
+
+    try {
+
+      try (OutputStream outputStream = Files.newOutputStream(partFile)) {
+
+        checkpoint.store(outputStream, "Space-Track SATCAT change feed");
+      }
+
+      Files.move(partFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    } finally {
+
+      Files.deleteIfExists(partFile);
+    }
+  }
+
+
+  private static SatCat toSatCat(SatCatDebut debut) {
+
+    SatCat record = new SatCat();
+    record.setInternationalDesignator(debut.getInternationalDesignator());
+    record.setCatalogNumber(debut.getCatalogNumber());
+    record.setObjectType(debut.getObjectType());
+    record.setSatName(debut.getSatName());
+    record.setCountry(debut.getCountry());
+    record.setLaunchDate(debut.getLaunchDate());
+    record.setLaunchSite(debut.getLaunchSite());
+    record.setDecayDate(debut.getDecayDate());
+    record.setPeriodMinutes(debut.getPeriodMinutes());
+    record.setInclinationDegrees(debut.getInclinationDegrees());
+    record.setApogeeHeightKilometers(debut.getApogeeHeightKilometers());
+    record.setPerigeeHeightKilometers(debut.getPerigeeHeightKilometers());
+    record.setComment(debut.getComment());
+    record.setCommentCode(debut.getCommentCode());
+    record.setRcsMetersSquared(debut.getRcsMetersSquared());
+    record.setRcsCharacterization(debut.getRcsCharacterization());
+    record.setFileNumber(debut.getFileNumber());
+    record.setLaunchYear(debut.getLaunchYear());
+    record.setLaunchNumber(debut.getLaunchNumber());
+    record.setLaunchPiece(debut.getLaunchPiece());
+    record.setCurrentRecord(debut.getCurrentRecord());
+    record.setObjectName(debut.getObjectName());
+    record.setObjectId(debut.getObjectId());
+    record.setObjectNumber(debut.getObjectNumber());
+
+    return record;
+  }
+
+
+  private static SatCat copy(SatCat original) {
+
+    SatCat record = new SatCat();
+    record.setInternationalDesignator(original.getInternationalDesignator());
+    record.setCatalogNumber(original.getCatalogNumber());
+    record.setObjectType(original.getObjectType());
+    record.setSatName(original.getSatName());
+    record.setCountry(original.getCountry());
+    record.setLaunchDate(original.getLaunchDate());
+    record.setLaunchSite(original.getLaunchSite());
+    record.setDecayDate(original.getDecayDate());
+    record.setPeriodMinutes(original.getPeriodMinutes());
+    record.setInclinationDegrees(original.getInclinationDegrees());
+    record.setApogeeHeightKilometers(original.getApogeeHeightKilometers());
+    record.setPerigeeHeightKilometers(original.getPerigeeHeightKilometers());
+    record.setComment(original.getComment());
+    record.setCommentCode(original.getCommentCode());
+    record.setRcsMetersSquared(original.getRcsMetersSquared());
+    record.setRcsCharacterization(original.getRcsCharacterization());
+    record.setFileNumber(original.getFileNumber());
+    record.setLaunchYear(original.getLaunchYear());
+    record.setLaunchNumber(original.getLaunchNumber());
+    record.setLaunchPiece(original.getLaunchPiece());
+    record.setCurrentRecord(original.getCurrentRecord());
+    record.setObjectName(original.getObjectName());
+    record.setObjectId(original.getObjectId());
+    record.setObjectNumber(original.getObjectNumber());
+
+    return record;
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.catalog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import com.stevenpaligo.spacetrack.client.SatCatQuery.SatCat;
+import lombok.NonNull;
+
+/**
+ * A local copy of the satellite catalog (SATCAT), keyed by NORAD catalog number. The store is usually filled once from a full {@link com.stevenpaligo.spacetrack.client.SatCatQuery} and then kept up
+ * to date by a {@link SatCatChangeFeed}.
+ * 
+ * <p>
+ * The store is thread-safe. Records are replaced rather than modified when they change, so a record obtained from the store never changes underneath the caller, and records must not be modified
+ * after they are added.
+ * </p>
+ * 
+ * @author Steven Paligo
+ */
+public class SatCatStore {
+
+  private final Map<Integer, SatCat> records = new ConcurrentHashMap<>();
+
+
+  /**
+   * Adds records to the store, replacing any with the same catalog numbers. Records without a catalog number are ignored.
+   * 
+   * @param records The non-null records
+   * @return This store
+   */
+  public SatCatStore putAll(@NonNull Collection<SatCat> records) {
+
+    for (SatCat record : records) {
+
+      if (record != null && record.getCatalogNumber().isPresent()) {
+        this.records.put(record.getCatalogNumber().get(), record);
+      }
+    }
+
+    return this;
+  }
+
+
+  /**
+   * Adds a record to the store, replacing any with the same catalog number
+   * 
+   * @param record The non-null record, which must have a catalog number
+   * @return The replaced record, or empty if the catalog number wasn't in the store
+   */
+  public Optional<SatCat> put(@NonNull SatCat record) {
+
+    // more validation
+    if (!record.getCatalogNumber().isPresent()) {
+
+      throw new IllegalArgumentException("The record doesn't have a catalog number");
+    }
+
+
+    return Optional.ofNullable(records.put(record.getCatalogNumber().get(), record));
+  }
+
+
+  public Optional<SatCat> get(int catalogNumber) {
+
+    return Optional.ofNullable(records.get(catalogNumber));
+  }
+
+
+  /**
+   * Removes a record from the store
+   * 
+   * @param catalogNumber The NORAD catalog number of the record
+   * @return The removed record, or empty if the catalog number wasn't in the store
+   */
+  public Optional<SatCat> remove(int catalogNumber) {
+
+    return Optional.ofNullable(records.remove(catalogNumber));
+  }
+
+
+  public int size() {
+
+    return records.size();
+  }
+
+
+  /**
+   * Gets all the records in the store
+   * 
+   * @return An unmodifiable copy of the records, in no particular order
+   */
+  public Collection<SatCat> getAll() {
+
+    return Collections.unmodifiableList(new ArrayList<>(records.values()));
+  }
+}
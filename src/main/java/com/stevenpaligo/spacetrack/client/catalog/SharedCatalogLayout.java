@@ -0,0 +1,274 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.catalog;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.CRC32;
+import com.stevenpaligo.spacetrack.client.history.ElementSet;
+
+/**
+ * The layout of a shared catalog file, which is shared by {@link SharedCatalogWriter} and {@link SharedCatalogReader}. All values are big-endian.
+ *
+ * <pre>
+ * File header (64 bytes)
+ *   0  int   magic number
+ *   4  int   layout version
+ *   8  int   record size
+ *   12 int   capacity (records per region)
+ *   16 long  generation of the published region (the region is the generation modulo 2)
+ *
+ * Region header (32 bytes), followed by the region's records sorted by catalog number
+ *   0  long  sequence number, which is odd while the region is being written
+ *   8  int   record count
+ *   16 long  generation
+ *   24 long  time published (milliseconds since 1970)
+ *
+ * Record ({@value #RECORD_SIZE} bytes)
+ *   0   int     catalog number
+ *   8   long    epoch (microseconds since 1970)
+ *   16  double  mean motion, eccentricity, inclination, right ascension of the ascending node, argument of perigee, mean anomaly, BSTAR, period, apogee height, perigee height
+ *   96  bytes   name (UTF-8, zero padded)
+ *   128 bytes   international designator (UTF-8, zero padded)
+ *   156 int     CRC-32 of the preceding bytes
+ * </pre>
+ *
+ * @author Steven Paligo
+ */
+final class SharedCatalogLayout {
+
+  static final int MAGIC = 0x53544346; // "STCF"
+  static final int VERSION = 1;
+
+  static final int FILE_HEADER_SIZE = 64;
+  static final int MAGIC_OFFSET = 0;
+  static final int VERSION_OFFSET = 4;
+  static final int RECORD_SIZE_OFFSET = 8;
+  static final int CAPACITY_OFFSET = 12;
+  static final int GENERATION_OFFSET = 16;
+
+  static final int REGION_HEADER_SIZE = 32;
+  static final int SEQUENCE_OFFSET = 0;
+  static final int COUNT_OFFSET = 8;
+  static final int REGION_GENERATION_OFFSET = 16;
+  static final int PUBLISHED_OFFSET = 24;
+
+  static final int RECORD_SIZE = 160;
+  static final int NAME_OFFSET = 96;
+  static final int NAME_BYTES = 32;
+  static final int INTERNATIONAL_DESIGNATOR_OFFSET = 128;
+  static final int INTERNATIONAL_DESIGNATOR_BYTES = 16;
+  static final int CHECKSUM_OFFSET = 156;
+
+  // sun.misc.Unsafe's fences (the only ones on Java 8), which are found at run time since the Java 8 API that the library compiles against doesn't include them
+  private static final MethodHandle storeFence;
+  private static final MethodHandle loadFence;
+
+
+  static {
+
+    try {
+
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field field = unsafeClass.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      Object unsafe = field.get(null);
+
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      storeFence = lookup.findVirtual(unsafeClass, "storeFence", MethodType.methodType(void.class)).bindTo(unsafe);
+      loadFence = lookup.findVirtual(unsafeClass, "loadFence", MethodType.methodType(void.class)).bindTo(unsafe);
+
+    } catch (ReflectiveOperationException e) {
+
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+
+  private SharedCatalogLayout() {
+    // prevent instantiation
+  }
+
+
+  static long getFileSize(int capacity) {
+
+    return FILE_HEADER_SIZE + 2L * getRegionSize(capacity);
+  }
+
+
+  static long getRegionSize(int capacity) {
+
+    return REGION_HEADER_SIZE + (long) capacity * RECORD_SIZE;
+  }
+
+
+  static int getRegionOffset(int capacity, int region) {
+
+    return (int) (FILE_HEADER_SIZE + region * getRegionSize(capacity));
+  }
+
+
+  /**
+   * Keeps stores to the mapped file before this point from being reordered with stores after it, by either the JIT or the processor
+   */
+  static void storeFence() {
+
+    try {
+
+      storeFence.invokeExact();
+
+    } catch (Throwable e) {
+
+      throw rethrow(e);
+    }
+  }
+
+
+  /**
+   * Keeps loads from the mapped file before this point from being reordered with loads and stores after it, by either the JIT or the processor
+   */
+  static void loadFence() {
+
+    try {
+
+      loadFence.invokeExact();
+
+    } catch (Throwable e) {
+
+      throw rethrow(e);
+    }
+  }
+
+
+  private static RuntimeException rethrow(Throwable e) {
+
+    if (e instanceof RuntimeException) {
+
+      throw (RuntimeException) e;
+
+    } else if (e instanceof Error) {
+
+      throw (Error) e;
+
+    } else {
+
+      return new IllegalStateException(e);
+    }
+  }
+
+
+  static void writeRecord(ByteBuffer buffer, int offset, CatalogRecord record) {
+
+    byte[] bytes = new byte[RECORD_SIZE];
+    ByteBuffer recordBuffer = ByteBuffer.wrap(bytes);
+    ElementSet elements = record.getElements();
+
+    recordBuffer.putInt(0, record.getCatalogNumber());
+    recordBuffer.putLong(8, toEpochMicros(elements.getEpoch()));
+    recordBuffer.putDouble(16, elements.getMeanMotionRevsPerDay());
+    recordBuffer.putDouble(24, elements.getEccentricity());
+    recordBuffer.putDouble(32, elements.getInclinationDegrees());
+    recordBuffer.putDouble(40, elements.getRightAscOfNodeDegrees());
+    recordBuffer.putDouble(48, elements.getArgOfPerigeeDegrees());
+    recordBuffer.putDouble(56, elements.getMeanAnomalyDegrees());
+    recordBuffer.putDouble(64, elements.getBstar());
+    recordBuffer.putDouble(72, record.getPeriodMinutes());
+    recordBuffer.putDouble(80, record.getApogeeHeightKilometers());
+    recordBuffer.putDouble(88, record.getPerigeeHeightKilometers());
+    putString(bytes, NAME_OFFSET, NAME_BYTES, record.getObjectName());
+    putString(bytes, INTERNATIONAL_DESIGNATOR_OFFSET, INTERNATIONAL_DESIGNATOR_BYTES, record.getInternationalDesignator());
+    recordBuffer.putInt(CHECKSUM_OFFSET, checksum(bytes));
+
+    ByteBuffer target = buffer.duplicate();
+    target.position(offset);
+    target.put(bytes);
+  }
+
+
+  /**
+   * Copies a record out of the file
+   *
+   * @return The record's bytes, or null if the copy doesn't match its checksum (because it was being written)
+   */
+  static byte[] copyRecord(ByteBuffer buffer, int offset) {
+
+    byte[] bytes = new byte[RECORD_SIZE];
+
+    ByteBuffer source = buffer.duplicate();
+    source.position(offset);
+    source.get(bytes);
+
+    return (ByteBuffer.wrap(bytes).getInt(CHECKSUM_OFFSET) == checksum(bytes)) ? bytes : null;
+  }
+
+
+  static CatalogRecord readRecord(byte[] bytes) {
+
+    ByteBuffer recordBuffer = ByteBuffer.wrap(bytes);
+    long epochMicros = recordBuffer.getLong(8);
+    Instant epoch = Instant.ofEpochSecond(Math.floorDiv(epochMicros, 1_000_000L), Math.floorMod(epochMicros, 1_000_000L) * 1_000L);
+
+    ElementSet elements = new ElementSet(epoch, recordBuffer.getDouble(16), recordBuffer.getDouble(24), recordBuffer.getDouble(32), recordBuffer.getDouble(40), recordBuffer.getDouble(48),
+        recordBuffer.getDouble(56), recordBuffer.getDouble(64));
+
+    return new CatalogRecord(recordBuffer.getInt(0), getString(bytes, NAME_OFFSET, NAME_BYTES), getString(bytes, INTERNATIONAL_DESIGNATOR_OFFSET, INTERNATIONAL_DESIGNATOR_BYTES), elements,
+        recordBuffer.getDouble(72), recordBuffer.getDouble(80), recordBuffer.getDouble(88));
+  }
+
+
+  private static long toEpochMicros(Instant time) {
+
+    return time.getEpochSecond() * 1_000_000L + time.getNano() / 1_000L;
+  }
+
+
+  private static int checksum(byte[] bytes) {
+
+    CRC32 crc = new CRC32();
+    crc.update(bytes, 0, CHECKSUM_OFFSET);
+
+    return (int) crc.getValue();
+  }
+
+
+  private static void putString(byte[] bytes, int offset, int length, String value) {
+
+    byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+    int encodedLength = Math.min(length, encoded.length);
+
+    // don't cut a multi-byte character in half
+    while (encodedLength < encoded.length && encodedLength > 0 && (encoded[encodedLength] & 0xC0) == 0x80) {
+      encodedLength--;
+    }
+
+    System.arraycopy(encoded, 0, bytes, offset, encodedLength);
+  }
+
+
+  private static String getString(byte[] bytes, int offset, int length) {
+
+    int end = offset;
+
+    while (end < offset + length && bytes[end] != 0) {
+      end++;
+    }
+
+    return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+  }
+}
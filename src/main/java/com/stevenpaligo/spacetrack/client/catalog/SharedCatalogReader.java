@@ -0,0 +1,299 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.catalog;
+
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.CAPACITY_OFFSET;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.COUNT_OFFSET;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.FILE_HEADER_SIZE;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.GENERATION_OFFSET;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.MAGIC;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.MAGIC_OFFSET;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.PUBLISHED_OFFSET;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.RECORD_SIZE;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.RECORD_SIZE_OFFSET;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.REGION_GENERATION_OFFSET;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.REGION_HEADER_SIZE;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.SEQUENCE_OFFSET;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.VERSION;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.VERSION_OFFSET;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import lombok.NonNull;
+
+/**
+ * Reads a catalog published by a {@link SharedCatalogWriter}, possibly in another process. Reads never lock: each one checks the sequence number of the region it read and the checksums of the records
+ * it copied, and retries if the writer was rewriting the region at the time. A reader sees each new catalog as soon as it is published, without reopening the file.
+ *
+ * <p>
+ * Readers are thread-safe, and one reader per process is enough.
+ * </p>
+ *
+ * @author Steven Paligo
+ */
+public class SharedCatalogReader implements Closeable {
+
+  private static final int MAX_ATTEMPTS = 1_000;
+
+  private final Path file;
+  private final FileChannel channel;
+  private final MappedByteBuffer mapped;
+  private final int capacity;
+
+
+  /**
+   * The result of one consistent read of the published region
+   */
+  private static class Read<T> {
+
+    private final long generation;
+    private final T value;
+
+
+    private Read(long generation, T value) {
+
+      this.generation = generation;
+      this.value = value;
+    }
+  }
+
+
+  /**
+   * A read of the published region, which returns null if it finds a record that was being written
+   */
+  @FunctionalInterface
+  private static interface RegionReader<T> {
+
+    public T read(MappedByteBuffer mapped, int regionOffset, int count);
+  }
+
+
+  private SharedCatalogReader(Path file, FileChannel channel, MappedByteBuffer mapped, int capacity) {
+
+    this.file = file;
+    this.channel = channel;
+    this.mapped = mapped;
+    this.capacity = capacity;
+  }
+
+
+  /**
+   * Opens a shared catalog file for reading
+   *
+   * @param file A non-null path to a file created by a {@link SharedCatalogWriter}
+   * @return The reader
+   * @throws IOException The file couldn't be opened or isn't a shared catalog file
+   */
+  public static SharedCatalogReader open(@NonNull Path file) throws IOException {
+
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+
+    try {
+
+      long size = channel.size();
+
+      if (size < FILE_HEADER_SIZE || size > Integer.MAX_VALUE) {
+
+        throw new IOException("The file is not a shared catalog file: " + file);
+      }
+
+      MappedByteBuffer mapped = channel.map(MapMode.READ_ONLY, 0L, size);
+      int capacity = mapped.getInt(CAPACITY_OFFSET);
+
+      if (mapped.getInt(MAGIC_OFFSET) != MAGIC || mapped.getInt(VERSION_OFFSET) != VERSION || mapped.getInt(RECORD_SIZE_OFFSET) != RECORD_SIZE || capacity < 1
+          || size != SharedCatalogLayout.getFileSize(capacity)) {
+
+        throw new IOException("The file is not a shared catalog file: " + file);
+      }
+
+      return new SharedCatalogReader(file, channel, mapped, capacity);
+
+    } catch (IOException | RuntimeException e) {
+
+      channel.close();
+      throw e;
+    }
+  }
+
+
+  /**
+   * Gets the record for an object
+   *
+   * @param catalogNumber The object's NORAD catalog number
+   * @return The record, or empty if the object isn't in the catalog
+   */
+  public Optional<CatalogRecord> get(int catalogNumber) {
+
+    return read((mapped, regionOffset, count) -> {
+
+      // binary search the records by catalog number
+      int low = 0;
+      int high = count - 1;
+
+      while (low <= high) {
+
+        int middle = (low + high) >>> 1;
+        int recordOffset = regionOffset + REGION_HEADER_SIZE + middle * RECORD_SIZE;
+        int middleCatalogNumber = mapped.getInt(recordOffset);
+
+        if (middleCatalogNumber < catalogNumber) {
+
+          low = middle + 1;
+
+        } else if (middleCatalogNumber > catalogNumber) {
+
+          high = middle - 1;
+
+        } else {
+
+          byte[] bytes = SharedCatalogLayout.copyRecord(mapped, recordOffset);
+          return (bytes == null) ? null : Optional.of(SharedCatalogLayout.readRecord(bytes));
+        }
+      }
+
+      return Optional.<CatalogRecord>empty();
+
+    }).value;
+  }
+
+
+  /**
+   * Gets every record in the catalog
+   *
+   * @return An unmodifiable list of the records, in catalog number order
+   */
+  public List<CatalogRecord> getAll() {
+
+    return read((mapped, regionOffset, count) -> {
+
+      List<byte[]> copies = new ArrayList<>(count);
+
+      for (int i = 0; i < count; i++) {
+
+        byte[] bytes = SharedCatalogLayout.copyRecord(mapped, regionOffset + REGION_HEADER_SIZE + i * RECORD_SIZE);
+
+        if (bytes == null) {
+
+          return null;
+        }
+
+        copies.add(bytes);
+      }
+
+
+      // decode outside of the checks so a retry doesn't repeat the work
+      List<CatalogRecord> records = new ArrayList<>(count);
+
+      for (byte[] bytes : copies) {
+
+        records.add(SharedCatalogLayout.readRecord(bytes));
+      }
+
+      return Collections.unmodifiableList(records);
+
+    }).value;
+  }
+
+
+  /**
+   * Gets the number of records in the catalog
+   *
+   * @return The number of records
+   */
+  public int size() {
+
+    return read((mapped, regionOffset, count) -> count).value;
+  }
+
+
+  /**
+   * Gets the generation of the catalog, which the writer increments with each publication
+   *
+   * @return The generation, which is zero if nothing has been published
+   */
+  public long getGeneration() {
+
+    return read((mapped, regionOffset, count) -> Boolean.TRUE).generation;
+  }
+
+
+  /**
+   * Gets the time the catalog was published
+   *
+   * @return The time, or empty if nothing has been published
+   */
+  public Optional<Instant> getPublishedTime() {
+
+    return read((mapped, regionOffset, count) -> (mapped.getLong(GENERATION_OFFSET) == 0L) ? Optional.<Instant>empty()
+        : Optional.of(Instant.ofEpochMilli(mapped.getLong(regionOffset + PUBLISHED_OFFSET)))).value;
+  }
+
+
+  private <T> Read<T> read(RegionReader<T> reader) {
+
+    if (!channel.isOpen()) {
+
+      throw new IllegalStateException("The shared catalog reader is closed: " + file);
+    }
+
+
+    for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+
+      long generation = mapped.getLong(GENERATION_OFFSET);
+      int regionOffset = SharedCatalogLayout.getRegionOffset(capacity, (int) (generation & 1L));
+
+      SharedCatalogLayout.loadFence();
+      long sequence = mapped.getLong(regionOffset + SEQUENCE_OFFSET);
+      SharedCatalogLayout.loadFence();
+
+      if ((sequence & 1L) == 0L) {
+
+        // nothing has been published to the region when the generation is zero
+        int count = (generation == 0L) ? 0 : mapped.getInt(regionOffset + COUNT_OFFSET);
+        boolean current = (generation == 0L) || (mapped.getLong(regionOffset + REGION_GENERATION_OFFSET) == generation);
+        T value = (current && count >= 0 && count <= capacity) ? reader.read(mapped, regionOffset, count) : null;
+
+        SharedCatalogLayout.loadFence();
+
+        if (value != null && mapped.getLong(regionOffset + SEQUENCE_OFFSET) == sequence) {
+
+          return new Read<>(generation, value);
+        }
+      }
+
+      Thread.yield();
+    }
+
+    throw new IllegalStateException("The shared catalog was rewritten during " + MAX_ATTEMPTS + " attempts to read it: " + file);
+  }
+
+
+  /**
+   * Closes the file
+   */
+  @Override
+  public void close() throws IOException {
+
+    channel.close();
+  }
+}
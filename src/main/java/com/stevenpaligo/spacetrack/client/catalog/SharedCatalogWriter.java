@@ -0,0 +1,277 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.catalog;
+
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.CAPACITY_OFFSET;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.COUNT_OFFSET;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.FILE_HEADER_SIZE;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.GENERATION_OFFSET;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.MAGIC;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.MAGIC_OFFSET;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.PUBLISHED_OFFSET;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.RECORD_SIZE;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.RECORD_SIZE_OFFSET;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.REGION_GENERATION_OFFSET;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.REGION_HEADER_SIZE;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.SEQUENCE_OFFSET;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.VERSION;
+import static com.stevenpaligo.spacetrack.client.catalog.SharedCatalogLayout.VERSION_OFFSET;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import com.stevenpaligo.spacetrack.client.util.IntObjectMap;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Publishes a catalog to a memory-mapped file that {@link SharedCatalogReader}s in any number of processes on the same host read without locking, so the catalog is held once in the page cache rather
+ * than once on each JVM's heap. Only one writer may have a file open at a time.
+ *
+ * <p>
+ * The file holds two regions of fixed-size records (see {@link SharedCatalogLayout}). Each publication rewrites the region the readers aren't using, then switches the readers to it by incrementing
+ * the generation in the file header. Each region has a sequence number that is odd while the region is being written, so a reader that is still using the region from two publications ago can tell
+ * that its read overlapped a write and retry.
+ * </p>
+ *
+ * <pre>
+ * try (SharedCatalogWriter writer = SharedCatalogWriter.open(file, 100_000)) {
+ *   List&lt;CatalogRecord&gt; records = latestTles.stream().map(CatalogRecord::of).collect(Collectors.toList());
+ *   writer.publish(records);
+ * }
+ * </pre>
+ *
+ * @author Steven Paligo
+ */
+public class SharedCatalogWriter implements Closeable {
+
+  private final Path file;
+  private final FileChannel channel;
+  private final FileLock lock;
+  private final MappedByteBuffer mapped;
+
+  /**
+   * The maximum number of records the file holds
+   */
+  @Getter
+  private final int capacity;
+
+  private long generation;
+
+
+  private SharedCatalogWriter(Path file, FileChannel channel, FileLock lock, MappedByteBuffer mapped, int capacity, long generation) {
+
+    this.file = file;
+    this.channel = channel;
+    this.lock = lock;
+    this.mapped = mapped;
+    this.capacity = capacity;
+    this.generation = generation;
+  }
+
+
+  /**
+   * Opens a shared catalog file for writing, creating it if it doesn't exist. An existing file keeps the catalog it holds until the next {@link #publish(Collection)}.
+   *
+   * @param file A non-null path to the file
+   * @param capacity The maximum number of records the file holds, which must be positive and must match the capacity of an existing file
+   * @return The writer
+   * @throws IOException The file couldn't be opened, isn't a shared catalog file, has a different capacity, or is open in another writer
+   */
+  public static SharedCatalogWriter open(@NonNull Path file, int capacity) throws IOException {
+
+    // more validation
+    if (capacity < 1) {
+
+      throw new IllegalArgumentException("The capacity must be positive");
+    }
+
+    long fileSize = SharedCatalogLayout.getFileSize(capacity);
+
+    if (fileSize > Integer.MAX_VALUE) {
+
+      throw new IllegalArgumentException("The capacity is too large for one file: " + capacity);
+    }
+
+
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+    try {
+
+      FileLock lock;
+
+      try {
+
+        lock = channel.tryLock();
+
+      } catch (OverlappingFileLockException e) {
+
+        lock = null;
+      }
+
+      if (lock == null) {
+
+        throw new IOException("The shared catalog file is open in another writer: " + file);
+      }
+
+
+      boolean initialize = (channel.size() == 0L);
+
+      if (!initialize && channel.size() < FILE_HEADER_SIZE) {
+
+        throw new IOException("The file is not a shared catalog file: " + file);
+      }
+
+      MappedByteBuffer mapped = channel.map(MapMode.READ_WRITE, 0L, initialize ? fileSize : Math.max(channel.size(), FILE_HEADER_SIZE));
+
+      if (initialize) {
+
+        mapped.putInt(MAGIC_OFFSET, MAGIC);
+        mapped.putInt(VERSION_OFFSET, VERSION);
+        mapped.putInt(RECORD_SIZE_OFFSET, RECORD_SIZE);
+        mapped.putInt(CAPACITY_OFFSET, capacity);
+        mapped.putLong(GENERATION_OFFSET, 0L);
+        mapped.force();
+
+      } else if (mapped.getInt(MAGIC_OFFSET) != MAGIC || mapped.getInt(VERSION_OFFSET) != VERSION || mapped.getInt(RECORD_SIZE_OFFSET) != RECORD_SIZE || channel.size() != fileSize) {
+
+        if (mapped.getInt(MAGIC_OFFSET) == MAGIC && mapped.getInt(CAPACITY_OFFSET) != capacity) {
+
+          throw new IOException("The shared catalog file has a capacity of " + mapped.getInt(CAPACITY_OFFSET) + ", not " + capacity + ": " + file);
+        }
+
+        throw new IOException("The file is not a shared catalog file: " + file);
+      }
+
+      return new SharedCatalogWriter(file, channel, lock, mapped, capacity, mapped.getLong(GENERATION_OFFSET));
+
+    } catch (IOException | RuntimeException e) {
+
+      channel.close();
+      throw e;
+    }
+  }
+
+
+  /**
+   * Replaces the catalog in the file. Readers see either the previous catalog or this one, never a mix of the two.
+   *
+   * @param records Non-null records, with at most one per catalog number (a later record replaces an earlier one with the same catalog number)
+   * @return The generation of the catalog, which readers report from {@link SharedCatalogReader#getGeneration()}
+   * @throws IllegalArgumentException There are more records than the file's capacity
+   * @throws IOException The file couldn't be written
+   */
+  public synchronized long publish(@NonNull Collection<CatalogRecord> records) throws IOException {
+
+    if (!channel.isOpen()) {
+
+      throw new IOException("The shared catalog writer is closed: " + file);
+    }
+
+
+    // order the records by catalog number so readers can binary search them
+    IntObjectMap<CatalogRecord> byCatalogNumber = new IntObjectMap<>(records.size());
+
+    for (CatalogRecord record : records) {
+
+      if (record == null) {
+
+        throw new IllegalArgumentException("The records must not be null");
+      }
+
+      byCatalogNumber.put(record.getCatalogNumber(), record);
+    }
+
+    if (byCatalogNumber.size() > capacity) {
+
+      throw new IllegalArgumentException("There are " + byCatalogNumber.size() + " records but the shared catalog file holds " + capacity + ": " + file);
+    }
+
+    int[] catalogNumbers = byCatalogNumber.keys();
+    Arrays.sort(catalogNumbers);
+
+
+    // write the region the readers aren't using, with its sequence number odd in the meantime
+    long nextGeneration = generation + 1;
+    int regionOffset = SharedCatalogLayout.getRegionOffset(capacity, (int) (nextGeneration & 1L));
+    long sequence = mapped.getLong(regionOffset + SEQUENCE_OFFSET);
+
+    if ((sequence & 1L) != 0L) {
+
+      sequence++; // a previous writer stopped part way through
+    }
+
+    mapped.putLong(regionOffset + SEQUENCE_OFFSET, sequence + 1);
+    SharedCatalogLayout.storeFence();
+
+    mapped.putInt(regionOffset + COUNT_OFFSET, catalogNumbers.length);
+    mapped.putLong(regionOffset + REGION_GENERATION_OFFSET, nextGeneration);
+    mapped.putLong(regionOffset + PUBLISHED_OFFSET, System.currentTimeMillis());
+
+    for (int i = 0; i < catalogNumbers.length; i++) {
+
+      SharedCatalogLayout.writeRecord(mapped, regionOffset + REGION_HEADER_SIZE + i * RECORD_SIZE, byCatalogNumber.get(catalogNumbers[i]));
+    }
+
+    SharedCatalogLayout.storeFence();
+    mapped.putLong(regionOffset + SEQUENCE_OFFSET, sequence + 2);
+    SharedCatalogLayout.storeFence();
+
+
+    // switch the readers to the new region
+    mapped.putLong(GENERATION_OFFSET, nextGeneration);
+    mapped.force();
+    generation = nextGeneration;
+
+    return nextGeneration;
+  }
+
+
+  /**
+   * Gets the generation of the catalog most recently published to the file
+   *
+   * @return The generation, which is zero if nothing has been published
+   */
+  public synchronized long getGeneration() {
+
+    return generation;
+  }
+
+
+  /**
+   * Closes the file. The catalog stays in the file for readers.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+
+    if (channel.isOpen()) {
+
+      try {
+
+        lock.release();
+
+      } finally {
+
+        channel.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.diagnostics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Optional;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A response stream that keeps a bounded preview of what has been read and optionally copies it to a capture file
+ * 
+ * @author Steven Paligo
+ * @see ResponseDiagnostics
+ */
+@Slf4j
+public class DiagnosticInputStream extends FilterInputStream {
+
+  private static final Charset charsetUtf8 = Charset.forName("UTF-8");
+
+
+  private final byte[] singleByte = new byte[1];
+  private final ByteArrayOutputStream preview;
+  private final int previewBytes;
+  private OutputStream captureStream;
+  private long captureBytesRemaining;
+  private final ResponseDiagnostics diagnostics;
+
+  /**
+   * The file the response is being copied to, if it was sampled
+   */
+  @Getter
+  private final Optional<Path> captureFile;
+
+  /**
+   * The total number of bytes read so far
+   */
+  @Getter
+  private long bytesRead = 0L;
+
+  private boolean closed = false;
+
+
+  DiagnosticInputStream(InputStream in, int previewBytes, OutputStream captureStream, long maxCaptureBytes, Optional<Path> captureFile, ResponseDiagnostics diagnostics) {
+
+    super(in);
+
+    this.preview = new ByteArrayOutputStream(Math.min(previewBytes, 8192));
+    this.previewBytes = previewBytes;
+    this.captureStream = captureStream;
+    this.captureBytesRemaining = maxCaptureBytes;
+    this.captureFile = captureFile;
+    this.diagnostics = diagnostics;
+  }
+
+
+  @Override
+  public int read() throws IOException {
+
+    int b = super.read();
+
+    if (b >= 0) {
+
+      singleByte[0] = (byte) b;
+      observe(singleByte, 0, 1);
+    }
+
+    return b;
+  }
+
+
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+
+    int count = super.read(buffer, offset, length);
+
+    if (count > 0) {
+
+      observe(buffer, offset, count);
+    }
+
+    return count;
+  }
+
+
+  @Override
+  public long skip(long n) throws IOException {
+
+    // read rather than skip so the skipped bytes are observed
+    byte[] buffer = new byte[(int) Math.min(n, 8192L)];
+    long skipped = 0L;
+
+    while (skipped < n) {
+
+      int count = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+
+      if (count < 0) {
+
+        break;
+      }
+
+      skipped += count;
+    }
+
+    return skipped;
+  }
+
+
+  @Override
+  public boolean markSupported() {
+
+    return false;
+  }
+
+
+  private void observe(byte[] buffer, int offset, int count) {
+
+    bytesRead += count;
+
+
+    // preview
+    int previewRemaining = previewBytes - preview.size();
+
+    if (previewRemaining > 0) {
+
+      preview.write(buffer, offset, Math.min(previewRemaining, count));
+    }
+
+
+    // capture
+    if (captureStream != null && captureBytesRemaining > 0L) {
+
+      try {
+
+        int captureCount = (int) Math.min(captureBytesRemaining, count);
+        captureStream.write(buffer, offset, captureCount);
+        captureBytesRemaining -= captureCount;
+
+      } catch (IOException e) {
+
+        log.warn("Unable to write to the Space-Track response capture file {}; abandoning the capture", captureFile.orElse(null), e);
+        closeCaptureStream();
+      }
+    }
+  }
+
+
+  /**
+   * Gets the start of the response, decoded as UTF-8
+   * 
+   * @return The non-null preview, which may end with a partial character if the preview limit split one
+   */
+  public String getPreview() {
+
+    return new String(preview.toByteArray(), charsetUtf8);
+  }
+
+
+  /**
+   * Whether or not more of the response was read than the preview holds
+   * 
+   * @return True if the preview is not the complete response
+   */
+  public boolean isPreviewTruncated() {
+
+    return bytesRead > preview.size();
+  }
+
+
+  @Override
+  public void close() throws IOException {
+
+    if (closed) {
+
+      return;
+    }
+
+    closed = true;
+
+    try {
+
+      super.close();
+
+    } finally {
+
+      if (captureStream != null) {
+
+        closeCaptureStream();
+        diagnostics.rotateCaptureFiles();
+      }
+    }
+  }
+
+
+  private void closeCaptureStream() {
+
+    try {
+
+      captureStream.close();
+
+    } catch (IOException e) {
+
+      log.warn("Unable to close the Space-Track response capture file {}", captureFile.orElse(null), e);
+    }
+
+    captureStream = null;
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.diagnostics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Controls what is kept from <a href="https://www.space-track.org/">Space-Track.org</a> response bodies for troubleshooting. Response bodies can be hundreds of megabytes, so they are never logged in
+ * full. Instead, a bounded preview of the start of each body is kept for debug logging and error messages, and a sample of complete bodies can be copied to a directory of rotating capture files as they
+ * are read.
+ * 
+ * <p>
+ * Both are collected while the response streams through, so neither requires the body to be held in memory.
+ * </p>
+ * 
+ * @author Steven Paligo
+ */
+@Slf4j
+public class ResponseDiagnostics {
+
+  private static final String CAPTURE_FILE_PREFIX = "spacetrack-response-";
+  private static final String CAPTURE_FILE_SUFFIX = ".json";
+  private static final DateTimeFormatter captureFileTimestamp = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+
+  /**
+   * Keeps a 1 KiB preview of each response and captures nothing
+   */
+  public static final ResponseDiagnostics DEFAULT = new ResponseDiagnostics(1024);
+
+
+  @Getter
+  private final int previewBytes;
+
+  @Getter
+  private final double captureSampleRate;
+
+  @Getter
+  private final Optional<Path> captureDirectory;
+
+  @Getter
+  private final int maxCaptureFiles;
+
+  @Getter
+  private final long maxCaptureFileBytes;
+
+  private final AtomicLong captureSequence = new AtomicLong();
+
+
+  /**
+   * Creates diagnostics that keep a preview of each response and capture nothing
+   * 
+   * @param previewBytes The number of bytes at the start of each response to keep (must not be negative)
+   */
+  public ResponseDiagnostics(int previewBytes) {
+
+    this(previewBytes, 0.0, Optional.empty(), 1, 1L);
+  }
+
+
+  /**
+   * Creates diagnostics that keep a preview of each response and copy a sample of complete responses to capture files
+   * 
+   * @param previewBytes The number of bytes at the start of each response to keep (must not be negative)
+   * @param captureSampleRate The fraction of responses to capture, from 0.0 to 1.0
+   * @param captureDirectory A non-null {@link Optional} that may or may not contain the directory to write capture files to
+   * @param maxCaptureFiles The number of capture files to keep; the oldest files are deleted beyond this (must be positive)
+   * @param maxCaptureFileBytes The maximum size of each capture file; longer responses are truncated (must be positive)
+   */
+  public ResponseDiagnostics(int previewBytes, double captureSampleRate, @NonNull Optional<Path> captureDirectory, int maxCaptureFiles, long maxCaptureFileBytes) {
+
+    // more validation
+    if (previewBytes < 0) {
+
+      throw new IllegalArgumentException("The previewBytes parameter is negative: " + previewBytes);
+
+    } else if (!(captureSampleRate >= 0.0 && captureSampleRate <= 1.0)) {
+
+      throw new IllegalArgumentException("The captureSampleRate parameter is not between 0.0 and 1.0: " + captureSampleRate);
+
+    } else if (captureSampleRate > 0.0 && !captureDirectory.isPresent()) {
+
+      throw new IllegalArgumentException("A capture directory is required when the capture sample rate is positive");
+
+    } else if (maxCaptureFiles <= 0) {
+
+      throw new IllegalArgumentException("The maxCaptureFiles parameter is not positive: " + maxCaptureFiles);
+
+    } else if (maxCaptureFileBytes <= 0L) {
+
+      throw new IllegalArgumentException("The maxCaptureFileBytes parameter is not positive: " + maxCaptureFileBytes);
+    }
+
+
+    this.previewBytes = previewBytes;
+    this.captureSampleRate = captureSampleRate;
+    this.captureDirectory = captureDirectory;
+    this.maxCaptureFiles = maxCaptureFiles;
+    this.maxCaptureFileBytes = maxCaptureFileBytes;
+  }
+
+
+  /**
+   * Wraps a response stream so that its preview is kept and, if the response is sampled, it is copied to a capture file as it is read
+   * 
+   * @param queryClass The non-null Space-Track.org query class, which is included in the capture file's name
+   * @param responseStream The non-null response stream
+   * @return The non-null wrapped stream, which must be closed to finish the capture file
+   */
+  public DiagnosticInputStream wrap(@NonNull String queryClass, @NonNull InputStream responseStream) {
+
+    Optional<Path> captureFile = Optional.empty();
+    OutputStream captureStream = null;
+
+    if (captureSampleRate > 0.0 && ThreadLocalRandom.current().nextDouble() < captureSampleRate) {
+
+      Path file = captureDirectory.get().resolve(CAPTURE_FILE_PREFIX + captureFileTimestamp.format(Instant.now()) + String.format("-%010d-", captureSequence.incrementAndGet()) + queryClass + CAPTURE_FILE_SUFFIX);
+
+      try {
+
+        Files.createDirectories(file.getParent());
+        captureStream = Files.newOutputStream(file);
+        captureFile = Optional.of(file);
+
+      } catch (IOException e) {
+
+        log.warn("Unable to create the Space-Track response capture file {}", file, e);
+      }
+    }
+
+    return new DiagnosticInputStream(responseStream, previewBytes, captureStream, maxCaptureFileBytes, captureFile, this);
+  }
+
+
+  /**
+   * Deletes the oldest capture files beyond the maximum number to keep
+   */
+  synchronized void rotateCaptureFiles() {
+
+    if (!captureDirectory.isPresent()) {
+
+      return;
+    }
+
+
+    // capture file names start with a timestamp, so sorting by name sorts them by age
+    List<Path> captureFiles = new ArrayList<>();
+
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(captureDirectory.get(), CAPTURE_FILE_PREFIX + "*" + CAPTURE_FILE_SUFFIX)) {
+
+      files.forEach(captureFiles::add);
+
+    } catch (IOException e) {
+
+      log.warn("Unable to list the Space-Track response capture files in {}", captureDirectory.get(), e);
+      return;
+    }
+
+    Collections.sort(captureFiles);
+
+    for (int i = 0; i < captureFiles.size() - maxCaptureFiles; i++) {
+
+      try {
+
+        Files.deleteIfExists(captureFiles.get(i));
+
+      } catch (IOException e) {
+
+        log.warn("Unable to delete the Space-Track response capture file {}", captureFiles.get(i), e);
+      }
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.exception;
+
+import java.util.Optional;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Signals that <a href="https://www.space-track.org/">Space-Track.org</a> returned a successful status code but the content describes an error, such as an HTML error page or a JSON object like
+ * <code>{"Login":"Failed"}</code> in place of the query results
+ * 
+ * @author Steven Paligo
+ */
+@Getter
+public class ErrorResponseException extends SpaceTrackException {
+
+  private static final long serialVersionUID = 1L;
+
+
+  /**
+   * The value of the response's <code>Content-Type</code> header, if it had one
+   */
+  private final transient Optional<String> contentType;
+
+  /**
+   * The beginning of the response content, which is limited in size
+   */
+  private final String content;
+
+
+  public ErrorResponseException(String message, @NonNull Optional<String> contentType, @NonNull String content) {
+
+    super(message, false);
+    this.contentType = contentType;
+    this.content = content;
+  }
+}
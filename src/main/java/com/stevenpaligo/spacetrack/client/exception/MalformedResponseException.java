@@ -0,0 +1,40 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.exception;
+
+import lombok.Getter;
+
+/**
+ * Signals that a <a href="https://www.space-track.org/">Space-Track.org</a> response was not JSON that could be read, even after repairs
+ * 
+ * @author Steven Paligo
+ */
+@Getter
+public class MalformedResponseException extends SpaceTrackException {
+
+  private static final long serialVersionUID = 1L;
+
+
+  /**
+   * The character offset in the response at which the problem was found
+   */
+  private final long offset;
+
+
+  public MalformedResponseException(String message, long offset) {
+
+    super(message + " (at character " + offset + ")", false);
+    this.offset = offset;
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.exception;
+
+import java.time.Duration;
+import java.util.Optional;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Signals that <a href="https://www.space-track.org/">Space-Track.org</a> responded with an unsuccessful HTTP status code
+ * 
+ * @author Steven Paligo
+ */
+@Getter
+public class SpaceTrackResponseException extends SpaceTrackException {
+
+  private static final long serialVersionUID = 1L;
+
+
+  private final int statusCode;
+
+  /**
+   * How long the server asked clients to wait before trying again (from the <code>Retry-After</code> header), if it said so
+   */
+  private final transient Optional<Duration> retryAfter;
+
+
+  public SpaceTrackResponseException(int statusCode, String message, @NonNull Optional<Duration> retryAfter) {
+
+    super(message, isRetryableStatus(statusCode));
+    this.statusCode = statusCode;
+    this.retryAfter = retryAfter;
+  }
+
+
+  private static boolean isRetryableStatus(int statusCode) {
+
+    switch (statusCode) {
+
+      case 408: // request timeout
+      case 429: // too many requests
+      case 500: // internal server error
+      case 502: // bad gateway
+      case 503: // service unavailable
+      case 504: // gateway timeout
+
+        return true;
+
+
+      default:
+
+        return false;
+    }
+  }
+}
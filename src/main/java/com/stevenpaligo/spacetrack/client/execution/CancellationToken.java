@@ -0,0 +1,81 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.execution;
+
+import lombok.NonNull;
+
+/**
+ * Lets an in-flight request be abandoned from another thread. Blocking socket reads don't respond to thread interruption, so the request registers an action (e.g. closing its connection) that
+ * actually unblocks it.
+ * 
+ * @author Steven Paligo
+ */
+public class CancellationToken {
+
+  private boolean cancelled = false;
+  private Runnable cancelAction = null;
+
+
+  /**
+   * Sets the action that abandons the request. If the token has already been cancelled, the action runs immediately.
+   * 
+   * @param cancelAction The non-null action to run on cancellation
+   */
+  public void onCancel(@NonNull Runnable cancelAction) {
+
+    boolean runNow;
+
+    synchronized (this) {
+
+      this.cancelAction = cancelAction;
+      runNow = cancelled;
+    }
+
+    if (runNow) {
+
+      cancelAction.run();
+    }
+  }
+
+
+  /**
+   * Cancels the request by running its cancel action, if one has been set. Subsequent calls have no effect.
+   */
+  public void cancel() {
+
+    Runnable action;
+
+    synchronized (this) {
+
+      if (cancelled) {
+
+        return;
+      }
+
+      cancelled = true;
+      action = cancelAction;
+    }
+
+    if (action != null) {
+
+      action.run();
+    }
+  }
+
+
+  public synchronized boolean isCancelled() {
+
+    return cancelled;
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.execution;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import com.stevenpaligo.spacetrack.client.exception.CircuitBreakerOpenException;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Stops sending queries to <a href="https://www.space-track.org/">Space-Track.org</a> for a while after several consecutive availability failures, so that an outage fails fast instead of piling up
+ * retries. One instance is meant to be shared by every query that talks to the same account.
+ * 
+ * <p>
+ * After {@link #getFailureThreshold()} consecutive retryable failures the breaker opens and rejects every call for {@link #getOpenDuration()}. It then lets a single trial call through: if that call
+ * succeeds the breaker closes again, otherwise it re-opens for another {@link #getOpenDuration()}.
+ * </p>
+ * 
+ * @author Steven Paligo
+ */
+public class CircuitBreaker {
+
+  public static enum State {
+
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+
+  @Getter
+  private final int failureThreshold;
+
+  @Getter
+  private final Duration openDuration;
+
+  private final Clock clock;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures = 0;
+  private Instant openedAt = Instant.MIN;
+  private boolean trialInProgress = false;
+
+
+  /**
+   * Creates a circuit breaker
+   * 
+   * @param failureThreshold The number of consecutive failures that opens the breaker (must be positive)
+   * @param openDuration The non-null, positive time to reject calls before allowing a trial call
+   */
+  public CircuitBreaker(int failureThreshold, @NonNull Duration openDuration) {
+
+    this(failureThreshold, openDuration, Clock.systemUTC());
+  }
+
+
+  CircuitBreaker(int failureThreshold, @NonNull Duration openDuration, @NonNull Clock clock) {
+
+    // more validation
+    if (failureThreshold <= 0) {
+
+      throw new IllegalArgumentException("The failureThreshold parameter is not positive: " + failureThreshold);
+
+    } else if (openDuration.isNegative() || openDuration.isZero()) {
+
+      throw new IllegalArgumentException("The openDuration parameter is not positive: " + openDuration);
+    }
+
+
+    this.failureThreshold = failureThreshold;
+    this.openDuration = openDuration;
+    this.clock = clock;
+  }
+
+
+  /**
+   * Gets the current state of the breaker, moving it from {@link State#OPEN} to {@link State#HALF_OPEN} if the open duration has elapsed
+   * 
+   * @return The non-null state
+   */
+  public synchronized State getState() {
+
+    if (state == State.OPEN && !clock.instant().isBefore(openedAt.plus(openDuration))) {
+
+      state = State.HALF_OPEN;
+      trialInProgress = false;
+    }
+
+    return state;
+  }
+
+
+  /**
+   * Asks permission to make a call. Every call that is permitted must be followed by a call to {@link #onSuccess()}, {@link #onFailure()}, or {@link #onAbandoned()}.
+   * 
+   * @throws CircuitBreakerOpenException The breaker is open (or a trial call is already in progress) and the call must not be made
+   */
+  public synchronized void acquirePermission() throws CircuitBreakerOpenException {
+
+    switch (getState()) {
+
+      case CLOSED:
+
+        return;
+
+
+      case HALF_OPEN:
+
+        if (!trialInProgress) {
+
+          trialInProgress = true;
+          return;
+        }
+
+        throw new CircuitBreakerOpenException("The Space-Track circuit breaker is half-open and a trial query is already in progress");
+
+
+      default:
+
+        throw new CircuitBreakerOpenException("The Space-Track circuit breaker is open until " + openedAt.plus(openDuration) + " after " + consecutiveFailures + " consecutive failures");
+    }
+  }
+
+
+  /**
+   * Records a call that reached Space-Track.org and got an answer, which closes the breaker
+   */
+  public synchronized void onSuccess() {
+
+    state = State.CLOSED;
+    consecutiveFailures = 0;
+    trialInProgress = false;
+  }
+
+
+  /**
+   * Records a call that was abandoned (for example because the thread was interrupted) before Space-Track.org answered, which leaves the breaker as it was apart from allowing another trial call
+   */
+  public synchronized void onAbandoned() {
+
+    trialInProgress = false;
+  }
+
+
+  /**
+   * Records a call that failed because Space-Track.org could not be reached or was not able to answer, which may open the breaker
+   */
+  public synchronized void onFailure() {
+
+    consecutiveFailures++;
+
+    if (getState() == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+
+      state = State.OPEN;
+      openedAt = clock.instant();
+      trialInProgress = false;
+    }
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.execution;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import com.stevenpaligo.spacetrack.client.util.DaemonThreadFactory;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs a request under a {@link HedgingPolicy}: if the first request hasn't finished within the hedge delay, an identical second request is sent, the first one to succeed wins, and the other one is
+ * cancelled
+ * 
+ * @author Steven Paligo
+ */
+@Slf4j
+public class HedgedExecutor {
+
+  private static final ExecutorService requestThreads = Executors.newCachedThreadPool(new DaemonThreadFactory("spacetrack-hedged-request-"));
+
+
+  /**
+   * A request that can be abandoned through a {@link CancellationToken}
+   * 
+   * @param <V> The type of the request's result
+   */
+  @FunctionalInterface
+  public static interface CancellableAttempt<V> {
+
+    public V run(CancellationToken cancellationToken) throws IOException;
+  }
+
+
+  private final HedgingPolicy hedgingPolicy;
+  private final Optional<RateLimiter> rateLimiter;
+
+
+  public HedgedExecutor(@NonNull HedgingPolicy hedgingPolicy, @NonNull Optional<RateLimiter> rateLimiter) {
+
+    this.hedgingPolicy = hedgingPolicy;
+    this.rateLimiter = rateLimiter;
+  }
+
+
+  /**
+   * Runs the request, hedging it if it is slow. The caller must take the rate limit permit for the first request (so that it can account for the wait); each hedge takes its own.
+   * 
+   * @param queryClass The non-null Space-Track.org query class, which the hedging policy uses to track latencies
+   * @param attempt The non-null request to run
+   * @return The result of the first request to succeed
+   * @throws IOException The failure that happened first if no request succeeded, with the other request's failure (if there was a hedge) suppressed
+   */
+  public <V> V execute(@NonNull String queryClass, @NonNull CancellableAttempt<V> attempt) throws IOException {
+
+    CompletionService<V> completionService = new ExecutorCompletionService<>(requestThreads);
+
+
+    // send the first request; both requests' latencies are measured from here, since that's the latency the caller sees
+    long startNanos = System.nanoTime();
+    CancellationToken primaryToken = new CancellationToken();
+    AtomicBoolean primaryRecorded = new AtomicBoolean(false);
+    Future<V> primary = completionService.submit(timed(queryClass, attempt, primaryToken, startNanos, primaryRecorded));
+
+    CancellationToken hedgeToken = new CancellationToken();
+    AtomicBoolean hedgeRecorded = new AtomicBoolean(false);
+    Future<V> hedge = null;
+
+
+    try {
+
+      // wait for the first request, up to the hedge delay
+      Duration hedgeDelay = hedgingPolicy.getHedgeDelay(queryClass);
+      Future<V> completed = completionService.poll(hedgeDelay.toNanos(), TimeUnit.NANOSECONDS);
+
+      if (completed != null) {
+
+        return getResult(completed);
+      }
+
+
+      // send the hedge, but only if the rate limits allow it right away; waiting for a permit would defeat the purpose
+      if (rateLimiter.isPresent() && !rateLimiter.get().tryAcquire()) {
+
+        log.debug("Not hedging the slow {} query because no rate limit permit is available", queryClass);
+        return getResult(primary);
+      }
+
+      log.debug("Hedging a {} query that has not completed within {}", queryClass, hedgeDelay);
+
+      hedge = completionService.submit(timed(queryClass, attempt, hedgeToken, startNanos, hedgeRecorded));
+
+
+      // take whichever request succeeds first and cancel the other one
+      Future<V> first = completionService.take();
+
+      try {
+
+        V result = getResult(first);
+
+
+        // the loser took at least this long, so record that rather than leave its latency out, which would make the delay shrink over time
+        if (first == primary) {
+
+          cancel(hedge, hedgeToken);
+          recordOnce(queryClass, startNanos, hedgeRecorded);
+
+        } else {
+
+          cancel(primary, primaryToken);
+          recordOnce(queryClass, startNanos, primaryRecorded);
+        }
+
+        return result;
+
+      } catch (IOException firstFailure) {
+
+        try {
+
+          return getResult(completionService.take());
+
+        } catch (IOException secondFailure) {
+
+          firstFailure.addSuppressed(secondFailure);
+          throw firstFailure;
+        }
+      }
+
+
+    } catch (InterruptedException e) {
+
+      Thread.currentThread().interrupt();
+      cancel(primary, primaryToken);
+
+      if (hedge != null) {
+
+        cancel(hedge, hedgeToken);
+      }
+
+      throw new InterruptedIOException("Interrupted while waiting for a Space-Track response");
+    }
+  }
+
+
+  private <V> Callable<V> timed(String queryClass, CancellableAttempt<V> attempt, CancellationToken cancellationToken, long startNanos, AtomicBoolean recorded) {
+
+    return () -> {
+
+      V result = attempt.run(cancellationToken);
+
+      if (!cancellationToken.isCancelled()) {
+
+        recordOnce(queryClass, startNanos, recorded);
+      }
+
+      return result;
+    };
+  }
+
+
+  /**
+   * Records a request's latency, unless it has already been recorded (a request that is cancelled just as it completes could otherwise be recorded twice)
+   */
+  private void recordOnce(String queryClass, long startNanos, AtomicBoolean recorded) {
+
+    if (recorded.compareAndSet(false, true)) {
+
+      hedgingPolicy.recordLatency(queryClass, Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+  }
+
+
+  private static <V> V getResult(Future<V> future) throws IOException, InterruptedException {
+
+    try {
+
+      return future.get();
+
+    } catch (ExecutionException e) {
+
+      if (e.getCause() instanceof IOException) {
+
+        throw (IOException) e.getCause();
+
+      } else if (e.getCause() instanceof RuntimeException) {
+
+        throw (RuntimeException) e.getCause();
+
+      } else if (e.getCause() instanceof Error) {
+
+        throw (Error) e.getCause();
+
+      } else {
+
+        throw new IOException("The Space-Track request failed", e.getCause());
+      }
+    }
+  }
+
+
+  private static void cancel(Future<?> future, CancellationToken cancellationToken) {
+
+    cancellationToken.cancel();
+    future.cancel(true);
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.execution;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Describes when a second, identical request (a "hedge") is sent because the first one is taking unusually long. The delay before hedging is a percentile of the recently observed latencies of the
+ * same query class, so only the slowest requests get hedged.
+ * 
+ * <p>
+ * A policy remembers the latencies it has seen, so one instance should be shared by all of the queries it applies to. Hedging is best suited to small, latency-sensitive queries: every hedge is a
+ * second request against Space-Track.org's rate limits.
+ * </p>
+ * 
+ * @author Steven Paligo
+ */
+public class HedgingPolicy {
+
+  private static final int SAMPLE_SIZE = 100;
+  private static final int MIN_SAMPLES = 10;
+
+
+  @Getter
+  private final double percentile;
+
+  @Getter
+  private final Duration minDelay;
+
+  @Getter
+  private final Duration initialDelay;
+
+  private final Map<String, LatencySamples> latenciesByQueryClass = new ConcurrentHashMap<>();
+
+
+  /**
+   * Creates a hedging policy
+   * 
+   * @param percentile The latency percentile after which to hedge, e.g. 0.95 (must be between 0.0 and 1.0, exclusive)
+   * @param minDelay The non-null, non-negative lower bound on the delay, which keeps very fast queries from always being hedged
+   * @param initialDelay The non-null delay used until enough latencies have been observed for a query class (must be at least the minimum delay)
+   */
+  public HedgingPolicy(double percentile, @NonNull Duration minDelay, @NonNull Duration initialDelay) {
+
+    // more validation
+    if (!(percentile > 0.0 && percentile < 1.0)) {
+
+      throw new IllegalArgumentException("The percentile parameter is not between 0.0 and 1.0: " + percentile);
+
+    } else if (minDelay.isNegative()) {
+
+      throw new IllegalArgumentException("The minDelay parameter is negative: " + minDelay);
+
+    } else if (initialDelay.compareTo(minDelay) < 0) {
+
+      throw new IllegalArgumentException("The initialDelay parameter is less than the minDelay parameter: " + initialDelay);
+    }
+
+
+    this.percentile = percentile;
+    this.minDelay = minDelay;
+    this.initialDelay = initialDelay;
+  }
+
+
+  /**
+   * Gets how long to wait for the first request before sending a hedge
+   * 
+   * @param queryClass The non-null Space-Track.org query class (e.g. "tle_latest")
+   * @return The non-null delay
+   */
+  public Duration getHedgeDelay(@NonNull String queryClass) {
+
+    LatencySamples samples = latenciesByQueryClass.get(queryClass);
+
+    if (samples == null) {
+
+      return initialDelay;
+    }
+
+    long percentileNanos = samples.getPercentileNanos(percentile);
+
+    if (percentileNanos < 0L) {
+
+      return initialDelay;
+    }
+
+    return Duration.ofNanos(Math.max(percentileNanos, minDelay.toNanos()));
+  }
+
+
+  /**
+   * Records the latency of a request, measured from when the caller sent it. A request that was abandoned is recorded with the time it had taken so far.
+   * 
+   * @param queryClass The non-null Space-Track.org query class (e.g. "tle_latest")
+   * @param latency The non-null latency of the request
+   */
+  public void recordLatency(@NonNull String queryClass, @NonNull Duration latency) {
+
+    latenciesByQueryClass.computeIfAbsent(queryClass, k -> new LatencySamples()).add(latency.toNanos());
+  }
+
+
+  /**
+   * The most recent latencies of a query class
+   */
+  private static class LatencySamples {
+
+    private final long[] nanos = new long[SAMPLE_SIZE]; // ring buffer
+    private int count = 0;
+    private int next = 0;
+
+
+    synchronized void add(long latencyNanos) {
+
+      nanos[next] = latencyNanos;
+      next = (next + 1) % nanos.length;
+      count = Math.min(count + 1, nanos.length);
+    }
+
+
+    /**
+     * @return The percentile in nanoseconds, or -1 if there are not enough samples
+     */
+    synchronized long getPercentileNanos(double percentile) {
+
+      if (count < MIN_SAMPLES) {
+
+        return -1L;
+      }
+
+      long[] sorted = Arrays.copyOf(nanos, count);
+      Arrays.sort(sorted);
+
+      return sorted[(int) Math.min(count - 1, Math.ceil(percentile * count) - 1)];
+    }
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.execution;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Keeps requests to <a href="https://www.space-track.org/">Space-Track.org</a> within one or more sliding-window budgets (e.g. 30 requests per minute and 300 requests per hour). One instance is meant to
+ * be shared by every query that uses the same account, and every request sent counts against it, including retries and hedged requests.
+ * 
+ * @author Steven Paligo
+ */
+public class RateLimiter {
+
+  /**
+   * A budget of a number of permits per sliding window of time
+   * 
+   * @author Steven Paligo
+   */
+  @Getter
+  public static class Window {
+
+    private int permits;
+    private Duration duration;
+
+
+    public Window(int permits, @NonNull Duration duration) {
+
+      // more validation
+      if (permits <= 0) {
+
+        throw new IllegalArgumentException("The permits parameter is not positive: " + permits);
+
+      } else if (duration.isNegative() || duration.isZero()) {
+
+        throw new IllegalArgumentException("The duration parameter is not positive: " + duration);
+      }
+
+
+      this.permits = permits;
+      this.duration = duration;
+    }
+  }
+
+
+  private final List<Window> windows;
+  private final long[] grantTimesNanos; // ring buffer of the most recent grants, which may include reservations in the near future
+  private int grantCount = 0;
+  private int oldestGrantIndex = 0;
+
+
+  public RateLimiter(@NonNull Window... windows) {
+
+    // more validation
+    if (windows.length == 0) {
+
+      throw new IllegalArgumentException("At least one window is required");
+    }
+
+
+    this.windows = Arrays.asList(windows.clone());
+    this.grantTimesNanos = new long[this.windows.stream().mapToInt(Window::getPermits).max().getAsInt()];
+  }
+
+
+  /**
+   * Creates a rate limiter with Space-Track.org's published limits: 30 requests per minute and 300 requests per hour
+   * 
+   * @return A new, non-null rate limiter
+   */
+  public static RateLimiter forSpaceTrack() {
+
+    return new RateLimiter(new Window(30, Duration.ofMinutes(1)), new Window(300, Duration.ofHours(1)));
+  }
+
+
+  /**
+   * Takes a permit, waiting for one to become available if necessary
+   * 
+   * @return The non-null time spent waiting for the permit
+   * @throws InterruptedIOException The thread was interrupted while waiting
+   */
+  public Duration acquire() throws InterruptedIOException {
+
+    long grantTime;
+    long now;
+
+    synchronized (this) {
+
+      now = System.nanoTime();
+      grantTime = Math.max(now, getEarliestGrantTime());
+      record(grantTime);
+    }
+
+
+    // wait for the reserved time slot outside of the lock so other threads can reserve later slots
+    long waitNanos = grantTime - now;
+
+    if (waitNanos > 0) {
+
+      try {
+
+        Thread.sleep(waitNanos / 1_000_000L, (int) (waitNanos % 1_000_000L));
+
+      } catch (InterruptedException e) {
+
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for a Space-Track rate limit permit");
+      }
+    }
+
+
+    return Duration.ofNanos(Math.max(0L, waitNanos));
+  }
+
+
+  /**
+   * Takes a permit only if one is available immediately
+   * 
+   * @return True if a permit was taken, false otherwise
+   */
+  public synchronized boolean tryAcquire() {
+
+    long now = System.nanoTime();
+
+    if (getEarliestGrantTime() > now) {
+
+      return false;
+    }
+
+
+    record(now);
+    return true;
+  }
+
+
+  /**
+   * Gets how long {@link #acquire()} would currently wait for a permit, without taking one
+   * 
+   * @return The non-null, non-negative wait
+   */
+  public synchronized Duration getWaitTime() {
+
+    long earliestGrantTime = getEarliestGrantTime();
+
+    if (earliestGrantTime == Long.MIN_VALUE) {
+
+      return Duration.ZERO;
+    }
+
+    return Duration.ofNanos(Math.max(0L, earliestGrantTime - System.nanoTime()));
+  }
+
+
+  private long getEarliestGrantTime() {
+
+    // for every full window, the next permit is available once the oldest grant in that window slides out of it
+    long earliest = Long.MIN_VALUE;
+
+    for (Window window : windows) {
+
+      if (grantCount >= window.getPermits()) {
+
+        long oldestInWindow = grantTimesNanos[(oldestGrantIndex + grantCount - window.getPermits()) % grantTimesNanos.length];
+        earliest = Math.max(earliest, oldestInWindow + window.getDuration().toNanos());
+      }
+    }
+
+
+    return earliest;
+  }
+
+
+  private void record(long grantTime) {
+
+    if (grantCount < grantTimesNanos.length) {
+
+      grantTimesNanos[(oldestGrantIndex + grantCount) % grantTimesNanos.length] = grantTime;
+      grantCount++;
+
+    } else {
+
+      // the buffer is full, so overwrite the oldest grant
+      grantTimesNanos[oldestGrantIndex] = grantTime;
+      oldestGrantIndex = (oldestGrantIndex + 1) % grantTimesNanos.length;
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.execution;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.stevenpaligo.spacetrack.client.exception.CircuitBreakerOpenException;
+import com.stevenpaligo.spacetrack.client.exception.SpaceTrackException;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Describes how failed queries are retried: how many attempts are made, how long to wait between them (exponential backoff with jitter), and which failures are worth retrying at all
+ * 
+ * @author Steven Paligo
+ */
+@Getter
+public class RetryPolicy {
+
+  /**
+   * Makes a single attempt and never retries
+   */
+  public static final RetryPolicy NONE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO, 1.0, 0.0);
+
+  /**
+   * Makes up to 4 attempts, waiting up to 2, 4, and 8 seconds (with full jitter) between them
+   */
+  public static final RetryPolicy DEFAULT = new RetryPolicy(4, Duration.ofSeconds(2), Duration.ofMinutes(1), 2.0, 1.0);
+
+
+  private int maxAttempts;
+  private Duration initialBackoff;
+  private Duration maxBackoff;
+  private double backoffMultiplier;
+  private double jitter;
+
+
+  /**
+   * Creates a retry policy
+   * 
+   * @param maxAttempts The total number of attempts, including the first one (must be positive)
+   * @param initialBackoff The non-null, non-negative wait before the second attempt
+   * @param maxBackoff The non-null upper bound on any single wait, including one requested by the server with a <code>Retry-After</code> header (must be at least the initial backoff)
+   * @param backoffMultiplier The factor applied to the wait after each failed attempt (must be at least 1.0)
+   * @param jitter The fraction of each wait that is randomized, from 0.0 (no randomization) to 1.0 ("full jitter")
+   */
+  public RetryPolicy(int maxAttempts, @NonNull Duration initialBackoff, @NonNull Duration maxBackoff, double backoffMultiplier, double jitter) {
+
+    // more validation
+    if (maxAttempts <= 0) {
+
+      throw new IllegalArgumentException("The maxAttempts parameter is not positive: " + maxAttempts);
+
+    } else if (initialBackoff.isNegative()) {
+
+      throw new IllegalArgumentException("The initialBackoff parameter is negative: " + initialBackoff);
+
+    } else if (maxBackoff.compareTo(initialBackoff) < 0) {
+
+      throw new IllegalArgumentException("The maxBackoff parameter is less than the initialBackoff parameter: " + maxBackoff);
+
+    } else if (!(backoffMultiplier >= 1.0)) {
+
+      throw new IllegalArgumentException("The backoffMultiplier parameter is not >= 1.0: " + backoffMultiplier);
+
+    } else if (!(jitter >= 0.0 && jitter <= 1.0)) {
+
+      throw new IllegalArgumentException("The jitter parameter is not between 0.0 and 1.0: " + jitter);
+    }
+
+
+    this.maxAttempts = maxAttempts;
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+    this.backoffMultiplier = backoffMultiplier;
+    this.jitter = jitter;
+  }
+
+
+  /**
+   * Calculates how long to wait after a failed attempt, including the random jitter
+   * 
+   * @param failedAttempts The number of attempts that have failed so far (must be positive)
+   * @return The non-null, non-negative duration to wait before the next attempt
+   */
+  public Duration getBackoff(int failedAttempts) {
+
+    // validation
+    if (failedAttempts <= 0) {
+
+      throw new IllegalArgumentException("The failedAttempts parameter is not positive: " + failedAttempts);
+    }
+
+
+    // exponential growth, capped at the maximum
+    double backoffNanos = initialBackoff.toNanos() * Math.pow(backoffMultiplier, failedAttempts - 1);
+    backoffNanos = Math.min(backoffNanos, maxBackoff.toNanos());
+
+
+    // randomize part of the wait so that many clients failing at once don't retry in lockstep
+    backoffNanos -= backoffNanos * jitter * ThreadLocalRandom.current().nextDouble();
+
+
+    return Duration.ofNanos((long) backoffNanos);
+  }
+
+
+  /**
+   * Decides whether or not a failure is worth retrying. Transport failures (timeouts, refused connections, etc.) and server-side HTTP errors are retryable; malformed results, rejected queries, an open
+   * circuit breaker, and an interrupted thread are not.
+   * 
+   * @param failure A non-null failure from a query attempt
+   * @return True if the query should be attempted again, false otherwise
+   */
+  public boolean isRetryable(@NonNull IOException failure) {
+
+    if (failure instanceof SpaceTrackException) {
+
+      return ((SpaceTrackException) failure).isRetryable();
+
+    } else if (failure instanceof JsonProcessingException || failure instanceof CircuitBreakerOpenException) {
+
+      return false;
+
+    } else if (failure instanceof InterruptedIOException && !(failure instanceof SocketTimeoutException)) {
+
+      return false; // the caller asked to stop, so neither retry nor wait
+
+    } else {
+
+      return true;
+    }
+  }
+}
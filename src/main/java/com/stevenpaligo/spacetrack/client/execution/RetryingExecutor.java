@@ -0,0 +1,160 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.execution;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Optional;
+import com.stevenpaligo.spacetrack.client.exception.SpaceTrackResponseException;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs an operation under a {@link RetryPolicy} and, optionally, a {@link CircuitBreaker}
+ * 
+ * @author Steven Paligo
+ */
+@Slf4j
+public class RetryingExecutor {
+
+  /**
+   * A single attempt at an operation that talks to <a href="https://www.space-track.org/">Space-Track.org</a>
+   * 
+   * @param <V> The type of the operation's result
+   */
+  @FunctionalInterface
+  public static interface Attempt<V> {
+
+    public V run() throws IOException;
+  }
+
+
+  private final RetryPolicy retryPolicy;
+  private final Optional<CircuitBreaker> circuitBreaker;
+
+
+  public RetryingExecutor(@NonNull RetryPolicy retryPolicy, @NonNull Optional<CircuitBreaker> circuitBreaker) {
+
+    this.retryPolicy = retryPolicy;
+    this.circuitBreaker = circuitBreaker;
+  }
+
+
+  /**
+   * Runs the attempt until it succeeds, fails in a way that is not retryable, or the retry policy runs out of attempts
+   * 
+   * @param attempt The non-null operation to run
+   * @return The result of the first successful attempt
+   * @throws IOException The failure from the last attempt, or a {@link com.stevenpaligo.spacetrack.client.exception.CircuitBreakerOpenException} if the circuit breaker rejected the call
+   */
+  public <V> V execute(@NonNull Attempt<V> attempt) throws IOException {
+
+    for (int attemptNumber = 1;; attemptNumber++) {
+
+      // fail fast if Space-Track is known to be unavailable
+      if (circuitBreaker.isPresent()) {
+
+        circuitBreaker.get().acquirePermission();
+      }
+
+
+      // make the attempt
+      IOException failure;
+
+      try {
+
+        V result = attempt.run();
+        circuitBreaker.ifPresent(CircuitBreaker::onSuccess);
+
+        return result;
+
+      } catch (IOException e) {
+
+        failure = e;
+
+      } catch (RuntimeException e) {
+
+        circuitBreaker.ifPresent(CircuitBreaker::onFailure); // don't leave a half-open breaker waiting on a trial that will never report back
+        throw e;
+      }
+
+
+      // stop at once if the thread was interrupted, without counting the attempt for or against Space-Track
+      if (failure instanceof InterruptedIOException && !(failure instanceof SocketTimeoutException)) {
+
+        circuitBreaker.ifPresent(CircuitBreaker::onAbandoned);
+        Thread.currentThread().interrupt();
+        throw failure;
+      }
+
+
+      // decide whether or not to try again
+      boolean retryable = retryPolicy.isRetryable(failure);
+
+      if (circuitBreaker.isPresent()) {
+
+        if (retryable) {
+
+          circuitBreaker.get().onFailure(); // only availability problems count against Space-Track
+
+        } else {
+
+          circuitBreaker.get().onSuccess(); // Space-Track answered, even if the answer was a rejection
+        }
+      }
+
+      if (!retryable || attemptNumber >= retryPolicy.getMaxAttempts()) {
+
+        throw failure;
+      }
+
+
+      // wait before trying again, honoring the server's request if it made one
+      Duration backoff = retryPolicy.getBackoff(attemptNumber);
+
+      if (failure instanceof SpaceTrackResponseException && ((SpaceTrackResponseException) failure).getRetryAfter().isPresent()) {
+
+        Duration retryAfter = ((SpaceTrackResponseException) failure).getRetryAfter().get();
+
+        if (retryAfter.compareTo(retryPolicy.getMaxBackoff()) > 0) {
+
+          log.debug("Not retrying because Space-Track asked to wait {}, which is longer than the maximum backoff of {}", retryAfter, retryPolicy.getMaxBackoff());
+          throw failure;
+        }
+
+        if (retryAfter.compareTo(backoff) > 0) {
+
+          backoff = retryAfter;
+        }
+      }
+
+      log.debug("Space-Track attempt {} of {} failed, retrying in {}", attemptNumber, retryPolicy.getMaxAttempts(), backoff, failure);
+
+      try {
+
+        Thread.sleep(backoff.toMillis());
+
+      } catch (InterruptedException e) {
+
+        Thread.currentThread().interrupt();
+
+        InterruptedIOException interrupted = new InterruptedIOException("Interrupted while waiting to retry a Space-Track query");
+        interrupted.addSuppressed(failure);
+        throw interrupted;
+      }
+    }
+  }
+}
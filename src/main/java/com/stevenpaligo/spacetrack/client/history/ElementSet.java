@@ -0,0 +1,171 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.history;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import com.stevenpaligo.spacetrack.client.LatestTleQuery.LatestTle;
+import com.stevenpaligo.spacetrack.client.TleQuery.Tle;
+import com.stevenpaligo.spacetrack.client.propagation.Sgp4Propagator;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * The mean elements of one TLE, as kept by a {@link TleHistoryStore}. Only the fields needed to propagate the element set are kept, and the epoch is kept to the microsecond (the precision of a TLE).
+ *
+ * @author Steven Paligo
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class ElementSet {
+
+  private final Instant epoch;
+  private final double meanMotionRevsPerDay;
+  private final double eccentricity;
+  private final double inclinationDegrees;
+  private final double rightAscOfNodeDegrees;
+  private final double argOfPerigeeDegrees;
+  private final double meanAnomalyDegrees;
+  private final double bstar;
+
+
+  /**
+   * Creates an element set
+   *
+   * @param epoch The non-null epoch, which is truncated to microseconds
+   * @param meanMotionRevsPerDay The mean motion in revolutions per day
+   * @param eccentricity The eccentricity
+   * @param inclinationDegrees The inclination in degrees
+   * @param rightAscOfNodeDegrees The right ascension of the ascending node in degrees
+   * @param argOfPerigeeDegrees The argument of perigee in degrees
+   * @param meanAnomalyDegrees The mean anomaly in degrees
+   * @param bstar The BSTAR drag term in inverse Earth radii
+   */
+  public ElementSet(@NonNull Instant epoch, double meanMotionRevsPerDay, double eccentricity, double inclinationDegrees, double rightAscOfNodeDegrees, double argOfPerigeeDegrees,
+      double meanAnomalyDegrees, double bstar) {
+
+    this.epoch = epoch.truncatedTo(ChronoUnit.MICROS);
+    this.meanMotionRevsPerDay = meanMotionRevsPerDay;
+    this.eccentricity = eccentricity;
+    this.inclinationDegrees = inclinationDegrees;
+    this.rightAscOfNodeDegrees = rightAscOfNodeDegrees;
+    this.argOfPerigeeDegrees = argOfPerigeeDegrees;
+    this.meanAnomalyDegrees = meanAnomalyDegrees;
+    this.bstar = bstar;
+  }
+
+
+  /**
+   * Creates an element set from a result of a {@link com.stevenpaligo.spacetrack.client.TleQuery}
+   *
+   * @param tle A non-null TLE
+   * @return The element set
+   * @throws IllegalArgumentException The TLE is missing its epoch or one of the elements
+   */
+  public static ElementSet of(@NonNull Tle tle) {
+
+    return new ElementSet(epoch(tle.getEpochYmdHms(), tle.getEpochMicroseconds()), required(tle.getMeanMotionRevsPerDay(), "mean motion"), required(tle.getEccentricity(), "eccentricity"),
+        required(tle.getInclinationDegrees(), "inclination"), required(tle.getRightAscOfNodeDegrees(), "right ascension of the ascending node"),
+        required(tle.getArgOfPerigeeDegrees(), "argument of perigee"), required(tle.getMeanAnomalyDegrees(), "mean anomaly"), required(tle.getBstar(), "BSTAR"));
+  }
+
+
+  /**
+   * Creates an element set from a result of a {@link com.stevenpaligo.spacetrack.client.LatestTleQuery}
+   *
+   * @param tle A non-null TLE
+   * @return The element set
+   * @throws IllegalArgumentException The TLE is missing its epoch or one of the elements
+   */
+  public static ElementSet of(@NonNull LatestTle tle) {
+
+    return new ElementSet(epoch(tle.getEpochYmdHms(), tle.getEpochMicroseconds()), required(tle.getMeanMotionRevsPerDay(), "mean motion"), required(tle.getEccentricity(), "eccentricity"),
+        required(tle.getInclinationDegrees(), "inclination"), required(tle.getRightAscOfNodeDegrees(), "right ascension of the ascending node"),
+        required(tle.getArgOfPerigeeDegrees(), "argument of perigee"), required(tle.getMeanAnomalyDegrees(), "mean anomaly"), required(tle.getBstar(), "BSTAR"));
+  }
+
+
+  /**
+   * Creates an SGP4/SDP4 propagator for the element set
+   *
+   * @return The propagator
+   * @throws IllegalArgumentException The elements are outside the range the theory supports
+   */
+  public Sgp4Propagator toPropagator() {
+
+    return new Sgp4Propagator(epoch, meanMotionRevsPerDay, eccentricity, inclinationDegrees, rightAscOfNodeDegrees, argOfPerigeeDegrees, meanAnomalyDegrees, bstar);
+  }
+
+
+  /**
+   * Gets the epoch as microseconds since 1970-01-01T00:00:00Z
+   */
+  long getEpochMicros() {
+
+    return toEpochMicros(epoch);
+  }
+
+
+  /**
+   * Converts a time to microseconds since 1970-01-01T00:00:00Z, rounding down and saturating for times too far from 1970 to represent (e.g. {@link Instant#MIN})
+   */
+  static long toEpochMicros(Instant time) {
+
+    if (time.getEpochSecond() >= Long.MAX_VALUE / 1_000_000L) {
+
+      return Long.MAX_VALUE;
+
+    } else if (time.getEpochSecond() <= Long.MIN_VALUE / 1_000_000L) {
+
+      return Long.MIN_VALUE;
+    }
+
+
+    return time.getEpochSecond() * 1_000_000L + time.getNano() / 1_000L;
+  }
+
+
+  static Instant ofEpochMicros(long epochMicros) {
+
+    return Instant.ofEpochSecond(Math.floorDiv(epochMicros, 1_000_000L), Math.floorMod(epochMicros, 1_000_000L) * 1_000L);
+  }
+
+
+  private static Instant epoch(Instant epochYmdHms, Integer epochMicroseconds) {
+
+    if (epochYmdHms == null) {
+
+      throw new IllegalArgumentException("The element set has no epoch");
+    }
+
+
+    return epochYmdHms.plusNanos(Optional.ofNullable(epochMicroseconds).orElse(0) * 1000L);
+  }
+
+
+  private static double required(Double value, String name) {
+
+    if (value == null) {
+
+      throw new IllegalArgumentException("The element set has no " + name);
+    }
+
+
+    return value;
+  }
+}
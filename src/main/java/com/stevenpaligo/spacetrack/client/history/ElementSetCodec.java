@@ -0,0 +1,324 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.history;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compresses a run of element sets for one object, in epoch order, in the style of Facebook's Gorilla time series database:
+ *
+ * <ul>
+ * <li>The first epoch and elements are written in full.</li>
+ * <li>Each later epoch is written as the change in the interval between epochs (the delta of the delta), using a one-bit code when the interval is unchanged and a short prefix choosing between 24,
+ * 40 and 64 bits otherwise. The buckets are wider than Gorilla's because TLE epochs are in microseconds and irregularly spaced.</li>
+ * <li>Each later element is written as the exclusive or of its bits with the previous value of the same element. Unchanged values take one bit, and changed ones only their meaningful bits, reusing
+ * the previous value's count of leading and trailing zeros when the new bits fit inside it.</li>
+ * </ul>
+ *
+ * @author Steven Paligo
+ */
+final class ElementSetCodec {
+
+  static final int ELEMENT_COUNT = 7;
+
+
+  private ElementSetCodec() {
+    // prevent instantiation
+  }
+
+
+  /**
+   * Compresses element sets
+   *
+   * @param elementSets The element sets, in strictly increasing epoch order (at least one)
+   * @return The compressed bytes
+   */
+  static byte[] encode(List<ElementSet> elementSets) {
+
+    BitWriter writer = new BitWriter(16 + elementSets.size() * 24);
+
+    long previousEpoch = 0L;
+    long previousDelta = 0L;
+    long[] previousBits = new long[ELEMENT_COUNT];
+    int[] previousLeadingZeros = new int[ELEMENT_COUNT];
+    int[] previousTrailingZeros = new int[ELEMENT_COUNT];
+    Arrays.fill(previousLeadingZeros, -1);
+
+    for (int i = 0; i < elementSets.size(); i++) {
+
+      ElementSet elementSet = elementSets.get(i);
+      long epoch = elementSet.getEpochMicros();
+      long[] bits = toBits(elementSet);
+
+      if (i == 0) {
+
+        writer.write(epoch, 64);
+
+        for (int element = 0; element < ELEMENT_COUNT; element++) {
+
+          writer.write(bits[element], 64);
+        }
+
+      } else {
+
+        long delta = epoch - previousEpoch;
+        writeDeltaOfDelta(writer, delta - previousDelta);
+        previousDelta = delta;
+
+        for (int element = 0; element < ELEMENT_COUNT; element++) {
+
+          long xor = bits[element] ^ previousBits[element];
+
+          if (xor == 0L) {
+
+            writer.write(0L, 1);
+            continue;
+          }
+
+          writer.write(1L, 1);
+
+          int leadingZeros = Math.min(31, Long.numberOfLeadingZeros(xor));
+          int trailingZeros = Long.numberOfTrailingZeros(xor);
+
+          if (previousLeadingZeros[element] >= 0 && leadingZeros >= previousLeadingZeros[element] && trailingZeros >= previousTrailingZeros[element]) {
+
+            // the meaningful bits fit in the previous window
+            writer.write(0L, 1);
+            writer.write(xor >>> previousTrailingZeros[element], 64 - previousLeadingZeros[element] - previousTrailingZeros[element]);
+
+          } else {
+
+            int length = 64 - leadingZeros - trailingZeros;
+
+            writer.write(1L, 1);
+            writer.write(leadingZeros, 5);
+            writer.write(length - 1, 6);
+            writer.write(xor >>> trailingZeros, length);
+
+            previousLeadingZeros[element] = leadingZeros;
+            previousTrailingZeros[element] = trailingZeros;
+          }
+        }
+      }
+
+      previousEpoch = epoch;
+      previousBits = bits;
+    }
+
+
+    return writer.toByteArray();
+  }
+
+
+  /**
+   * Decompresses element sets
+   *
+   * @param buffer The buffer holding the compressed bytes
+   * @param offset The position of the compressed bytes in the buffer
+   * @param count The number of element sets
+   * @return The element sets
+   */
+  static List<ElementSet> decode(ByteBuffer buffer, int offset, int count) {
+
+    BitReader reader = new BitReader(buffer, offset);
+    List<ElementSet> elementSets = new ArrayList<>(count);
+
+    long epoch = 0L;
+    long delta = 0L;
+    long[] bits = new long[ELEMENT_COUNT];
+    int[] leadingZeros = new int[ELEMENT_COUNT];
+    int[] trailingZeros = new int[ELEMENT_COUNT];
+
+    for (int i = 0; i < count; i++) {
+
+      if (i == 0) {
+
+        epoch = reader.read(64);
+
+        for (int element = 0; element < ELEMENT_COUNT; element++) {
+
+          bits[element] = reader.read(64);
+        }
+
+      } else {
+
+        delta += readDeltaOfDelta(reader);
+        epoch += delta;
+
+        for (int element = 0; element < ELEMENT_COUNT; element++) {
+
+          if (reader.read(1) == 0L) {
+            continue;
+          }
+
+          if (reader.read(1) == 1L) {
+
+            leadingZeros[element] = (int) reader.read(5);
+            trailingZeros[element] = 64 - leadingZeros[element] - ((int) reader.read(6) + 1);
+          }
+
+          bits[element] ^= reader.read(64 - leadingZeros[element] - trailingZeros[element]) << trailingZeros[element];
+        }
+      }
+
+      elementSets.add(new ElementSet(ElementSet.ofEpochMicros(epoch), Double.longBitsToDouble(bits[0]), Double.longBitsToDouble(bits[1]), Double.longBitsToDouble(bits[2]),
+          Double.longBitsToDouble(bits[3]), Double.longBitsToDouble(bits[4]), Double.longBitsToDouble(bits[5]), Double.longBitsToDouble(bits[6])));
+    }
+
+
+    return elementSets;
+  }
+
+
+  private static long[] toBits(ElementSet elementSet) {
+
+    return new long[] {Double.doubleToRawLongBits(elementSet.getMeanMotionRevsPerDay()), Double.doubleToRawLongBits(elementSet.getEccentricity()),
+        Double.doubleToRawLongBits(elementSet.getInclinationDegrees()), Double.doubleToRawLongBits(elementSet.getRightAscOfNodeDegrees()),
+        Double.doubleToRawLongBits(elementSet.getArgOfPerigeeDegrees()), Double.doubleToRawLongBits(elementSet.getMeanAnomalyDegrees()), Double.doubleToRawLongBits(elementSet.getBstar())};
+  }
+
+
+  private static void writeDeltaOfDelta(BitWriter writer, long deltaOfDelta) {
+
+    long zigZag = (deltaOfDelta << 1) ^ (deltaOfDelta >> 63);
+
+    if (zigZag == 0L) {
+
+      writer.write(0L, 1);
+
+    } else if ((zigZag >>> 24) == 0L) {
+
+      writer.write(0b10L, 2);
+      writer.write(zigZag, 24);
+
+    } else if ((zigZag >>> 40) == 0L) {
+
+      writer.write(0b110L, 3);
+      writer.write(zigZag, 40);
+
+    } else {
+
+      writer.write(0b111L, 3);
+      writer.write(zigZag, 64);
+    }
+  }
+
+
+  private static long readDeltaOfDelta(BitReader reader) {
+
+    long zigZag;
+
+    if (reader.read(1) == 0L) {
+
+      zigZag = 0L;
+
+    } else if (reader.read(1) == 0L) {
+
+      zigZag = reader.read(24);
+
+    } else if (reader.read(1) == 0L) {
+
+      zigZag = reader.read(40);
+
+    } else {
+
+      zigZag = reader.read(64);
+    }
+
+    return (zigZag >>> 1) ^ -(zigZag & 1L);
+  }
+
+
+  /**
+   * Writes values of up to 64 bits, most significant bit first
+   */
+  private static class BitWriter {
+
+    private byte[] bytes;
+    private long bitLength = 0L;
+
+
+    private BitWriter(int initialCapacity) {
+
+      this.bytes = new byte[Math.max(16, initialCapacity)];
+    }
+
+
+    private void write(long value, int bitCount) {
+
+      while (bitCount > 0) {
+
+        int byteIndex = (int) (bitLength >>> 3);
+
+        if (byteIndex >= bytes.length) {
+          bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+
+        int freeBits = 8 - (int) (bitLength & 7L);
+        int chunk = Math.min(freeBits, bitCount);
+        int chunkBits = (int) ((value >>> (bitCount - chunk)) & ((1L << chunk) - 1L));
+
+        bytes[byteIndex] |= chunkBits << (freeBits - chunk);
+        bitCount -= chunk;
+        bitLength += chunk;
+      }
+    }
+
+
+    private byte[] toByteArray() {
+
+      return Arrays.copyOf(bytes, (int) ((bitLength + 7L) >>> 3));
+    }
+  }
+
+
+  /**
+   * Reads values written by a {@link BitWriter}, using absolute positions so the buffer's position is left alone
+   */
+  private static class BitReader {
+
+    private final ByteBuffer buffer;
+    private final int offset;
+    private long bitPosition = 0L;
+
+
+    private BitReader(ByteBuffer buffer, int offset) {
+
+      this.buffer = buffer;
+      this.offset = offset;
+    }
+
+
+    private long read(int bitCount) {
+
+      long value = 0L;
+
+      while (bitCount > 0) {
+
+        int currentByte = buffer.get(offset + (int) (bitPosition >>> 3)) & 0xFF;
+        int availableBits = 8 - (int) (bitPosition & 7L);
+        int chunk = Math.min(availableBits, bitCount);
+
+        value = (value << chunk) | ((currentByte >>> (availableBits - chunk)) & ((1 << chunk) - 1));
+        bitCount -= chunk;
+        bitPosition += chunk;
+      }
+
+      return value;
+    }
+  }
+}
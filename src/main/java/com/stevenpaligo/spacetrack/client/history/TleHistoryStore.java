@@ -0,0 +1,547 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.history;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import com.stevenpaligo.spacetrack.client.TleQuery.Tle;
+import com.stevenpaligo.spacetrack.client.util.IntObjectMap;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An append-only file of TLE history, holding each object's element sets in epoch order. Element sets are compressed in blocks of up to {@value #BLOCK_SIZE} per object (see
+ * {@link ElementSetCodec}), and the file is memory-mapped for reading.
+ *
+ * <p>
+ * The store keeps a sparse index in memory, with the epoch range and file position of every block, so finding the element set nearest to a time only decompresses the one or two blocks around it.
+ * The index is rebuilt from the block headers when the file is opened.
+ * </p>
+ *
+ * <p>
+ * Appended element sets are buffered per object until a block is full or {@link #flush()} is called. Callers should batch their appends: each flush writes every object's buffered element sets as
+ * a block, however few there are, and blocks are never merged afterwards (the file is only ever appended to, so that an interrupted write can't damage what is already there). Flushing after every
+ * TLE would leave blocks of one element set, each with its own header and index entry. If the process stops while writing, the incomplete block at the end of the file is discarded when the file
+ * is next opened. The file format limits a store to 2 GiB.
+ * </p>
+ *
+ * @author Steven Paligo
+ */
+@Slf4j
+public class TleHistoryStore implements Closeable {
+
+  static final int BLOCK_SIZE = 64;
+
+  private static final int MAGIC = 0x53544c48; // "STLH"
+  private static final int VERSION = 1;
+  private static final int FILE_HEADER_SIZE = 8;
+  private static final int BLOCK_HEADER_SIZE = 28; // catalog number, count, first epoch, last epoch, payload length
+
+
+  /**
+   * The history of one object: the blocks in the file and the element sets not yet written
+   */
+  private static class ObjectHistory {
+
+    private long[] blockPositions = new long[4];
+    private int[] blockCounts = new int[4];
+    private long[] firstEpochs = new long[4];
+    private long[] lastEpochs = new long[4];
+    private int blockCount = 0;
+    private int elementSetCount = 0;
+    private long lastEpoch = Long.MIN_VALUE;
+    private final List<ElementSet> pending = new ArrayList<>();
+
+
+    private void addBlock(long position, int count, long firstEpoch, long lastEpoch) {
+
+      if (blockCount == blockPositions.length) {
+
+        blockPositions = Arrays.copyOf(blockPositions, blockCount * 2);
+        blockCounts = Arrays.copyOf(blockCounts, blockCount * 2);
+        firstEpochs = Arrays.copyOf(firstEpochs, blockCount * 2);
+        lastEpochs = Arrays.copyOf(lastEpochs, blockCount * 2);
+      }
+
+      blockPositions[blockCount] = position;
+      blockCounts[blockCount] = count;
+      firstEpochs[blockCount] = firstEpoch;
+      lastEpochs[blockCount] = lastEpoch;
+      blockCount++;
+    }
+  }
+
+
+  private final Path file;
+  private final FileChannel channel;
+  private final IntObjectMap<ObjectHistory> histories = new IntObjectMap<>();
+  private MappedByteBuffer mapped;
+  private long size;
+
+
+  private TleHistoryStore(Path file, FileChannel channel) {
+
+    this.file = file;
+    this.channel = channel;
+  }
+
+
+  /**
+   * Opens a store, creating the file if it doesn't exist
+   *
+   * @param file The non-null file
+   * @return The store
+   * @throws IOException The file is unable to be opened or isn't a TLE history file
+   */
+  public static TleHistoryStore open(@NonNull Path file) throws IOException {
+
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    TleHistoryStore store = new TleHistoryStore(file, channel);
+
+    try {
+
+      store.load();
+
+    } catch (IOException | RuntimeException e) {
+
+      channel.close();
+      throw e;
+    }
+
+    return store;
+  }
+
+
+  private void load() throws IOException {
+
+    size = channel.size();
+
+    if (size == 0L) {
+
+      ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+      header.flip();
+      writeFully(header, 0L);
+      size = FILE_HEADER_SIZE;
+    }
+
+    if (size > Integer.MAX_VALUE) {
+
+      throw new IOException("The TLE history file is larger than 2 GiB: " + file);
+    }
+
+    mapped = channel.map(MapMode.READ_ONLY, 0L, size);
+
+    if (size < FILE_HEADER_SIZE || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+
+      throw new IOException("The file is not a TLE history file: " + file);
+    }
+
+
+    // index the blocks, stopping at an incomplete block left by an interrupted write
+    long position = FILE_HEADER_SIZE;
+
+    while (position < size) {
+
+      if (position + BLOCK_HEADER_SIZE <= size && mapped.getInt((int) position + 24) < 0) {
+
+        throw new IOException("The TLE history file is corrupt at position " + position + ": " + file);
+      }
+
+      if (position + BLOCK_HEADER_SIZE > size || position + BLOCK_HEADER_SIZE + mapped.getInt((int) position + 24) > size) {
+
+        log.warn("Discarding an incomplete block at the end of {}", file);
+        channel.truncate(position);
+        size = position;
+        mapped = channel.map(MapMode.READ_ONLY, 0L, size);
+        break;
+      }
+
+      int catalogNumber = mapped.getInt((int) position);
+      int count = mapped.getInt((int) position + 4);
+      long firstEpoch = mapped.getLong((int) position + 8);
+      long lastEpoch = mapped.getLong((int) position + 16);
+      int payloadLength = mapped.getInt((int) position + 24);
+
+      ObjectHistory history = histories.computeIfAbsent(catalogNumber, key -> new ObjectHistory());
+      history.addBlock(position, count, firstEpoch, lastEpoch);
+      history.elementSetCount += count;
+      history.lastEpoch = lastEpoch;
+
+      position += BLOCK_HEADER_SIZE + payloadLength;
+    }
+
+    log.debug("Opened TLE history {} with {} objects", file, histories.size());
+  }
+
+
+  /**
+   * Appends an element set to an object's history. Element sets must be appended in epoch order: one that isn't newer than the object's latest element set is ignored.
+   *
+   * @param catalogNumber The NORAD catalog number of the object
+   * @param elementSet The non-null element set
+   * @return True if the element set was appended, false if it was ignored
+   * @throws IOException A full block was unable to be written
+   */
+  public synchronized boolean append(int catalogNumber, @NonNull ElementSet elementSet) throws IOException {
+
+    ensureOpen();
+
+    ObjectHistory history = histories.computeIfAbsent(catalogNumber, key -> new ObjectHistory());
+    long epoch = elementSet.getEpochMicros();
+
+    if (epoch <= history.lastEpoch) {
+      return false;
+    }
+
+    history.pending.add(elementSet);
+    history.elementSetCount++;
+    history.lastEpoch = epoch;
+
+    if (history.pending.size() >= BLOCK_SIZE) {
+
+      writeBlock(catalogNumber, history); // mapped again when it's next read
+    }
+
+    return true;
+  }
+
+
+  /**
+   * Appends the results of a {@link com.stevenpaligo.spacetrack.client.TleQuery}, in epoch order. TLEs without a catalog number or elements, and TLEs that aren't newer than their object's latest
+   * element set, are ignored.
+   *
+   * @param tles The non-null TLEs, in any order
+   * @return The number of TLEs appended
+   * @throws IOException A full block was unable to be written
+   */
+  public synchronized int appendTles(@NonNull Collection<Tle> tles) throws IOException {
+
+    List<Tle> sorted = new ArrayList<>(tles.size());
+
+    for (Tle tle : tles) {
+
+      if (tle != null && tle.getCatalogNumber().isPresent() && tle.getEpochYmdHms() != null) {
+        sorted.add(tle);
+      }
+    }
+
+    sorted.sort(Comparator.comparing(Tle::getEpochYmdHms).thenComparing(tle -> Optional.ofNullable(tle.getEpochMicroseconds()).orElse(0)));
+
+
+    int appended = 0;
+
+    for (Tle tle : sorted) {
+
+      ElementSet elementSet;
+
+      try {
+
+        elementSet = ElementSet.of(tle);
+
+      } catch (IllegalArgumentException e) {
+
+        log.debug("Leaving a TLE of object {} out of the history: {}", tle.getCatalogNumber().get(), e.getMessage());
+        continue;
+      }
+
+      if (append(tle.getCatalogNumber().get(), elementSet)) {
+        appended++;
+      }
+    }
+
+    return appended;
+  }
+
+
+  /**
+   * Writes the buffered element sets of every object to the file and forces the file to storage
+   *
+   * @throws IOException The element sets were unable to be written
+   */
+  public synchronized void flush() throws IOException {
+
+    ensureOpen();
+
+    boolean written = false;
+
+    int[] catalogNumbers = histories.keys();
+    Arrays.sort(catalogNumbers);
+
+    for (int catalogNumber : catalogNumbers) {
+
+      ObjectHistory history = histories.get(catalogNumber);
+
+      if (!history.pending.isEmpty()) {
+
+        writeBlock(catalogNumber, history);
+        written = true;
+      }
+    }
+
+    if (written) {
+
+      channel.force(false);
+    }
+  }
+
+
+  /**
+   * Finds the element set of an object with the epoch nearest to a time (the earlier one if two are equally near)
+   *
+   * @param catalogNumber The NORAD catalog number of the object
+   * @param time The non-null time
+   * @return The element set, or empty if the store has no history for the object
+   * @throws IOException The file was unable to be mapped for reading
+   */
+  public synchronized Optional<ElementSet> getNearest(int catalogNumber, @NonNull Instant time) throws IOException {
+
+    ensureOpen();
+
+    ObjectHistory history = histories.get(catalogNumber);
+
+    if (history == null || history.elementSetCount == 0) {
+      return Optional.empty();
+    }
+
+
+    // the nearest element set is in the last block starting at or before the time, the block after it, or the pending element sets
+    long target = ElementSet.toEpochMicros(time);
+    int block = lastBlockStartingAtOrBefore(history, target);
+
+    List<ElementSet> candidates = new ArrayList<>(history.pending);
+
+    for (int i = Math.max(0, block); i <= block + 1 && i < history.blockCount; i++) {
+
+      candidates.addAll(readBlock(history, i));
+    }
+
+    ElementSet nearest = null;
+    long nearestDistance = Long.MAX_VALUE;
+
+    for (ElementSet candidate : candidates) {
+
+      long distance = Math.abs(candidate.getEpochMicros() - target);
+
+      if (distance < nearestDistance || (distance == nearestDistance && candidate.getEpochMicros() < nearest.getEpochMicros())) {
+
+        nearest = candidate;
+        nearestDistance = distance;
+      }
+    }
+
+    return Optional.ofNullable(nearest);
+  }
+
+
+  /**
+   * Gets the element sets of an object with epochs in a range
+   *
+   * @param catalogNumber The NORAD catalog number of the object
+   * @param from The non-null start of the range (inclusive)
+   * @param to The non-null end of the range (inclusive)
+   * @return The element sets, in epoch order
+   * @throws IOException The file was unable to be mapped for reading
+   */
+  public synchronized List<ElementSet> getRange(int catalogNumber, @NonNull Instant from, @NonNull Instant to) throws IOException {
+
+    ensureOpen();
+
+    List<ElementSet> elementSets = new ArrayList<>();
+    ObjectHistory history = histories.get(catalogNumber);
+
+    if (history == null) {
+      return elementSets;
+    }
+
+    long fromMicros = ElementSet.toEpochMicros(from);
+    long toMicros = ElementSet.toEpochMicros(to);
+
+    for (int i = Math.max(0, lastBlockStartingAtOrBefore(history, fromMicros)); i < history.blockCount && history.firstEpochs[i] <= toMicros; i++) {
+
+      if (history.lastEpochs[i] >= fromMicros) {
+        addInRange(readBlock(history, i), fromMicros, toMicros, elementSets);
+      }
+    }
+
+    addInRange(history.pending, fromMicros, toMicros, elementSets);
+
+    return elementSets;
+  }
+
+
+  /**
+   * Gets the number of element sets in an object's history
+   *
+   * @param catalogNumber The NORAD catalog number of the object
+   * @return The number of element sets, including those not yet flushed
+   */
+  public synchronized int getCount(int catalogNumber) {
+
+    ObjectHistory history = histories.get(catalogNumber);
+
+    return (history == null) ? 0 : history.elementSetCount;
+  }
+
+
+  /**
+   * Gets the catalog numbers of the objects with history
+   *
+   * @return The catalog numbers, in increasing order
+   */
+  public synchronized int[] getCatalogNumbers() {
+
+    int[] catalogNumbers = histories.keys();
+    Arrays.sort(catalogNumbers);
+
+    return catalogNumbers;
+  }
+
+
+  /**
+   * Gets the size of the file
+   *
+   * @return The size in bytes, not including element sets that haven't been flushed
+   */
+  public synchronized long getFileSize() {
+
+    return size;
+  }
+
+
+  /**
+   * Flushes the buffered element sets and closes the file
+   */
+  @Override
+  public synchronized void close() throws IOException {
+
+    if (!channel.isOpen()) {
+      return;
+    }
+
+    try {
+
+      flush();
+
+    } finally {
+
+      channel.close();
+      mapped = null;
+    }
+  }
+
+
+  private static int lastBlockStartingAtOrBefore(ObjectHistory history, long epoch) {
+
+    int low = 0;
+    int high = history.blockCount - 1;
+    int result = -1;
+
+    while (low <= high) {
+
+      int middle = (low + high) >>> 1;
+
+      if (history.firstEpochs[middle] <= epoch) {
+
+        result = middle;
+        low = middle + 1;
+
+      } else {
+
+        high = middle - 1;
+      }
+    }
+
+    return result;
+  }
+
+
+  private static void addInRange(List<ElementSet> elementSets, long fromMicros, long toMicros, List<ElementSet> result) {
+
+    for (ElementSet elementSet : elementSets) {
+
+      long epoch = elementSet.getEpochMicros();
+
+      if (epoch >= fromMicros && epoch <= toMicros) {
+        result.add(elementSet);
+      }
+    }
+  }
+
+
+  private List<ElementSet> readBlock(ObjectHistory history, int block) throws IOException {
+
+    // blocks written since the last read aren't mapped yet
+    if (mapped.capacity() < size) {
+
+      mapped = channel.map(MapMode.READ_ONLY, 0L, size);
+    }
+
+    return ElementSetCodec.decode(mapped, (int) history.blockPositions[block] + BLOCK_HEADER_SIZE, history.blockCounts[block]);
+  }
+
+
+  private void writeBlock(int catalogNumber, ObjectHistory history) throws IOException {
+
+    List<ElementSet> elementSets = history.pending;
+    byte[] payload = ElementSetCodec.encode(elementSets);
+    long firstEpoch = elementSets.get(0).getEpochMicros();
+    long lastEpoch = elementSets.get(elementSets.size() - 1).getEpochMicros();
+
+    if (size + BLOCK_HEADER_SIZE + payload.length > Integer.MAX_VALUE) {
+
+      throw new IOException("The TLE history file would be larger than 2 GiB: " + file);
+    }
+
+    ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER_SIZE + payload.length);
+    block.putInt(catalogNumber).putInt(elementSets.size()).putLong(firstEpoch).putLong(lastEpoch).putInt(payload.length).put(payload);
+    block.flip();
+
+    writeFully(block, size);
+
+    history.addBlock(size, elementSets.size(), firstEpoch, lastEpoch);
+    history.pending.clear();
+    size += block.limit();
+  }
+
+
+  private void writeFully(ByteBuffer buffer, long position) throws IOException {
+
+    while (buffer.hasRemaining()) {
+
+      position += channel.write(buffer, position);
+    }
+  }
+
+
+  private void ensureOpen() {
+
+    if (!channel.isOpen()) {
+
+      throw new IllegalStateException("The TLE history store has been closed");
+    }
+  }
+}
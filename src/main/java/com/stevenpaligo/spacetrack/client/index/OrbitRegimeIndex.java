@@ -0,0 +1,394 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.index;
+
+import static com.stevenpaligo.spacetrack.client.index.OrbitRegimeRange.APOGEE_HEIGHT;
+import static com.stevenpaligo.spacetrack.client.index.OrbitRegimeRange.DIMENSIONS;
+import static com.stevenpaligo.spacetrack.client.index.OrbitRegimeRange.INCLINATION;
+import static com.stevenpaligo.spacetrack.client.index.OrbitRegimeRange.PERIGEE_HEIGHT;
+import static com.stevenpaligo.spacetrack.client.index.OrbitRegimeRange.RIGHT_ASCENSION;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import com.stevenpaligo.spacetrack.client.LatestTleQuery.LatestTle;
+import com.stevenpaligo.spacetrack.client.OrbitMeanElementsMessageQuery.OrbitMeanElementsMessage;
+import com.stevenpaligo.spacetrack.client.TleQuery.Tle;
+import lombok.NonNull;
+
+/**
+ * An in-memory index of element sets by orbit regime: perigee height, apogee height, inclination and right ascension of the ascending node. It answers the range searches that
+ * {@link com.stevenpaligo.spacetrack.client.predicate.InclusiveRange} predicates on those fields express, such as "every object with a perigee from 500 to 600 km and an inclination from 97 to 99
+ * degrees", locally instead of with a query to Space-Track.
+ *
+ * <p>
+ * The index is a k-d tree stored in flat arrays, built once from query results by median partitioning. A search visits only the branches that overlap its range, so a selective search takes
+ * roughly logarithmic time in the size of the catalog. The index is immutable and thread-safe once built.
+ * </p>
+ *
+ * @param <E> The type of the element sets
+ * @author Steven Paligo
+ */
+public class OrbitRegimeIndex<E> {
+
+  private static final int LEAF_SIZE = 8;
+
+  private final List<E> elementSets;
+  private final double[] coordinates; // DIMENSIONS per point, in tree order
+  private final int[] positions; // the position in elementSets of each point, in tree order
+
+
+  private OrbitRegimeIndex(List<E> elementSets, double[] coordinates) {
+
+    int size = elementSets.size();
+
+    this.elementSets = elementSets;
+    this.coordinates = coordinates;
+    this.positions = new int[size];
+
+    for (int i = 0; i < size; i++) {
+      positions[i] = i;
+    }
+
+    build(0, size, 0);
+  }
+
+
+  /**
+   * Creates an index of the results of a {@link com.stevenpaligo.spacetrack.client.TleQuery}. TLEs missing any of the indexed values are left out.
+   *
+   * @param tles The non-null TLEs
+   * @return The index
+   */
+  public static OrbitRegimeIndex<Tle> ofTles(@NonNull Collection<Tle> tles) {
+
+    return of(tles, Tle::getPerigeeHeightKilometers, Tle::getApogeeHeightKilometers, Tle::getInclinationDegrees, Tle::getRightAscOfNodeDegrees);
+  }
+
+
+  /**
+   * Creates an index of the results of a {@link com.stevenpaligo.spacetrack.client.LatestTleQuery}. TLEs missing any of the indexed values are left out.
+   *
+   * @param tles The non-null TLEs
+   * @return The index
+   */
+  public static OrbitRegimeIndex<LatestTle> ofLatestTles(@NonNull Collection<LatestTle> tles) {
+
+    return of(tles, LatestTle::getPerigeeHeightKilometers, LatestTle::getApogeeHeightKilometers, LatestTle::getInclinationDegrees, LatestTle::getRightAscOfNodeDegrees);
+  }
+
+
+  /**
+   * Creates an index of the results of an {@link com.stevenpaligo.spacetrack.client.OrbitMeanElementsMessageQuery}. Messages missing any of the indexed values are left out.
+   *
+   * @param messages The non-null messages
+   * @return The index
+   */
+  public static OrbitRegimeIndex<OrbitMeanElementsMessage> ofOrbitMeanElementsMessages(@NonNull Collection<OrbitMeanElementsMessage> messages) {
+
+    return of(messages, OrbitMeanElementsMessage::getPerigeeHeightKilometers, OrbitMeanElementsMessage::getApogeeHeightKilometers, OrbitMeanElementsMessage::getInclinationDegrees,
+        OrbitMeanElementsMessage::getRightAscOfNodeDegrees);
+  }
+
+
+  private static <E> OrbitRegimeIndex<E> of(Collection<E> elementSets, Function<E, Double> perigeeGetter, Function<E, Double> apogeeGetter, Function<E, Double> inclinationGetter,
+      Function<E, Double> rightAscensionGetter) {
+
+    List<E> kept = new ArrayList<>(elementSets.size());
+    double[] coordinates = new double[elementSets.size() * DIMENSIONS];
+
+    for (E elementSet : elementSets) {
+
+      if (elementSet == null) {
+        continue;
+      }
+
+      Double perigee = perigeeGetter.apply(elementSet);
+      Double apogee = apogeeGetter.apply(elementSet);
+      Double inclination = inclinationGetter.apply(elementSet);
+      Double rightAscension = rightAscensionGetter.apply(elementSet);
+
+      if (!isNumber(perigee) || !isNumber(apogee) || !isNumber(inclination) || !isNumber(rightAscension)) {
+        continue;
+      }
+
+      int offset = kept.size() * DIMENSIONS;
+      coordinates[offset + PERIGEE_HEIGHT] = perigee;
+      coordinates[offset + APOGEE_HEIGHT] = apogee;
+      coordinates[offset + INCLINATION] = inclination;
+      coordinates[offset + RIGHT_ASCENSION] = rightAscension;
+      kept.add(elementSet);
+    }
+
+    return new OrbitRegimeIndex<>(Collections.unmodifiableList(kept), Arrays.copyOf(coordinates, kept.size() * DIMENSIONS));
+  }
+
+
+  private static boolean isNumber(Double value) {
+
+    return value != null && !value.isNaN();
+  }
+
+
+  /**
+   * Arranges the points from start (inclusive) to end (exclusive) into a subtree: the median on the node's dimension is moved to the middle, with the points no greater than it before and the
+   * points no less than it after
+   */
+  private void build(int start, int end, int depth) {
+
+    if (end - start <= LEAF_SIZE) {
+      return;
+    }
+
+
+    int dimension = depth % DIMENSIONS;
+    int middle = (start + end) >>> 1;
+
+    select(start, end - 1, middle, dimension);
+    build(start, middle, depth + 1);
+    build(middle + 1, end, depth + 1);
+  }
+
+
+  /**
+   * Moves the k-th smallest point on a dimension to position k, using quickselect with a median-of-three pivot
+   */
+  private void select(int low, int high, int k, int dimension) {
+
+    while (high > low) {
+
+      int middle = (low + high) >>> 1;
+
+      // order low, middle and high so the pivot is their median
+      if (coordinate(middle, dimension) < coordinate(low, dimension)) {
+        swap(middle, low);
+      }
+
+      if (coordinate(high, dimension) < coordinate(low, dimension)) {
+        swap(high, low);
+      }
+
+      if (coordinate(high, dimension) < coordinate(middle, dimension)) {
+        swap(high, middle);
+      }
+
+      double pivot = coordinate(middle, dimension);
+      int i = low;
+      int j = high;
+
+      while (i <= j) {
+
+        while (coordinate(i, dimension) < pivot) {
+          i++;
+        }
+
+        while (coordinate(j, dimension) > pivot) {
+          j--;
+        }
+
+        if (i <= j) {
+
+          swap(i, j);
+          i++;
+          j--;
+        }
+      }
+
+      if (k <= j) {
+
+        high = j;
+
+      } else if (k >= i) {
+
+        low = i;
+
+      } else {
+
+        return;
+      }
+    }
+  }
+
+
+  private double coordinate(int point, int dimension) {
+
+    return coordinates[point * DIMENSIONS + dimension];
+  }
+
+
+  private void swap(int a, int b) {
+
+    for (int dimension = 0; dimension < DIMENSIONS; dimension++) {
+
+      double coordinate = coordinates[a * DIMENSIONS + dimension];
+      coordinates[a * DIMENSIONS + dimension] = coordinates[b * DIMENSIONS + dimension];
+      coordinates[b * DIMENSIONS + dimension] = coordinate;
+    }
+
+    int position = positions[a];
+    positions[a] = positions[b];
+    positions[b] = position;
+  }
+
+
+  /**
+   * Finds the element sets within a range
+   *
+   * @param range The non-null range
+   * @return The element sets, in the order of the results the index was built from
+   */
+  public List<E> find(@NonNull OrbitRegimeRange range) {
+
+    int[] matches = search(range);
+    Arrays.sort(matches);
+
+    List<E> result = new ArrayList<>(matches.length);
+
+    for (int position : matches) {
+      result.add(elementSets.get(position));
+    }
+
+    return result;
+  }
+
+
+  /**
+   * Counts the element sets within a range
+   *
+   * @param range The non-null range
+   * @return The number of element sets
+   */
+  public int count(@NonNull OrbitRegimeRange range) {
+
+    return search(range).length;
+  }
+
+
+  /**
+   * Gets the number of element sets in the index
+   *
+   * @return The number of element sets, which excludes the ones missing any of the indexed values
+   */
+  public int size() {
+
+    return elementSets.size();
+  }
+
+
+  private int[] search(OrbitRegimeRange range) {
+
+    double[] minimums = new double[DIMENSIONS];
+    double[] maximums = new double[DIMENSIONS];
+
+    for (int dimension = 0; dimension < DIMENSIONS; dimension++) {
+
+      minimums[dimension] = range.getMinimum(dimension);
+      maximums[dimension] = range.getMaximum(dimension);
+    }
+
+    Matches matches = new Matches();
+
+    if (range.isRightAscensionWrapped()) {
+
+      // search the two sides of zero separately
+      double maximum = maximums[RIGHT_ASCENSION];
+
+      maximums[RIGHT_ASCENSION] = Double.POSITIVE_INFINITY;
+      search(0, elementSets.size(), 0, minimums, maximums, matches);
+
+      minimums[RIGHT_ASCENSION] = Double.NEGATIVE_INFINITY;
+      maximums[RIGHT_ASCENSION] = maximum;
+      search(0, elementSets.size(), 0, minimums, maximums, matches);
+
+    } else {
+
+      search(0, elementSets.size(), 0, minimums, maximums, matches);
+    }
+
+    return matches.toArray();
+  }
+
+
+  private void search(int start, int end, int depth, double[] minimums, double[] maximums, Matches matches) {
+
+    if (end - start <= LEAF_SIZE) {
+
+      for (int point = start; point < end; point++) {
+        check(point, minimums, maximums, matches);
+      }
+
+      return;
+    }
+
+
+    int dimension = depth % DIMENSIONS;
+    int middle = (start + end) >>> 1;
+    double split = coordinate(middle, dimension);
+
+    if (minimums[dimension] <= split) {
+      search(start, middle, depth + 1, minimums, maximums, matches);
+    }
+
+    check(middle, minimums, maximums, matches);
+
+    if (maximums[dimension] >= split) {
+      search(middle + 1, end, depth + 1, minimums, maximums, matches);
+    }
+  }
+
+
+  private void check(int point, double[] minimums, double[] maximums, Matches matches) {
+
+    int offset = point * DIMENSIONS;
+
+    for (int dimension = 0; dimension < DIMENSIONS; dimension++) {
+
+      double coordinate = coordinates[offset + dimension];
+
+      if (coordinate < minimums[dimension] || coordinate > maximums[dimension]) {
+        return;
+      }
+    }
+
+    matches.add(positions[point]);
+  }
+
+
+  /**
+   * The positions of the matching element sets
+   */
+  private static class Matches {
+
+    private int[] positions = new int[16];
+    private int size = 0;
+
+
+    private void add(int position) {
+
+      if (size == positions.length) {
+        positions = Arrays.copyOf(positions, size * 2);
+      }
+
+      positions[size++] = position;
+    }
+
+
+    private int[] toArray() {
+
+      return Arrays.copyOf(positions, size);
+    }
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.index;
+
+import lombok.ToString;
+
+/**
+ * The bounds of an {@link OrbitRegimeIndex} search, which are inclusive like those of an {@link com.stevenpaligo.spacetrack.client.predicate.InclusiveRange}. Dimensions that aren't set are
+ * unbounded.
+ *
+ * <pre>
+ * // sun-synchronous low Earth orbits
+ * new OrbitRegimeRange().setPerigeeHeight(500.0, 900.0).setApogeeHeight(500.0, 900.0).setInclination(96.0, 100.0)
+ * </pre>
+ *
+ * @author Steven Paligo
+ */
+@ToString
+public class OrbitRegimeRange {
+
+  static final int DIMENSIONS = 4;
+  static final int PERIGEE_HEIGHT = 0;
+  static final int APOGEE_HEIGHT = 1;
+  static final int INCLINATION = 2;
+  static final int RIGHT_ASCENSION = 3;
+
+  private final double[] minimums = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+  private final double[] maximums = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+
+
+  /**
+   * @param minimumKilometers The lowest perigee height
+   * @param maximumKilometers The highest perigee height, which must not be lower than the minimum
+   * @return This range
+   */
+  public OrbitRegimeRange setPerigeeHeight(double minimumKilometers, double maximumKilometers) {
+
+    return set(PERIGEE_HEIGHT, "perigee height", minimumKilometers, maximumKilometers);
+  }
+
+
+  /**
+   * @param minimumKilometers The lowest apogee height
+   * @param maximumKilometers The highest apogee height, which must not be lower than the minimum
+   * @return This range
+   */
+  public OrbitRegimeRange setApogeeHeight(double minimumKilometers, double maximumKilometers) {
+
+    return set(APOGEE_HEIGHT, "apogee height", minimumKilometers, maximumKilometers);
+  }
+
+
+  /**
+   * @param minimumDegrees The lowest inclination
+   * @param maximumDegrees The highest inclination, which must not be lower than the minimum
+   * @return This range
+   */
+  public OrbitRegimeRange setInclination(double minimumDegrees, double maximumDegrees) {
+
+    return set(INCLINATION, "inclination", minimumDegrees, maximumDegrees);
+  }
+
+
+  /**
+   * Sets the bounds of the right ascension of the ascending node. Because the angle wraps around, a minimum greater than the maximum selects the angles outside of the two: 350 to 10 degrees
+   * selects the 20 degrees either side of zero.
+   *
+   * @param minimumDegrees The lowest right ascension, from 0 to 360 degrees
+   * @param maximumDegrees The highest right ascension, from 0 to 360 degrees
+   * @return This range
+   */
+  public OrbitRegimeRange setRightAscension(double minimumDegrees, double maximumDegrees) {
+
+    // more validation
+    if (!(minimumDegrees >= 0.0 && minimumDegrees <= 360.0) || !(maximumDegrees >= 0.0 && maximumDegrees <= 360.0)) {
+
+      throw new IllegalArgumentException("The right ascension bounds must be from 0 to 360 degrees: " + minimumDegrees + " and " + maximumDegrees);
+    }
+
+
+    minimums[RIGHT_ASCENSION] = minimumDegrees;
+    maximums[RIGHT_ASCENSION] = maximumDegrees;
+
+    return this;
+  }
+
+
+  private OrbitRegimeRange set(int dimension, String name, double minimum, double maximum) {
+
+    // more validation
+    if (Double.isNaN(minimum) || Double.isNaN(maximum)) {
+
+      throw new IllegalArgumentException("The " + name + " bounds must be numbers");
+    }
+
+    if (minimum > maximum) {
+
+      throw new IllegalArgumentException("The minimum " + name + " is greater than the maximum: " + minimum + " and " + maximum);
+    }
+
+
+    minimums[dimension] = minimum;
+    maximums[dimension] = maximum;
+
+    return this;
+  }
+
+
+  double getMinimum(int dimension) {
+
+    return minimums[dimension];
+  }
+
+
+  double getMaximum(int dimension) {
+
+    return maximums[dimension];
+  }
+
+
+  /**
+   * Determines whether the right ascension bounds wrap around zero
+   */
+  boolean isRightAscensionWrapped() {
+
+    return minimums[RIGHT_ASCENSION] > maximums[RIGHT_ASCENSION];
+  }
+}
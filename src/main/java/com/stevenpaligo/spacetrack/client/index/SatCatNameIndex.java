@@ -0,0 +1,397 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+import com.stevenpaligo.spacetrack.client.SatCatQuery.SatCat;
+import com.stevenpaligo.spacetrack.client.SatCatQuery.SatCatQueryField;
+import com.stevenpaligo.spacetrack.client.catalog.SatCatChangeEvent;
+import com.stevenpaligo.spacetrack.client.catalog.SatCatChangeFeed.SatCatChangeListener;
+import com.stevenpaligo.spacetrack.client.predicate.Contains;
+import com.stevenpaligo.spacetrack.client.predicate.Predicate;
+import com.stevenpaligo.spacetrack.client.predicate.StartsWith;
+import com.stevenpaligo.spacetrack.client.util.IntObjectMap;
+import com.stevenpaligo.spacetrack.client.util.IntSet;
+import lombok.NonNull;
+
+/**
+ * A local text index of satellite catalog (SATCAT) records that answers the {@link Contains} and {@link StartsWith} searches analysts run on names and international designators without a query
+ * to Space-Track. The {@link SatCatQueryField#OBJECT_NAME}, {@link SatCatQueryField#SATNAME} and {@link SatCatQueryField#INTERNATIONAL_DESIGNATOR} fields are indexed. Like Space-Track's, the
+ * searches ignore case.
+ *
+ * <p>
+ * Prefix searches use a sorted map of the values. Substring searches use an index of every one-, two- and three-character sequence (n-gram) in the values: a search for one or two characters is a
+ * single lookup, and a longer search checks only the records that have the rarest of its three-character sequences.
+ * </p>
+ *
+ * <p>
+ * The index is updated one record at a time, so it can follow a {@link com.stevenpaligo.spacetrack.client.catalog.SatCatChangeFeed} by being added as a listener. The index is thread-safe.
+ * </p>
+ *
+ * <pre>
+ * SatCatNameIndex index = new SatCatNameIndex().putAll(satCatStore.getAll());
+ * changeFeed.addListener(index);
+ *
+ * List&lt;SatCat&gt; starlinks = index.startsWith(SatCatQueryField.OBJECT_NAME, "starlink");
+ * </pre>
+ *
+ * @author Steven Paligo
+ */
+public class SatCatNameIndex implements SatCatChangeListener {
+
+  private static final int GRAM_LENGTH = 3;
+
+
+  /**
+   * The index of one field
+   */
+  private static class FieldIndex {
+
+    private final Function<SatCat, String> getter;
+    private final NavigableMap<String, IntSet> byValue = new TreeMap<>();
+    private final Map<String, IntSet> byGram = new HashMap<>();
+
+
+    private FieldIndex(Function<SatCat, String> getter) {
+
+      this.getter = getter;
+    }
+
+
+    private void add(int catalogNumber, String value) {
+
+      add(byValue, value, catalogNumber);
+
+      for (int length = 1; length <= GRAM_LENGTH; length++) {
+
+        for (int start = 0; start + length <= value.length(); start++) {
+          add(byGram, value.substring(start, start + length), catalogNumber);
+        }
+      }
+    }
+
+
+    private void remove(int catalogNumber, String value) {
+
+      remove(byValue, value, catalogNumber);
+
+      for (int length = 1; length <= GRAM_LENGTH; length++) {
+
+        for (int start = 0; start + length <= value.length(); start++) {
+          remove(byGram, value.substring(start, start + length), catalogNumber);
+        }
+      }
+    }
+
+
+    private static void add(Map<String, IntSet> sets, String key, int catalogNumber) {
+
+      sets.computeIfAbsent(key, k -> new IntSet(1)).add(catalogNumber);
+    }
+
+
+    private static void remove(Map<String, IntSet> sets, String key, int catalogNumber) {
+
+      IntSet set = sets.get(key);
+
+      if (set != null && set.remove(catalogNumber) && set.isEmpty()) {
+        sets.remove(key);
+      }
+    }
+  }
+
+
+  /**
+   * A record and its normalized values, by field
+   */
+  private static class Entry {
+
+    private final SatCat record;
+    private final Map<SatCatQueryField, String> values;
+
+
+    private Entry(SatCat record, Map<SatCatQueryField, String> values) {
+
+      this.record = record;
+      this.values = values;
+    }
+  }
+
+
+  private final Map<SatCatQueryField, FieldIndex> fields = new EnumMap<>(SatCatQueryField.class);
+  private final IntObjectMap<Entry> entries = new IntObjectMap<>();
+
+
+  public SatCatNameIndex() {
+
+    fields.put(SatCatQueryField.OBJECT_NAME, new FieldIndex(SatCat::getObjectName));
+    fields.put(SatCatQueryField.SATNAME, new FieldIndex(SatCat::getSatName));
+    fields.put(SatCatQueryField.INTERNATIONAL_DESIGNATOR, new FieldIndex(SatCat::getInternationalDesignator));
+  }
+
+
+  private static String normalize(String value) {
+
+    return value.toUpperCase(Locale.ROOT);
+  }
+
+
+  /**
+   * Adds records to the index, replacing any with the same catalog numbers. Records without a catalog number are ignored.
+   *
+   * @param records The non-null records
+   * @return This index
+   */
+  public synchronized SatCatNameIndex putAll(@NonNull Collection<SatCat> records) {
+
+    for (SatCat record : records) {
+
+      if (record != null && record.getCatalogNumber() != null && record.getCatalogNumber().isPresent()) {
+        put(record);
+      }
+    }
+
+    return this;
+  }
+
+
+  /**
+   * Adds a record to the index, replacing any with the same catalog number
+   *
+   * @param record The non-null record, which must have a catalog number
+   * @return This index
+   */
+  public synchronized SatCatNameIndex put(@NonNull SatCat record) {
+
+    // more validation
+    if (record.getCatalogNumber() == null || !record.getCatalogNumber().isPresent()) {
+
+      throw new IllegalArgumentException("The record doesn't have a catalog number");
+    }
+
+
+    int catalogNumber = record.getCatalogNumber().get();
+    remove(catalogNumber);
+
+    Map<SatCatQueryField, String> values = new EnumMap<>(SatCatQueryField.class);
+
+    for (Map.Entry<SatCatQueryField, FieldIndex> field : fields.entrySet()) {
+
+      String value = field.getValue().getter.apply(record);
+
+      if (value != null) {
+
+        String normalized = normalize(value);
+
+        values.put(field.getKey(), normalized);
+        field.getValue().add(catalogNumber, normalized);
+      }
+    }
+
+    entries.put(catalogNumber, new Entry(record, values));
+
+    return this;
+  }
+
+
+  /**
+   * Removes a record from the index
+   *
+   * @param catalogNumber The NORAD catalog number of the record
+   * @return The removed record, or empty if the catalog number wasn't in the index
+   */
+  public synchronized Optional<SatCat> remove(int catalogNumber) {
+
+    Entry entry = entries.remove(catalogNumber);
+
+    if (entry == null) {
+      return Optional.empty();
+    }
+
+
+    for (Map.Entry<SatCatQueryField, String> value : entry.values.entrySet()) {
+      fields.get(value.getKey()).remove(catalogNumber, value.getValue());
+    }
+
+    return Optional.of(entry.record);
+  }
+
+
+  /**
+   * Applies a change from a {@link com.stevenpaligo.spacetrack.client.catalog.SatCatChangeFeed} to the index
+   */
+  @Override
+  public void onSatCatChange(@NonNull SatCatChangeEvent event) {
+
+    put(event.getRecord());
+  }
+
+
+  /**
+   * Finds the records whose field starts with a prefix, ignoring case
+   *
+   * @param field The non-null field, which must be one of the indexed fields
+   * @param prefix The non-null prefix
+   * @return The records, in catalog number order
+   */
+  public synchronized List<SatCat> startsWith(@NonNull SatCatQueryField field, @NonNull String prefix) {
+
+    String normalized = normalize(prefix);
+    Collection<IntSet> sets = getFieldIndex(field).byValue.subMap(normalized, true, normalized + Character.MAX_VALUE, false).values();
+
+    IntSet catalogNumbers = new IntSet();
+
+    for (IntSet set : sets) {
+      set.forEach(catalogNumbers::add);
+    }
+
+    return toRecords(catalogNumbers.toArray());
+  }
+
+
+  /**
+   * Finds the records whose field contains some text, ignoring case
+   *
+   * @param field The non-null field, which must be one of the indexed fields
+   * @param text The non-null text
+   * @return The records, in catalog number order
+   */
+  public synchronized List<SatCat> contains(@NonNull SatCatQueryField field, @NonNull String text) {
+
+    FieldIndex fieldIndex = getFieldIndex(field);
+    String normalized = normalize(text);
+
+    if (normalized.isEmpty()) {
+      return startsWith(field, normalized);
+    }
+
+    if (normalized.length() <= GRAM_LENGTH) {
+
+      IntSet set = fieldIndex.byGram.get(normalized);
+
+      return (set == null) ? new ArrayList<>() : toRecords(set.toArray());
+    }
+
+
+    // check the records that have the rarest of the text's three-character sequences
+    IntSet rarest = null;
+
+    for (int start = 0; start + GRAM_LENGTH <= normalized.length(); start++) {
+
+      IntSet set = fieldIndex.byGram.get(normalized.substring(start, start + GRAM_LENGTH));
+
+      if (set == null) {
+        return new ArrayList<>();
+      }
+
+      if (rarest == null || set.size() < rarest.size()) {
+        rarest = set;
+      }
+    }
+
+    int[] candidates = rarest.toArray();
+    int matchCount = 0;
+
+    for (int catalogNumber : candidates) {
+
+      if (entries.get(catalogNumber).values.get(field).contains(normalized)) {
+        candidates[matchCount++] = catalogNumber;
+      }
+    }
+
+    return toRecords(Arrays.copyOf(candidates, matchCount));
+  }
+
+
+  /**
+   * Finds the records that match a {@link Contains} or {@link StartsWith} predicate
+   *
+   * @param predicate The non-null predicate, on one of the indexed fields
+   * @return The records, in catalog number order
+   * @throws IllegalArgumentException The predicate isn't a {@link Contains} or {@link StartsWith} on an indexed field
+   */
+  @SuppressWarnings("unchecked")
+  public List<SatCat> find(@NonNull Predicate<SatCatQueryField> predicate) {
+
+    if (predicate instanceof Contains) {
+
+      Contains<SatCatQueryField> contains = (Contains<SatCatQueryField>) predicate;
+
+      return contains(contains.getField(), contains.getValue());
+
+    } else if (predicate instanceof StartsWith) {
+
+      StartsWith<SatCatQueryField> startsWith = (StartsWith<SatCatQueryField>) predicate;
+
+      return startsWith(startsWith.getField(), startsWith.getValue());
+
+    } else {
+
+      throw new IllegalArgumentException("The index only answers Contains and StartsWith predicates: " + predicate.getClass().getSimpleName());
+    }
+  }
+
+
+  public synchronized Optional<SatCat> get(int catalogNumber) {
+
+    Entry entry = entries.get(catalogNumber);
+
+    return (entry == null) ? Optional.empty() : Optional.of(entry.record);
+  }
+
+
+  public synchronized int size() {
+
+    return entries.size();
+  }
+
+
+  private FieldIndex getFieldIndex(SatCatQueryField field) {
+
+    FieldIndex fieldIndex = fields.get(field);
+
+    if (fieldIndex == null) {
+
+      throw new IllegalArgumentException("The field isn't indexed: " + field);
+    }
+
+
+    return fieldIndex;
+  }
+
+
+  private List<SatCat> toRecords(int[] catalogNumbers) {
+
+    Arrays.sort(catalogNumbers);
+
+    List<SatCat> records = new ArrayList<>(catalogNumbers.length);
+
+    for (int catalogNumber : catalogNumbers) {
+      records.add(entries.get(catalogNumber).record);
+    }
+
+    return records;
+  }
+}
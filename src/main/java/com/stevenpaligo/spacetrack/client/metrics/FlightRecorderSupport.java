@@ -0,0 +1,129 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.metrics;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Emits a Java Flight Recorder event (<code>com.stevenpaligo.spacetrack.Query</code>) for every request to <a href="https://www.space-track.org/">Space-Track.org</a>, so requests can be lined up with
+ * GC, CPU, and socket activity in the same recording. When Flight Recorder isn't recording the event (or the JVM doesn't have Flight Recorder at all), the cost is a single check per request.
+ * 
+ * @author Steven Paligo
+ */
+@Slf4j
+class FlightRecorderSupport {
+
+  private static final String EVENT_CLASS_NAME = "com.stevenpaligo.spacetrack.client.metrics.QueryEvent";
+
+  private static final MethodHandle beginIfEnabled;
+  private static final MethodHandle commit;
+
+  static {
+
+    MethodHandle beginHandle = null;
+    MethodHandle commitHandle = null;
+
+    try {
+
+      // the event class is compiled for Java 11, so it is only ever loaded by name
+      Class<?> eventClass = Class.forName(EVENT_CLASS_NAME);
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+      beginHandle = lookup.findStatic(eventClass, "beginIfEnabled", MethodType.methodType(Object.class));
+      commitHandle = lookup.findStatic(eventClass, "commit", MethodType.methodType(void.class, Object.class, QueryObservation.class));
+
+    } catch (ReflectiveOperationException | LinkageError e) {
+
+      log.debug("Java Flight Recorder is not available, so no Space-Track query events will be emitted");
+      beginHandle = null;
+      commitHandle = null;
+    }
+
+    beginIfEnabled = beginHandle;
+    commit = commitHandle;
+  }
+
+
+  private FlightRecorderSupport() {
+
+    // prevent instantiation
+  }
+
+
+  /**
+   * Starts an event for a request
+   * 
+   * @return An opaque handle to pass to {@link #commit(Object, QueryObservation)}, or null if the event is not being recorded
+   */
+  static Object begin() {
+
+    if (beginIfEnabled == null) {
+
+      return null;
+    }
+
+    try {
+
+      return (Object) beginIfEnabled.invokeExact();
+
+    } catch (Throwable e) {
+
+      throw rethrow(e);
+    }
+  }
+
+
+  /**
+   * Ends an event and records the observation in it
+   * 
+   * @param handle The handle returned by {@link #begin()}, which may be null
+   * @param observation The non-null observation of the completed request
+   */
+  static void commit(Object handle, QueryObservation observation) {
+
+    if (handle == null) {
+
+      return;
+    }
+
+    try {
+
+      commit.invokeExact(handle, observation);
+
+    } catch (Throwable e) {
+
+      throw rethrow(e);
+    }
+  }
+
+
+  private static RuntimeException rethrow(Throwable e) {
+
+    if (e instanceof RuntimeException) {
+
+      throw (RuntimeException) e;
+
+    } else if (e instanceof Error) {
+
+      throw (Error) e;
+
+    } else {
+
+      return new IllegalStateException(e);
+    }
+  }
+}
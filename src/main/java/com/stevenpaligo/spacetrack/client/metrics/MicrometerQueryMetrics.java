@@ -0,0 +1,91 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.metrics;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.NonNull;
+
+/**
+ * Reports query observations to a <a href="https://micrometer.io/">Micrometer</a> {@link MeterRegistry}, from which they can be published to most metrics systems (Prometheus, Graphite, JMX, etc.).
+ * Micrometer is an optional dependency of this library and must be added to projects that use this class.
+ * 
+ * <p>
+ * The following meters are recorded, all tagged with the Space-Track.org query class (<code>query.class</code>):
+ * </p>
+ * <ul>
+ * <li><code>spacetrack.query.phase</code> - a timer per phase (<code>phase</code> tag)</li>
+ * <li><code>spacetrack.query.requests</code> - a timer of whole requests (<code>outcome</code> tag)</li>
+ * <li><code>spacetrack.query.bytes</code> - a distribution summary of response sizes</li>
+ * <li><code>spacetrack.query.results</code> - a distribution summary of result counts</li>
+ * <li><code>spacetrack.query.errors</code> - a counter of failures (<code>phase</code> and <code>exception</code> tags)</li>
+ * </ul>
+ * 
+ * @author Steven Paligo
+ */
+public class MicrometerQueryMetrics implements QueryMetrics {
+
+  private static final String QUERY_CLASS_TAG = "query.class";
+
+
+  private final MeterRegistry registry;
+
+
+  public MicrometerQueryMetrics(@NonNull MeterRegistry registry) {
+
+    this.registry = registry;
+  }
+
+
+  @Override
+  public void record(@NonNull QueryObservation observation) {
+
+    String queryClass = observation.getQueryClass();
+
+
+    // phases
+    for (QueryPhase phase : QueryPhase.values()) {
+
+      Optional<Duration> duration = observation.getPhaseDuration(phase);
+
+      if (duration.isPresent()) {
+
+        Timer.builder("spacetrack.query.phase").tag(QUERY_CLASS_TAG, queryClass).tag("phase", phase.name().toLowerCase(Locale.ROOT)).register(registry).record(duration.get());
+      }
+    }
+
+
+    // the request as a whole
+    Timer.builder("spacetrack.query.requests").tag(QUERY_CLASS_TAG, queryClass).tag("outcome", observation.isSuccessful() ? "success" : "failure").register(registry)
+        .record(observation.getTotalDuration());
+
+    DistributionSummary.builder("spacetrack.query.bytes").baseUnit("bytes").tag(QUERY_CLASS_TAG, queryClass).register(registry).record(observation.getBytesReceived());
+
+    if (observation.getResultCount().isPresent()) {
+
+      DistributionSummary.builder("spacetrack.query.results").tag(QUERY_CLASS_TAG, queryClass).register(registry).record(observation.getResultCount().get());
+    }
+
+    if (observation.getError().isPresent()) {
+
+      Counter.builder("spacetrack.query.errors").tag(QUERY_CLASS_TAG, queryClass).tag("phase", observation.getFailedPhase().map(phase -> phase.name().toLowerCase(Locale.ROOT)).orElse("none"))
+          .tag("exception", observation.getError().get().getClass().getSimpleName()).register(registry).increment();
+    }
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.metrics;
+
+/**
+ * Receives an observation of every request sent to <a href="https://www.space-track.org/">Space-Track.org</a>. Implementations are called on the thread that made the request, so they must be
+ * thread-safe and should return quickly.
+ * 
+ * @author Steven Paligo
+ * @see MicrometerQueryMetrics
+ */
+public interface QueryMetrics {
+
+  /**
+   * Discards every observation
+   */
+  public static final QueryMetrics NO_OP = observation -> {
+  };
+
+
+  /**
+   * Records a completed (successful or failed) request
+   * 
+   * @param observation The non-null observation of the request
+   */
+  public void record(QueryObservation observation);
+
+}
@@ -0,0 +1,220 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.metrics;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * What was observed during a single request to <a href="https://www.space-track.org/">Space-Track.org</a>: how long each phase took, how much data came back, and how the request ended. Retried and
+ * hedged requests each produce their own observation.
+ * 
+ * @author Steven Paligo
+ */
+public class QueryObservation {
+
+  private static final QueryPhase[] phases = QueryPhase.values();
+
+
+  /**
+   * The Space-Track.org query class (e.g. "tle_latest")
+   */
+  @Getter
+  private final String queryClass;
+
+  /**
+   * The query URL (which does not include credentials)
+   */
+  @Getter
+  private final String queryString;
+
+  private final Object flightRecorderEvent;
+
+  private final long[] phaseNanos = new long[phases.length];
+  private final long startNanos;
+  private long endNanos = -1L;
+  private QueryPhase currentPhase = null;
+  private long currentPhaseStartNanos;
+
+  @Getter
+  private long bytesReceived = 0L;
+
+  private int resultCount = -1;
+  private Throwable error = null;
+  private QueryPhase failedPhase = null;
+
+
+  public QueryObservation(@NonNull String queryClass, @NonNull String queryString) {
+
+    this.queryClass = queryClass;
+    this.queryString = queryString;
+    this.flightRecorderEvent = FlightRecorderSupport.begin();
+    this.startNanos = System.nanoTime();
+    this.currentPhaseStartNanos = startNanos;
+
+    Arrays.fill(phaseNanos, -1L);
+  }
+
+
+  /**
+   * Ends the current phase, if any, and starts timing the given one
+   * 
+   * @param phase The non-null phase that is starting
+   */
+  public void beginPhase(@NonNull QueryPhase phase) {
+
+    long now = System.nanoTime();
+    endCurrentPhase(now);
+
+    currentPhase = phase;
+    currentPhaseStartNanos = now;
+  }
+
+
+  /**
+   * Records the duration of a phase that was timed elsewhere
+   * 
+   * @param phase The non-null phase
+   * @param duration The non-null duration of the phase
+   */
+  public void recordPhase(@NonNull QueryPhase phase, @NonNull Duration duration) {
+
+    phaseNanos[phase.ordinal()] = Math.max(0L, phaseNanos[phase.ordinal()]) + duration.toNanos();
+  }
+
+
+  /**
+   * Adds to the number of response bytes received. Bytes must be added before the request ends to be included in its Flight Recorder event.
+   * 
+   * @param bytes The number of bytes
+   */
+  public void addBytesReceived(long bytes) {
+
+    bytesReceived += bytes;
+  }
+
+
+  /**
+   * Ends the request successfully
+   * 
+   * @param resultCount The number of result objects the request produced
+   */
+  public void succeed(int resultCount) {
+
+    this.resultCount = resultCount;
+    end();
+  }
+
+
+  /**
+   * Ends the request successfully without converting the response into result objects (e.g. when the response is saved to a file)
+   */
+  public void succeed() {
+
+    end();
+  }
+
+
+  /**
+   * Ends the request unsuccessfully, attributing the failure to the current phase
+   * 
+   * @param error The non-null reason the request failed
+   */
+  public void fail(@NonNull Throwable error) {
+
+    this.error = error;
+    this.failedPhase = currentPhase;
+    end();
+  }
+
+
+  private void end() {
+
+    endNanos = System.nanoTime();
+    endCurrentPhase(endNanos);
+    currentPhase = null;
+
+    FlightRecorderSupport.commit(flightRecorderEvent, this);
+  }
+
+
+  private void endCurrentPhase(long now) {
+
+    if (currentPhase != null) {
+
+      recordPhase(currentPhase, Duration.ofNanos(now - currentPhaseStartNanos));
+    }
+  }
+
+
+  /**
+   * Gets how long a phase took
+   * 
+   * @param phase The non-null phase
+   * @return The duration of the phase, or empty if the request never reached it
+   */
+  public Optional<Duration> getPhaseDuration(@NonNull QueryPhase phase) {
+
+    long nanos = phaseNanos[phase.ordinal()];
+    return (nanos < 0L) ? Optional.empty() : Optional.of(Duration.ofNanos(nanos));
+  }
+
+
+  /**
+   * Gets how long the whole request took, from the start of the observation until it ended
+   * 
+   * @return The non-null duration, which keeps growing until the request ends
+   */
+  public Duration getTotalDuration() {
+
+    return Duration.ofNanos(((endNanos < 0L) ? System.nanoTime() : endNanos) - startNanos);
+  }
+
+
+  /**
+   * Gets the number of result objects the request produced
+   * 
+   * @return The number of results, or empty if the request did not succeed or its response wasn't converted
+   */
+  public Optional<Integer> getResultCount() {
+
+    return (resultCount < 0) ? Optional.empty() : Optional.of(resultCount);
+  }
+
+
+  public Optional<Throwable> getError() {
+
+    return Optional.ofNullable(error);
+  }
+
+
+  /**
+   * Gets the phase that was in progress when the request failed
+   * 
+   * @return The phase, or empty if the request did not fail (or failed before any phase started)
+   */
+  public Optional<QueryPhase> getFailedPhase() {
+
+    return Optional.ofNullable(failedPhase);
+  }
+
+
+  public boolean isSuccessful() {
+
+    return (endNanos >= 0L && error == null);
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.metrics;
+
+/**
+ * The phases of a single request to <a href="https://www.space-track.org/">Space-Track.org</a>, in the order they happen
+ * 
+ * @author Steven Paligo
+ */
+public enum QueryPhase {
+
+  /**
+   * Waiting for a permit from the query's {@link com.stevenpaligo.spacetrack.client.execution.RateLimiter}
+   */
+  RATE_LIMIT_WAIT,
+
+  /**
+   * Opening the connection, including the DNS lookup, the TCP connection, and the TLS handshake (the JDK's HTTPS client performs them as one step)
+   */
+  CONNECT,
+
+  /**
+   * Sending the combined login and query request
+   */
+  SEND_REQUEST,
+
+  /**
+   * Waiting for the response headers, which covers Space-Track.org logging in and running the query
+   */
+  TIME_TO_FIRST_BYTE,
+
+  /**
+   * Reading the beginning of the response body to check that it contains results. The rest of the body is read as it is converted, so that time is included in {@link #BIND} (or {@link #SANITIZE}
+   * with {@link com.stevenpaligo.spacetrack.client.util.SanitizationMode#FULL_BODY}).
+   */
+  DOWNLOAD,
+
+  /**
+   * Checking and repairing the response's JSON. This phase is only timed separately with {@link com.stevenpaligo.spacetrack.client.util.SanitizationMode#FULL_BODY}; in the other modes any
+   * repairs are made as the JSON is converted, so they are included in {@link #BIND}.
+   */
+  SANITIZE,
+
+  /**
+   * Converting the JSON into result objects
+   */
+  BIND
+}
@@ -0,0 +1,104 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.passes;
+
+import com.stevenpaligo.spacetrack.client.propagation.ReferenceFrames;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * A ground station that satellites are tracked from
+ *
+ * @author Steven Paligo
+ */
+@Getter
+@ToString(exclude = {"ecef", "up"})
+public class GroundStation {
+
+  private final String name;
+  private final double latitudeDegrees;
+  private final double longitudeDegrees;
+  private final double altitudeKilometers;
+  private final double minElevationDegrees;
+
+  @Getter(AccessLevel.NONE)
+  final double[] ecef = new double[3];
+
+  @Getter(AccessLevel.NONE)
+  final double[] up = new double[3];
+
+
+  /**
+   * @param name The non-null name of the station
+   * @param latitudeDegrees The geodetic latitude in degrees, from -90 to 90
+   * @param longitudeDegrees The longitude in degrees, east positive
+   * @param altitudeKilometers The height above the WGS-84 ellipsoid in kilometers
+   * @param minElevationDegrees The elevation above which a satellite counts as visible, from -90 to 90 (usually a few degrees, for the horizon mask)
+   */
+  public GroundStation(@NonNull String name, double latitudeDegrees, double longitudeDegrees, double altitudeKilometers, double minElevationDegrees) {
+
+    // more validation
+    if (!(latitudeDegrees >= -90.0 && latitudeDegrees <= 90.0)) {
+
+      throw new IllegalArgumentException("The latitudeDegrees parameter is not in the range [-90, 90]: " + latitudeDegrees);
+
+    } else if (!Double.isFinite(longitudeDegrees)) {
+
+      throw new IllegalArgumentException("The longitudeDegrees parameter is not finite: " + longitudeDegrees);
+
+    } else if (!Double.isFinite(altitudeKilometers)) {
+
+      throw new IllegalArgumentException("The altitudeKilometers parameter is not finite: " + altitudeKilometers);
+
+    } else if (!(minElevationDegrees >= -90.0 && minElevationDegrees <= 90.0)) {
+
+      throw new IllegalArgumentException("The minElevationDegrees parameter is not in the range [-90, 90]: " + minElevationDegrees);
+    }
+
+
+    this.name = name;
+    this.latitudeDegrees = latitudeDegrees;
+    this.longitudeDegrees = longitudeDegrees;
+    this.altitudeKilometers = altitudeKilometers;
+    this.minElevationDegrees = minElevationDegrees;
+
+    ReferenceFrames.geodeticToEcef(latitudeDegrees, longitudeDegrees, altitudeKilometers, ecef);
+
+    double latitude = Math.toRadians(latitudeDegrees);
+    double longitude = Math.toRadians(longitudeDegrees);
+    up[0] = Math.cos(latitude) * Math.cos(longitude);
+    up[1] = Math.cos(latitude) * Math.sin(longitude);
+    up[2] = Math.sin(latitude);
+  }
+
+
+  /**
+   * Computes the elevation of an Earth-fixed position as seen from the station
+   *
+   * @param ecef A non-null array of at least 3 elements holding the Earth-fixed position in kilometers
+   * @return The elevation in degrees
+   */
+  public double elevationDegrees(@NonNull double[] ecef) {
+
+    double dx = ecef[0] - this.ecef[0];
+    double dy = ecef[1] - this.ecef[1];
+    double dz = ecef[2] - this.ecef[2];
+    double range = Math.sqrt(dx * dx + dy * dy + dz * dz);
+
+
+    return Math.toDegrees(Math.asin((dx * up[0] + dy * up[1] + dz * up[2]) / range));
+  }
+}
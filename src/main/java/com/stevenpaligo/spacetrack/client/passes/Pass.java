@@ -0,0 +1,54 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.passes;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A period during which a satellite is above a ground station's minimum elevation, found by a {@link PassPredictor}
+ *
+ * @author Steven Paligo
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class Pass {
+
+  private final GroundStation station;
+
+  /**
+   * The NORAD catalog number of the satellite
+   */
+  private final int catalogNumber;
+
+  /**
+   * Acquisition of signal, when the satellite rises above the minimum elevation (the start of the prediction span if it was already above)
+   */
+  private final Instant acquisitionOfSignal;
+
+  /**
+   * Loss of signal, when the satellite sets below the minimum elevation (the end of the prediction span if it was still above)
+   */
+  private final Instant lossOfSignal;
+
+  /**
+   * When the satellite is highest
+   */
+  private final Instant maxElevationTime;
+
+  private final double maxElevationDegrees;
+}
@@ -0,0 +1,418 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.passes;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import com.stevenpaligo.spacetrack.client.LatestTleQuery.LatestTle;
+import com.stevenpaligo.spacetrack.client.TleQuery.Tle;
+import com.stevenpaligo.spacetrack.client.propagation.CatalogPropagator;
+import com.stevenpaligo.spacetrack.client.propagation.PropagationException;
+import com.stevenpaligo.spacetrack.client.propagation.ReferenceFrames;
+import com.stevenpaligo.spacetrack.client.propagation.Sgp4Propagator;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Predicts when the objects in a catalog are visible from a set of ground stations. Each station and satellite pair is handled as follows:
+ *
+ * <ol>
+ * <li>Pairs are rejected without propagating when the satellite's inclination and apogee keep it below the station's horizon mask.</li>
+ * <li>The elevation is sampled in coarse steps sized from the orbital period (a fortieth of an orbit, between 15 seconds and 10 minutes).</li>
+ * <li>Rising and setting times are refined by bisection to within a second, and the highest point by golden-section search. Passes that peak between two samples without either sample being
+ * visible are found the same way.</li>
+ * </ol>
+ *
+ * <p>
+ * The pairs are predicted in parallel on a fork/join pool.
+ * </p>
+ *
+ * @author Steven Paligo
+ */
+@Slf4j
+public class PassPredictor {
+
+  private static final int COARSE_STEPS_PER_ORBIT = 40;
+  private static final double MIN_STEP_MINUTES = 0.25;
+  private static final double MAX_STEP_MINUTES = 10.0;
+  private static final double TIME_TOLERANCE_MINUTES = 1.0 / 60.0;
+  private static final double GOLDEN_RATIO = (Math.sqrt(5.0) - 1.0) / 2.0;
+  private static final double EARTH_RADIUS_KILOMETERS = 6378.135;
+  private static final double REJECTION_MARGIN_DEGREES = 1.0; // allows for geodetic latitude and the orbit changing
+
+
+  private final CatalogPropagator catalog;
+  private final double[] periodMinutes;
+
+  private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+
+  /**
+   * Creates a predictor for a catalog, using the period of each object's mean elements
+   *
+   * @param catalog The non-null catalog
+   */
+  public PassPredictor(@NonNull CatalogPropagator catalog) {
+
+    this(catalog, periods(catalog));
+  }
+
+
+  private PassPredictor(@NonNull CatalogPropagator catalog, @NonNull double[] periodMinutes) {
+
+    this.catalog = catalog;
+    this.periodMinutes = periodMinutes;
+  }
+
+
+  /**
+   * Creates a predictor from the results of a {@link com.stevenpaligo.spacetrack.client.TleQuery}, using the TLEs' periods. TLEs without a catalog number or with elements the theory does not
+   * support are left out.
+   *
+   * @param tles The non-null TLEs
+   * @return The predictor
+   */
+  public static PassPredictor ofTles(@NonNull Collection<Tle> tles) {
+
+    return of(tles, Tle::getCatalogNumber, Sgp4Propagator::of, Tle::getPeriodMinutes);
+  }
+
+
+  /**
+   * Creates a predictor from the results of a {@link com.stevenpaligo.spacetrack.client.LatestTleQuery}, using the TLEs' periods. TLEs without a catalog number or with elements the theory
+   * does not support are left out.
+   *
+   * @param tles The non-null TLEs
+   * @return The predictor
+   */
+  public static PassPredictor ofLatestTles(@NonNull Collection<LatestTle> tles) {
+
+    return of(tles, LatestTle::getCatalogNumber, Sgp4Propagator::of, LatestTle::getPeriodMinutes);
+  }
+
+
+  private static <E> PassPredictor of(Collection<E> elementSets, Function<E, Optional<Integer>> catalogNumberGetter, Function<E, Sgp4Propagator> initializer,
+      Function<E, Optional<Double>> periodGetter) {
+
+    List<Integer> catalogNumbers = new ArrayList<>(elementSets.size());
+    List<Sgp4Propagator> propagators = new ArrayList<>(elementSets.size());
+    List<Double> periods = new ArrayList<>(elementSets.size());
+
+    for (E elementSet : elementSets) {
+
+      Optional<Integer> catalogNumber = (elementSet == null) ? Optional.empty() : catalogNumberGetter.apply(elementSet);
+
+      if (!catalogNumber.isPresent()) {
+        continue;
+      }
+
+      try {
+
+        Sgp4Propagator propagator = initializer.apply(elementSet);
+        Optional<Double> period = periodGetter.apply(elementSet);
+
+        propagators.add(propagator);
+        catalogNumbers.add(catalogNumber.get());
+        periods.add((period == null) ? propagator.getPeriodMinutes() : period.orElseGet(propagator::getPeriodMinutes));
+
+      } catch (IllegalArgumentException e) {
+
+        log.debug("Leaving object {} out of the pass predictions: {}", catalogNumber.get(), e.getMessage());
+      }
+    }
+
+
+    CatalogPropagator catalog = new CatalogPropagator(catalogNumbers.stream().mapToInt(Integer::intValue).toArray(), propagators.toArray(new Sgp4Propagator[propagators.size()]));
+
+    return new PassPredictor(catalog, periods.stream().mapToDouble(Double::doubleValue).toArray());
+  }
+
+
+  private static double[] periods(@NonNull CatalogPropagator catalog) {
+
+    double[] result = new double[catalog.size()];
+
+    for (int i = 0; i < result.length; i++) {
+      result[i] = catalog.getPropagator(i).getPeriodMinutes();
+    }
+
+    return result;
+  }
+
+
+  /**
+   * Sets the pool the predictions run on (the common pool by default)
+   *
+   * @param pool The non-null pool
+   * @return This predictor, for use in the builder pattern
+   */
+  public PassPredictor setPool(@NonNull ForkJoinPool pool) {
+
+    this.pool = pool;
+    return this;
+  }
+
+
+  /**
+   * Finds every pass of every satellite over every station in a span of time
+   *
+   * @param stations The non-null stations
+   * @param start The non-null start of the span
+   * @param end The non-null end of the span
+   * @return The passes, ordered by acquisition of signal
+   */
+  public List<Pass> predict(@NonNull Collection<GroundStation> stations, @NonNull Instant start, @NonNull Instant end) {
+
+    // more validation
+    if (!start.isBefore(end)) {
+
+      throw new IllegalArgumentException("The start parameter is not before the end parameter: " + start + " and " + end);
+
+    } else if (stations.contains(null)) {
+
+      throw new IllegalArgumentException("The stations parameter contains null");
+    }
+
+
+    List<GroundStation> stationList = new ArrayList<>(stations);
+    double spanMinutes = Duration.between(start, end).toMillis() / 60000.0;
+    double siderealTimeAtStart = ReferenceFrames.greenwichSiderealTime(start);
+    int pairCount = stationList.size() * catalog.size();
+
+    List<Pass> passes = pool.submit(() -> IntStream.range(0, pairCount).parallel().mapToObj(pair -> {
+
+      GroundStation station = stationList.get(pair / catalog.size());
+      int satellite = pair % catalog.size();
+
+      if (!canBeVisible(station, catalog.getPropagator(satellite))) {
+        return new ArrayList<Pass>();
+      }
+
+      return new Scan(station, satellite, start, spanMinutes, siderealTimeAtStart).run();
+
+    }).flatMap(List::stream).collect(Collectors.toList())).join();
+
+    passes.sort(Comparator.comparing(Pass::getAcquisitionOfSignal).thenComparing(pass -> pass.getStation().getName()).thenComparingInt(Pass::getCatalogNumber));
+
+    return passes;
+  }
+
+
+  /**
+   * Whether or not the satellite's ground track ever comes close enough to the station to rise above its minimum elevation, judged from the highest latitude the ground track reaches and the
+   * footprint at apogee
+   */
+  static boolean canBeVisible(GroundStation station, Sgp4Propagator propagator) {
+
+    double inclination = propagator.getInclinationDegrees();
+    double maxGroundTrackLatitude = (inclination > 90.0) ? 180.0 - inclination : inclination;
+    double apogeeRadius = EARTH_RADIUS_KILOMETERS + propagator.getApogeeHeightKilometers();
+    double minElevation = Math.toRadians(station.getMinElevationDegrees());
+    double cosFootprint = EARTH_RADIUS_KILOMETERS / apogeeRadius * Math.cos(minElevation);
+
+    if (cosFootprint >= 1.0) {
+      return false;
+    }
+
+    double footprintDegrees = Math.toDegrees(Math.acos(cosFootprint) - minElevation);
+
+
+    return Math.abs(station.getLatitudeDegrees()) - maxGroundTrackLatitude <= footprintDegrees + REJECTION_MARGIN_DEGREES;
+  }
+
+
+  /**
+   * Scans one station and satellite pair
+   */
+  private class Scan {
+
+    private final GroundStation station;
+    private final int satellite;
+    private final Sgp4Propagator propagator;
+    private final Instant start;
+    private final double spanMinutes;
+    private final double siderealTimeAtStart;
+    private final double startOffset;
+    private final double[] position = new double[3];
+    private final double[] velocity = new double[3];
+    private final List<Pass> passes = new ArrayList<>();
+
+
+    private Scan(GroundStation station, int satellite, Instant start, double spanMinutes, double siderealTimeAtStart) {
+
+      this.station = station;
+      this.satellite = satellite;
+      this.propagator = catalog.getPropagator(satellite);
+      this.start = start;
+      this.spanMinutes = spanMinutes;
+      this.siderealTimeAtStart = siderealTimeAtStart;
+      this.startOffset = propagator.minutesSinceEpoch(start);
+    }
+
+
+    private List<Pass> run() {
+
+      double step = Math.max(MIN_STEP_MINUTES, Math.min(MAX_STEP_MINUTES, periodMinutes[satellite] / COARSE_STEPS_PER_ORBIT));
+
+      try {
+
+        double previousTime = 0.0;
+        double previous = elevation(0.0);
+        double beforePreviousTime = Double.NaN;
+        double beforePrevious = Double.NaN;
+        double acquisition = (previous >= 0.0) ? 0.0 : Double.NaN;
+
+        for (double time = Math.min(step, spanMinutes);; time = Math.min(time + step, spanMinutes)) {
+
+          double current = elevation(time);
+
+          if (previous < 0.0 && current >= 0.0) {
+
+            acquisition = crossing(previousTime, time);
+
+          } else if (previous >= 0.0 && current < 0.0) {
+
+            addPass(acquisition, crossing(previousTime, time));
+            acquisition = Double.NaN;
+
+          } else if (previous < 0.0 && current < 0.0 && beforePrevious < previous && previous > current) {
+
+            // the elevation peaked near the previous sample without being seen, so look between the samples for a short pass
+            double peak = maximum(beforePreviousTime, time);
+
+            if (elevation(peak) >= 0.0) {
+              addPass(crossing(beforePreviousTime, peak), crossing(peak, time));
+            }
+          }
+
+          if (time >= spanMinutes) {
+
+            if (current >= 0.0) {
+              addPass(acquisition, time);
+            }
+
+            break;
+          }
+
+          beforePreviousTime = previousTime;
+          beforePrevious = previous;
+          previousTime = time;
+          previous = current;
+        }
+
+      } catch (PropagationException e) {
+
+        log.debug("Stopped predicting passes of object {}: {}", catalog.getCatalogNumber(satellite), e.getMessage());
+      }
+
+      return passes;
+    }
+
+
+    private void addPass(double acquisition, double loss) {
+
+      double peak = maximum(acquisition, loss);
+      double peakElevation = elevation(peak) + station.getMinElevationDegrees();
+
+      passes.add(new Pass(station, catalog.getCatalogNumber(satellite), instant(acquisition), instant(loss), instant(peak), peakElevation));
+    }
+
+
+    /**
+     * The elevation above the station's minimum, in degrees
+     */
+    private double elevation(double minutes) {
+
+      propagator.propagate(startOffset + minutes, position, velocity);
+      ReferenceFrames.temeToEcef(siderealTimeAtStart + ReferenceFrames.EARTH_ROTATION_RADIANS_PER_SECOND * 60.0 * minutes, position, position);
+
+
+      return station.elevationDegrees(position) - station.getMinElevationDegrees();
+    }
+
+
+    /**
+     * Bisects for the time the elevation crosses the minimum between two times on opposite sides of it
+     */
+    private double crossing(double low, double high) {
+
+      boolean risingAtLow = elevation(low) < 0.0;
+
+      while (high - low > TIME_TOLERANCE_MINUTES) {
+
+        double middle = (low + high) / 2.0;
+
+        if ((elevation(middle) < 0.0) == risingAtLow) {
+
+          low = middle;
+
+        } else {
+
+          high = middle;
+        }
+      }
+
+      return (low + high) / 2.0;
+    }
+
+
+    /**
+     * Golden-section search for the highest elevation between two times
+     */
+    private double maximum(double low, double high) {
+
+      double c = high - GOLDEN_RATIO * (high - low);
+      double d = low + GOLDEN_RATIO * (high - low);
+      double fc = elevation(c);
+      double fd = elevation(d);
+
+      while (high - low > TIME_TOLERANCE_MINUTES) {
+
+        if (fc > fd) {
+
+          high = d;
+          d = c;
+          fd = fc;
+          c = high - GOLDEN_RATIO * (high - low);
+          fc = elevation(c);
+
+        } else {
+
+          low = c;
+          c = d;
+          fc = fd;
+          d = low + GOLDEN_RATIO * (high - low);
+          fd = elevation(d);
+        }
+      }
+
+      return (low + high) / 2.0;
+    }
+
+
+    private Instant instant(double minutes) {
+
+      return start.plusNanos(Math.round(minutes * 60e9));
+    }
+  }
+}
@@ -18,13 +18,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.threeten.extra.scale.TaiInstant;
 import org.threeten.extra.scale.UtcInstant;
 import com.stevenpaligo.spacetrack.client.query.QueryField;
 import com.stevenpaligo.spacetrack.client.util.SpaceTrackDateTimeFormatter;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 
@@ -39,6 +40,9 @@ public class In<T extends QueryField> implements Predicate<T> {
   private T field;
   private String values;
 
+  @Getter(AccessLevel.NONE)
+  private List<String> uniqueValues;
+
 
   public In(@NonNull T field, String... values) {
 
@@ -98,7 +102,6 @@ public class In<T extends QueryField> implements Predicate<T> {
    * {@link TaiInstant} objects if possible.
    * </p>
    */
-  @SuppressWarnings("unchecked")
   public <V> In(@NonNull T field, @NonNull Collection<V> values, @NonNull Class<V> valueType) {
 
     // more validation
@@ -112,46 +115,42 @@ public class In<T extends QueryField> implements Predicate<T> {
     this.field = field;
 
 
-    // make sure the values are unique and convert them to a single string
-    Set<V> uniqueValues;
-
-    if (values instanceof Set) {
-
-      uniqueValues = (Set<V>) values;
-
-    } else {
-
-      uniqueValues = new HashSet<>(values);
-    }
+    // convert the values to strings
+    Function<V, String> formatter;
 
     if (valueType == String.class) {
 
-      this.values = String.join(",", (Set<String>) uniqueValues);
+      formatter = v -> (String) v;
 
     } else if (valueType == Date.class) {
 
-      this.values = uniqueValues.stream().map(v -> SpaceTrackDateTimeFormatter.format((Date) v)).collect(Collectors.joining(","));
+      formatter = v -> SpaceTrackDateTimeFormatter.format((Date) v);
 
     } else if (valueType == Instant.class) {
 
-      this.values = uniqueValues.stream().map(v -> SpaceTrackDateTimeFormatter.format((Instant) v)).collect(Collectors.joining(","));
+      formatter = v -> SpaceTrackDateTimeFormatter.format((Instant) v);
 
     } else if (valueType == UtcInstant.class) {
 
-      this.values = uniqueValues.stream().map(v -> SpaceTrackDateTimeFormatter.format((UtcInstant) v)).collect(Collectors.joining(","));
+      formatter = v -> SpaceTrackDateTimeFormatter.format((UtcInstant) v);
 
     } else if (valueType == TaiInstant.class) {
 
-      this.values = uniqueValues.stream().map(v -> SpaceTrackDateTimeFormatter.format((TaiInstant) v)).collect(Collectors.joining(","));
+      formatter = v -> SpaceTrackDateTimeFormatter.format((TaiInstant) v);
 
     } else if (Number.class.isAssignableFrom(valueType)) {
 
-      this.values = uniqueValues.stream().map(v -> ((Number) v).toString()).collect(Collectors.joining(","));
+      formatter = v -> ((Number) v).toString();
 
     } else {
 
       throw new RuntimeException("Unsupported value type: " + valueType);
     }
+
+
+    // make sure the values are unique (keeping the first occurrence of each, so the order is deterministic) and convert them to a single string
+    this.uniqueValues = values.stream().map(formatter).distinct().collect(Collectors.toList());
+    this.values = String.join(",", uniqueValues);
   }
 
 
@@ -159,4 +158,14 @@ public class In<T extends QueryField> implements Predicate<T> {
 
     return field.getQueryFieldName() + "/" + values;
   }
+
+
+  /**
+   * {@inheritDoc} The values are sorted, since their order doesn't affect the results.
+   */
+  @Override
+  public String toCanonicalQueryParameter() {
+
+    return field.getQueryFieldName() + "/" + uniqueValues.stream().sorted().collect(Collectors.joining(","));
+  }
 }
@@ -35,6 +35,14 @@ public class InclusiveRange<T extends QueryField> implements Predicate<T> {
   private String upperValue;
 
 
+  public InclusiveRange(@NonNull T field, @NonNull String lowerValue, @NonNull String upperValue) {
+
+    this.field = field;
+    this.lowerValue = lowerValue;
+    this.upperValue = upperValue;
+  }
+
+
   public InclusiveRange(@NonNull T field, @NonNull Number lowerValue, @NonNull Number upperValue) {
 
     this.field = field;
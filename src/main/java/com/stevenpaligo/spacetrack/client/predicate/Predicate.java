@@ -29,4 +29,15 @@ public interface Predicate<T extends QueryField> {
    */
   public String toQueryParameter();
 
+
+  /**
+   * Get a form of the URL component that is the same for all predicates with the same meaning, for use in cache keys. For most predicates this is the same as {@link #toQueryParameter()}.
+   * 
+   * @return A non-null query parameter in the form of a URL component
+   */
+  public default String toCanonicalQueryParameter() {
+
+    return toQueryParameter();
+  }
+
 }
@@ -0,0 +1,401 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.propagation;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import com.stevenpaligo.spacetrack.client.LatestTleQuery.LatestTle;
+import com.stevenpaligo.spacetrack.client.TleQuery.Tle;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Propagates a whole catalog of element sets (e.g. every result of a {@link com.stevenpaligo.spacetrack.client.LatestTleQuery}) to common instants. The objects are split into chunks that are
+ * propagated in parallel on a fork/join pool, and the results are written into a reusable {@link CatalogState}.
+ *
+ * <p>
+ * The catalog keeps the catalog numbers and epoch offsets in flat arrays, and the output {@link CatalogState} is structure-of-arrays. The initialized element sets are not: they stay in one
+ * {@link Sgp4Propagator} per object, in catalog order, because the kernel is scalar. It reads every constant of one object before moving to the next, so keeping an object's constants together
+ * serves it better than spreading them across parallel arrays, and the deep-space objects have too many constants to duplicate in such arrays.
+ * </p>
+ *
+ * @author Steven Paligo
+ */
+@Slf4j
+public class CatalogPropagator {
+
+  /**
+   * Receives the catalog's state at each instant
+   *
+   * @author Steven Paligo
+   */
+  @FunctionalInterface
+  public static interface StateListener {
+
+    /**
+     * Called once per instant, in order. The state is reused for the next instant, so it must not be kept after this method returns.
+     *
+     * @param state The catalog's state
+     */
+    public void onState(CatalogState state);
+  }
+
+
+  private static final int DEFAULT_CHUNK_SIZE = 256;
+
+
+  private final int[] catalogNumbers;
+  private final Sgp4Propagator[] propagators;
+  private final Instant referenceEpoch;
+  private final double[] epochOffsetMinutes; // minutes from the reference epoch to each element set's epoch
+
+  /**
+   * The number of element sets that were left out because they could not be initialized
+   */
+  @Getter
+  private final int rejectedCount;
+
+  private ForkJoinPool pool = ForkJoinPool.commonPool();
+  private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+
+  /**
+   * Creates a catalog from initialized propagators
+   *
+   * @param catalogNumbers The non-null NORAD catalog numbers of the objects
+   * @param propagators The non-null propagators of the objects, in the same order as the catalog numbers
+   */
+  public CatalogPropagator(@NonNull int[] catalogNumbers, @NonNull Sgp4Propagator[] propagators) {
+
+    this(catalogNumbers, propagators, 0);
+  }
+
+
+  private CatalogPropagator(@NonNull int[] catalogNumbers, @NonNull Sgp4Propagator[] propagators, int rejectedCount) {
+
+    // more validation
+    if (catalogNumbers.length != propagators.length) {
+
+      throw new IllegalArgumentException("The catalogNumbers and propagators parameters have different lengths: " + catalogNumbers.length + " and " + propagators.length);
+    }
+
+    for (Sgp4Propagator propagator : propagators) {
+
+      if (propagator == null) {
+
+        throw new IllegalArgumentException("The propagators parameter contains null");
+      }
+    }
+
+
+    this.catalogNumbers = catalogNumbers.clone();
+    this.propagators = propagators.clone();
+    this.rejectedCount = rejectedCount;
+
+
+    // measure every epoch from the earliest one
+    Instant earliest = Instant.MAX;
+
+    for (Sgp4Propagator propagator : this.propagators) {
+
+      if (propagator.getEpoch().isBefore(earliest)) {
+        earliest = propagator.getEpoch();
+      }
+    }
+
+    this.referenceEpoch = (this.propagators.length == 0) ? Instant.EPOCH : earliest;
+    this.epochOffsetMinutes = new double[this.propagators.length];
+
+    for (int i = 0; i < this.propagators.length; i++) {
+      epochOffsetMinutes[i] = minutesBetween(referenceEpoch, this.propagators[i].getEpoch());
+    }
+  }
+
+
+  /**
+   * Creates a catalog from the results of a {@link com.stevenpaligo.spacetrack.client.TleQuery}. TLEs without a catalog number or with elements the theory does not support are left out.
+   *
+   * @param tles The non-null TLEs
+   * @return The catalog
+   */
+  public static CatalogPropagator ofTles(@NonNull Collection<Tle> tles) {
+
+    return of(tles, Tle::getCatalogNumber, Sgp4Propagator::of);
+  }
+
+
+  /**
+   * Creates a catalog from the results of a {@link com.stevenpaligo.spacetrack.client.LatestTleQuery}. TLEs without a catalog number or with elements the theory does not support are left
+   * out.
+   *
+   * @param tles The non-null TLEs
+   * @return The catalog
+   */
+  public static CatalogPropagator ofLatestTles(@NonNull Collection<LatestTle> tles) {
+
+    return of(tles, LatestTle::getCatalogNumber, Sgp4Propagator::of);
+  }
+
+
+  private static <E> CatalogPropagator of(Collection<E> elementSets, Function<E, Optional<Integer>> catalogNumberGetter, Function<E, Sgp4Propagator> initializer) {
+
+    int[] catalogNumbers = new int[elementSets.size()];
+    List<Sgp4Propagator> propagators = new ArrayList<>(elementSets.size());
+    int rejectedCount = 0;
+
+    for (E elementSet : elementSets) {
+
+      Optional<Integer> catalogNumber = (elementSet == null) ? Optional.empty() : catalogNumberGetter.apply(elementSet);
+
+      if (!catalogNumber.isPresent()) {
+
+        rejectedCount++;
+        continue;
+      }
+
+      try {
+
+        catalogNumbers[propagators.size()] = catalogNumber.get();
+        propagators.add(initializer.apply(elementSet));
+
+      } catch (IllegalArgumentException e) {
+
+        log.debug("Leaving object {} out of the catalog: {}", catalogNumber.get(), e.getMessage());
+        rejectedCount++;
+      }
+    }
+
+
+    int size = propagators.size();
+    int[] trimmedCatalogNumbers = new int[size];
+    System.arraycopy(catalogNumbers, 0, trimmedCatalogNumbers, 0, size);
+
+    return new CatalogPropagator(trimmedCatalogNumbers, propagators.toArray(new Sgp4Propagator[size]), rejectedCount);
+  }
+
+
+  /**
+   * Sets the pool the chunks are propagated on (the common pool by default)
+   *
+   * @param pool The non-null pool
+   * @return This catalog, for use in the builder pattern
+   */
+  public CatalogPropagator setPool(@NonNull ForkJoinPool pool) {
+
+    this.pool = pool;
+    return this;
+  }
+
+
+  /**
+   * Sets the number of objects propagated by one task before the work is split further
+   *
+   * @param chunkSize The number of objects (must be positive)
+   * @return This catalog, for use in the builder pattern
+   */
+  public CatalogPropagator setChunkSize(int chunkSize) {
+
+    // more validation
+    if (chunkSize <= 0) {
+
+      throw new IllegalArgumentException("The chunkSize parameter is not positive: " + chunkSize);
+    }
+
+
+    this.chunkSize = chunkSize;
+    return this;
+  }
+
+
+  /**
+   * @return The number of objects in the catalog
+   */
+  public int size() {
+
+    return catalogNumbers.length;
+  }
+
+
+  /**
+   * @param index The index of the object, in the order of the catalog
+   * @return The NORAD catalog number of the object
+   */
+  public int getCatalogNumber(int index) {
+
+    return catalogNumbers[index];
+  }
+
+
+  /**
+   * @param index The index of the object, in the order of the catalog
+   * @return The propagator of the object
+   */
+  public Sgp4Propagator getPropagator(int index) {
+
+    return propagators[index];
+  }
+
+
+  /**
+   * Creates a state that can be filled by {@link #propagate(Instant, CatalogState)}
+   *
+   * @return A new state for this catalog
+   */
+  public CatalogState newState() {
+
+    return new CatalogState(catalogNumbers);
+  }
+
+
+  /**
+   * Propagates every object to an instant
+   *
+   * @param time The non-null instant
+   * @return The state of the catalog at the instant
+   */
+  public CatalogState propagate(@NonNull Instant time) {
+
+    CatalogState state = newState();
+    propagate(time, state);
+
+    return state;
+  }
+
+
+  /**
+   * Propagates every object to an instant, overwriting a state
+   *
+   * @param time The non-null instant
+   * @param state The non-null state to fill, which must come from {@link #newState()} of this catalog
+   */
+  public void propagate(@NonNull Instant time, @NonNull CatalogState state) {
+
+    // more validation
+    if (!state.belongsTo(catalogNumbers)) {
+
+      throw new IllegalArgumentException("The state belongs to a different catalog");
+    }
+
+
+    double minutesSinceReference = minutesBetween(referenceEpoch, time);
+    ChunkTask task = new ChunkTask(state, minutesSinceReference, 0, propagators.length);
+
+    if (propagators.length <= chunkSize) {
+
+      task.invoke();
+
+    } else {
+
+      pool.invoke(task);
+    }
+
+    state.setTime(time);
+  }
+
+
+  /**
+   * Propagates every object to each of a series of instants, reusing one state
+   *
+   * @param times The non-null instants
+   * @param listener The non-null listener that receives the state at each instant, in the order of the instants
+   */
+  public void propagate(@NonNull Collection<Instant> times, @NonNull StateListener listener) {
+
+    CatalogState state = newState();
+
+    for (Instant time : times) {
+
+      propagate(time, state);
+      listener.onState(state);
+    }
+  }
+
+
+  private static double minutesBetween(Instant start, Instant end) {
+
+    Duration duration = Duration.between(start, end);
+
+
+    return (duration.getSeconds() + duration.getNano() / 1e9) / 60.0;
+  }
+
+
+  /**
+   * Propagates a range of the catalog, splitting it in half until it is no larger than a chunk
+   */
+  private class ChunkTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient CatalogState state;
+    private final double minutesSinceReference;
+    private final int from;
+    private final int to;
+
+
+    private ChunkTask(CatalogState state, double minutesSinceReference, int from, int to) {
+
+      this.state = state;
+      this.minutesSinceReference = minutesSinceReference;
+      this.from = from;
+      this.to = to;
+    }
+
+
+    @Override
+    protected void compute() {
+
+      if (to - from > chunkSize) {
+
+        int middle = (from + to) >>> 1;
+        invokeAll(new ChunkTask(state, minutesSinceReference, from, middle), new ChunkTask(state, minutesSinceReference, middle, to));
+        return;
+      }
+
+
+      double[] position = new double[3];
+      double[] velocity = new double[3];
+
+      for (int i = from; i < to; i++) {
+
+        try {
+
+          propagators[i].propagate(minutesSinceReference - epochOffsetMinutes[i], position, velocity);
+
+          state.x[i] = position[0];
+          state.y[i] = position[1];
+          state.z[i] = position[2];
+          state.vx[i] = velocity[0];
+          state.vy[i] = velocity[1];
+          state.vz[i] = velocity[2];
+          state.valid[i] = true;
+
+        } catch (PropagationException e) {
+
+          state.x[i] = state.y[i] = state.z[i] = Double.NaN;
+          state.vx[i] = state.vy[i] = state.vz[i] = Double.NaN;
+          state.valid[i] = false;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.propagation;
+
+import java.time.Instant;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * The states of every object in a {@link CatalogPropagator} at one instant, stored as one array per component so large catalogs can be scanned without touching unrelated data. A state is
+ * filled in place by {@link CatalogPropagator#propagate(Instant, CatalogState)} and can be reused for any number of instants.
+ *
+ * <p>
+ * Positions are in kilometers and velocities in kilometers per second, both in the TEME frame. The components of an object that could not be propagated (see {@link #isValid(int)}) are
+ * <code>NaN</code>.
+ * </p>
+ *
+ * @author Steven Paligo
+ */
+public final class CatalogState {
+
+  private final int[] catalogNumbers;
+
+  @Getter
+  private Instant time;
+
+  final double[] x;
+  final double[] y;
+  final double[] z;
+  final double[] vx;
+  final double[] vy;
+  final double[] vz;
+  final boolean[] valid;
+
+
+  CatalogState(int[] catalogNumbers) {
+
+    int size = catalogNumbers.length;
+
+    this.catalogNumbers = catalogNumbers;
+    this.x = new double[size];
+    this.y = new double[size];
+    this.z = new double[size];
+    this.vx = new double[size];
+    this.vy = new double[size];
+    this.vz = new double[size];
+    this.valid = new boolean[size];
+  }
+
+
+  void setTime(@NonNull Instant time) {
+
+    this.time = time;
+  }
+
+
+  boolean belongsTo(int[] catalogNumbers) {
+
+    return this.catalogNumbers == catalogNumbers;
+  }
+
+
+  /**
+   * @return The number of objects
+   */
+  public int size() {
+
+    return catalogNumbers.length;
+  }
+
+
+  /**
+   * @param index The index of the object, in the order of the catalog
+   * @return The NORAD catalog number of the object
+   */
+  public int getCatalogNumber(int index) {
+
+    return catalogNumbers[index];
+  }
+
+
+  /**
+   * @param index The index of the object, in the order of the catalog
+   * @return Whether or not the object was propagated successfully (e.g. it had not decayed)
+   */
+  public boolean isValid(int index) {
+
+    return valid[index];
+  }
+
+
+  /**
+   * Copies an object's position
+   *
+   * @param index The index of the object, in the order of the catalog
+   * @param position An array of at least 3 elements that receives the position in kilometers
+   */
+  public void getPosition(int index, @NonNull double[] position) {
+
+    position[0] = x[index];
+    position[1] = y[index];
+    position[2] = z[index];
+  }
+
+
+  /**
+   * Copies an object's velocity
+   *
+   * @param index The index of the object, in the order of the catalog
+   * @param velocity An array of at least 3 elements that receives the velocity in kilometers per second
+   */
+  public void getVelocity(int index, @NonNull double[] velocity) {
+
+    velocity[0] = vx[index];
+    velocity[1] = vy[index];
+    velocity[2] = vz[index];
+  }
+
+
+  public double getX(int index) {
+
+    return x[index];
+  }
+
+
+  public double getY(int index) {
+
+    return y[index];
+  }
+
+
+  public double getZ(int index) {
+
+    return z[index];
+  }
+
+
+  public double getVx(int index) {
+
+    return vx[index];
+  }
+
+
+  public double getVy(int index) {
+
+    return vy[index];
+  }
+
+
+  public double getVz(int index) {
+
+    return vz[index];
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.propagation;
+
+import lombok.Getter;
+
+/**
+ * Signals that an element set could not be propagated to the requested time, e.g. because the orbit has decayed or the eccentricity has left the range the theory supports
+ * 
+ * @author Steven Paligo
+ */
+@Getter
+public class PropagationException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+
+  /**
+   * The time, in minutes since the element set's epoch, that could not be reached
+   */
+  private final double minutesSinceEpoch;
+
+
+  public PropagationException(String message, double minutesSinceEpoch) {
+
+    super(message + " (at " + minutesSinceEpoch + " minutes from epoch)");
+    this.minutesSinceEpoch = minutesSinceEpoch;
+  }
+}
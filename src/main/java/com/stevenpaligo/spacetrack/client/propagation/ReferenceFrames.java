@@ -0,0 +1,109 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.propagation;
+
+import java.time.Instant;
+import lombok.NonNull;
+
+/**
+ * Conversions between the TEME frame the propagators work in and Earth-fixed coordinates. Polar motion and the equation of the equinoxes are ignored and UT1 is taken to be UTC, which is
+ * well within the accuracy of the element sets.
+ *
+ * @author Steven Paligo
+ */
+public final class ReferenceFrames {
+
+  /**
+   * The rotation rate of the Earth relative to the mean equinox, in radians per second
+   */
+  public static final double EARTH_ROTATION_RADIANS_PER_SECOND = 7.29211585530066e-5;
+
+  // WGS-84 ellipsoid, used for ground locations
+  private static final double WGS84_EQUATORIAL_RADIUS_KILOMETERS = 6378.137;
+  private static final double WGS84_FLATTENING = 1.0 / 298.257223563;
+  private static final double WGS84_ECCENTRICITY_SQUARED = WGS84_FLATTENING * (2.0 - WGS84_FLATTENING);
+
+  private static final double UNIX_EPOCH_JULIAN_DATE = 2440587.5;
+
+
+  private ReferenceFrames() {
+
+    // prevent instantiation
+  }
+
+
+  /**
+   * Computes the Greenwich mean sidereal time using the IAU 1982 model
+   *
+   * @param instant A non-null instant
+   * @return The sidereal time in radians, from 0 (inclusive) to 2&pi; (exclusive)
+   */
+  public static double greenwichSiderealTime(@NonNull Instant instant) {
+
+    return greenwichSiderealTime(UNIX_EPOCH_JULIAN_DATE + (instant.getEpochSecond() + instant.getNano() / 1e9) / 86400.0);
+  }
+
+
+  static double greenwichSiderealTime(double julianDate) {
+
+    double tut1 = (julianDate - 2451545.0) / 36525.0;
+    double seconds = -6.2e-6 * tut1 * tut1 * tut1 + 0.093104 * tut1 * tut1 + (876600.0 * 3600.0 + 8640184.812866) * tut1 + 67310.54841;
+    double result = (Math.toRadians(seconds) / 240.0) % Sgp4Propagator.TWO_PI;
+
+
+    return (result < 0.0) ? result + Sgp4Propagator.TWO_PI : result;
+  }
+
+
+  /**
+   * Rotates a TEME position into the Earth-fixed frame. This method does not allocate.
+   *
+   * @param siderealTime The Greenwich mean sidereal time in radians (see {@link #greenwichSiderealTime(Instant)})
+   * @param teme An array of at least 3 elements holding the TEME position
+   * @param ecef An array of at least 3 elements that receives the Earth-fixed position (may be the same array as <code>teme</code>)
+   */
+  public static void temeToEcef(double siderealTime, @NonNull double[] teme, @NonNull double[] ecef) {
+
+    double cos = Math.cos(siderealTime);
+    double sin = Math.sin(siderealTime);
+    double x = cos * teme[0] + sin * teme[1];
+    double y = -sin * teme[0] + cos * teme[1];
+
+    ecef[0] = x;
+    ecef[1] = y;
+    ecef[2] = teme[2];
+  }
+
+
+  /**
+   * Converts a geodetic location on the WGS-84 ellipsoid to Earth-fixed coordinates
+   *
+   * @param latitudeDegrees The geodetic latitude in degrees
+   * @param longitudeDegrees The longitude in degrees (east positive)
+   * @param altitudeKilometers The height above the ellipsoid in kilometers
+   * @param ecef An array of at least 3 elements that receives the Earth-fixed position in kilometers
+   */
+  public static void geodeticToEcef(double latitudeDegrees, double longitudeDegrees, double altitudeKilometers, @NonNull double[] ecef) {
+
+    double latitude = Math.toRadians(latitudeDegrees);
+    double longitude = Math.toRadians(longitudeDegrees);
+    double sinLatitude = Math.sin(latitude);
+    double cosLatitude = Math.cos(latitude);
+    double primeVerticalRadius = WGS84_EQUATORIAL_RADIUS_KILOMETERS / Math.sqrt(1.0 - WGS84_ECCENTRICITY_SQUARED * sinLatitude * sinLatitude);
+
+    ecef[0] = (primeVerticalRadius + altitudeKilometers) * cosLatitude * Math.cos(longitude);
+    ecef[1] = (primeVerticalRadius + altitudeKilometers) * cosLatitude * Math.sin(longitude);
+    ecef[2] = (primeVerticalRadius * (1.0 - WGS84_ECCENTRICITY_SQUARED) + altitudeKilometers) * sinLatitude;
+  }
+}
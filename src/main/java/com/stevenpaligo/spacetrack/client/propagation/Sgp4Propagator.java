@@ -0,0 +1,1117 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.propagation;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import com.stevenpaligo.spacetrack.client.LatestTleQuery.LatestTle;
+import com.stevenpaligo.spacetrack.client.OrbitMeanElementsMessageQuery.OrbitMeanElementsMessage;
+import com.stevenpaligo.spacetrack.client.TleQuery.Tle;
+import com.stevenpaligo.spacetrack.client.util.SpaceTrackDateTimeFormatter;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * SGP4/SDP4 propagator for a single element set, following the revised theory published by Vallado, Crawford, Hujsak and Kelso ("Revisiting Spacetrack Report #3", 2006) with the WGS-72
+ * constants used to generate the element sets. Orbits with periods of 225 minutes or more automatically use the deep-space (SDP4) terms.
+ *
+ * <p>
+ * Everything that depends only on the element set is computed once when the propagator is created. Propagating does not allocate and does not modify the propagator, so one instance can be
+ * shared by any number of threads. Positions are in kilometers and velocities in kilometers per second, both in the TEME (true equator, mean equinox) frame of the element set.
+ * </p>
+ *
+ * @author Steven Paligo
+ */
+public final class Sgp4Propagator {
+
+  // WGS-72 constants, the ones the element sets are fitted with
+  static final double EARTH_RADIUS_KILOMETERS = 6378.135;
+  static final double MU = 398600.8;
+  static final double XKE = 60.0 / Math.sqrt(EARTH_RADIUS_KILOMETERS * EARTH_RADIUS_KILOMETERS * EARTH_RADIUS_KILOMETERS / MU);
+  static final double J2 = 0.001082616;
+  static final double J3 = -0.00000253881;
+  static final double J4 = -0.00000165597;
+  static final double J3OJ2 = J3 / J2;
+
+  static final double TWO_PI = 2.0 * Math.PI;
+  static final double X2O3 = 2.0 / 3.0;
+  static final double VKMPERSEC = EARTH_RADIUS_KILOMETERS * XKE / 60.0;
+  static final double MINUTES_PER_DAY = 1440.0;
+
+  private static final double TEMP4 = 1.5e-12;
+  private static final Instant JULIAN_DATE_2433281_5 = Instant.parse("1949-12-31T00:00:00Z"); // the epoch of the deep-space "days since 1950" time scale
+  private static final double SECONDS_PER_DAY = 86400.0;
+
+  // deep-space constants
+  private static final double ZNS = 1.19459e-5;
+  private static final double ZES = 0.01675;
+  private static final double ZNL = 1.5835218e-4;
+  private static final double ZEL = 0.05490;
+  private static final double RPTIM = 4.37526908801129966e-3;
+
+
+  @Getter
+  private final Instant epoch;
+
+  // mean elements at epoch
+  private final double bstar;
+  private final double ecco;
+  private final double argpo;
+  private final double inclo;
+  private final double mo;
+  private final double no;
+  private final double nodeo;
+  private final double ao;
+
+  // near-earth constants
+  private final boolean simplified;
+  private final boolean deepSpace;
+  private final double aycof;
+  private final double con41;
+  private final double cc1;
+  private final double cc4;
+  private final double cc5;
+  private final double d2;
+  private final double d3;
+  private final double d4;
+  private final double delmo;
+  private final double eta;
+  private final double argpdot;
+  private final double omgcof;
+  private final double sinmao;
+  private final double t2cof;
+  private final double t3cof;
+  private final double t4cof;
+  private final double t5cof;
+  private final double x1mth2;
+  private final double x7thm1;
+  private final double mdot;
+  private final double nodedot;
+  private final double xlcof;
+  private final double xmcof;
+  private final double nodecf;
+
+  // deep-space constants
+  private final int irez;
+  private final double d2201;
+  private final double d2211;
+  private final double d3210;
+  private final double d3222;
+  private final double d4410;
+  private final double d4422;
+  private final double d5220;
+  private final double d5232;
+  private final double d5421;
+  private final double d5433;
+  private final double dedt;
+  private final double del1;
+  private final double del2;
+  private final double del3;
+  private final double didt;
+  private final double dmdt;
+  private final double dnodt;
+  private final double domdt;
+  private final double e3;
+  private final double ee2;
+  private final double se2;
+  private final double se3;
+  private final double sgh2;
+  private final double sgh3;
+  private final double sgh4;
+  private final double sh2;
+  private final double sh3;
+  private final double si2;
+  private final double si3;
+  private final double sl2;
+  private final double sl3;
+  private final double sl4;
+  private final double gsto;
+  private final double xfact;
+  private final double xgh2;
+  private final double xgh3;
+  private final double xgh4;
+  private final double xh2;
+  private final double xh3;
+  private final double xi2;
+  private final double xi3;
+  private final double xl2;
+  private final double xl3;
+  private final double xl4;
+  private final double xlamo;
+  private final double zmol;
+  private final double zmos;
+
+
+  /**
+   * Creates a propagator from the mean elements of an element set
+   *
+   * @param epoch The epoch of the element set
+   * @param meanMotionRevsPerDay The mean motion in revolutions per day
+   * @param eccentricity The eccentricity, from 0 (inclusive) to 1 (exclusive)
+   * @param inclinationDegrees The inclination in degrees
+   * @param rightAscOfNodeDegrees The right ascension of the ascending node in degrees
+   * @param argOfPerigeeDegrees The argument of perigee in degrees
+   * @param meanAnomalyDegrees The mean anomaly in degrees
+   * @param bstar The BSTAR drag term in inverse Earth radii
+   * @throws IllegalArgumentException The elements do not describe an orbit the theory supports
+   */
+  public Sgp4Propagator(@NonNull Instant epoch, double meanMotionRevsPerDay, double eccentricity, double inclinationDegrees, double rightAscOfNodeDegrees, double argOfPerigeeDegrees,
+      double meanAnomalyDegrees, double bstar) {
+
+    // more validation
+    if (!(meanMotionRevsPerDay > 0.0) || Double.isInfinite(meanMotionRevsPerDay)) {
+
+      throw new IllegalArgumentException("The meanMotionRevsPerDay parameter is not positive: " + meanMotionRevsPerDay);
+
+    } else if (!(eccentricity >= 0.0 && eccentricity < 1.0)) {
+
+      throw new IllegalArgumentException("The eccentricity parameter is not in the range [0, 1): " + eccentricity);
+
+    } else if (!Double.isFinite(inclinationDegrees) || !Double.isFinite(rightAscOfNodeDegrees) || !Double.isFinite(argOfPerigeeDegrees) || !Double.isFinite(meanAnomalyDegrees)
+        || !Double.isFinite(bstar)) {
+
+      throw new IllegalArgumentException("The angles and BSTAR must be finite");
+    }
+
+
+    this.epoch = epoch;
+    this.bstar = bstar;
+    this.ecco = eccentricity;
+    this.argpo = Math.toRadians(argOfPerigeeDegrees);
+    this.inclo = Math.toRadians(inclinationDegrees);
+    this.mo = Math.toRadians(meanAnomalyDegrees);
+    this.nodeo = Math.toRadians(rightAscOfNodeDegrees);
+
+    Duration sinceDeepSpaceEpoch = Duration.between(JULIAN_DATE_2433281_5, epoch);
+    double epochDays = (sinceDeepSpaceEpoch.getSeconds() + sinceDeepSpaceEpoch.getNano() / 1e9) / SECONDS_PER_DAY;
+    this.gsto = ReferenceFrames.greenwichSiderealTime(epochDays + 2433281.5);
+
+
+    // recover the original mean motion and semi-major axis from the Kozai mean motion in the element set
+    double noKozai = meanMotionRevsPerDay * TWO_PI / MINUTES_PER_DAY;
+    double eccsq = ecco * ecco;
+    double omeosq = 1.0 - eccsq;
+    double rteosq = Math.sqrt(omeosq);
+    double cosio = Math.cos(inclo);
+    double cosio2 = cosio * cosio;
+
+    double ak = Math.pow(XKE / noKozai, X2O3);
+    double d1 = 0.75 * J2 * (3.0 * cosio2 - 1.0) / (rteosq * omeosq);
+    double del = d1 / (ak * ak);
+    double adel = ak * (1.0 - del * del - del * (1.0 / 3.0 + 134.0 * del * del / 81.0));
+    del = d1 / (adel * adel);
+    this.no = noKozai / (1.0 + del);
+
+    this.ao = Math.pow(XKE / no, X2O3);
+    double sinio = Math.sin(inclo);
+    double po = ao * omeosq;
+    double con42 = 1.0 - 5.0 * cosio2;
+    this.con41 = -con42 - cosio2 - cosio2;
+    double posq = po * po;
+    double rp = ao * (1.0 - ecco);
+
+    if (rp < 1.0) {
+
+      throw new IllegalArgumentException("The perigee of the element set is below the surface of the Earth");
+    }
+
+
+    // atmospheric drag terms, with the density function adjusted for low perigees
+    double ss = 78.0 / EARTH_RADIUS_KILOMETERS + 1.0;
+    double qzms2t = Math.pow((120.0 - 78.0) / EARTH_RADIUS_KILOMETERS, 4);
+
+    boolean isimp = rp < (220.0 / EARTH_RADIUS_KILOMETERS + 1.0);
+    double sfour = ss;
+    double qzms24 = qzms2t;
+    double perige = (rp - 1.0) * EARTH_RADIUS_KILOMETERS;
+
+    if (perige < 156.0) {
+
+      sfour = perige - 78.0;
+
+      if (perige < 98.0) {
+        sfour = 20.0;
+      }
+
+      qzms24 = Math.pow((120.0 - sfour) / EARTH_RADIUS_KILOMETERS, 4);
+      sfour = sfour / EARTH_RADIUS_KILOMETERS + 1.0;
+    }
+
+    double pinvsq = 1.0 / posq;
+    double tsi = 1.0 / (ao - sfour);
+    this.eta = ao * ecco * tsi;
+    double etasq = eta * eta;
+    double eeta = ecco * eta;
+    double psisq = Math.abs(1.0 - etasq);
+    double coef = qzms24 * Math.pow(tsi, 4);
+    double coef1 = coef / Math.pow(psisq, 3.5);
+    double cc2 = coef1 * no * (ao * (1.0 + 1.5 * etasq + eeta * (4.0 + etasq)) + 0.375 * J2 * tsi / psisq * con41 * (8.0 + 3.0 * etasq * (8.0 + etasq)));
+    this.cc1 = bstar * cc2;
+    double cc3 = 0.0;
+
+    if (ecco > 1.0e-4) {
+      cc3 = -2.0 * coef * tsi * J3OJ2 * no * sinio / ecco;
+    }
+
+    this.x1mth2 = 1.0 - cosio2;
+    this.cc4 = 2.0 * no * coef1 * ao * omeosq * (eta * (2.0 + 0.5 * etasq) + ecco * (0.5 + 2.0 * etasq)
+        - J2 * tsi / (ao * psisq) * (-3.0 * con41 * (1.0 - 2.0 * eeta + etasq * (1.5 - 0.5 * eeta)) + 0.75 * x1mth2 * (2.0 * etasq - eeta * (1.0 + etasq)) * Math.cos(2.0 * argpo)));
+    this.cc5 = 2.0 * coef1 * ao * omeosq * (1.0 + 2.75 * (etasq + eeta) + eeta * etasq);
+
+
+    // secular rates from the zonal harmonics
+    double cosio4 = cosio2 * cosio2;
+    double temp1 = 1.5 * J2 * pinvsq * no;
+    double temp2 = 0.5 * temp1 * J2 * pinvsq;
+    double temp3 = -0.46875 * J4 * pinvsq * pinvsq * no;
+    this.mdot = no + 0.5 * temp1 * rteosq * con41 + 0.0625 * temp2 * rteosq * (13.0 - 78.0 * cosio2 + 137.0 * cosio4);
+    this.argpdot = -0.5 * temp1 * con42 + 0.0625 * temp2 * (7.0 - 114.0 * cosio2 + 395.0 * cosio4) + temp3 * (3.0 - 36.0 * cosio2 + 49.0 * cosio4);
+    double xhdot1 = -temp1 * cosio;
+    this.nodedot = xhdot1 + (0.5 * temp2 * (4.0 - 19.0 * cosio2) + 2.0 * temp3 * (3.0 - 7.0 * cosio2)) * cosio;
+    double xpidot = argpdot + nodedot;
+    this.omgcof = bstar * cc3 * Math.cos(argpo);
+    this.xmcof = (ecco > 1.0e-4) ? -X2O3 * coef * bstar / eeta : 0.0;
+    this.nodecf = 3.5 * omeosq * xhdot1 * cc1;
+    this.t2cof = 1.5 * cc1;
+    this.xlcof = longPeriodCoefficient(sinio, cosio);
+    this.aycof = -0.5 * J3OJ2 * sinio;
+    this.delmo = Math.pow(1.0 + eta * Math.cos(mo), 3);
+    this.sinmao = Math.sin(mo);
+    this.x7thm1 = 7.0 * cosio2 - 1.0;
+
+
+    this.deepSpace = (TWO_PI / no >= 225.0);
+
+    if (deepSpace) {
+
+      this.simplified = true;
+
+
+      // lunar and solar perturbation coefficients (the "dscom" routine)
+      double snodm = Math.sin(nodeo);
+      double cnodm = Math.cos(nodeo);
+      double sinomm = Math.sin(argpo);
+      double cosomm = Math.cos(argpo);
+      double sinim = Math.sin(inclo);
+      double cosim = Math.cos(inclo);
+      double emsq = eccsq;
+      double betasq = 1.0 - emsq;
+      double rtemsq = Math.sqrt(betasq);
+
+      double day = epochDays + 18261.5;
+      double xnodce = (4.5236020 - 9.2422029e-4 * day) % TWO_PI;
+      double stem = Math.sin(xnodce);
+      double ctem = Math.cos(xnodce);
+      double zcosil = 0.91375164 - 0.03568096 * ctem;
+      double zsinil = Math.sqrt(1.0 - zcosil * zcosil);
+      double zsinhl = 0.089683511 * stem / zsinil;
+      double zcoshl = Math.sqrt(1.0 - zsinhl * zsinhl);
+      double gam = 5.8351514 + 0.0019443680 * day;
+      double zx = 0.39785416 * stem / zsinil;
+      double zy = zcoshl * ctem + 0.91744867 * zsinhl * stem;
+      zx = Math.atan2(zx, zy);
+      zx = gam + zx - xnodce;
+      double zcosgl = Math.cos(zx);
+      double zsingl = Math.sin(zx);
+
+      double zcosg = 0.1945905;
+      double zsing = -0.98088458;
+      double zcosi = 0.91744867;
+      double zsini = 0.39785416;
+      double zcosh = cnodm;
+      double zsinh = snodm;
+      double cc = 2.9864797e-6;
+      double xnoi = 1.0 / no;
+
+      // index 0 holds the solar terms and index 1 the lunar terms
+      double[] s1 = new double[2], s2 = new double[2], s3 = new double[2], s4 = new double[2], s5 = new double[2], s6 = new double[2], s7 = new double[2];
+      double[] z1 = new double[2], z2 = new double[2], z3 = new double[2], z11 = new double[2], z12 = new double[2], z13 = new double[2], z21 = new double[2], z22 = new double[2],
+          z23 = new double[2], z31 = new double[2], z32 = new double[2], z33 = new double[2];
+
+      for (int body = 0; body < 2; body++) {
+
+        double a1 = zcosg * zcosh + zsing * zcosi * zsinh;
+        double a3 = -zsing * zcosh + zcosg * zcosi * zsinh;
+        double a7 = -zcosg * zsinh + zsing * zcosi * zcosh;
+        double a8 = zsing * zsini;
+        double a9 = zsing * zsinh + zcosg * zcosi * zcosh;
+        double a10 = zcosg * zsini;
+        double a2 = cosim * a7 + sinim * a8;
+        double a4 = cosim * a9 + sinim * a10;
+        double a5 = -sinim * a7 + cosim * a8;
+        double a6 = -sinim * a9 + cosim * a10;
+
+        double x1 = a1 * cosomm + a2 * sinomm;
+        double x2 = a3 * cosomm + a4 * sinomm;
+        double x3 = -a1 * sinomm + a2 * cosomm;
+        double x4 = -a3 * sinomm + a4 * cosomm;
+        double x5 = a5 * sinomm;
+        double x6 = a6 * sinomm;
+        double x7 = a5 * cosomm;
+        double x8 = a6 * cosomm;
+
+        z31[body] = 12.0 * x1 * x1 - 3.0 * x3 * x3;
+        z32[body] = 24.0 * x1 * x2 - 6.0 * x3 * x4;
+        z33[body] = 12.0 * x2 * x2 - 3.0 * x4 * x4;
+        z1[body] = 3.0 * (a1 * a1 + a2 * a2) + z31[body] * emsq;
+        z2[body] = 6.0 * (a1 * a3 + a2 * a4) + z32[body] * emsq;
+        z3[body] = 3.0 * (a3 * a3 + a4 * a4) + z33[body] * emsq;
+        z11[body] = -6.0 * a1 * a5 + emsq * (-24.0 * x1 * x7 - 6.0 * x3 * x5);
+        z12[body] = -6.0 * (a1 * a6 + a3 * a5) + emsq * (-24.0 * (x2 * x7 + x1 * x8) - 6.0 * (x3 * x6 + x4 * x5));
+        z13[body] = -6.0 * a3 * a6 + emsq * (-24.0 * x2 * x8 - 6.0 * x4 * x6);
+        z21[body] = 6.0 * a2 * a5 + emsq * (24.0 * x1 * x5 - 6.0 * x3 * x7);
+        z22[body] = 6.0 * (a4 * a5 + a2 * a6) + emsq * (24.0 * (x2 * x5 + x1 * x6) - 6.0 * (x4 * x7 + x3 * x8));
+        z23[body] = 6.0 * a4 * a6 + emsq * (24.0 * x2 * x6 - 6.0 * x4 * x8);
+        z1[body] = z1[body] + z1[body] + betasq * z31[body];
+        z2[body] = z2[body] + z2[body] + betasq * z32[body];
+        z3[body] = z3[body] + z3[body] + betasq * z33[body];
+        s3[body] = cc * xnoi;
+        s2[body] = -0.5 * s3[body] / rtemsq;
+        s4[body] = s3[body] * rtemsq;
+        s1[body] = -15.0 * ecco * s4[body];
+        s5[body] = x1 * x3 + x2 * x4;
+        s6[body] = x2 * x3 + x1 * x4;
+        s7[body] = x2 * x4 - x1 * x3;
+
+        // switch to the moon for the second pass
+        zcosg = zcosgl;
+        zsing = zsingl;
+        zcosi = zcosil;
+        zsini = zsinil;
+        zcosh = zcoshl * cnodm + zsinhl * snodm;
+        zsinh = snodm * zcoshl - cnodm * zsinhl;
+        cc = 4.7968065e-7;
+      }
+
+      this.zmol = (4.7199672 + 0.22997150 * day - gam) % TWO_PI;
+      this.zmos = (6.2565837 + 0.017201977 * day) % TWO_PI;
+
+      this.se2 = 2.0 * s1[0] * s6[0];
+      this.se3 = 2.0 * s1[0] * s7[0];
+      this.si2 = 2.0 * s2[0] * z12[0];
+      this.si3 = 2.0 * s2[0] * (z13[0] - z11[0]);
+      this.sl2 = -2.0 * s3[0] * z2[0];
+      this.sl3 = -2.0 * s3[0] * (z3[0] - z1[0]);
+      this.sl4 = -2.0 * s3[0] * (-21.0 - 9.0 * emsq) * ZES;
+      this.sgh2 = 2.0 * s4[0] * z32[0];
+      this.sgh3 = 2.0 * s4[0] * (z33[0] - z31[0]);
+      this.sgh4 = -18.0 * s4[0] * ZES;
+      this.sh2 = -2.0 * s2[0] * z22[0];
+      this.sh3 = -2.0 * s2[0] * (z23[0] - z21[0]);
+
+      this.ee2 = 2.0 * s1[1] * s6[1];
+      this.e3 = 2.0 * s1[1] * s7[1];
+      this.xi2 = 2.0 * s2[1] * z12[1];
+      this.xi3 = 2.0 * s2[1] * (z13[1] - z11[1]);
+      this.xl2 = -2.0 * s3[1] * z2[1];
+      this.xl3 = -2.0 * s3[1] * (z3[1] - z1[1]);
+      this.xl4 = -2.0 * s3[1] * (-21.0 - 9.0 * emsq) * ZEL;
+      this.xgh2 = 2.0 * s4[1] * z32[1];
+      this.xgh3 = 2.0 * s4[1] * (z33[1] - z31[1]);
+      this.xgh4 = -18.0 * s4[1] * ZEL;
+      this.xh2 = -2.0 * s2[1] * z22[1];
+      this.xh3 = -2.0 * s2[1] * (z23[1] - z21[1]);
+
+
+      // secular lunar and solar rates (the "dsinit" routine)
+      boolean nearlyEquatorial = (inclo < 5.2359877e-2 || inclo > Math.PI - 5.2359877e-2);
+
+      double ses = s1[0] * ZNS * s5[0];
+      double sis = s2[0] * ZNS * (z11[0] + z13[0]);
+      double sls = -ZNS * s3[0] * (z1[0] + z3[0] - 14.0 - 6.0 * emsq);
+      double sghs = s4[0] * ZNS * (z31[0] + z33[0] - 6.0);
+      double shs = nearlyEquatorial ? 0.0 : -ZNS * s2[0] * (z21[0] + z23[0]);
+
+      if (sinim != 0.0) {
+        shs = shs / sinim;
+      }
+
+      double sgs = sghs - cosim * shs;
+
+      this.dedt = ses + s1[1] * ZNL * s5[1];
+      this.didt = sis + s2[1] * ZNL * (z11[1] + z13[1]);
+      this.dmdt = sls - ZNL * s3[1] * (z1[1] + z3[1] - 14.0 - 6.0 * emsq);
+      double sghl = s4[1] * ZNL * (z31[1] + z33[1] - 6.0);
+      double shll = nearlyEquatorial ? 0.0 : -ZNL * s2[1] * (z21[1] + z23[1]);
+      double domdtTemp = sgs + sghl;
+      double dnodtTemp = shs;
+
+      if (sinim != 0.0) {
+        domdtTemp = domdtTemp - cosim / sinim * shll;
+        dnodtTemp = dnodtTemp + shll / sinim;
+      }
+
+      this.domdt = domdtTemp;
+      this.dnodt = dnodtTemp;
+
+
+      // resonance terms for synchronous (1 day) and Molniya-type (12 hour) orbits
+      double theta = gsto % TWO_PI;
+
+      if (no < 0.0052359877 && no > 0.0034906585) {
+
+        this.irez = 1;
+
+      } else if (no >= 8.26e-3 && no <= 9.24e-3 && ecco >= 0.5) {
+
+        this.irez = 2;
+
+      } else {
+
+        this.irez = 0;
+      }
+
+      double aonv = Math.pow(no / XKE, X2O3);
+
+      if (irez == 2) {
+
+        double cosisq = cosim * cosim;
+        double em = ecco;
+        double eoc = em * emsq;
+        double g201 = -0.306 - (em - 0.64) * 0.440;
+        double g211, g310, g322, g410, g422, g520, g521, g532, g533;
+
+        if (em <= 0.65) {
+
+          g211 = 3.616 - 13.2470 * em + 16.2900 * emsq;
+          g310 = -19.302 + 117.3900 * em - 228.4190 * emsq + 156.5910 * eoc;
+          g322 = -18.9068 + 109.7927 * em - 214.6334 * emsq + 146.5816 * eoc;
+          g410 = -41.122 + 242.6940 * em - 471.0940 * emsq + 313.9530 * eoc;
+          g422 = -146.407 + 841.8800 * em - 1629.014 * emsq + 1083.4350 * eoc;
+          g520 = -532.114 + 3017.977 * em - 5740.032 * emsq + 3708.2760 * eoc;
+
+        } else {
+
+          g211 = -72.099 + 331.819 * em - 508.738 * emsq + 266.724 * eoc;
+          g310 = -346.844 + 1582.851 * em - 2415.925 * emsq + 1246.113 * eoc;
+          g322 = -342.585 + 1554.908 * em - 2366.899 * emsq + 1215.972 * eoc;
+          g410 = -1052.797 + 4758.686 * em - 7193.992 * emsq + 3651.957 * eoc;
+          g422 = -3581.690 + 16178.110 * em - 24462.770 * emsq + 12422.520 * eoc;
+          g520 = (em > 0.715) ? -5149.66 + 29936.92 * em - 54087.36 * emsq + 31324.56 * eoc : 1464.74 - 4664.75 * em + 3763.64 * emsq;
+        }
+
+        if (em < 0.7) {
+
+          g533 = -919.22770 + 4988.6100 * em - 9064.7700 * emsq + 5542.21 * eoc;
+          g521 = -822.71072 + 4568.6173 * em - 8491.4146 * emsq + 5337.524 * eoc;
+          g532 = -853.66600 + 4690.2500 * em - 8624.7700 * emsq + 5341.4 * eoc;
+
+        } else {
+
+          g533 = -37995.780 + 161616.52 * em - 229838.20 * emsq + 109377.94 * eoc;
+          g521 = -51752.104 + 218913.95 * em - 309468.16 * emsq + 146349.42 * eoc;
+          g532 = -40023.880 + 170470.89 * em - 242699.48 * emsq + 115605.82 * eoc;
+        }
+
+        double sini2 = sinim * sinim;
+        double f220 = 0.75 * (1.0 + 2.0 * cosim + cosisq);
+        double f221 = 1.5 * sini2;
+        double f321 = 1.875 * sinim * (1.0 - 2.0 * cosim - 3.0 * cosisq);
+        double f322 = -1.875 * sinim * (1.0 + 2.0 * cosim - 3.0 * cosisq);
+        double f441 = 35.0 * sini2 * f220;
+        double f442 = 39.3750 * sini2 * sini2;
+        double f522 = 9.84375 * sinim * (sini2 * (1.0 - 2.0 * cosim - 5.0 * cosisq) + 0.33333333 * (-2.0 + 4.0 * cosim + 6.0 * cosisq));
+        double f523 = sinim * (4.92187512 * sini2 * (-2.0 - 4.0 * cosim + 10.0 * cosisq) + 6.56250012 * (1.0 + 2.0 * cosim - 3.0 * cosisq));
+        double f542 = 29.53125 * sinim * (2.0 - 8.0 * cosim + cosisq * (-12.0 + 8.0 * cosim + 10.0 * cosisq));
+        double f543 = 29.53125 * sinim * (-2.0 - 8.0 * cosim + cosisq * (12.0 + 8.0 * cosim - 10.0 * cosisq));
+
+        double xno2 = no * no;
+        double ainv2 = aonv * aonv;
+        double temp = 3.0 * xno2 * ainv2;
+        double root = temp * 1.7891679e-6;
+        this.d2201 = root * f220 * g201;
+        this.d2211 = root * f221 * g211;
+        temp = temp * aonv;
+        root = temp * 3.7393792e-7;
+        this.d3210 = root * f321 * g310;
+        this.d3222 = root * f322 * g322;
+        temp = temp * aonv;
+        root = 2.0 * temp * 7.3636953e-9;
+        this.d4410 = root * f441 * g410;
+        this.d4422 = root * f442 * g422;
+        temp = temp * aonv;
+        root = temp * 1.1428639e-7;
+        this.d5220 = root * f522 * g520;
+        this.d5232 = root * f523 * g532;
+        root = 2.0 * temp * 2.1765803e-9;
+        this.d5421 = root * f542 * g521;
+        this.d5433 = root * f543 * g533;
+        this.xlamo = (mo + nodeo + nodeo - theta - theta) % TWO_PI;
+        this.xfact = mdot + dmdt + 2.0 * (nodedot + dnodt - RPTIM) - no;
+        this.del1 = 0.0;
+        this.del2 = 0.0;
+        this.del3 = 0.0;
+
+      } else if (irez == 1) {
+
+        double g200 = 1.0 + emsq * (-2.5 + 0.8125 * emsq);
+        double g310 = 1.0 + 2.0 * emsq;
+        double g300 = 1.0 + emsq * (-6.0 + 6.60937 * emsq);
+        double f220 = 0.75 * (1.0 + cosim) * (1.0 + cosim);
+        double f311 = 0.9375 * sinim * sinim * (1.0 + 3.0 * cosim) - 0.75 * (1.0 + cosim);
+        double f330 = 1.0 + cosim;
+        f330 = 1.875 * f330 * f330 * f330;
+        double delta = 3.0 * no * no * aonv * aonv;
+        this.del2 = 2.0 * delta * f220 * g200 * 1.7891679e-6;
+        this.del3 = 3.0 * delta * f330 * g300 * 2.2123015e-7 * aonv;
+        this.del1 = delta * f311 * g310 * 2.1460748e-6 * aonv;
+        this.xlamo = (mo + nodeo + argpo - theta) % TWO_PI;
+        this.xfact = mdot + xpidot - RPTIM + dmdt + domdt + dnodt - no;
+        this.d2201 = this.d2211 = this.d3210 = this.d3222 = this.d4410 = this.d4422 = this.d5220 = this.d5232 = this.d5421 = this.d5433 = 0.0;
+
+      } else {
+
+        this.xlamo = this.xfact = this.del1 = this.del2 = this.del3 = 0.0;
+        this.d2201 = this.d2211 = this.d3210 = this.d3222 = this.d4410 = this.d4422 = this.d5220 = this.d5232 = this.d5421 = this.d5433 = 0.0;
+      }
+
+    } else {
+
+      this.simplified = isimp;
+      this.irez = 0;
+      this.xlamo = this.xfact = this.del1 = this.del2 = this.del3 = 0.0;
+      this.d2201 = this.d2211 = this.d3210 = this.d3222 = this.d4410 = this.d4422 = this.d5220 = this.d5232 = this.d5421 = this.d5433 = 0.0;
+      this.dedt = this.didt = this.dmdt = this.dnodt = this.domdt = 0.0;
+      this.e3 = this.ee2 = this.se2 = this.se3 = this.sgh2 = this.sgh3 = this.sgh4 = this.sh2 = this.sh3 = this.si2 = this.si3 = this.sl2 = this.sl3 = this.sl4 = 0.0;
+      this.xgh2 = this.xgh3 = this.xgh4 = this.xh2 = this.xh3 = this.xi2 = this.xi3 = this.xl2 = this.xl3 = this.xl4 = this.zmol = this.zmos = 0.0;
+    }
+
+
+    // higher-order drag terms, which are left off for low perigees and deep-space orbits
+    if (!simplified) {
+
+      double cc1sq = cc1 * cc1;
+      this.d2 = 4.0 * ao * tsi * cc1sq;
+      double temp = d2 * tsi * cc1 / 3.0;
+      this.d3 = (17.0 * ao + sfour) * temp;
+      this.d4 = 0.5 * temp * ao * tsi * (221.0 * ao + 31.0 * sfour) * cc1;
+      this.t3cof = d2 + 2.0 * cc1sq;
+      this.t4cof = 0.25 * (3.0 * d3 + cc1 * (12.0 * d2 + 10.0 * cc1sq));
+      this.t5cof = 0.2 * (3.0 * d4 + 12.0 * cc1 * d3 + 6.0 * d2 * d2 + 15.0 * cc1sq * (2.0 * d2 + cc1sq));
+
+    } else {
+
+      this.d2 = this.d3 = this.d4 = this.t3cof = this.t4cof = this.t5cof = 0.0;
+    }
+  }
+
+
+  /**
+   * Creates a propagator from a result of a {@link com.stevenpaligo.spacetrack.client.TleQuery}
+   *
+   * @param tle A non-null TLE
+   * @return The propagator
+   * @throws IllegalArgumentException The TLE is missing elements or its elements do not describe an orbit the theory supports
+   */
+  public static Sgp4Propagator of(@NonNull Tle tle) {
+
+    return new Sgp4Propagator(epoch(tle.getEpochYmdHms(), tle.getEpochMicroseconds()), required(tle.getMeanMotionRevsPerDay(), "mean motion"), required(tle.getEccentricity(), "eccentricity"),
+        required(tle.getInclinationDegrees(), "inclination"), required(tle.getRightAscOfNodeDegrees(), "right ascension of the ascending node"),
+        required(tle.getArgOfPerigeeDegrees(), "argument of perigee"), required(tle.getMeanAnomalyDegrees(), "mean anomaly"), required(tle.getBstar(), "BSTAR"));
+  }
+
+
+  /**
+   * Creates a propagator from a result of a {@link com.stevenpaligo.spacetrack.client.LatestTleQuery}
+   *
+   * @param tle A non-null TLE
+   * @return The propagator
+   * @throws IllegalArgumentException The TLE is missing elements or its elements do not describe an orbit the theory supports
+   */
+  public static Sgp4Propagator of(@NonNull LatestTle tle) {
+
+    return new Sgp4Propagator(epoch(tle.getEpochYmdHms(), tle.getEpochMicroseconds()), required(tle.getMeanMotionRevsPerDay(), "mean motion"), required(tle.getEccentricity(), "eccentricity"),
+        required(tle.getInclinationDegrees(), "inclination"), required(tle.getRightAscOfNodeDegrees(), "right ascension of the ascending node"),
+        required(tle.getArgOfPerigeeDegrees(), "argument of perigee"), required(tle.getMeanAnomalyDegrees(), "mean anomaly"), required(tle.getBstar(), "BSTAR"));
+  }
+
+
+  /**
+   * Creates a propagator from a result of a {@link com.stevenpaligo.spacetrack.client.OrbitMeanElementsMessageQuery}
+   *
+   * @param omm A non-null Orbit Mean-Elements Message whose mean element theory is SGP4
+   * @return The propagator
+   * @throws IllegalArgumentException The message is missing elements or its elements do not describe an orbit the theory supports
+   */
+  public static Sgp4Propagator of(@NonNull OrbitMeanElementsMessage omm) {
+
+    Instant epoch = SpaceTrackDateTimeFormatter.parse(omm.getEpoch().orElseThrow(() -> new IllegalArgumentException("The element set has no epoch"))).toInstant();
+
+    return new Sgp4Propagator(epoch, required(omm.getMeanMotionRevsPerDay(), "mean motion"), required(omm.getEccentricity(), "eccentricity"), required(omm.getInclinationDegrees(), "inclination"),
+        required(omm.getRightAscOfNodeDegrees(), "right ascension of the ascending node"), required(omm.getArgOfPerigeeDegrees(), "argument of perigee"),
+        required(omm.getMeanAnomalyDegrees(), "mean anomaly"), required(omm.getBstar(), "BSTAR"));
+  }
+
+
+  private static Instant epoch(Instant epochYmdHms, Integer epochMicroseconds) {
+
+    if (epochYmdHms == null) {
+
+      throw new IllegalArgumentException("The element set has no epoch");
+    }
+
+
+    return epochYmdHms.plusNanos(Optional.ofNullable(epochMicroseconds).orElse(0) * 1000L);
+  }
+
+
+  private static double required(Double value, String name) {
+
+    if (value == null) {
+
+      throw new IllegalArgumentException("The element set has no " + name);
+    }
+
+
+    return value;
+  }
+
+
+  /**
+   * Whether or not the deep-space (SDP4) terms are used, i.e. the orbital period is 225 minutes or more
+   *
+   * @return <code>true</code> for deep-space orbits
+   */
+  public boolean isDeepSpace() {
+
+    return deepSpace;
+  }
+
+
+  /**
+   * @return The orbital period at epoch in minutes, from the recovered mean motion
+   */
+  public double getPeriodMinutes() {
+
+    return TWO_PI / no;
+  }
+
+
+  /**
+   * @return The mean inclination at epoch in degrees
+   */
+  public double getInclinationDegrees() {
+
+    return Math.toDegrees(inclo);
+  }
+
+
+  /**
+   * @return The height of perigee above the equatorial radius at epoch in kilometers, from the recovered mean semi-major axis
+   */
+  public double getPerigeeHeightKilometers() {
+
+    return (ao * (1.0 - ecco) - 1.0) * EARTH_RADIUS_KILOMETERS;
+  }
+
+
+  /**
+   * @return The height of apogee above the equatorial radius at epoch in kilometers, from the recovered mean semi-major axis
+   */
+  public double getApogeeHeightKilometers() {
+
+    return (ao * (1.0 + ecco) - 1.0) * EARTH_RADIUS_KILOMETERS;
+  }
+
+
+  /**
+   * Converts an instant to the time scale used by {@link #propagate(double, double[], double[])}
+   *
+   * @param instant A non-null instant
+   * @return The minutes from the epoch of the element set to the instant (negative before the epoch)
+   */
+  public double minutesSinceEpoch(@NonNull Instant instant) {
+
+    Duration duration = Duration.between(epoch, instant);
+
+
+    return (duration.getSeconds() + duration.getNano() / 1e9) / 60.0;
+  }
+
+
+  /**
+   * Propagates the element set to an instant
+   *
+   * @param instant A non-null instant
+   * @param position An array of at least 3 elements that receives the TEME position in kilometers
+   * @param velocity An array of at least 3 elements that receives the TEME velocity in kilometers per second
+   * @throws PropagationException The orbit cannot be propagated to the instant
+   */
+  public void propagate(@NonNull Instant instant, @NonNull double[] position, @NonNull double[] velocity) {
+
+    propagate(minutesSinceEpoch(instant), position, velocity);
+  }
+
+
+  /**
+   * Propagates the element set to a time relative to its epoch. This method does not allocate.
+   *
+   * @param minutesSinceEpoch The minutes since the epoch of the element set (negative before the epoch)
+   * @param position An array of at least 3 elements that receives the TEME position in kilometers
+   * @param velocity An array of at least 3 elements that receives the TEME velocity in kilometers per second
+   * @throws PropagationException The orbit cannot be propagated to the time
+   */
+  public void propagate(double minutesSinceEpoch, @NonNull double[] position, @NonNull double[] velocity) {
+
+    double t = minutesSinceEpoch;
+
+
+    // secular gravity and atmospheric drag
+    double xmdf = mo + mdot * t;
+    double argpdf = argpo + argpdot * t;
+    double nodedf = nodeo + nodedot * t;
+    double argpm = argpdf;
+    double mm = xmdf;
+    double t2 = t * t;
+    double nodem = nodedf + nodecf * t2;
+    double tempa = 1.0 - cc1 * t;
+    double tempe = bstar * cc4 * t;
+    double templ = t2cof * t2;
+
+    if (!simplified) {
+
+      double delomg = omgcof * t;
+      double delmtemp = 1.0 + eta * Math.cos(xmdf);
+      double delm = xmcof * (delmtemp * delmtemp * delmtemp - delmo);
+      double temp = delomg + delm;
+      mm = xmdf + temp;
+      argpm = argpdf - temp;
+      double t3 = t2 * t;
+      double t4 = t3 * t;
+      tempa = tempa - d2 * t2 - d3 * t3 - d4 * t4;
+      tempe = tempe + bstar * cc5 * (Math.sin(mm) - sinmao);
+      templ = templ + t3cof * t3 + t4 * (t4cof + t * t5cof);
+    }
+
+    double nm = no;
+    double em = ecco;
+    double inclm = inclo;
+
+
+    // secular lunar and solar effects and resonances (the "dspace" routine)
+    if (deepSpace) {
+
+      em = em + dedt * t;
+      inclm = inclm + didt * t;
+      argpm = argpm + domdt * t;
+      nodem = nodem + dnodt * t;
+      mm = mm + dmdt * t;
+
+      if (irez != 0) {
+
+        // the resonance is integrated from the epoch every time, so the result does not depend on earlier calls
+        double theta = (gsto + t * RPTIM) % TWO_PI;
+        double delt = (t > 0.0) ? 720.0 : -720.0;
+        double atime = 0.0;
+        double xli = xlamo;
+        double xni = no;
+        double xndt;
+        double xnddt;
+        double xldot;
+        double ft;
+
+        while (true) {
+
+          if (irez != 2) {
+
+            xndt = del1 * Math.sin(xli - 0.13130908) + del2 * Math.sin(2.0 * (xli - 2.8843198)) + del3 * Math.sin(3.0 * (xli - 0.37448087));
+            xldot = xni + xfact;
+            xnddt = del1 * Math.cos(xli - 0.13130908) + 2.0 * del2 * Math.cos(2.0 * (xli - 2.8843198)) + 3.0 * del3 * Math.cos(3.0 * (xli - 0.37448087));
+            xnddt = xnddt * xldot;
+
+          } else {
+
+            double xomi = argpo + argpdot * atime;
+            double x2omi = xomi + xomi;
+            double x2li = xli + xli;
+            xndt = d2201 * Math.sin(x2omi + xli - 5.7686396) + d2211 * Math.sin(xli - 5.7686396) + d3210 * Math.sin(xomi + xli - 0.95240898)
+                + d3222 * Math.sin(-xomi + xli - 0.95240898) + d4410 * Math.sin(x2omi + x2li - 1.8014998) + d4422 * Math.sin(x2li - 1.8014998)
+                + d5220 * Math.sin(xomi + xli - 1.0508330) + d5232 * Math.sin(-xomi + xli - 1.0508330) + d5421 * Math.sin(xomi + x2li - 4.4108898)
+                + d5433 * Math.sin(-xomi + x2li - 4.4108898);
+            xldot = xni + xfact;
+            xnddt = d2201 * Math.cos(x2omi + xli - 5.7686396) + d2211 * Math.cos(xli - 5.7686396) + d3210 * Math.cos(xomi + xli - 0.95240898)
+                + d3222 * Math.cos(-xomi + xli - 0.95240898) + d5220 * Math.cos(xomi + xli - 1.0508330) + d5232 * Math.cos(-xomi + xli - 1.0508330)
+                + 2.0 * (d4410 * Math.cos(x2omi + x2li - 1.8014998) + d4422 * Math.cos(x2li - 1.8014998) + d5421 * Math.cos(xomi + x2li - 4.4108898)
+                    + d5433 * Math.cos(-xomi + x2li - 4.4108898));
+            xnddt = xnddt * xldot;
+          }
+
+          if (Math.abs(t - atime) < 720.0) {
+
+            ft = t - atime;
+            break;
+          }
+
+          xli = xli + xldot * delt + xndt * 259200.0;
+          xni = xni + xndt * delt + xnddt * 259200.0;
+          atime = atime + delt;
+        }
+
+        nm = xni + xndt * ft + xnddt * ft * ft * 0.5;
+        double xl = xli + xldot * ft + xndt * ft * ft * 0.5;
+
+        if (irez != 1) {
+
+          mm = xl - 2.0 * nodem + 2.0 * theta;
+
+        } else {
+
+          mm = xl - nodem - argpm + theta;
+        }
+      }
+    }
+
+    if (nm <= 0.0) {
+
+      throw new PropagationException("The mean motion is not positive", t);
+    }
+
+    double am = Math.pow(XKE / nm, X2O3) * tempa * tempa;
+    nm = XKE / Math.pow(am, 1.5);
+    em = em - tempe;
+
+    if (em >= 1.0 || em < -0.001) {
+
+      throw new PropagationException("The mean eccentricity is out of range: " + em, t);
+    }
+
+    if (em < 1.0e-6) {
+      em = 1.0e-6;
+    }
+
+    mm = mm + no * templ;
+    double xlm = mm + argpm + nodem;
+    nodem = nodem % TWO_PI;
+    argpm = argpm % TWO_PI;
+    xlm = xlm % TWO_PI;
+    mm = (xlm - argpm - nodem) % TWO_PI;
+
+
+    // periodic lunar and solar effects (the "dpper" routine)
+    double ep = em;
+    double xincp = inclm;
+    double argpp = argpm;
+    double nodep = nodem;
+    double mp = mm;
+    double sinip = Math.sin(inclm);
+    double cosip = Math.cos(inclm);
+    double axcof = aycof;
+    double lcof = xlcof;
+    double con41p = con41;
+    double x1mth2p = x1mth2;
+    double x7thm1p = x7thm1;
+
+    if (deepSpace) {
+
+      double zm = zmos + ZNS * t;
+      double zf = zm + 2.0 * ZES * Math.sin(zm);
+      double sinzf = Math.sin(zf);
+      double f2 = 0.5 * sinzf * sinzf - 0.25;
+      double f3 = -0.5 * sinzf * Math.cos(zf);
+      double ses = se2 * f2 + se3 * f3;
+      double sis = si2 * f2 + si3 * f3;
+      double sls = sl2 * f2 + sl3 * f3 + sl4 * sinzf;
+      double sghs = sgh2 * f2 + sgh3 * f3 + sgh4 * sinzf;
+      double shs = sh2 * f2 + sh3 * f3;
+
+      zm = zmol + ZNL * t;
+      zf = zm + 2.0 * ZEL * Math.sin(zm);
+      sinzf = Math.sin(zf);
+      f2 = 0.5 * sinzf * sinzf - 0.25;
+      f3 = -0.5 * sinzf * Math.cos(zf);
+      double sel = ee2 * f2 + e3 * f3;
+      double sil = xi2 * f2 + xi3 * f3;
+      double sll = xl2 * f2 + xl3 * f3 + xl4 * sinzf;
+      double sghl = xgh2 * f2 + xgh3 * f3 + xgh4 * sinzf;
+      double shll = xh2 * f2 + xh3 * f3;
+
+      double pe = ses + sel;
+      double pinc = sis + sil;
+      double pl = sls + sll;
+      double pgh = sghs + sghl;
+      double ph = shs + shll;
+
+      xincp = xincp + pinc;
+      ep = ep + pe;
+      sinip = Math.sin(xincp);
+      cosip = Math.cos(xincp);
+
+      if (xincp >= 0.2) {
+
+        ph = ph / sinip;
+        pgh = pgh - cosip * ph;
+        argpp = argpp + pgh;
+        nodep = nodep + ph;
+        mp = mp + pl;
+
+      } else {
+
+        // apply the periodics to the node directly for low inclinations (Lyddane modification)
+        double sinop = Math.sin(nodep);
+        double cosop = Math.cos(nodep);
+        double alfdp = sinip * sinop;
+        double betdp = sinip * cosop;
+        double dalf = ph * cosop + pinc * cosip * sinop;
+        double dbet = -ph * sinop + pinc * cosip * cosop;
+        alfdp = alfdp + dalf;
+        betdp = betdp + dbet;
+        nodep = nodep % TWO_PI;
+        double xls = mp + argpp + cosip * nodep;
+        double dls = pl + pgh - pinc * nodep * sinip;
+        xls = xls + dls;
+        double xnoh = nodep;
+        nodep = Math.atan2(alfdp, betdp);
+
+        if (Math.abs(xnoh - nodep) > Math.PI) {
+
+          if (nodep < xnoh) {
+
+            nodep = nodep + TWO_PI;
+
+          } else {
+
+            nodep = nodep - TWO_PI;
+          }
+        }
+
+        mp = mp + pl;
+        argpp = xls - mp - cosip * nodep;
+      }
+
+      if (xincp < 0.0) {
+
+        xincp = -xincp;
+        nodep = nodep + Math.PI;
+        argpp = argpp - Math.PI;
+      }
+
+      if (ep < 0.0 || ep > 1.0) {
+
+        throw new PropagationException("The perturbed eccentricity is out of range: " + ep, t);
+      }
+
+      sinip = Math.sin(xincp);
+      cosip = Math.cos(xincp);
+      axcof = -0.5 * J3OJ2 * sinip;
+      lcof = longPeriodCoefficient(sinip, cosip);
+
+      double cosisq = cosip * cosip;
+      con41p = 3.0 * cosisq - 1.0;
+      x1mth2p = 1.0 - cosisq;
+      x7thm1p = 7.0 * cosisq - 1.0;
+    }
+
+
+    // long-period periodics
+    double axnl = ep * Math.cos(argpp);
+    double temp = 1.0 / (am * (1.0 - ep * ep));
+    double aynl = ep * Math.sin(argpp) + temp * axcof;
+    double xl = mp + argpp + nodep + temp * lcof * axnl;
+
+
+    // solve Kepler's equation
+    double u = (xl - nodep) % TWO_PI;
+    double eo1 = u;
+    double tem5 = 9999.9;
+    double sineo1 = 0.0;
+    double coseo1 = 0.0;
+
+    for (int iteration = 0; Math.abs(tem5) >= 1.0e-12 && iteration < 10; iteration++) {
+
+      sineo1 = Math.sin(eo1);
+      coseo1 = Math.cos(eo1);
+      tem5 = 1.0 - coseo1 * axnl - sineo1 * aynl;
+      tem5 = (u - aynl * coseo1 + axnl * sineo1 - eo1) / tem5;
+
+      if (Math.abs(tem5) >= 0.95) {
+        tem5 = (tem5 > 0.0) ? 0.95 : -0.95;
+      }
+
+      eo1 = eo1 + tem5;
+    }
+
+
+    // short-period periodics
+    double ecose = axnl * coseo1 + aynl * sineo1;
+    double esine = axnl * sineo1 - aynl * coseo1;
+    double el2 = axnl * axnl + aynl * aynl;
+    double pl = am * (1.0 - el2);
+
+    if (pl < 0.0) {
+
+      throw new PropagationException("The semi-latus rectum is negative", t);
+    }
+
+    double rl = am * (1.0 - ecose);
+    double rdotl = Math.sqrt(am) * esine / rl;
+    double rvdotl = Math.sqrt(pl) / rl;
+    double betal = Math.sqrt(1.0 - el2);
+    temp = esine / (1.0 + betal);
+    double sinu = am / rl * (sineo1 - aynl - axnl * temp);
+    double cosu = am / rl * (coseo1 - axnl + aynl * temp);
+    double su = Math.atan2(sinu, cosu);
+    double sin2u = (cosu + cosu) * sinu;
+    double cos2u = 1.0 - 2.0 * sinu * sinu;
+    temp = 1.0 / pl;
+    double temp1 = 0.5 * J2 * temp;
+    double temp2 = temp1 * temp;
+
+    double mrt = rl * (1.0 - 1.5 * temp2 * betal * con41p) + 0.5 * temp1 * x1mth2p * cos2u;
+    su = su - 0.25 * temp2 * x7thm1p * sin2u;
+    double xnode = nodep + 1.5 * temp2 * cosip * sin2u;
+    double xinc = xincp + 1.5 * temp2 * cosip * sinip * cos2u;
+    double mvt = rdotl - nm * temp1 * x1mth2p * sin2u / XKE;
+    double rvdot = rvdotl + nm * temp1 * (x1mth2p * cos2u + 1.5 * con41p) / XKE;
+
+    if (mrt < 1.0) {
+
+      throw new PropagationException("The satellite has decayed", t);
+    }
+
+
+    // orientation vectors
+    double sinsu = Math.sin(su);
+    double cossu = Math.cos(su);
+    double snod = Math.sin(xnode);
+    double cnod = Math.cos(xnode);
+    double sini = Math.sin(xinc);
+    double cosi = Math.cos(xinc);
+    double xmx = -snod * cosi;
+    double xmy = cnod * cosi;
+    double ux = xmx * sinsu + cnod * cossu;
+    double uy = xmy * sinsu + snod * cossu;
+    double uz = sini * sinsu;
+    double vx = xmx * cossu - cnod * sinsu;
+    double vy = xmy * cossu - snod * sinsu;
+    double vz = sini * cossu;
+
+    position[0] = mrt * ux * EARTH_RADIUS_KILOMETERS;
+    position[1] = mrt * uy * EARTH_RADIUS_KILOMETERS;
+    position[2] = mrt * uz * EARTH_RADIUS_KILOMETERS;
+    velocity[0] = (mvt * ux + rvdot * vx) * VKMPERSEC;
+    velocity[1] = (mvt * uy + rvdot * vy) * VKMPERSEC;
+    velocity[2] = (mvt * uz + rvdot * vz) * VKMPERSEC;
+  }
+
+
+  private static double longPeriodCoefficient(double sinInclination, double cosInclination) {
+
+    // avoid dividing by zero for retrograde equatorial orbits
+    double divisor = (Math.abs(cosInclination + 1.0) > TEMP4) ? 1.0 + cosInclination : TEMP4;
+
+
+    return -0.25 * J3OJ2 * sinInclination * (3.0 + 5.0 * cosInclination) / divisor;
+  }
+}
@@ -0,0 +1,499 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.query;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import com.stevenpaligo.spacetrack.client.predicate.Equal;
+import com.stevenpaligo.spacetrack.client.predicate.GreaterThan;
+import com.stevenpaligo.spacetrack.client.predicate.In;
+import com.stevenpaligo.spacetrack.client.predicate.InclusiveRange;
+import com.stevenpaligo.spacetrack.client.predicate.IsNotNull;
+import com.stevenpaligo.spacetrack.client.predicate.IsNull;
+import com.stevenpaligo.spacetrack.client.predicate.LessThan;
+import com.stevenpaligo.spacetrack.client.predicate.NotEqual;
+import com.stevenpaligo.spacetrack.client.predicate.Predicate;
+import lombok.NonNull;
+
+/**
+ * Simplifies the predicates of a query without changing its results. For each field:
+ * 
+ * <ul>
+ * <li>Repeated predicates are removed</li>
+ * <li>{@link GreaterThan}, {@link LessThan}, and {@link InclusiveRange} predicates are merged into the tightest range</li>
+ * <li>{@link Equal} and {@link In} predicates are intersected, and the values outside the range or excluded by a {@link NotEqual} are removed, which makes the range predicates unnecessary</li>
+ * <li>{@link NotEqual} predicates for values outside the range are removed</li>
+ * <li>Predicates that can't all be true at once, such as <code>EPOCH &gt; 2020-01-01</code> and <code>EPOCH &lt; 2019-01-01</code>, are detected</li>
+ * </ul>
+ * 
+ * <p>
+ * Values are only compared when every value for the field is a number or every value is a date and time in the format produced by
+ * {@link com.stevenpaligo.spacetrack.client.util.SpaceTrackDateTimeFormatter}. Predicates on fields with other values, such as text or
+ * {@link com.stevenpaligo.spacetrack.client.predicate.CurrentDateTimeOffset}s, are left as they are apart from removing repeats, since Space-Track.org's rules for comparing them aren't known here.
+ * </p>
+ * 
+ * @author Steven Paligo
+ */
+public class PredicateOptimizer {
+
+  private static final Pattern numberPattern = Pattern.compile("[-+]?(\\d+(\\.\\d*)?|\\.\\d+)([eE][-+]?\\d+)?");
+  private static final Pattern dateTimePattern = Pattern.compile("\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2}\\.\\d{3}");
+
+
+  private PredicateOptimizer() {
+
+    // prevent instantiation
+  }
+
+
+  /**
+   * Simplifies a collection of predicates
+   * 
+   * @param <T> The type of the query fields
+   * @param predicates The non-null predicates of a query
+   * @return Predicates that select the same results, or an empty optional if no result could satisfy all of the predicates
+   */
+  public static <T extends QueryField> Optional<List<Predicate<T>>> optimize(@NonNull Collection<Predicate<T>> predicates) {
+
+    // group the predicates by field, removing repeats
+    Map<String, FieldPredicates<T>> predicatesByField = new LinkedHashMap<>();
+    Set<String> queryParameters = new LinkedHashSet<>();
+
+    for (Predicate<T> predicate : predicates) {
+
+      if (queryParameters.add(predicate.toQueryParameter())) {
+
+        predicatesByField.computeIfAbsent(getFieldName(predicate), fieldName -> new FieldPredicates<>()).add(predicate);
+      }
+    }
+
+
+    // simplify each field's predicates
+    List<Predicate<T>> optimized = new ArrayList<>();
+
+    for (FieldPredicates<T> fieldPredicates : predicatesByField.values()) {
+
+      if (!fieldPredicates.optimize(optimized)) {
+
+        return Optional.empty();
+      }
+    }
+
+
+    return Optional.of(optimized);
+  }
+
+
+  private static String getFieldName(Predicate<?> predicate) {
+
+    // the field name is the first part of every predicate's query parameter
+    String queryParameter = predicate.toQueryParameter();
+    int separator = queryParameter.indexOf('/');
+
+    return (separator < 0) ? queryParameter : queryParameter.substring(0, separator);
+  }
+
+
+  /**
+   * The kinds of values that can be compared
+   */
+  private static enum ValueKind {
+
+    NUMBER, DATE_TIME, OTHER;
+
+
+    static ValueKind of(String value) {
+
+      if (numberPattern.matcher(value).matches()) {
+
+        return NUMBER;
+
+      } else if (dateTimePattern.matcher(value).matches()) {
+
+        return DATE_TIME;
+
+      } else {
+
+        return OTHER;
+      }
+    }
+  }
+
+
+  /**
+   * A value from a predicate, which keeps its original text so it is sent the same way
+   */
+  private static class Value implements Comparable<Value> {
+
+    private final String text;
+    private final BigDecimal number; // only for numbers
+
+
+    Value(String text, ValueKind kind) {
+
+      this.text = text;
+      this.number = (kind == ValueKind.NUMBER) ? new BigDecimal(text) : null;
+    }
+
+
+    @Override
+    public int compareTo(Value other) {
+
+      // dates and times in the Space-Track format sort as text
+      return (number != null) ? number.compareTo(other.number) : text.compareTo(other.text);
+    }
+  }
+
+
+  /**
+   * One end of a range
+   */
+  private static class Bound {
+
+    private final Value value;
+    private final boolean inclusive;
+
+
+    Bound(Value value, boolean inclusive) {
+
+      this.value = value;
+      this.inclusive = inclusive;
+    }
+  }
+
+
+  /**
+   * The predicates for one field
+   */
+  private static class FieldPredicates<T extends QueryField> {
+
+    private T field;
+    private final List<Predicate<T>> all = new ArrayList<>();
+    private final List<Predicate<T>> others = new ArrayList<>(); // predicates that are never merged
+    private final List<Predicate<T>> comparisons = new ArrayList<>();
+    private final Set<ValueKind> valueKinds = new LinkedHashSet<>();
+    private boolean isNull = false;
+    private boolean isNotNull = false;
+
+
+    @SuppressWarnings("unchecked")
+    void add(Predicate<T> predicate) {
+
+      all.add(predicate);
+
+      if (predicate instanceof GreaterThan) {
+
+        field = ((GreaterThan<T>) predicate).getField();
+        addComparison(predicate, ((GreaterThan<T>) predicate).getValue());
+
+      } else if (predicate instanceof LessThan) {
+
+        field = ((LessThan<T>) predicate).getField();
+        addComparison(predicate, ((LessThan<T>) predicate).getValue());
+
+      } else if (predicate instanceof InclusiveRange) {
+
+        field = ((InclusiveRange<T>) predicate).getField();
+        addComparison(predicate, ((InclusiveRange<T>) predicate).getLowerValue(), ((InclusiveRange<T>) predicate).getUpperValue());
+
+      } else if (predicate instanceof Equal) {
+
+        field = ((Equal<T>) predicate).getField();
+        addComparison(predicate, ((Equal<T>) predicate).getValue());
+
+      } else if (predicate instanceof NotEqual) {
+
+        field = ((NotEqual<T>) predicate).getField();
+        addComparison(predicate, ((NotEqual<T>) predicate).getValue());
+
+      } else if (predicate instanceof In) {
+
+        field = ((In<T>) predicate).getField();
+        addComparison(predicate, ((In<T>) predicate).getValues().split(","));
+
+      } else {
+
+        if (predicate instanceof IsNull) {
+
+          isNull = true;
+
+        } else if (predicate instanceof IsNotNull) {
+
+          isNotNull = true;
+        }
+
+        others.add(predicate);
+      }
+    }
+
+
+    private void addComparison(Predicate<T> predicate, String... values) {
+
+      comparisons.add(predicate);
+
+      for (String value : values) {
+
+        valueKinds.add(ValueKind.of(value));
+      }
+    }
+
+
+    /**
+     * Adds the simplified predicates to a list
+     * 
+     * @return False if the predicates can't all be true at once
+     */
+    @SuppressWarnings("unchecked")
+    boolean optimize(List<Predicate<T>> optimized) {
+
+      // a field can't be both null and not null, or null and equal to a value (nothing is equal to null)
+      boolean hasEquality = comparisons.stream().anyMatch(predicate -> predicate instanceof Equal || predicate instanceof In);
+
+      if (isNull && (isNotNull || hasEquality)) {
+
+        return false;
+      }
+
+
+      // only merge values that can be compared
+      if (valueKinds.size() != 1 || valueKinds.contains(ValueKind.OTHER)) {
+
+        optimized.addAll(all);
+        return true;
+      }
+
+      ValueKind kind = valueKinds.iterator().next();
+
+
+      // gather the conditions
+      Bound lower = null;
+      Bound upper = null;
+      List<Value> allowedValues = null; // null means any value
+      List<Value> excludedValues = new ArrayList<>();
+
+      for (Predicate<T> predicate : comparisons) {
+
+        if (predicate instanceof GreaterThan) {
+
+          lower = tighterLower(lower, new Bound(new Value(((GreaterThan<T>) predicate).getValue(), kind), false));
+
+        } else if (predicate instanceof LessThan) {
+
+          upper = tighterUpper(upper, new Bound(new Value(((LessThan<T>) predicate).getValue(), kind), false));
+
+        } else if (predicate instanceof InclusiveRange) {
+
+          lower = tighterLower(lower, new Bound(new Value(((InclusiveRange<T>) predicate).getLowerValue(), kind), true));
+          upper = tighterUpper(upper, new Bound(new Value(((InclusiveRange<T>) predicate).getUpperValue(), kind), true));
+
+        } else if (predicate instanceof NotEqual) {
+
+          excludedValues.add(new Value(((NotEqual<T>) predicate).getValue(), kind));
+
+        } else {
+
+          String[] values = (predicate instanceof Equal) ? new String[] {((Equal<T>) predicate).getValue()} : ((In<T>) predicate).getValues().split(",");
+          List<Value> predicateValues = new ArrayList<>();
+
+          for (String value : values) {
+
+            predicateValues.add(new Value(value, kind));
+          }
+
+          allowedValues = (allowedValues == null) ? predicateValues : intersect(allowedValues, predicateValues);
+        }
+      }
+
+
+      // a list of allowed values makes the other conditions unnecessary once they've been applied to it
+      if (allowedValues != null) {
+
+        List<Value> remainingValues = new ArrayList<>();
+
+        for (Value value : allowedValues) {
+
+          if (isAbove(value, lower) && isBelow(value, upper) && !contains(excludedValues, value) && !contains(remainingValues, value)) {
+
+            remainingValues.add(value);
+          }
+        }
+
+        if (remainingValues.isEmpty()) {
+
+          return false;
+        }
+
+        if (remainingValues.size() == 1) {
+
+          optimized.add(new Equal<>(field, remainingValues.get(0).text));
+
+        } else {
+
+          optimized.add(new In<>(field, remainingValues.stream().map(value -> value.text).toArray(String[]::new)));
+        }
+
+        others.stream().filter(predicate -> !(predicate instanceof IsNotNull)).forEach(optimized::add);
+        return true;
+      }
+
+
+      // check that the range isn't empty
+      if (lower != null && upper != null) {
+
+        int comparison = lower.value.compareTo(upper.value);
+
+        if (comparison > 0 || (comparison == 0 && !(lower.inclusive && upper.inclusive))) {
+
+          return false;
+        }
+
+        if (comparison == 0) {
+
+          // the range is a single value
+          if (contains(excludedValues, lower.value)) {
+
+            return false;
+          }
+
+          optimized.add(new Equal<>(field, lower.value.text));
+          others.stream().filter(predicate -> !(predicate instanceof IsNotNull)).forEach(optimized::add);
+          return true;
+        }
+      }
+
+
+      // the range (Space-Track has no inclusive operators for a single end, so a range with one inclusive end also needs an exclusive comparison)
+      if (lower != null && upper != null && (lower.inclusive || upper.inclusive)) {
+
+        optimized.add(new InclusiveRange<>(field, lower.value.text, upper.value.text));
+
+        if (!lower.inclusive) {
+
+          optimized.add(new GreaterThan<>(field, lower.value.text));
+        }
+
+        if (!upper.inclusive) {
+
+          optimized.add(new LessThan<>(field, upper.value.text));
+        }
+
+      } else {
+
+        if (lower != null) {
+
+          optimized.add(new GreaterThan<>(field, lower.value.text));
+        }
+
+        if (upper != null) {
+
+          optimized.add(new LessThan<>(field, upper.value.text));
+        }
+      }
+
+
+      // excluded values only matter inside the range
+      List<Value> keptExcludedValues = new ArrayList<>();
+
+      for (Value value : excludedValues) {
+
+        if (isAbove(value, lower) && isBelow(value, upper) && !contains(keptExcludedValues, value)) {
+
+          keptExcludedValues.add(value);
+          optimized.add(new NotEqual<>(field, value.text));
+        }
+      }
+
+      optimized.addAll(others);
+      return true;
+    }
+
+
+    private static Bound tighterLower(Bound current, Bound candidate) {
+
+      if (current == null) {
+
+        return candidate;
+      }
+
+      int comparison = candidate.value.compareTo(current.value);
+      return (comparison > 0 || (comparison == 0 && !candidate.inclusive)) ? candidate : current;
+    }
+
+
+    private static Bound tighterUpper(Bound current, Bound candidate) {
+
+      if (current == null) {
+
+        return candidate;
+      }
+
+      int comparison = candidate.value.compareTo(current.value);
+      return (comparison < 0 || (comparison == 0 && !candidate.inclusive)) ? candidate : current;
+    }
+
+
+    private static boolean isAbove(Value value, Bound lower) {
+
+      if (lower == null) {
+
+        return true;
+      }
+
+      int comparison = value.compareTo(lower.value);
+      return comparison > 0 || (comparison == 0 && lower.inclusive);
+    }
+
+
+    private static boolean isBelow(Value value, Bound upper) {
+
+      if (upper == null) {
+
+        return true;
+      }
+
+      int comparison = value.compareTo(upper.value);
+      return comparison < 0 || (comparison == 0 && upper.inclusive);
+    }
+
+
+    private static boolean contains(List<Value> values, Value value) {
+
+      return values.stream().anyMatch(other -> other.compareTo(value) == 0);
+    }
+
+
+    private static List<Value> intersect(List<Value> values1, List<Value> values2) {
+
+      List<Value> intersection = new ArrayList<>();
+
+      for (Value value : values1) {
+
+        if (contains(values2, value)) {
+
+          intersection.add(value);
+        }
+      }
+
+      return intersection;
+    }
+  }
+}
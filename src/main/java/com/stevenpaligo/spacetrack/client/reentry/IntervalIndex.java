@@ -0,0 +1,132 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.reentry;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import lombok.NonNull;
+
+/**
+ * An immutable index of values by time interval, answering "which intervals overlap this span" in logarithmic time plus the number of matches. The intervals are sorted by their start and treated
+ * as an implicit balanced tree (the middle element of each range is the root of that range), with each node storing the latest end in its subtree so that whole subtrees ending too early are skipped.
+ * 
+ * @author Steven Paligo
+ * @param <V> The type of the indexed values
+ */
+final class IntervalIndex<V> {
+
+  private final long[] starts;
+  private final long[] ends;
+  private final long[] maxEnds;
+  private final List<V> values;
+
+
+  /**
+   * Creates an index
+   * 
+   * @param values The non-null values
+   * @param startGetter Gets the start of a value's interval (inclusive)
+   * @param endGetter Gets the end of a value's interval (inclusive), which must not be before the start
+   */
+  IntervalIndex(@NonNull Collection<V> values, @NonNull Function<V, Instant> startGetter, @NonNull Function<V, Instant> endGetter) {
+
+    List<V> sorted = new ArrayList<>(values);
+    sorted.sort(Comparator.comparing(startGetter));
+
+    int size = sorted.size();
+
+    this.starts = new long[size];
+    this.ends = new long[size];
+    this.maxEnds = new long[size];
+    this.values = sorted;
+
+    for (int i = 0; i < size; i++) {
+
+      starts[i] = startGetter.apply(sorted.get(i)).toEpochMilli();
+      ends[i] = endGetter.apply(sorted.get(i)).toEpochMilli();
+    }
+
+    computeMaxEnds(0, size);
+  }
+
+
+  private long computeMaxEnds(int low, int high) {
+
+    if (low >= high) {
+      return Long.MIN_VALUE;
+    }
+
+    int middle = (low + high) >>> 1;
+    long maxEnd = Math.max(ends[middle], Math.max(computeMaxEnds(low, middle), computeMaxEnds(middle + 1, high)));
+
+    maxEnds[middle] = maxEnd;
+
+    return maxEnd;
+  }
+
+
+  public int size() {
+
+    return values.size();
+  }
+
+
+  /**
+   * Finds the values whose intervals overlap a span
+   * 
+   * @param from The non-null start of the span (inclusive)
+   * @param to The non-null end of the span (inclusive)
+   * @return The matching values, in order of their interval starts
+   */
+  public List<V> overlapping(@NonNull Instant from, @NonNull Instant to) {
+
+    List<V> matches = new ArrayList<>();
+
+    collect(0, values.size(), from.toEpochMilli(), to.toEpochMilli(), matches);
+
+    return matches;
+  }
+
+
+  private void collect(int low, int high, long from, long to, List<V> matches) {
+
+    if (low >= high) {
+      return;
+    }
+
+    int middle = (low + high) >>> 1;
+
+    // every interval in this range ends before the span
+    if (maxEnds[middle] < from) {
+      return;
+    }
+
+    collect(low, middle, from, to, matches);
+
+    // the intervals from here on start after the span
+    if (starts[middle] > to) {
+      return;
+    }
+
+    if (ends[middle] >= from) {
+      matches.add(values.get(middle));
+    }
+
+    collect(middle + 1, high, from, to, matches);
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.reentry;
+
+import java.util.Optional;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A change to the reentry state of an object on a {@link ReentryWatchlist}
+ *
+ * @author Steven Paligo
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class ReentryEvent {
+
+  /**
+   * Kinds of changes
+   *
+   * @author Steven Paligo
+   */
+  public static enum Type {
+
+    /**
+     * The first message for an object was received (unless it reports that the object has already decayed)
+     */
+    ADDED,
+
+    /**
+     * A newer message changed an object's prediction
+     */
+    UPDATED,
+
+    /**
+     * A historical decay message reported that an object has reentered
+     */
+    DECAYED
+  }
+
+
+  private final Type type;
+
+  /**
+   * The object's state before the change, which is empty when the object is new to the watchlist
+   */
+  private final Optional<ReentryStatus> previousStatus;
+
+  private final ReentryStatus status;
+}
@@ -0,0 +1,74 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.reentry;
+
+import java.time.Instant;
+import java.util.Optional;
+import com.stevenpaligo.spacetrack.client.DecayQuery.Decay;
+import com.stevenpaligo.spacetrack.client.TipMessageQuery.TipMessage;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The reentry state of one object on a {@link ReentryWatchlist}, combining the latest decay message and the latest Tracking and Impact (TIP) message received for it
+ *
+ * @author Steven Paligo
+ */
+@Getter
+@ToString
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public class ReentryStatus {
+
+  /**
+   * The NORAD catalog number of the object
+   */
+  private final int catalogNumber;
+
+  /**
+   * The object's name, from its decay messages (TIP messages don't include it)
+   */
+  private final Optional<String> objectName;
+
+  /**
+   * The decay message with the latest message epoch
+   */
+  private final Optional<Decay> latestDecayMessage;
+
+  /**
+   * The TIP message with the latest message epoch
+   */
+  private final Optional<TipMessage> latestTipMessage;
+
+  /**
+   * The predicted (or, once the object has decayed, actual) reentry time, from whichever of the latest messages is newer
+   */
+  private final Optional<Instant> reentryEpoch;
+
+  /**
+   * The start of the reentry window, which is present whenever the reentry epoch is
+   */
+  private final Optional<Instant> windowStart;
+
+  /**
+   * The end of the reentry window, which is present whenever the reentry epoch is
+   */
+  private final Optional<Instant> windowEnd;
+
+  /**
+   * Whether a historical decay message has been received, meaning the object has reentered
+   */
+  private final boolean decayed;
+}
@@ -0,0 +1,540 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.reentry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import com.stevenpaligo.spacetrack.client.CompiledQuery;
+import com.stevenpaligo.spacetrack.client.DecayQuery;
+import com.stevenpaligo.spacetrack.client.DecayQuery.Decay;
+import com.stevenpaligo.spacetrack.client.DecayQuery.DecayQueryField;
+import com.stevenpaligo.spacetrack.client.TipMessageQuery;
+import com.stevenpaligo.spacetrack.client.TipMessageQuery.TipMessage;
+import com.stevenpaligo.spacetrack.client.TipMessageQuery.TipMessageQueryField;
+import com.stevenpaligo.spacetrack.client.query.Sort;
+import com.stevenpaligo.spacetrack.client.util.IntObjectMap;
+import com.stevenpaligo.spacetrack.client.util.IntSet;
+import com.stevenpaligo.spacetrack.client.util.SpaceTrackDateTimeFormatter;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tracks reentering objects using decay messages from a {@link DecayQuery} and Tracking and Impact (TIP) messages from a {@link TipMessageQuery}. Each call to {@link #poll()} fetches only the
+ * messages that are newer than the ones already received (by message epoch for decay messages and by insert epoch for TIP messages), updates the state of the objects they mention, and reports the
+ * changes to the listeners.
+ * 
+ * <p>
+ * The objects' reentry windows are indexed by time, so {@link #getReentering(Instant, Instant)} answers "what reenters between these times" without scanning the whole watchlist. The state can be
+ * read from any thread while a poll is in progress: each poll publishes a new snapshot when it finishes.
+ * </p>
+ * 
+ * @author Steven Paligo
+ */
+@Slf4j
+public class ReentryWatchlist {
+
+  private static final String HISTORICAL_MESSAGE_TYPE = "Historical";
+  private static final int DATE_ONLY_LENGTH = 10; // yyyy-MM-dd
+
+
+  /**
+   * Receives the changes found by each poll
+   * 
+   * @author Steven Paligo
+   */
+  @FunctionalInterface
+  public static interface ReentryListener {
+
+    public void onReentryEvent(ReentryEvent event);
+  }
+
+
+  /**
+   * Sends a poll's query (replaceable for testing)
+   */
+  @FunctionalInterface
+  static interface MessageFetcher<R> {
+
+    public List<R> fetch(CompiledQuery<R> query) throws IOException;
+  }
+
+
+  /**
+   * The objects' states and the index of their reentry windows, which are published together
+   */
+  private static class Snapshot {
+
+    private final IntObjectMap<ReentryStatus> statuses; // never modified once published
+    private final List<ReentryStatus> all;
+    private final IntervalIndex<ReentryStatus> windows;
+
+
+    private Snapshot(IntObjectMap<ReentryStatus> statuses) {
+
+      List<ReentryStatus> all = statuses.values();
+      List<ReentryStatus> withWindows = new ArrayList<>();
+
+      for (ReentryStatus status : all) {
+
+        if (status.getWindowStart().isPresent()) {
+          withWindows.add(status);
+        }
+      }
+
+      this.statuses = statuses;
+      this.all = Collections.unmodifiableList(all);
+      this.windows = new IntervalIndex<>(withWindows, status -> status.getWindowStart().get(), status -> status.getWindowEnd().get());
+    }
+  }
+
+
+  /**
+   * The latest epoch received from a query and the messages received at exactly that epoch. The next poll asks for messages at or after the epoch and skips the ones already received, so messages
+   * added with the same epoch after a poll aren't missed.
+   */
+  private static class HighWaterMark {
+
+    private Instant epoch;
+    private final Set<String> keysAtEpoch = new HashSet<>();
+
+
+    private HighWaterMark(Instant epoch) {
+
+      this.epoch = epoch;
+    }
+
+
+    /**
+     * Records a message, returning false if it was already received
+     */
+    private boolean advance(Instant messageEpoch, String key) {
+
+      if (messageEpoch.isBefore(epoch)) {
+        return false;
+      }
+
+      if (messageEpoch.isAfter(epoch)) {
+
+        epoch = messageEpoch;
+        keysAtEpoch.clear();
+      }
+
+      return keysAtEpoch.add(key);
+    }
+  }
+
+
+  private final DecayQuery decayQuery;
+  private final TipMessageQuery tipMessageQuery;
+  private final List<ReentryListener> listeners = new CopyOnWriteArrayList<>();
+
+  private Duration lookback = Duration.ofDays(30);
+  private HighWaterMark decayMark = null;
+  private HighWaterMark tipMessageMark = null;
+  private volatile Snapshot snapshot = new Snapshot(new IntObjectMap<>());
+
+  @Setter(AccessLevel.PACKAGE)
+  private MessageFetcher<Decay> decayFetcher = CompiledQuery::execute;
+
+  @Setter(AccessLevel.PACKAGE)
+  private MessageFetcher<TipMessage> tipMessageFetcher = CompiledQuery::execute;
+
+
+  /**
+   * Creates a watchlist. The queries may have predicates of their own, for example to restrict the watchlist to certain catalog numbers, and are copied, so changing them afterwards has no effect.
+   * Their sorts and limits are replaced.
+   * 
+   * @param decayQuery The non-null decay query, with credentials
+   * @param tipMessageQuery The non-null TIP message query, with credentials
+   */
+  public ReentryWatchlist(@NonNull DecayQuery decayQuery, @NonNull TipMessageQuery tipMessageQuery) {
+
+    this.decayQuery = decayQuery.copy().clearSorts().setLimit(Optional.empty()).addSort(new Sort<>(DecayQueryField.MESSAGE_EPOCH));
+    this.tipMessageQuery = tipMessageQuery.copy().clearSorts().setLimit(Optional.empty()).addSort(new Sort<>(TipMessageQueryField.INSERT_EPOCH));
+  }
+
+
+  /**
+   * Sets how far back the first poll looks for messages (the default is 30 days)
+   * 
+   * @param lookback The non-null, positive lookback
+   * @return This watchlist
+   * @throws IllegalStateException The watchlist has already been polled
+   */
+  public synchronized ReentryWatchlist setLookback(@NonNull Duration lookback) {
+
+    // more validation
+    if (lookback.isNegative() || lookback.isZero()) {
+
+      throw new IllegalArgumentException("The lookback must be positive");
+    }
+
+    if (decayMark != null) {
+
+      throw new IllegalStateException("The watchlist has already been polled");
+    }
+
+
+    this.lookback = lookback;
+
+    return this;
+  }
+
+
+  public ReentryWatchlist addListener(@NonNull ReentryListener listener) {
+
+    listeners.add(listener);
+
+    return this;
+  }
+
+
+  public ReentryWatchlist removeListener(@NonNull ReentryListener listener) {
+
+    listeners.remove(listener);
+
+    return this;
+  }
+
+
+  /**
+   * Fetches the messages received since the last poll and applies them to the watchlist. The listeners are notified of the changes after the new state has been published.
+   * 
+   * @return The changes, in order of catalog number
+   * @throws IOException The messages were unable to be fetched, in which case the watchlist is unchanged
+   */
+  public synchronized List<ReentryEvent> poll() throws IOException {
+
+    if (decayMark == null) {
+
+      Instant start = Instant.now().minus(lookback);
+
+      decayMark = new HighWaterMark(start);
+      tipMessageMark = new HighWaterMark(start);
+    }
+
+
+    // fetch both kinds of messages before changing anything, so a failure leaves the watchlist as it was
+    List<Decay> decayMessages = decayFetcher.fetch(decayQuery.copy().greaterThan(DecayQueryField.MESSAGE_EPOCH, decayMark.epoch.minusSeconds(1)).compile());
+    List<TipMessage> tipMessages = tipMessageFetcher.fetch(tipMessageQuery.copy().greaterThan(TipMessageQueryField.INSERT_EPOCH, tipMessageMark.epoch.minusSeconds(1)).compile());
+
+
+    // apply the new messages to copies of the objects' latest messages
+    IntObjectMap<ReentryStatus> statuses = snapshot.statuses;
+    IntObjectMap<Decay> latestDecayMessages = new IntObjectMap<>();
+    IntObjectMap<TipMessage> latestTipMessages = new IntObjectMap<>();
+
+    for (Decay message : decayMessages) {
+
+      if (message == null || !message.getCatalogNumber().isPresent() || !message.getMessageEpoch().isPresent()) {
+        continue;
+      }
+
+      if (!decayMark.advance(message.getMessageEpoch().get().toInstant(), decayKey(message))) {
+        continue;
+      }
+
+      int catalogNumber = message.getCatalogNumber().get();
+      Decay latest = latestDecayMessages.computeIfAbsent(catalogNumber, key -> latestDecayMessage(statuses.get(key)));
+
+      if (isNewer(message, latest)) {
+        latestDecayMessages.put(catalogNumber, message);
+      }
+    }
+
+    for (TipMessage message : tipMessages) {
+
+      if (message == null || !message.getCatalogNumber().isPresent() || message.getInsertEpoch() == null || message.getMessageEpoch() == null) {
+        continue;
+      }
+
+      if (!tipMessageMark.advance(message.getInsertEpoch().toInstant(), tipMessageKey(message))) {
+        continue;
+      }
+
+      int catalogNumber = message.getCatalogNumber().get();
+      TipMessage latest = latestTipMessages.computeIfAbsent(catalogNumber, key -> latestTipMessage(statuses.get(key)));
+
+      if (latest == null || !message.getMessageEpoch().isBefore(latest.getMessageEpoch())) {
+        latestTipMessages.put(catalogNumber, message);
+      }
+    }
+
+
+    // rebuild the states of the objects that received messages
+    IntSet catalogNumbers = IntSet.of(latestDecayMessages.keys());
+
+    for (int catalogNumber : latestTipMessages.keys()) {
+      catalogNumbers.add(catalogNumber);
+    }
+
+    int[] sortedCatalogNumbers = catalogNumbers.toArray();
+    Arrays.sort(sortedCatalogNumbers);
+
+    IntObjectMap<ReentryStatus> updatedStatuses = new IntObjectMap<>();
+    List<ReentryEvent> events = new ArrayList<>();
+
+    for (int catalogNumber : sortedCatalogNumbers) {
+
+      ReentryStatus previous = statuses.get(catalogNumber);
+      Decay decayMessage = latestDecayMessages.containsKey(catalogNumber) ? latestDecayMessages.get(catalogNumber) : latestDecayMessage(previous);
+      TipMessage tipMessage = latestTipMessages.containsKey(catalogNumber) ? latestTipMessages.get(catalogNumber) : latestTipMessage(previous);
+
+      // the messages were all older than the ones already received
+      if (previous != null && decayMessage == latestDecayMessage(previous) && tipMessage == latestTipMessage(previous)) {
+        continue;
+      }
+
+      ReentryStatus status = createStatus(catalogNumber, previous, decayMessage, tipMessage);
+      updatedStatuses.put(catalogNumber, status);
+
+      if (status.isDecayed() && (previous == null || !previous.isDecayed())) {
+
+        events.add(new ReentryEvent(ReentryEvent.Type.DECAYED, Optional.ofNullable(previous), status));
+
+      } else if (previous == null) {
+
+        events.add(new ReentryEvent(ReentryEvent.Type.ADDED, Optional.empty(), status));
+
+      } else {
+
+        events.add(new ReentryEvent(ReentryEvent.Type.UPDATED, Optional.of(previous), status));
+      }
+    }
+
+
+    // publish the new state
+    if (!updatedStatuses.isEmpty()) {
+
+      IntObjectMap<ReentryStatus> newStatuses = new IntObjectMap<>(statuses);
+      updatedStatuses.forEach(newStatuses::put);
+
+      snapshot = new Snapshot(newStatuses);
+    }
+
+    log.debug("Reentry watchlist poll: {} decay messages, {} TIP messages, {} changes", decayMessages.size(), tipMessages.size(), events.size());
+
+
+    // notify the listeners
+    for (ReentryEvent event : events) {
+
+      for (ReentryListener listener : listeners) {
+
+        listener.onReentryEvent(event);
+      }
+    }
+
+
+    return events;
+  }
+
+
+  /**
+   * Removes objects that have decayed, once their reentry window ended before a given time
+   * 
+   * @param before The non-null time
+   * @return The number of objects removed
+   */
+  public synchronized int removeDecayed(@NonNull Instant before) {
+
+    IntObjectMap<ReentryStatus> statuses = new IntObjectMap<>(snapshot.statuses.size());
+
+    snapshot.statuses.forEach((catalogNumber, status) -> {
+
+      if (!status.isDecayed() || !status.getWindowEnd().map(end -> end.isBefore(before)).orElse(true)) {
+        statuses.put(catalogNumber, status);
+      }
+    });
+
+    int removed = snapshot.statuses.size() - statuses.size();
+
+    if (removed > 0) {
+      snapshot = new Snapshot(statuses);
+    }
+
+    return removed;
+  }
+
+
+  /**
+   * Gets the state of an object
+   * 
+   * @param catalogNumber The NORAD catalog number of the object
+   * @return The object's state, or empty if no messages have been received for it
+   */
+  public Optional<ReentryStatus> get(int catalogNumber) {
+
+    return Optional.ofNullable(snapshot.statuses.get(catalogNumber));
+  }
+
+
+  /**
+   * Gets the states of all the objects on the watchlist
+   * 
+   * @return An unmodifiable view of the states, which doesn't change when the watchlist is polled again
+   */
+  public Collection<ReentryStatus> getAll() {
+
+    return snapshot.all;
+  }
+
+
+  public int size() {
+
+    return snapshot.statuses.size();
+  }
+
+
+  /**
+   * Finds the objects whose reentry windows overlap a span of time
+   * 
+   * @param from The non-null start of the span (inclusive)
+   * @param to The non-null end of the span (inclusive)
+   * @return The matching objects' states, in order of reentry epoch
+   */
+  public List<ReentryStatus> getReentering(@NonNull Instant from, @NonNull Instant to) {
+
+    // validate
+    if (to.isBefore(from)) {
+
+      throw new IllegalArgumentException("The end of the span is before the start");
+    }
+
+
+    List<ReentryStatus> matches = snapshot.windows.overlapping(from, to);
+    matches.sort(Comparator.comparing(status -> status.getReentryEpoch().get()));
+
+    return matches;
+  }
+
+
+  private static ReentryStatus createStatus(int catalogNumber, ReentryStatus previous, Decay decayMessage, TipMessage tipMessage) {
+
+    Optional<String> objectName = Optional.ofNullable((decayMessage == null) ? null : decayMessage.getObjectName());
+
+    if (!objectName.isPresent() && previous != null) {
+      objectName = previous.getObjectName();
+    }
+
+    boolean decayed = isHistorical(decayMessage);
+
+
+    // use the newer message's prediction, except that the actual decay always wins
+    Instant reentryEpoch = null;
+    Instant windowStart = null;
+    Instant windowEnd = null;
+
+    boolean useTipMessage = (tipMessage != null && tipMessage.getDecayEpoch() != null) && !decayed
+        && (decayMessage == null || !tipMessage.getMessageEpoch().toInstant().isBefore(decayMessage.getMessageEpoch().get().toInstant()));
+
+    if (useTipMessage) {
+
+      Duration window = Duration.ofMinutes((tipMessage.getWindowSizeMinutes() == null) ? 0 : Math.abs(tipMessage.getWindowSizeMinutes()));
+
+      reentryEpoch = tipMessage.getDecayEpoch().toInstant();
+      windowStart = reentryEpoch.minus(window);
+      windowEnd = reentryEpoch.plus(window);
+
+    } else if (decayMessage != null && decayMessage.getDecayEpoch().isPresent()) {
+
+      String decayEpoch = decayMessage.getDecayEpoch().get().trim();
+
+      try {
+
+        // a date without a time covers the whole day
+        if (decayEpoch.length() == DATE_ONLY_LENGTH) {
+
+          windowStart = SpaceTrackDateTimeFormatter.parse(decayEpoch + " 00:00:00").toInstant();
+          windowEnd = windowStart.plus(Duration.ofDays(1));
+          reentryEpoch = windowStart.plus(Duration.ofHours(12));
+
+        } else {
+
+          reentryEpoch = SpaceTrackDateTimeFormatter.parse(decayEpoch).toInstant();
+          windowStart = reentryEpoch;
+          windowEnd = reentryEpoch;
+        }
+
+      } catch (DateTimeParseException e) {
+
+        log.debug("Ignoring the decay epoch of object {}: {}", catalogNumber, e.getMessage());
+      }
+    }
+
+
+    return new ReentryStatus(catalogNumber, objectName, Optional.ofNullable(decayMessage), Optional.ofNullable(tipMessage), Optional.ofNullable(reentryEpoch), Optional.ofNullable(windowStart),
+        Optional.ofNullable(windowEnd), decayed);
+  }
+
+
+  /**
+   * Checks whether a decay message should replace an object's latest one. A historical message (the object has decayed) is never replaced by a prediction.
+   */
+  private static boolean isNewer(Decay message, Decay latest) {
+
+    if (latest == null) {
+      return true;
+    }
+
+    if (isHistorical(latest) != isHistorical(message)) {
+      return isHistorical(message);
+    }
+
+    return !message.getMessageEpoch().get().isBefore(latest.getMessageEpoch().get());
+  }
+
+
+  private static boolean isHistorical(Decay message) {
+
+    return message != null && HISTORICAL_MESSAGE_TYPE.equalsIgnoreCase(message.getMessageType());
+  }
+
+
+  private static Decay latestDecayMessage(ReentryStatus status) {
+
+    return (status == null) ? null : status.getLatestDecayMessage().orElse(null);
+  }
+
+
+  private static TipMessage latestTipMessage(ReentryStatus status) {
+
+    return (status == null) ? null : status.getLatestTipMessage().orElse(null);
+  }
+
+
+  private static String decayKey(Decay message) {
+
+    return message.getCatalogNumber().get() + "|" + message.getMessageType() + "|" + message.getSource() + "|" + message.getDecayEpoch().orElse("");
+  }
+
+
+  private static String tipMessageKey(TipMessage message) {
+
+    return (message.getMessageId() != null) ? message.getMessageId().toString() : (message.getCatalogNumber().get() + "|" + message.getMessageEpoch());
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.scheduling;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Describes how often a {@link PollingScheduler} polls a query. The interval adapts to how often the results change: it grows by the back-off factor after every poll that returned the same results
+ * and shrinks by the speed-up factor after every poll that returned different results, staying between the minimum and maximum intervals. The maximum interval is the desired freshness: results are
+ * never older than that, as long as the rate budget allows.
+ * 
+ * @author Steven Paligo
+ */
+@Getter
+public class PollingPolicy {
+
+  private final Duration minInterval;
+  private final Duration maxInterval;
+  private double backOffFactor = 1.5;
+  private double speedUpFactor = 2.0;
+
+
+  /**
+   * Creates a policy with the default factors (the interval grows by half when the results don't change and halves when they do)
+   * 
+   * @param minInterval The non-null, positive minimum interval
+   * @param maxInterval The non-null maximum interval, which is the desired freshness (must be at least the minimum interval)
+   */
+  public PollingPolicy(@NonNull Duration minInterval, @NonNull Duration maxInterval) {
+
+    // more validation
+    if (minInterval.isNegative() || minInterval.isZero()) {
+
+      throw new IllegalArgumentException("The minInterval parameter is not positive: " + minInterval);
+
+    } else if (maxInterval.compareTo(minInterval) < 0) {
+
+      throw new IllegalArgumentException("The maxInterval parameter is less than the minInterval parameter: " + maxInterval);
+    }
+
+
+    this.minInterval = minInterval;
+    this.maxInterval = maxInterval;
+  }
+
+
+  /**
+   * Sets the factor that the interval is multiplied by when the results don't change
+   * 
+   * @param backOffFactor The factor (must be at least 1.0)
+   * @return This policy
+   */
+  public PollingPolicy setBackOffFactor(double backOffFactor) {
+
+    // more validation
+    if (!(backOffFactor >= 1.0) || Double.isInfinite(backOffFactor)) {
+
+      throw new IllegalArgumentException("The backOffFactor parameter is not a finite number of at least 1.0: " + backOffFactor);
+    }
+
+
+    this.backOffFactor = backOffFactor;
+
+    return this;
+  }
+
+
+  /**
+   * Sets the factor that the interval is divided by when the results change
+   * 
+   * @param speedUpFactor The factor (must be at least 1.0)
+   * @return This policy
+   */
+  public PollingPolicy setSpeedUpFactor(double speedUpFactor) {
+
+    // more validation
+    if (!(speedUpFactor >= 1.0) || Double.isInfinite(speedUpFactor)) {
+
+      throw new IllegalArgumentException("The speedUpFactor parameter is not a finite number of at least 1.0: " + speedUpFactor);
+    }
+
+
+    this.speedUpFactor = speedUpFactor;
+
+    return this;
+  }
+
+
+  /**
+   * Gets the interval after a poll
+   * 
+   * @param interval The non-null interval before the poll
+   * @param changed Whether the poll returned different results than the previous poll
+   * @return The non-null interval until the next poll
+   */
+  public Duration getNextInterval(@NonNull Duration interval, boolean changed) {
+
+    double nanos = interval.toNanos() * (changed ? (1.0 / speedUpFactor) : backOffFactor);
+
+    return Duration.ofNanos(Math.max(minInterval.toNanos(), Math.min(maxInterval.toNanos(), (long) nanos)));
+  }
+}
@@ -0,0 +1,443 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.scheduling;
+
+import java.io.IOException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.output.NullOutputStream;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.stevenpaligo.spacetrack.client.CompiledQuery;
+import com.stevenpaligo.spacetrack.client.Query;
+import com.stevenpaligo.spacetrack.client.execution.RateLimiter;
+import com.stevenpaligo.spacetrack.client.util.DaemonThreadFactory;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Polls a set of queries in the background, each with its own {@link PollingPolicy}, and delivers their results to subscribers only when they change. All of the polls share one
+ * {@link RateLimiter}: when the budget is tight, the query whose results are closest to going stale (by the maximum interval of its policy) is sent first, and a query is only handed to a worker once
+ * a permit is available. The worker takes its permit when it sends the request (as it does for any retries or hedges), so when several workers start at once or other queries share the limiter, up
+ * to one request per worker can still wait briefly inside the limiter.
+ * 
+ * <p>
+ * Results are compared by a digest of their JSON form, so subscribers aren't called for polls that returned the same results. A subscriber is never called for two polls of the same query at the same
+ * time.
+ * </p>
+ * 
+ * @author Steven Paligo
+ */
+@Slf4j
+public class PollingScheduler implements AutoCloseable {
+
+  private static final ObjectMapper jsonMapper = new ObjectMapper().registerModule(new Jdk8Module()).registerModule(new JavaTimeModule()).configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS,
+      false);
+
+
+  /**
+   * Receives the results of a polled query
+   * 
+   * @author Steven Paligo
+   * @param <R> The type of the query results
+   */
+  @FunctionalInterface
+  public static interface Subscriber<R> {
+
+    /**
+     * Called with the results of the first poll and of every poll whose results differ from the previous poll's
+     * 
+     * @param results The non-null results
+     */
+    public void onResults(List<R> results);
+
+
+    /**
+     * Called when a poll fails (after the query's own retries). The query keeps being polled at its current interval.
+     * 
+     * @param e The non-null failure
+     */
+    public default void onError(IOException e) {
+
+      log.warn("Polling a Space-Track query failed", e);
+    }
+  }
+
+
+  /**
+   * Gets a poll's results (replaceable for testing)
+   */
+  @FunctionalInterface
+  static interface ResultSource<R> {
+
+    public List<R> fetch() throws IOException;
+  }
+
+
+  private final RateLimiter rateLimiter;
+  private final List<PollingSubscription<?>> subscriptions = new ArrayList<>();
+
+  private int parallelism = 2;
+  private int inFlight = 0;
+  private boolean closed = false;
+  private Thread dispatcher = null;
+  private ExecutorService workers = null;
+
+
+  /**
+   * Creates a scheduler
+   * 
+   * @param rateLimiter The non-null rate limiter that all polls count against, which should be shared with any other queries using the same account
+   */
+  public PollingScheduler(@NonNull RateLimiter rateLimiter) {
+
+    this.rateLimiter = rateLimiter;
+  }
+
+
+  /**
+   * Sets the number of queries that can be sent at the same time (the default is 2)
+   * 
+   * @param parallelism The parallelism (must be positive)
+   * @return This scheduler
+   * @throws IllegalStateException The scheduler has already been started
+   */
+  public synchronized PollingScheduler setParallelism(int parallelism) {
+
+    // more validation
+    if (parallelism <= 0) {
+
+      throw new IllegalArgumentException("The parallelism parameter is not positive: " + parallelism);
+    }
+
+    if (dispatcher != null) {
+
+      throw new IllegalStateException("The scheduler has already been started");
+    }
+
+
+    this.parallelism = parallelism;
+
+    return this;
+  }
+
+
+  /**
+   * Registers a query to be polled. The query is copied and compiled once, with the scheduler's rate limiter, so changing it afterwards has no effect. The first poll is sent as soon as possible.
+   * 
+   * @param <R> The type of the query results
+   * @param query The non-null query, with credentials
+   * @param policy The non-null polling policy
+   * @param subscriber The non-null subscriber for the query's results
+   * @return The subscription, which can be used to cancel it
+   * @throws IllegalStateException The scheduler has been closed
+   */
+  public <R> PollingSubscription<R> subscribe(@NonNull Query<?, R, ?> query, @NonNull PollingPolicy policy, @NonNull Subscriber<R> subscriber) {
+
+    CompiledQuery<R> compiledQuery = query.copy().setRateLimiter(rateLimiter).compile();
+
+    return subscribe(compiledQuery.getQueryClass(), compiledQuery::execute, policy, subscriber);
+  }
+
+
+  synchronized <R> PollingSubscription<R> subscribe(@NonNull String queryClass, @NonNull ResultSource<R> source, @NonNull PollingPolicy policy, @NonNull Subscriber<R> subscriber) {
+
+    if (closed) {
+
+      throw new IllegalStateException("The scheduler has been closed");
+    }
+
+
+    PollingSubscription<R> subscription = new PollingSubscription<>(this, queryClass, policy, source, subscriber, System.nanoTime());
+    subscriptions.add(subscription);
+    notifyAll();
+
+    return subscription;
+  }
+
+
+  synchronized void remove(PollingSubscription<?> subscription) {
+
+    subscriptions.remove(subscription);
+    notifyAll();
+  }
+
+
+  /**
+   * Gets the active subscriptions
+   * 
+   * @return A copy of the subscriptions, in the order they were registered
+   */
+  public synchronized List<PollingSubscription<?>> getSubscriptions() {
+
+    return new ArrayList<>(subscriptions);
+  }
+
+
+  /**
+   * Starts polling in the background. Queries can be registered before or after the scheduler is started.
+   * 
+   * @return This scheduler
+   * @throws IllegalStateException The scheduler has already been started or has been closed
+   */
+  public synchronized PollingScheduler start() {
+
+    if (dispatcher != null || closed) {
+
+      throw new IllegalStateException("The scheduler has already been started or has been closed");
+    }
+
+
+    ThreadFactory threadFactory = new DaemonThreadFactory("spacetrack-polling-scheduler-");
+
+    workers = Executors.newFixedThreadPool(parallelism, threadFactory);
+    dispatcher = threadFactory.newThread(this::dispatch);
+    dispatcher.start();
+
+    return this;
+  }
+
+
+  /**
+   * Stops polling. Polls that are in progress finish, but their results aren't delivered.
+   */
+  @Override
+  public void close() {
+
+    Thread dispatcherToStop;
+
+    synchronized (this) {
+
+      closed = true;
+      dispatcherToStop = dispatcher;
+
+      for (PollingSubscription<?> subscription : subscriptions) {
+
+        subscription.markCancelled();
+      }
+
+      subscriptions.clear();
+      notifyAll();
+    }
+
+    if (dispatcherToStop != null) {
+
+      dispatcherToStop.interrupt();
+      workers.shutdown();
+    }
+  }
+
+
+  /**
+   * Sends queries as they become due, for as long as the scheduler is open
+   */
+  private void dispatch() {
+
+    while (true) {
+
+      PollingSubscription<?> next;
+
+      synchronized (this) {
+
+        try {
+
+          next = awaitNext();
+
+        } catch (InterruptedException e) {
+
+          return;
+        }
+
+        if (next == null) {
+          return;
+        }
+
+        next.inFlight = true;
+        inFlight++;
+      }
+
+      PollingSubscription<?> subscription = next;
+      workers.execute(() -> poll(subscription));
+    }
+  }
+
+
+  /**
+   * Waits until a query is due, a worker is free, and a rate limit permit is available (called while holding the lock). The permit isn't reserved; the worker takes one when it sends the
+   * request.
+   * 
+   * @return The query to send, or null if the scheduler was closed
+   */
+  private PollingSubscription<?> awaitNext() throws InterruptedException {
+
+    while (!closed) {
+
+      long now = System.nanoTime();
+      long waitNanos = Long.MAX_VALUE;
+
+      if (inFlight < parallelism) {
+
+        PollingSubscription<?> next = null;
+
+        for (PollingSubscription<?> subscription : subscriptions) {
+
+          if (subscription.inFlight) {
+            continue;
+          }
+
+          if (subscription.nextPollNanos - now > 0) {
+
+            waitNanos = Math.min(waitNanos, subscription.nextPollNanos - now);
+
+          } else if (next == null || subscription.freshnessDeadlineNanos - next.freshnessDeadlineNanos < 0) {
+
+            // the due query closest to going stale goes first
+            next = subscription;
+          }
+        }
+
+        if (next != null) {
+
+          long permitWaitNanos = rateLimiter.getWaitTime().toNanos();
+
+          if (permitWaitNanos == 0L) {
+            return next;
+          }
+
+          waitNanos = permitWaitNanos;
+        }
+      }
+
+      if (waitNanos == Long.MAX_VALUE) {
+
+        wait();
+
+      } else {
+
+        TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+      }
+    }
+
+    return null;
+  }
+
+
+  private <R> void poll(PollingSubscription<R> subscription) {
+
+    boolean changed = false;
+    boolean failed = false;
+    List<R> results = null;
+    IOException failure = null;
+    byte[] fingerprint = null;
+
+    try {
+
+      results = subscription.source.fetch();
+      fingerprint = fingerprint(results);
+      changed = !Arrays.equals(fingerprint, subscription.fingerprint);
+
+    } catch (IOException e) {
+
+      failed = true;
+      failure = e;
+
+    } catch (RuntimeException e) {
+
+      failed = true;
+      failure = new IOException("Unable to poll the " + subscription.getQueryClass() + " query", e);
+    }
+
+
+    // record the poll before delivering, so the subscriber sees the new statistics
+    synchronized (this) {
+
+      subscription.recordPoll(Instant.now(), changed, failed);
+
+      if (!failed) {
+
+        subscription.fingerprint = fingerprint;
+        subscription.freshnessDeadlineNanos = System.nanoTime() + subscription.getPolicy().getMaxInterval().toNanos();
+      }
+    }
+
+
+    // deliver the results, and only then let the query be polled again, so the subscriber is never called for two polls at once
+    try {
+
+      if (subscription.isCancelled()) {
+
+        return;
+
+      } else if (failed) {
+
+        subscription.subscriber.onError(failure);
+
+      } else if (changed) {
+
+        subscription.subscriber.onResults(results);
+      }
+
+    } catch (RuntimeException e) {
+
+      log.warn("A subscriber to the {} query failed", subscription.getQueryClass(), e);
+
+    } finally {
+
+      synchronized (this) {
+
+        subscription.inFlight = false;
+        subscription.nextPollNanos = System.nanoTime() + subscription.getInterval().toNanos();
+
+        inFlight--;
+        notifyAll();
+      }
+    }
+  }
+
+
+  /**
+   * Gets a digest of the results' JSON form
+   */
+  static byte[] fingerprint(List<?> results) throws IOException {
+
+    MessageDigest digest;
+
+    try {
+
+      digest = MessageDigest.getInstance("SHA-256");
+
+    } catch (NoSuchAlgorithmException e) {
+
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+
+    try (DigestOutputStream outputStream = new DigestOutputStream(NullOutputStream.NULL_OUTPUT_STREAM, digest)) {
+
+      jsonMapper.writeValue(outputStream, results);
+    }
+
+    return digest.digest();
+  }
+}
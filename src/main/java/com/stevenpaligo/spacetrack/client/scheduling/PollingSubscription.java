@@ -0,0 +1,142 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.scheduling;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import com.stevenpaligo.spacetrack.client.scheduling.PollingScheduler.ResultSource;
+import com.stevenpaligo.spacetrack.client.scheduling.PollingScheduler.Subscriber;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * A query registered with a {@link PollingScheduler}, with the statistics of its polls
+ * 
+ * @author Steven Paligo
+ * @param <R> The type of the query results
+ */
+@Getter
+public class PollingSubscription<R> {
+
+  @Getter(AccessLevel.NONE)
+  private final PollingScheduler scheduler;
+
+  /**
+   * The Space-Track.org query class (e.g. "tip")
+   */
+  private final String queryClass;
+
+  private final PollingPolicy policy;
+
+  @Getter(AccessLevel.NONE)
+  final ResultSource<R> source;
+
+  @Getter(AccessLevel.NONE)
+  final Subscriber<R> subscriber;
+
+  /**
+   * The current interval between polls
+   */
+  private volatile Duration interval;
+
+  private volatile Optional<Instant> lastPollTime = Optional.empty();
+
+  /**
+   * When the results last changed, which is the time of the first poll until they change
+   */
+  private volatile Optional<Instant> lastChangeTime = Optional.empty();
+
+  private volatile long pollCount = 0;
+
+  /**
+   * The number of polls that delivered results to the subscriber, including the first
+   */
+  private volatile long changeCount = 0;
+
+  private volatile long errorCount = 0;
+
+  private volatile boolean cancelled = false;
+
+  // guarded by the scheduler
+  @Getter(AccessLevel.NONE)
+  long nextPollNanos;
+
+  @Getter(AccessLevel.NONE)
+  long freshnessDeadlineNanos;
+
+  @Getter(AccessLevel.NONE)
+  boolean inFlight = false;
+
+  @Getter(AccessLevel.NONE)
+  byte[] fingerprint = null;
+
+
+  PollingSubscription(PollingScheduler scheduler, String queryClass, PollingPolicy policy, ResultSource<R> source, Subscriber<R> subscriber, long nowNanos) {
+
+    this.scheduler = scheduler;
+    this.queryClass = queryClass;
+    this.policy = policy;
+    this.source = source;
+    this.subscriber = subscriber;
+    this.interval = policy.getMaxInterval();
+    this.nextPollNanos = nowNanos;
+    this.freshnessDeadlineNanos = nowNanos;
+  }
+
+
+  /**
+   * Stops polling the query. A poll that is in progress finishes, but its results aren't delivered.
+   */
+  public void cancel() {
+
+    markCancelled();
+    scheduler.remove(this);
+  }
+
+
+  void markCancelled() {
+
+    cancelled = true;
+  }
+
+
+  /**
+   * Records a finished poll (called by the scheduler while holding its lock)
+   */
+  void recordPoll(Instant time, boolean changed, boolean failed) {
+
+    pollCount++;
+    lastPollTime = Optional.of(time);
+
+    if (failed) {
+
+      errorCount++;
+
+    } else if (changed) {
+
+      // the first results say nothing about how often they change
+      if (changeCount > 0) {
+        interval = policy.getNextInterval(interval, true);
+      }
+
+      changeCount++;
+      lastChangeTime = Optional.of(time);
+
+    } else {
+
+      interval = policy.getNextInterval(interval, false);
+    }
+  }
+}
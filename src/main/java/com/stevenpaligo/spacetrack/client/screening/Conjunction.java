@@ -0,0 +1,55 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.screening;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A close approach between two objects found by a {@link ConjunctionScreener}
+ *
+ * @author Steven Paligo
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class Conjunction {
+
+  /**
+   * The lower of the two NORAD catalog numbers
+   */
+  private final int catalogNumber1;
+
+  /**
+   * The higher of the two NORAD catalog numbers
+   */
+  private final int catalogNumber2;
+
+  /**
+   * The time of closest approach
+   */
+  private final Instant timeOfClosestApproach;
+
+  /**
+   * The distance between the objects at the time of closest approach, in kilometers
+   */
+  private final double missDistanceKilometers;
+
+  /**
+   * The speed of the objects relative to each other at the time of closest approach, in kilometers per second
+   */
+  private final double relativeSpeedKilometersPerSecond;
+}
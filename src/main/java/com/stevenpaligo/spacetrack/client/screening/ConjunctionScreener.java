@@ -0,0 +1,633 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.screening;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import com.stevenpaligo.spacetrack.client.LatestTleQuery.LatestTle;
+import com.stevenpaligo.spacetrack.client.TleQuery.Tle;
+import com.stevenpaligo.spacetrack.client.propagation.CatalogPropagator;
+import com.stevenpaligo.spacetrack.client.propagation.CatalogState;
+import com.stevenpaligo.spacetrack.client.propagation.PropagationException;
+import com.stevenpaligo.spacetrack.client.propagation.Sgp4Propagator;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Screens a catalog of element sets for close approaches between every pair of objects over a span of time, without comparing every pair at every step. The screening works in three
+ * stages:
+ *
+ * <ol>
+ * <li>Pairs whose perigee-to-apogee altitude bands do not overlap are never compared.</li>
+ * <li>At each time step the whole catalog is propagated and sorted into a uniform grid of cells, and only objects in the same or adjacent cells are compared. The linearized relative motion of
+ * each such pair is used to see whether it could come within the threshold before the next step. The cells are sized from the fastest object at that step, so a pair can't cross more than one
+ * cell between steps.</li>
+ * <li>Each remaining pair is refined with a golden-section search for the time of closest approach using the full propagator.</li>
+ * </ol>
+ *
+ * <p>
+ * The grid takes the place of the classic orbit path and time filters. It rules out the same pairs from the propagated positions themselves, so it doesn't need their special handling of
+ * nearly coplanar or nearly circular orbits.
+ * </p>
+ *
+ * <p>
+ * Propagation and the per-step comparisons run in parallel on a fork/join pool.
+ * </p>
+ *
+ * @author Steven Paligo
+ */
+@Slf4j
+public class ConjunctionScreener {
+
+  // bound used with each step's fastest object to size the grid so that no approach can be missed between steps
+  private static final double MAX_RELATIVE_ACCELERATION_KILOMETERS_PER_SECOND_SQUARED = 0.02; // twice surface gravity
+
+  // layout of the sorted grid entries: 14 bits for each cell coordinate followed by 19 bits for the object's index
+  private static final int INDEX_BITS = 19;
+  private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+  private static final int AXIS_BITS = 14;
+  private static final int AXIS_OFFSET = 1 << (AXIS_BITS - 1);
+  private static final int AXIS_MAX = (1 << AXIS_BITS) - 1;
+  private static final int MAX_CATALOG_SIZE = 1 << INDEX_BITS;
+
+  private static final double GOLDEN_RATIO = (Math.sqrt(5.0) - 1.0) / 2.0;
+  private static final double TCA_TOLERANCE_MINUTES = 1e-3 / 60.0; // 1 millisecond
+
+
+  private final CatalogPropagator catalog;
+  private final double[] perigeeHeights;
+  private final double[] apogeeHeights;
+
+  private double thresholdKilometers = 5.0;
+  private Duration step = Duration.ofSeconds(30);
+  private double altitudePaddingKilometers = 10.0;
+  private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+
+  /**
+   * Creates a screener for a catalog, using the perigee and apogee heights of each object's mean elements
+   *
+   * @param catalog The non-null catalog
+   */
+  public ConjunctionScreener(@NonNull CatalogPropagator catalog) {
+
+    this(catalog, heights(catalog, Sgp4Propagator::getPerigeeHeightKilometers), heights(catalog, Sgp4Propagator::getApogeeHeightKilometers));
+  }
+
+
+  private ConjunctionScreener(@NonNull CatalogPropagator catalog, @NonNull double[] perigeeHeights, @NonNull double[] apogeeHeights) {
+
+    // more validation
+    if (catalog.size() > MAX_CATALOG_SIZE) {
+
+      throw new IllegalArgumentException("The catalog has more than " + MAX_CATALOG_SIZE + " objects: " + catalog.size());
+    }
+
+
+    this.catalog = catalog;
+    this.perigeeHeights = perigeeHeights;
+    this.apogeeHeights = apogeeHeights;
+  }
+
+
+  /**
+   * Creates a screener from the results of a {@link com.stevenpaligo.spacetrack.client.TleQuery}, using the TLEs' perigee and apogee heights. TLEs without a catalog number or with elements
+   * the theory does not support are left out.
+   *
+   * @param tles The non-null TLEs
+   * @return The screener
+   */
+  public static ConjunctionScreener ofTles(@NonNull Collection<Tle> tles) {
+
+    return of(tles, Tle::getCatalogNumber, Sgp4Propagator::of, Tle::getPerigeeHeightKilometers, Tle::getApogeeHeightKilometers);
+  }
+
+
+  /**
+   * Creates a screener from the results of a {@link com.stevenpaligo.spacetrack.client.LatestTleQuery}, using the TLEs' perigee and apogee heights. TLEs without a catalog number or with
+   * elements the theory does not support are left out.
+   *
+   * @param tles The non-null TLEs
+   * @return The screener
+   */
+  public static ConjunctionScreener ofLatestTles(@NonNull Collection<LatestTle> tles) {
+
+    return of(tles, LatestTle::getCatalogNumber, Sgp4Propagator::of, LatestTle::getPerigeeHeightKilometers, LatestTle::getApogeeHeightKilometers);
+  }
+
+
+  private static <E> ConjunctionScreener of(Collection<E> elementSets, Function<E, Optional<Integer>> catalogNumberGetter, Function<E, Sgp4Propagator> initializer,
+      Function<E, Double> perigeeGetter, Function<E, Double> apogeeGetter) {
+
+    List<Integer> catalogNumbers = new ArrayList<>(elementSets.size());
+    List<Sgp4Propagator> propagators = new ArrayList<>(elementSets.size());
+    List<E> kept = new ArrayList<>(elementSets.size());
+
+    for (E elementSet : elementSets) {
+
+      Optional<Integer> catalogNumber = (elementSet == null) ? Optional.empty() : catalogNumberGetter.apply(elementSet);
+
+      if (!catalogNumber.isPresent()) {
+        continue;
+      }
+
+      try {
+
+        propagators.add(initializer.apply(elementSet));
+        catalogNumbers.add(catalogNumber.get());
+        kept.add(elementSet);
+
+      } catch (IllegalArgumentException e) {
+
+        log.debug("Leaving object {} out of the screening: {}", catalogNumber.get(), e.getMessage());
+      }
+    }
+
+
+    int size = kept.size();
+    double[] perigeeHeights = new double[size];
+    double[] apogeeHeights = new double[size];
+
+    for (int i = 0; i < size; i++) {
+
+      Double perigee = perigeeGetter.apply(kept.get(i));
+      Double apogee = apogeeGetter.apply(kept.get(i));
+
+      perigeeHeights[i] = (perigee == null) ? propagators.get(i).getPerigeeHeightKilometers() : perigee;
+      apogeeHeights[i] = (apogee == null) ? propagators.get(i).getApogeeHeightKilometers() : apogee;
+    }
+
+    CatalogPropagator catalog = new CatalogPropagator(catalogNumbers.stream().mapToInt(Integer::intValue).toArray(), propagators.toArray(new Sgp4Propagator[size]));
+
+    return new ConjunctionScreener(catalog, perigeeHeights, apogeeHeights);
+  }
+
+
+  private static double[] heights(@NonNull CatalogPropagator catalog, Function<Sgp4Propagator, Double> getter) {
+
+    double[] result = new double[catalog.size()];
+
+    for (int i = 0; i < result.length; i++) {
+      result[i] = getter.apply(catalog.getPropagator(i));
+    }
+
+    return result;
+  }
+
+
+  /**
+   * Sets the miss distance below which an approach is reported (5 km by default)
+   *
+   * @param thresholdKilometers The distance in kilometers (must be positive)
+   * @return This screener, for use in the builder pattern
+   */
+  public ConjunctionScreener setThresholdKilometers(double thresholdKilometers) {
+
+    // more validation
+    if (!(thresholdKilometers > 0.0) || Double.isInfinite(thresholdKilometers)) {
+
+      throw new IllegalArgumentException("The thresholdKilometers parameter is not positive: " + thresholdKilometers);
+    }
+
+
+    this.thresholdKilometers = thresholdKilometers;
+    return this;
+  }
+
+
+  /**
+   * Sets the time between the catalog-wide steps (30 seconds by default). Longer steps mean fewer propagations but larger grid cells.
+   *
+   * @param step The non-null step (at least one second)
+   * @return This screener, for use in the builder pattern
+   */
+  public ConjunctionScreener setStep(@NonNull Duration step) {
+
+    // more validation
+    if (step.compareTo(Duration.ofSeconds(1)) < 0) {
+
+      throw new IllegalArgumentException("The step parameter is less than one second: " + step);
+    }
+
+
+    this.step = step;
+    return this;
+  }
+
+
+  /**
+   * Sets how far the altitude bands are widened before checking whether two objects' bands overlap (10 km by default), to allow for the orbits changing over the span being screened
+   *
+   * @param altitudePaddingKilometers The padding in kilometers (must not be negative)
+   * @return This screener, for use in the builder pattern
+   */
+  public ConjunctionScreener setAltitudePaddingKilometers(double altitudePaddingKilometers) {
+
+    // more validation
+    if (!(altitudePaddingKilometers >= 0.0) || Double.isInfinite(altitudePaddingKilometers)) {
+
+      throw new IllegalArgumentException("The altitudePaddingKilometers parameter is negative: " + altitudePaddingKilometers);
+    }
+
+
+    this.altitudePaddingKilometers = altitudePaddingKilometers;
+    return this;
+  }
+
+
+  /**
+   * Sets the pool the screening runs on, including the catalog's propagation (the common pool by default)
+   *
+   * @param pool The non-null pool
+   * @return This screener, for use in the builder pattern
+   */
+  public ConjunctionScreener setPool(@NonNull ForkJoinPool pool) {
+
+    this.pool = pool;
+    catalog.setPool(pool);
+    return this;
+  }
+
+
+  /**
+   * Finds every close approach between two objects in a span of time
+   *
+   * @param start The non-null start of the span
+   * @param end The non-null end of the span
+   * @return The approaches closer than the threshold, ordered by time of closest approach. A pair of objects appears once per approach.
+   */
+  public List<Conjunction> screen(@NonNull Instant start, @NonNull Instant end) {
+
+    // more validation
+    if (!start.isBefore(end)) {
+
+      throw new IllegalArgumentException("The start parameter is not before the end parameter: " + start + " and " + end);
+    }
+
+
+    int size = catalog.size();
+    double stepMinutes = step.toMillis() / 60000.0;
+    double spanMinutes = Duration.between(start, end).toMillis() / 60000.0;
+    double halfStepSeconds = stepMinutes * 30.0;
+
+
+    // any pair that comes within the threshold during a step must be within this distance at the step's midpoint
+    double margin = 0.5 * MAX_RELATIVE_ACCELERATION_KILOMETERS_PER_SECOND_SQUARED * halfStepSeconds * halfStepSeconds;
+    double linearThreshold = thresholdKilometers + margin;
+    double bandPadding = thresholdKilometers + altitudePaddingKilometers;
+
+    double[] startOffsets = new double[size];
+
+    for (int i = 0; i < size; i++) {
+      startOffsets[i] = catalog.getPropagator(i).minutesSinceEpoch(start);
+    }
+
+
+    // find the candidate pairs step by step
+    CatalogState state = catalog.newState();
+    long[] entries = new long[size];
+    List<Candidate> candidates = new ArrayList<>();
+    int stepCount = (int) Math.ceil(spanMinutes / stepMinutes);
+
+    for (int stepIndex = 0; stepIndex <= stepCount; stepIndex++) {
+
+      double minutes = Math.min(stepIndex * stepMinutes, spanMinutes);
+      catalog.propagate(start.plusNanos((long) (minutes * 60e9)), state);
+
+
+      // two objects can't close faster than twice the fastest speed, which bounds how far apart a pair that approaches within half a step can be now
+      double maxSpeedSquared = 0.0;
+
+      for (int i = 0; i < size; i++) {
+
+        if (state.isValid(i)) {
+          maxSpeedSquared = Math.max(maxSpeedSquared, state.getVx(i) * state.getVx(i) + state.getVy(i) * state.getVy(i) + state.getVz(i) * state.getVz(i));
+        }
+      }
+
+      double cellSize = linearThreshold + 2.0 * Math.sqrt(maxSpeedSquared) * halfStepSeconds;
+
+      for (int i = 0; i < size; i++) {
+
+        entries[i] = state.isValid(i) ? (cellKey(cell(state.getX(i), cellSize), cell(state.getY(i), cellSize), cell(state.getZ(i), cellSize)) << INDEX_BITS) | i : Long.MAX_VALUE;
+      }
+
+      // the sort forks onto the pool of the thread that starts it, so it runs on the screening's pool
+      pool.submit(() -> Arrays.parallelSort(entries)).join();
+
+      int validCount = 0;
+
+      while (validCount < size && entries[validCount] != Long.MAX_VALUE) {
+        validCount++;
+      }
+
+      int count = validCount;
+      candidates.addAll(pool.submit(() -> IntStream.range(0, count).parallel()
+          .mapToObj(position -> neighbors(entries, count, position, state, halfStepSeconds, linearThreshold, bandPadding, minutes)).flatMap(List::stream).collect(Collectors.toList()))
+          .join());
+    }
+
+    log.debug("Refining {} candidate approaches", candidates.size());
+
+
+    // refine the candidates and keep one result per approach
+    List<Conjunction> refined = pool.submit(() -> candidates.parallelStream()
+        .map(candidate -> refine(candidate, start, startOffsets, Math.max(candidate.minutes - stepMinutes, 0.0), Math.min(candidate.minutes + stepMinutes, spanMinutes)))
+        .flatMap(conjunction -> conjunction.map(Stream::of).orElseGet(Stream::empty)).collect(Collectors.toList())).join();
+
+    Map<Long, List<Conjunction>> byPair = new HashMap<>();
+
+    for (Conjunction conjunction : refined) {
+      byPair.computeIfAbsent(((long) conjunction.getCatalogNumber1() << 32) | (conjunction.getCatalogNumber2() & 0xFFFFFFFFL), key -> new ArrayList<>()).add(conjunction);
+    }
+
+    List<Conjunction> results = new ArrayList<>();
+
+    for (List<Conjunction> approaches : byPair.values()) {
+
+      approaches.sort(Comparator.comparing(Conjunction::getTimeOfClosestApproach));
+      Conjunction current = null;
+      Instant previousTime = null;
+
+      for (Conjunction approach : approaches) {
+
+        if (previousTime != null && Duration.between(previousTime, approach.getTimeOfClosestApproach()).compareTo(step.multipliedBy(2)) <= 0) {
+
+          // the same approach found from neighboring steps
+          if (approach.getMissDistanceKilometers() < current.getMissDistanceKilometers()) {
+            current = approach;
+          }
+
+        } else {
+
+          if (current != null) {
+            results.add(current);
+          }
+
+          current = approach;
+        }
+
+        previousTime = approach.getTimeOfClosestApproach();
+      }
+
+      results.add(current);
+    }
+
+    results.sort(Comparator.comparing(Conjunction::getTimeOfClosestApproach).thenComparingInt(Conjunction::getCatalogNumber1).thenComparingInt(Conjunction::getCatalogNumber2));
+
+    return results;
+  }
+
+
+  private static int cell(double coordinate, double cellSize) {
+
+    long cell = (long) Math.floor(coordinate / cellSize) + AXIS_OFFSET;
+
+
+    return (int) Math.max(0L, Math.min(AXIS_MAX, cell)); // objects far beyond the grid share the edge cells
+  }
+
+
+  private static long cellKey(int x, int y, int z) {
+
+    return ((long) x << (2 * AXIS_BITS)) | ((long) y << AXIS_BITS) | z;
+  }
+
+
+  /**
+   * Compares the object at a position in the sorted entries with the objects after it in its own cell and with every object in the adjacent cells that sort after its cell (the adjacent
+   * cells that sort before it compare themselves with this one)
+   */
+  private List<Candidate> neighbors(long[] entries, int count, int position, CatalogState state, double halfStepSeconds, double linearThreshold, double bandPadding, double minutes) {
+
+    List<Candidate> result = null;
+    long ownKey = entries[position] >>> INDEX_BITS;
+    int i = (int) (entries[position] & INDEX_MASK);
+    int cellX = (int) (ownKey >>> (2 * AXIS_BITS));
+    int cellY = (int) ((ownKey >>> AXIS_BITS) & AXIS_MAX);
+    int cellZ = (int) (ownKey & AXIS_MAX);
+
+    for (int dx = -1; dx <= 1; dx++) {
+      for (int dy = -1; dy <= 1; dy++) {
+        for (int dz = -1; dz <= 1; dz++) {
+
+          int x = cellX + dx;
+          int y = cellY + dy;
+          int z = cellZ + dz;
+
+          if (x < 0 || y < 0 || z < 0 || x > AXIS_MAX || y > AXIS_MAX || z > AXIS_MAX) {
+            continue;
+          }
+
+          long key = cellKey(x, y, z);
+          int first;
+
+          if (key == ownKey) {
+
+            first = position + 1;
+
+          } else if (key > ownKey) {
+
+            first = firstEntry(entries, count, key);
+
+          } else {
+
+            continue;
+          }
+
+          for (int other = first; other < count && (entries[other] >>> INDEX_BITS) == key; other++) {
+
+            int j = (int) (entries[other] & INDEX_MASK);
+
+            if (mightApproach(i, j, state, halfStepSeconds, linearThreshold, bandPadding)) {
+
+              if (result == null) {
+                result = new ArrayList<>();
+              }
+
+              result.add(new Candidate(Math.min(i, j), Math.max(i, j), minutes));
+            }
+          }
+        }
+      }
+    }
+
+    return (result == null) ? Collections.emptyList() : result;
+  }
+
+
+  private static int firstEntry(long[] entries, int count, long key) {
+
+    int low = 0;
+    int high = count;
+    long target = key << INDEX_BITS;
+
+    while (low < high) {
+
+      int middle = (low + high) >>> 1;
+
+      if (entries[middle] < target) {
+
+        low = middle + 1;
+
+      } else {
+
+        high = middle;
+      }
+    }
+
+    return low;
+  }
+
+
+  private boolean mightApproach(int i, int j, CatalogState state, double halfStepSeconds, double linearThreshold, double bandPadding) {
+
+    // altitude bands
+    if (perigeeHeights[i] - bandPadding > apogeeHeights[j] + bandPadding || perigeeHeights[j] - bandPadding > apogeeHeights[i] + bandPadding) {
+      return false;
+    }
+
+
+    // closest approach of the linearized relative motion within half a step either way
+    double dx = state.getX(j) - state.getX(i);
+    double dy = state.getY(j) - state.getY(i);
+    double dz = state.getZ(j) - state.getZ(i);
+    double dvx = state.getVx(j) - state.getVx(i);
+    double dvy = state.getVy(j) - state.getVy(i);
+    double dvz = state.getVz(j) - state.getVz(i);
+    double speedSquared = dvx * dvx + dvy * dvy + dvz * dvz;
+    double tau = (speedSquared > 0.0) ? -(dx * dvx + dy * dvy + dz * dvz) / speedSquared : 0.0;
+    tau = Math.max(-halfStepSeconds, Math.min(halfStepSeconds, tau));
+
+    double mx = dx + dvx * tau;
+    double my = dy + dvy * tau;
+    double mz = dz + dvz * tau;
+
+
+    return mx * mx + my * my + mz * mz <= linearThreshold * linearThreshold;
+  }
+
+
+  private Optional<Conjunction> refine(Candidate candidate, Instant start, double[] startOffsets, double low, double high) {
+
+    Sgp4Propagator first = catalog.getPropagator(candidate.i);
+    Sgp4Propagator second = catalog.getPropagator(candidate.j);
+    double[] firstPosition = new double[3];
+    double[] firstVelocity = new double[3];
+    double[] secondPosition = new double[3];
+    double[] secondVelocity = new double[3];
+
+    try {
+
+      // golden-section search for the minimum distance
+      double a = low;
+      double b = high;
+      double c = b - GOLDEN_RATIO * (b - a);
+      double d = a + GOLDEN_RATIO * (b - a);
+      double fc = distanceSquared(first, second, startOffsets[candidate.i], startOffsets[candidate.j], c, firstPosition, firstVelocity, secondPosition, secondVelocity);
+      double fd = distanceSquared(first, second, startOffsets[candidate.i], startOffsets[candidate.j], d, firstPosition, firstVelocity, secondPosition, secondVelocity);
+
+      while (b - a > TCA_TOLERANCE_MINUTES) {
+
+        if (fc < fd) {
+
+          b = d;
+          d = c;
+          fd = fc;
+          c = b - GOLDEN_RATIO * (b - a);
+          fc = distanceSquared(first, second, startOffsets[candidate.i], startOffsets[candidate.j], c, firstPosition, firstVelocity, secondPosition, secondVelocity);
+
+        } else {
+
+          a = c;
+          c = d;
+          fc = fd;
+          d = a + GOLDEN_RATIO * (b - a);
+          fd = distanceSquared(first, second, startOffsets[candidate.i], startOffsets[candidate.j], d, firstPosition, firstVelocity, secondPosition, secondVelocity);
+        }
+      }
+
+      double tca = (a + b) / 2.0;
+      double missDistance = Math.sqrt(distanceSquared(first, second, startOffsets[candidate.i], startOffsets[candidate.j], tca, firstPosition, firstVelocity, secondPosition, secondVelocity));
+
+      if (missDistance >= thresholdKilometers) {
+        return Optional.empty();
+      }
+
+      double dvx = secondVelocity[0] - firstVelocity[0];
+      double dvy = secondVelocity[1] - firstVelocity[1];
+      double dvz = secondVelocity[2] - firstVelocity[2];
+      int catalogNumberI = catalog.getCatalogNumber(candidate.i);
+      int catalogNumberJ = catalog.getCatalogNumber(candidate.j);
+
+      return Optional.of(new Conjunction(Math.min(catalogNumberI, catalogNumberJ), Math.max(catalogNumberI, catalogNumberJ), start.plusNanos((long) (tca * 60e9)), missDistance,
+          Math.sqrt(dvx * dvx + dvy * dvy + dvz * dvz)));
+
+    } catch (PropagationException e) {
+
+      return Optional.empty();
+    }
+  }
+
+
+  /**
+   * Propagates both objects into the given arrays and returns the square of the distance between them
+   */
+  private static double distanceSquared(Sgp4Propagator first, Sgp4Propagator second, double firstOffset, double secondOffset, double minutes, double[] firstPosition,
+      double[] firstVelocity, double[] secondPosition, double[] secondVelocity) {
+
+    first.propagate(firstOffset + minutes, firstPosition, firstVelocity);
+    second.propagate(secondOffset + minutes, secondPosition, secondVelocity);
+
+    double dx = secondPosition[0] - firstPosition[0];
+    double dy = secondPosition[1] - firstPosition[1];
+    double dz = secondPosition[2] - firstPosition[2];
+
+
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+
+  /**
+   * A pair of objects (by index) that might approach each other near a step
+   */
+  private static class Candidate {
+
+    private final int i;
+    private final int j;
+    private final double minutes;
+
+
+    private Candidate(int i, int j, double minutes) {
+
+      this.i = i;
+      this.j = j;
+      this.minutes = minutes;
+    }
+  }
+}
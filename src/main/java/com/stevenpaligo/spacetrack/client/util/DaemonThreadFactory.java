@@ -0,0 +1,48 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.util;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.NonNull;
+
+/**
+ * Creates numbered daemon threads, so that the library's background threads never keep the JVM running
+ * 
+ * @author Steven Paligo
+ */
+public class DaemonThreadFactory implements ThreadFactory {
+
+  private final String namePrefix;
+  private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+
+  /**
+   * @param namePrefix The non-null start of each thread's name, which is followed by the thread's number (e.g. <code>spacetrack-polling-scheduler-</code>)
+   */
+  public DaemonThreadFactory(@NonNull String namePrefix) {
+
+    this.namePrefix = namePrefix;
+  }
+
+
+  @Override
+  public Thread newThread(Runnable runnable) {
+
+    Thread thread = new Thread(runnable, namePrefix + threadNumber.getAndIncrement());
+    thread.setDaemon(true);
+
+    return thread;
+  }
+}
@@ -0,0 +1,446 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+import lombok.NonNull;
+
+/**
+ * A hash map from primitive {@code int} keys (such as NORAD catalog numbers) to non-null values. Keys are stored unboxed in one array and values in another, using open addressing with linear
+ * probing, so a lookup touches one or two cache lines and a map of 60,000 objects needs no per-entry objects. Removal shifts entries back rather than leaving tombstones, so the map doesn't degrade
+ * under churn.
+ *
+ * <p>
+ * The map is not thread-safe. The order of iteration is unspecified.
+ * </p>
+ *
+ * @param <V> The type of the values
+ * @author Steven Paligo
+ */
+public class IntObjectMap<V> {
+
+  private static final int MINIMUM_CAPACITY = 8;
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+
+  /**
+   * Receives each entry of a map
+   *
+   * @param <V> The type of the values
+   * @author Steven Paligo
+   */
+  @FunctionalInterface
+  public static interface EntryConsumer<V> {
+
+    public void accept(int key, V value);
+  }
+
+
+  private int[] keys;
+  private Object[] values; // a null value marks an empty slot
+  private int mask;
+  private int resizeThreshold;
+  private int size = 0;
+
+
+  public IntObjectMap() {
+
+    this(MINIMUM_CAPACITY);
+  }
+
+
+  /**
+   * Creates a map that holds the expected number of entries without resizing
+   *
+   * @param expectedSize The non-negative expected number of entries
+   */
+  public IntObjectMap(int expectedSize) {
+
+    // more validation
+    if (expectedSize < 0) {
+
+      throw new IllegalArgumentException("The expected size must not be negative");
+    }
+
+
+    allocate(capacityFor(expectedSize));
+  }
+
+
+  /**
+   * Creates a copy of a map
+   *
+   * @param map The non-null map to copy
+   */
+  public IntObjectMap(@NonNull IntObjectMap<? extends V> map) {
+
+    this.keys = map.keys.clone();
+    this.values = map.values.clone();
+    this.mask = map.mask;
+    this.resizeThreshold = map.resizeThreshold;
+    this.size = map.size;
+  }
+
+
+  private static int capacityFor(int expectedSize) {
+
+    // keep the load factor at or below one half
+    long capacity = Math.max(MINIMUM_CAPACITY, Long.highestOneBit(Math.max(1L, expectedSize * 2L - 1L)) << 1);
+
+    return (int) Math.min(MAXIMUM_CAPACITY, capacity);
+  }
+
+
+  private void allocate(int capacity) {
+
+    keys = new int[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+    resizeThreshold = capacity / 2;
+  }
+
+
+  /**
+   * Spreads the bits of a key, since catalog numbers are dense and would otherwise cluster
+   */
+  static int hash(int key) {
+
+    int hash = key * 0x9E3779B9;
+
+    return hash ^ (hash >>> 16);
+  }
+
+
+  /**
+   * Finds the slot holding a key
+   *
+   * @return The slot, or the one's complement of the empty slot where the key would go
+   */
+  private int find(int key) {
+
+    int slot = hash(key) & mask;
+
+    while (values[slot] != null) {
+
+      if (keys[slot] == key) {
+        return slot;
+      }
+
+      slot = (slot + 1) & mask;
+    }
+
+    return ~slot;
+  }
+
+
+  /**
+   * Gets the value for a key
+   *
+   * @param key The key
+   * @return The value, or null if the key isn't in the map
+   */
+  @SuppressWarnings("unchecked")
+  public V get(int key) {
+
+    int slot = find(key);
+
+    return (slot >= 0) ? (V) values[slot] : null;
+  }
+
+
+  /**
+   * Gets the value for a key
+   *
+   * @param key The key
+   * @param defaultValue The value to return if the key isn't in the map
+   * @return The value, or the default value if the key isn't in the map
+   */
+  public V getOrDefault(int key, V defaultValue) {
+
+    V value = get(key);
+
+    return (value != null) ? value : defaultValue;
+  }
+
+
+  public boolean containsKey(int key) {
+
+    return find(key) >= 0;
+  }
+
+
+  /**
+   * Associates a value with a key, replacing any value it already had
+   *
+   * @param key The key
+   * @param value The non-null value
+   * @return The previous value, or null if the key wasn't in the map
+   */
+  @SuppressWarnings("unchecked")
+  public V put(int key, @NonNull V value) {
+
+    int slot = find(key);
+
+    if (slot >= 0) {
+
+      V previous = (V) values[slot];
+      values[slot] = value;
+
+      return previous;
+    }
+
+
+    insert(~slot, key, value);
+
+    return null;
+  }
+
+
+  /**
+   * Associates a value with a key if the key isn't in the map
+   *
+   * @param key The key
+   * @param value The non-null value
+   * @return The value already associated with the key, or null if the key wasn't in the map (and now has the new value)
+   */
+  @SuppressWarnings("unchecked")
+  public V putIfAbsent(int key, @NonNull V value) {
+
+    int slot = find(key);
+
+    if (slot >= 0) {
+      return (V) values[slot];
+    }
+
+
+    insert(~slot, key, value);
+
+    return null;
+  }
+
+
+  /**
+   * Gets the value for a key, computing and adding it if the key isn't in the map
+   *
+   * @param key The key
+   * @param function The non-null function that computes the value, which may return null to leave the map unchanged
+   * @return The existing or computed value, or null if the function returned null
+   */
+  @SuppressWarnings("unchecked")
+  public V computeIfAbsent(int key, @NonNull IntFunction<? extends V> function) {
+
+    int slot = find(key);
+
+    if (slot >= 0) {
+      return (V) values[slot];
+    }
+
+
+    V value = function.apply(key);
+
+    if (value != null) {
+
+      // the function may have changed the map
+      slot = find(key);
+
+      if (slot >= 0) {
+
+        values[slot] = value;
+
+      } else {
+
+        insert(~slot, key, value);
+      }
+    }
+
+    return value;
+  }
+
+
+  private void insert(int slot, int key, Object value) {
+
+    keys[slot] = key;
+    values[slot] = value;
+    size++;
+
+    if (size > resizeThreshold) {
+      resize();
+    }
+  }
+
+
+  private void resize() {
+
+    if (keys.length == MAXIMUM_CAPACITY) {
+
+      if (size == MAXIMUM_CAPACITY - 1) {
+
+        throw new IllegalStateException("The map is full");
+      }
+
+      return;
+    }
+
+
+    int[] oldKeys = keys;
+    Object[] oldValues = values;
+
+    allocate(keys.length * 2);
+
+    for (int i = 0; i < oldKeys.length; i++) {
+
+      if (oldValues[i] != null) {
+
+        int slot = hash(oldKeys[i]) & mask;
+
+        while (values[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+
+  /**
+   * Removes a key from the map
+   *
+   * @param key The key
+   * @return The value the key had, or null if the key wasn't in the map
+   */
+  @SuppressWarnings("unchecked")
+  public V remove(int key) {
+
+    int slot = find(key);
+
+    if (slot < 0) {
+      return null;
+    }
+
+
+    V previous = (V) values[slot];
+    size--;
+
+
+    // shift later entries of the probe sequence back into the gap, so lookups never stop short of them
+    int gap = slot;
+    int next = slot;
+
+    while (true) {
+
+      next = (next + 1) & mask;
+
+      if (values[next] == null) {
+        break;
+      }
+
+      int home = hash(keys[next]) & mask;
+      boolean reachable = (next > gap) ? (home > gap && home <= next) : (home > gap || home <= next);
+
+      if (!reachable) {
+
+        keys[gap] = keys[next];
+        values[gap] = values[next];
+        gap = next;
+      }
+    }
+
+    values[gap] = null;
+
+    return previous;
+  }
+
+
+  public int size() {
+
+    return size;
+  }
+
+
+  public boolean isEmpty() {
+
+    return size == 0;
+  }
+
+
+  public void clear() {
+
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+
+  /**
+   * Passes each entry to an action
+   *
+   * @param action The non-null action, which must not change the map
+   */
+  @SuppressWarnings("unchecked")
+  public void forEach(@NonNull EntryConsumer<? super V> action) {
+
+    for (int i = 0; i < keys.length; i++) {
+
+      if (values[i] != null) {
+        action.accept(keys[i], (V) values[i]);
+      }
+    }
+  }
+
+
+  /**
+   * Gets the keys
+   *
+   * @return A new array of the keys, in no particular order
+   */
+  public int[] keys() {
+
+    int[] result = new int[size];
+    int count = 0;
+
+    for (int i = 0; i < keys.length; i++) {
+
+      if (values[i] != null) {
+        result[count++] = keys[i];
+      }
+    }
+
+    return result;
+  }
+
+
+  /**
+   * Gets the values
+   *
+   * @return A new list of the values, in no particular order
+   */
+  @SuppressWarnings("unchecked")
+  public List<V> values() {
+
+    List<V> result = new ArrayList<>(size);
+
+    for (int i = 0; i < keys.length; i++) {
+
+      if (values[i] != null) {
+        result.add((V) values[i]);
+      }
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,303 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import lombok.NonNull;
+
+/**
+ * A hash set of primitive {@code int} values (such as NORAD catalog numbers), stored unboxed in one array using open addressing with linear probing. See {@link IntObjectMap}.
+ *
+ * <p>
+ * The set is not thread-safe. The order of iteration is unspecified.
+ * </p>
+ *
+ * @author Steven Paligo
+ */
+public class IntSet {
+
+  private static final int MINIMUM_CAPACITY = 8;
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+  private static final int EMPTY = 0; // zero marks an empty slot, so zero itself is tracked separately
+
+  private int[] values;
+  private int mask;
+  private int resizeThreshold;
+  private int size = 0;
+  private boolean containsEmpty = false;
+
+
+  public IntSet() {
+
+    this(MINIMUM_CAPACITY);
+  }
+
+
+  /**
+   * Creates a set that holds the expected number of values without resizing
+   *
+   * @param expectedSize The non-negative expected number of values
+   */
+  public IntSet(int expectedSize) {
+
+    // more validation
+    if (expectedSize < 0) {
+
+      throw new IllegalArgumentException("The expected size must not be negative");
+    }
+
+
+    long capacity = Math.max(MINIMUM_CAPACITY, Long.highestOneBit(Math.max(1L, expectedSize * 2L - 1L)) << 1);
+    allocate((int) Math.min(MAXIMUM_CAPACITY, capacity));
+  }
+
+
+  /**
+   * Creates a set of values
+   *
+   * @param values The non-null values, which may contain duplicates
+   * @return The set
+   */
+  public static IntSet of(@NonNull int... values) {
+
+    IntSet set = new IntSet(values.length);
+
+    for (int value : values) {
+      set.add(value);
+    }
+
+    return set;
+  }
+
+
+  private void allocate(int capacity) {
+
+    values = new int[capacity];
+    mask = capacity - 1;
+    resizeThreshold = capacity / 2;
+  }
+
+
+  private int find(int value) {
+
+    int slot = IntObjectMap.hash(value) & mask;
+
+    while (values[slot] != EMPTY) {
+
+      if (values[slot] == value) {
+        return slot;
+      }
+
+      slot = (slot + 1) & mask;
+    }
+
+    return ~slot;
+  }
+
+
+  public boolean contains(int value) {
+
+    return (value == EMPTY) ? containsEmpty : (find(value) >= 0);
+  }
+
+
+  /**
+   * Adds a value to the set
+   *
+   * @param value The value
+   * @return True if the value was added, or false if it was already in the set
+   */
+  public boolean add(int value) {
+
+    if (value == EMPTY) {
+
+      boolean added = !containsEmpty;
+      containsEmpty = true;
+
+      if (added) {
+        size++;
+      }
+
+      return added;
+    }
+
+
+    int slot = find(value);
+
+    if (slot >= 0) {
+      return false;
+    }
+
+
+    values[~slot] = value;
+    size++;
+
+    if (size > resizeThreshold) {
+      resize();
+    }
+
+    return true;
+  }
+
+
+  private void resize() {
+
+    if (values.length == MAXIMUM_CAPACITY) {
+      return;
+    }
+
+
+    int[] oldValues = values;
+
+    allocate(values.length * 2);
+
+    for (int value : oldValues) {
+
+      if (value != EMPTY) {
+
+        int slot = IntObjectMap.hash(value) & mask;
+
+        while (values[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+
+        values[slot] = value;
+      }
+    }
+  }
+
+
+  /**
+   * Removes a value from the set
+   *
+   * @param value The value
+   * @return True if the value was removed, or false if it wasn't in the set
+   */
+  public boolean remove(int value) {
+
+    if (value == EMPTY) {
+
+      boolean removed = containsEmpty;
+      containsEmpty = false;
+
+      if (removed) {
+        size--;
+      }
+
+      return removed;
+    }
+
+
+    int slot = find(value);
+
+    if (slot < 0) {
+      return false;
+    }
+
+    size--;
+
+
+    // shift later values of the probe sequence back into the gap (see IntObjectMap.remove)
+    int gap = slot;
+    int next = slot;
+
+    while (true) {
+
+      next = (next + 1) & mask;
+
+      if (values[next] == EMPTY) {
+        break;
+      }
+
+      int home = IntObjectMap.hash(values[next]) & mask;
+      boolean reachable = (next > gap) ? (home > gap && home <= next) : (home > gap || home <= next);
+
+      if (!reachable) {
+
+        values[gap] = values[next];
+        gap = next;
+      }
+    }
+
+    values[gap] = EMPTY;
+
+    return true;
+  }
+
+
+  public int size() {
+
+    return size;
+  }
+
+
+  public boolean isEmpty() {
+
+    return size == 0;
+  }
+
+
+  public void clear() {
+
+    Arrays.fill(values, EMPTY);
+    containsEmpty = false;
+    size = 0;
+  }
+
+
+  /**
+   * Passes each value to an action
+   *
+   * @param action The non-null action, which must not change the set
+   */
+  public void forEach(@NonNull IntConsumer action) {
+
+    if (containsEmpty) {
+      action.accept(EMPTY);
+    }
+
+    for (int value : values) {
+
+      if (value != EMPTY) {
+        action.accept(value);
+      }
+    }
+  }
+
+
+  /**
+   * Gets the values
+   *
+   * @return A new array of the values, in no particular order
+   */
+  public int[] toArray() {
+
+    int[] result = new int[size];
+    int count = 0;
+
+    if (containsEmpty) {
+      result[count++] = EMPTY;
+    }
+
+    for (int value : values) {
+
+      if (value != EMPTY) {
+        result[count++] = value;
+      }
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,474 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+import com.stevenpaligo.spacetrack.client.exception.MalformedResponseException;
+import lombok.NonNull;
+
+/**
+ * A {@link Reader} that checks and repairs JSON as it is read, so that a response can be streamed into a parser without first being copied in full. The following are repaired:
+ * 
+ * <ul>
+ * <li>Raw control characters inside strings are escaped</li>
+ * <li>Invalid escape sequences inside strings are made literal by escaping the backslash</li>
+ * <li>Trailing commas before a closing bracket or brace are removed</li>
+ * <li>A truncated document is completed by closing the open string, arrays, and objects. A number or literal that was cut off is dropped, and an object member that was cut off before its
+ * value is given a null value.</li>
+ * </ul>
+ * 
+ * <p>
+ * A closing bracket or brace that doesn't match the open array or object cannot be repaired safely, so it is rejected with a {@link MalformedResponseException}.
+ * </p>
+ * 
+ * @author Steven Paligo
+ */
+public class JsonSanitizingReader extends Reader {
+
+  private static final int MAX_DEPTH = 1000;
+  private static final int MAX_LITERAL_LENGTH = 256;
+  private static final int MAX_PENDING_WHITESPACE = 64;
+  private static final Pattern completeLiteral = Pattern.compile("true|false|null|-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
+  private static final char[] hexDigits = "0123456789abcdef".toCharArray();
+
+
+  private final Reader in;
+  private final char[] inputBuffer = new char[8192];
+
+
+  // repaired characters waiting to be read
+  private char[] output = new char[8192 + 64];
+  private int outputStart = 0;
+  private int outputEnd = 0;
+
+
+  // what is expected next in an array or object, or at the top level
+  private static final int EXPECT_KEY = 0;
+  private static final int EXPECT_COLON = 1;
+  private static final int EXPECT_VALUE = 2;
+  private static final int AFTER_VALUE = 3;
+
+
+  // parsing state
+  private char[] closers = new char[16];
+  private int[] expectations = new int[17]; // index 0 is the top level, index n is the array or object closed by closers[n - 1]
+  private int depth = 0;
+  private boolean inString = false;
+  private boolean inKey = false;
+  private final StringBuilder escape = new StringBuilder(6); // an escape sequence that hasn't been validated yet
+  private final StringBuilder literal = new StringBuilder(); // a number or literal that may still be cut off
+  private boolean pendingComma = false;
+  private final StringBuilder pendingWhitespace = new StringBuilder();
+  private long offset = 0L;
+  private boolean eof = false;
+
+
+  public JsonSanitizingReader(@NonNull Reader in) {
+
+    this.in = in;
+  }
+
+
+  @Override
+  public int read(char[] buffer, int offset, int length) throws IOException {
+
+    if (length == 0) {
+
+      return 0;
+    }
+
+
+    // repair more input until there is something to return
+    while (outputStart == outputEnd) {
+
+      if (eof) {
+
+        return -1;
+      }
+
+      fill();
+    }
+
+
+    int count = Math.min(length, outputEnd - outputStart);
+    System.arraycopy(output, outputStart, buffer, offset, count);
+    outputStart += count;
+
+    return count;
+  }
+
+
+  private void fill() throws IOException {
+
+    outputStart = 0;
+    outputEnd = 0;
+
+    int count = in.read(inputBuffer, 0, inputBuffer.length);
+
+    if (count < 0) {
+
+      finish();
+      eof = true;
+      return;
+    }
+
+    for (int i = 0; i < count; i++) {
+
+      process(inputBuffer[i]);
+      offset++;
+    }
+  }
+
+
+  private void process(char c) throws IOException {
+
+    if (inString) {
+
+      processStringCharacter(c);
+      return;
+    }
+
+
+    // numbers and literals are held back until they end, so that one cut off by truncation can be dropped
+    if (isLiteralCharacter(c)) {
+
+      if (literal.length() == MAX_LITERAL_LENGTH) {
+
+        throw new MalformedResponseException("The Space-Track response has a value longer than " + MAX_LITERAL_LENGTH + " characters", offset);
+      }
+
+      literal.append(c);
+      return;
+    }
+
+    endLiteral();
+
+
+    switch (c) {
+
+      case ' ':
+      case '\t':
+      case '\n':
+      case '\r':
+
+        if (pendingComma) {
+
+          // whitespace between tokens doesn't matter, so only a little is kept
+          if (pendingWhitespace.length() < MAX_PENDING_WHITESPACE) {
+
+            pendingWhitespace.append(c);
+          }
+
+        } else {
+
+          emit(c);
+        }
+
+        return;
+
+
+      case ',':
+
+        flushPendingComma();
+        pendingComma = true;
+        expect(isInObject() ? EXPECT_KEY : EXPECT_VALUE);
+        return;
+
+
+      case '}':
+      case ']':
+
+        if (depth == 0 || closers[depth - 1] != c) {
+
+          throw new MalformedResponseException("Unexpected '" + c + "' in the Space-Track response", offset);
+        }
+
+        depth--;
+        pendingComma = false; // a trailing comma is dropped, but the whitespace after it is kept
+        emit(pendingWhitespace);
+        pendingWhitespace.setLength(0);
+        emit(c);
+        return;
+
+
+      case '{':
+      case '[':
+
+        flushPendingComma();
+        push((c == '{') ? '}' : ']');
+        emit(c);
+        return;
+
+
+      case '"':
+
+        flushPendingComma();
+        inString = true;
+        inKey = (expectations[depth] == EXPECT_KEY);
+        emit(c);
+        return;
+
+
+      case ':':
+
+        flushPendingComma();
+        expect(EXPECT_VALUE);
+        emit(c);
+        return;
+
+
+      default:
+
+        flushPendingComma();
+        emit(c);
+    }
+  }
+
+
+  private void processStringCharacter(char c) throws IOException {
+
+    // continue an escape sequence
+    if (escape.length() > 0) {
+
+      escape.append(c);
+
+      if (escape.length() == 2) {
+
+        switch (c) {
+
+          case '"':
+          case '\\':
+          case '/':
+          case 'b':
+          case 'f':
+          case 'n':
+          case 'r':
+          case 't':
+
+            emit(escape);
+            escape.setLength(0);
+            return;
+
+
+          case 'u':
+
+            return; // wait for the hex digits
+
+
+          default:
+
+            // not a valid escape, so make the backslash literal and process the character normally
+            escape.setLength(0);
+            emit('\\');
+            emit('\\');
+            processStringCharacter(c);
+            return;
+        }
+      }
+
+
+      // a unicode escape sequence
+      if (Character.digit(c, 16) < 0) {
+
+        // not a valid escape, so make the backslash literal and process the rest normally
+        String rest = escape.substring(1, escape.length() - 1);
+        escape.setLength(0);
+        emit('\\');
+        emit('\\');
+        emit(rest);
+        processStringCharacter(c);
+
+      } else if (escape.length() == 6) {
+
+        emit(escape);
+        escape.setLength(0);
+      }
+
+      return;
+    }
+
+
+    // regular string characters
+    if (c == '\\') {
+
+      escape.append(c);
+
+    } else if (c == '"') {
+
+      inString = false;
+      expect(inKey ? EXPECT_COLON : AFTER_VALUE);
+      emit(c);
+
+    } else if (c < 0x20) {
+
+      // control characters must be escaped
+      emit('\\');
+      emit('u');
+      emit('0');
+      emit('0');
+      emit(hexDigits[c >> 4]);
+      emit(hexDigits[c & 0xF]);
+
+    } else {
+
+      emit(c);
+    }
+  }
+
+
+  /**
+   * Completes a truncated document at the end of the input
+   */
+  private void finish() {
+
+    if (inString) {
+
+      if (escape.length() > 0) {
+
+        // an unfinished escape sequence becomes literal text
+        String rest = escape.substring(1);
+        escape.setLength(0);
+        emit('\\');
+        emit('\\');
+        emit(rest);
+      }
+
+      emit('"');
+      inString = false;
+      expect(inKey ? EXPECT_COLON : AFTER_VALUE);
+    }
+
+    if (completeLiteral.matcher(literal).matches()) {
+
+      endLiteral();
+
+    } else {
+
+      literal.setLength(0);
+    }
+
+    pendingComma = false;
+    emit(pendingWhitespace);
+    pendingWhitespace.setLength(0);
+
+    // give an object member that was cut off before its value a null value
+    if (isInObject()) {
+
+      if (expectations[depth] == EXPECT_COLON) {
+
+        emit(":null");
+
+      } else if (expectations[depth] == EXPECT_VALUE) {
+
+        emit("null");
+      }
+    }
+
+    while (depth > 0) {
+
+      emit(closers[--depth]);
+    }
+  }
+
+
+  private void endLiteral() {
+
+    if (literal.length() > 0) {
+
+      flushPendingComma();
+      emit(literal);
+      literal.setLength(0);
+      expect(AFTER_VALUE);
+    }
+  }
+
+
+  private static boolean isLiteralCharacter(char c) {
+
+    return ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) || ((c >= '0') && (c <= '9')) || (c == '-') || (c == '+') || (c == '.');
+  }
+
+
+  private boolean isInObject() {
+
+    return (depth > 0) && (closers[depth - 1] == '}');
+  }
+
+
+  private void expect(int expectation) {
+
+    expectations[depth] = expectation;
+  }
+
+
+  private void flushPendingComma() {
+
+    if (pendingComma) {
+
+      emit(',');
+      emit(pendingWhitespace);
+      pendingWhitespace.setLength(0);
+      pendingComma = false;
+    }
+  }
+
+
+  private void push(char closer) throws IOException {
+
+    if (depth == MAX_DEPTH) {
+
+      throw new MalformedResponseException("The Space-Track response is nested more than " + MAX_DEPTH + " levels deep", offset);
+    }
+
+    if (depth == closers.length) {
+
+      closers = Arrays.copyOf(closers, closers.length * 2);
+      expectations = Arrays.copyOf(expectations, closers.length + 1);
+    }
+
+    expect(AFTER_VALUE); // once the new array or object is closed
+    closers[depth++] = closer;
+    expect((closer == '}') ? EXPECT_KEY : EXPECT_VALUE);
+  }
+
+
+  private void emit(char c) {
+
+    if (outputEnd == output.length) {
+
+      output = Arrays.copyOf(output, output.length * 2);
+    }
+
+    output[outputEnd++] = c;
+  }
+
+
+  private void emit(CharSequence characters) {
+
+    for (int i = 0; i < characters.length(); i++) {
+
+      emit(characters.charAt(i));
+    }
+  }
+
+
+  @Override
+  public void close() throws IOException {
+
+    in.close();
+  }
+}
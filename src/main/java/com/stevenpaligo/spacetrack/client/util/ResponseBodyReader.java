@@ -0,0 +1,162 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import com.stevenpaligo.spacetrack.client.exception.EmptyResponseException;
+import com.stevenpaligo.spacetrack.client.exception.ErrorResponseException;
+import com.stevenpaligo.spacetrack.client.exception.MalformedResponseException;
+import lombok.NonNull;
+
+/**
+ * Opens the body of a <a href="https://www.space-track.org/">Space-Track.org</a> query response for streaming, after checking that it contains query results.
+ * 
+ * <p>
+ * Space-Track.org reports some errors with a successful status code and an HTML page or a JSON object in place of the results. Query results are always a JSON array, so the content type and the first
+ * character of the body are enough to tell them apart without reading the rest of a potentially very large response. Only error responses are buffered, and only up to a small limit.
+ * </p>
+ * 
+ * @author Steven Paligo
+ */
+public class ResponseBodyReader {
+
+  /**
+   * The maximum number of characters of an error response that are kept
+   */
+  public static final int MAX_ERROR_CONTENT_LENGTH = 4096;
+
+  private static final Charset charsetUtf8 = Charset.forName("UTF-8");
+  private static final Pattern charsetPattern = Pattern.compile(";\\s*charset\\s*=\\s*\"?([^\";\\s]+)", Pattern.CASE_INSENSITIVE);
+  private static final Pattern titlePattern = Pattern.compile("<title[^>]*>(.*?)</title", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+
+  private ResponseBodyReader() {
+
+    // prevent instantiation
+  }
+
+
+  /**
+   * Opens a response body for reading query results
+   * 
+   * @param inputStream The non-null response body
+   * @param contentType The non-null value of the response's <code>Content-Type</code> header, if it had one
+   * @return A reader positioned at the opening bracket of the results array
+   * @throws EmptyResponseException The body is empty or contains only whitespace
+   * @throws ErrorResponseException The body is an HTML page or a JSON object
+   * @throws MalformedResponseException The body is something else that isn't a JSON array
+   * @throws IOException The body could not be read
+   */
+  public static Reader open(@NonNull InputStream inputStream, @NonNull Optional<String> contentType) throws IOException {
+
+    PushbackReader reader = new PushbackReader(new InputStreamReader(inputStream, getCharset(contentType)), 1);
+
+
+    // find the first significant character
+    int first;
+    long offset = 0L;
+
+    do {
+
+      first = reader.read();
+      offset++;
+
+    } while (first >= 0 && (Character.isWhitespace(first) || first == '\uFEFF')); // skip whitespace and a byte order mark
+
+    if (first < 0) {
+
+      throw new EmptyResponseException("Space-Track returned an empty response");
+    }
+
+
+    // results are always an array
+    boolean html = contentType.isPresent() && contentType.get().toLowerCase(Locale.ROOT).contains("html");
+
+    if (first == '[' && !html) {
+
+      reader.unread(first);
+      return reader;
+    }
+
+
+    // anything else is an error, so keep the beginning of it to explain what went wrong
+    String content = readContent((char) first, reader);
+
+    if (html || first == '<') {
+
+      Matcher titleMatcher = titlePattern.matcher(content);
+      String title = titleMatcher.find() ? titleMatcher.group(1).replaceAll("\\s+", " ").trim() : "";
+
+      throw new ErrorResponseException("Space-Track returned an error page" + (title.isEmpty() ? "" : ": " + title), contentType, content);
+    }
+
+    if (first == '{') {
+
+      throw new ErrorResponseException("Space-Track returned an error: " + content, contentType, content);
+    }
+
+    throw new MalformedResponseException("The Space-Track response is not a JSON array", offset - 1);
+  }
+
+
+  private static Charset getCharset(Optional<String> contentType) {
+
+    if (contentType.isPresent()) {
+
+      Matcher matcher = charsetPattern.matcher(contentType.get());
+
+      if (matcher.find()) {
+
+        try {
+
+          return Charset.forName(matcher.group(1));
+
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+
+          // fall through to the default
+        }
+      }
+    }
+
+    return charsetUtf8;
+  }
+
+
+  private static String readContent(char first, Reader reader) throws IOException {
+
+    StringBuilder content = new StringBuilder(MAX_ERROR_CONTENT_LENGTH);
+    content.append(first);
+
+    char[] buffer = new char[1024];
+    int count;
+
+    while (content.length() < MAX_ERROR_CONTENT_LENGTH && (count = reader.read(buffer, 0, Math.min(buffer.length, MAX_ERROR_CONTENT_LENGTH - content.length()))) >= 0) {
+
+      content.append(buffer, 0, count);
+    }
+
+    return content.toString();
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.util;
+
+/**
+ * How much checking and repair is done on the JSON in <a href="https://www.space-track.org/">Space-Track.org</a> responses before it is converted into result objects
+ * 
+ * @author Steven Paligo
+ */
+public enum SanitizationMode {
+
+  /**
+   * No repairs are made. The response is parsed as it arrives and any malformed JSON fails the query. This is the fastest mode and is appropriate when responses are known to be well-formed.
+   */
+  STRICT,
+
+  /**
+   * The response is repaired as it streams into the parser by a {@link JsonSanitizingReader}, which never holds more than a small buffer of the response
+   */
+  STREAMING,
+
+  /**
+   * The whole response is repaired by <a href="https://github.com/OWASP/json-sanitizer">json-sanitizer</a> before parsing, which makes a second full-size copy of it. This is the most forgiving mode and
+   * was the only behavior before the other modes were added.
+   */
+  FULL_BODY
+}
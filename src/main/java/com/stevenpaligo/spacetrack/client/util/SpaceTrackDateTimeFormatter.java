@@ -1,6 +1,7 @@
 package com.stevenpaligo.spacetrack.client.util;
 
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.Date;
 import org.threeten.extra.scale.TaiInstant;
 import org.threeten.extra.scale.UtcInstant;
@@ -127,4 +128,17 @@ public class SpaceTrackDateTimeFormatter {
 
     return format(instant.toUtcInstant());
   }
+
+
+  /**
+   * Converts a UTC string in the format used by SpaceTrack to a UTC instant
+   * 
+   * @param value A non-null string in the format <code>yyyy-MM-dd HH:mm:ss.SSS</code> (the fractional seconds may have any number of digits or be left off)
+   * @return The UTC instant corresponding to the string
+   * @throws DateTimeParseException The string is not in the format used by SpaceTrack
+   */
+  public static UtcInstant parse(@NonNull String value) {
+
+    return UtcInstant.parse(value.trim().replace(' ', 'T') + "Z");
+  }
 }
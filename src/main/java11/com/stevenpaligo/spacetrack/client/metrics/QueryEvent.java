@@ -0,0 +1,142 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.metrics;
+
+import java.time.Duration;
+import java.util.Optional;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A Java Flight Recorder event spanning one request to <a href="https://www.space-track.org/">Space-Track.org</a>. This class is compiled for Java 11 apart from the rest of the library, and
+ * {@link FlightRecorderSupport} only loads it by name, so that the library still runs on a JVM without Flight Recorder.
+ * 
+ * @author Steven Paligo
+ */
+@Name("com.stevenpaligo.spacetrack.Query")
+@Label("Space-Track Query")
+@Description("A request sent to Space-Track.org")
+@Category({"Space-Track"})
+@StackTrace(false)
+class QueryEvent extends Event {
+
+  @Label("Query Class")
+  String queryClass;
+
+  @Label("Query String Hash")
+  @Description("Hash code of the query URL, for grouping identical queries without recording the URL")
+  int queryStringHash;
+
+  @Label("Rate Limit Wait")
+  @Timespan(Timespan.NANOSECONDS)
+  long rateLimitWait;
+
+  @Label("Connect")
+  @Timespan(Timespan.NANOSECONDS)
+  long connect;
+
+  @Label("Send Request")
+  @Timespan(Timespan.NANOSECONDS)
+  long sendRequest;
+
+  @Label("Time to First Byte")
+  @Timespan(Timespan.NANOSECONDS)
+  long timeToFirstByte;
+
+  @Label("Download")
+  @Timespan(Timespan.NANOSECONDS)
+  long download;
+
+  @Label("Sanitize")
+  @Timespan(Timespan.NANOSECONDS)
+  long sanitize;
+
+  @Label("Bind")
+  @Timespan(Timespan.NANOSECONDS)
+  long bind;
+
+  @Label("Bytes Received")
+  @DataAmount(DataAmount.BYTES)
+  long bytesReceived;
+
+  @Label("Result Count")
+  int resultCount;
+
+  @Label("Successful")
+  boolean successful;
+
+  @Label("Error")
+  String error;
+
+  @Label("Failed Phase")
+  String failedPhase;
+
+
+  /**
+   * @return A started event, or null if the event is not being recorded
+   */
+  static Object beginIfEnabled() {
+
+    QueryEvent event = new QueryEvent();
+
+    if (!event.isEnabled()) {
+
+      return null;
+    }
+
+    event.begin();
+    return event;
+  }
+
+
+  static void commit(Object handle, QueryObservation observation) {
+
+    QueryEvent event = (QueryEvent) handle;
+    event.end();
+
+    if (!event.shouldCommit()) {
+
+      return;
+    }
+
+    event.queryClass = observation.getQueryClass();
+    event.queryStringHash = observation.getQueryString().hashCode();
+    event.rateLimitWait = nanos(observation.getPhaseDuration(QueryPhase.RATE_LIMIT_WAIT));
+    event.connect = nanos(observation.getPhaseDuration(QueryPhase.CONNECT));
+    event.sendRequest = nanos(observation.getPhaseDuration(QueryPhase.SEND_REQUEST));
+    event.timeToFirstByte = nanos(observation.getPhaseDuration(QueryPhase.TIME_TO_FIRST_BYTE));
+    event.download = nanos(observation.getPhaseDuration(QueryPhase.DOWNLOAD));
+    event.sanitize = nanos(observation.getPhaseDuration(QueryPhase.SANITIZE));
+    event.bind = nanos(observation.getPhaseDuration(QueryPhase.BIND));
+    event.bytesReceived = observation.getBytesReceived();
+    event.resultCount = observation.getResultCount().orElse(0);
+    event.successful = observation.isSuccessful();
+    event.error = observation.getError().map(error -> error.getClass().getName()).orElse(null);
+    event.failedPhase = observation.getFailedPhase().map(QueryPhase::name).orElse(null);
+
+    event.commit();
+  }
+
+
+  private static long nanos(Optional<Duration> duration) {
+
+    return duration.isPresent() ? duration.get().toNanos() : 0L;
+  }
+}
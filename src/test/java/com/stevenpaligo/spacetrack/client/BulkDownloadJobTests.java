@@ -0,0 +1,178 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.SatCatQuery.SatCat;
+import com.stevenpaligo.spacetrack.client.SatCatQuery.SatCatQueryField;
+import com.stevenpaligo.spacetrack.client.TleQuery.TleQueryField;
+import com.stevenpaligo.spacetrack.client.query.Limit;
+import com.stevenpaligo.spacetrack.client.query.Sort;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class BulkDownloadJobTests {
+
+  private static SatCatQuery createQuery() {
+
+    return new SatCatQuery().setCredentials("user", "password").addSort(new Sort<>(SatCatQueryField.CATALOG_NUMBER));
+  }
+
+
+  /**
+   * Saves a page of catalog numbers from a catalog of 25 objects
+   */
+  private static void savePage(CompiledQuery<SatCat> query, Path file) throws IOException {
+
+    String limit = query.getQueryString().replaceAll(".*/limit/([0-9]+),([0-9]+)/.*", "$1,$2");
+    int pageSize = Integer.parseInt(limit.split(",")[0]);
+    int offset = Integer.parseInt(limit.split(",")[1]);
+
+    List<String> objects = new ArrayList<>();
+
+    for (int catalogNumber = offset + 1; catalogNumber <= Math.min(offset + pageSize, 25); catalogNumber++) {
+
+      objects.add("{\"NORAD_CAT_ID\":\"" + catalogNumber + "\"}");
+    }
+
+    Files.write(file, ("[" + String.join(",", objects) + "]").getBytes(StandardCharsets.UTF_8));
+  }
+
+
+  @Test
+  @DisplayName("BulkDownloadJob: Parameter validation")
+  public void test1() throws IOException {
+
+    Path directory = Files.createTempDirectory("spacetrack");
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      BulkDownloadJob.paged(createQuery(), 0, directory);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      BulkDownloadJob.paged(createQuery().clearSorts(), 10, directory);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      BulkDownloadJob.paged(createQuery().setLimit(Limit.TEN), 10, directory);
+    });
+
+    assertThrows(IllegalStateException.class, () -> {
+      BulkDownloadJob.paged(new SatCatQuery().addSort(new Sort<>(SatCatQueryField.CATALOG_NUMBER)), 10, directory);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      BulkDownloadJob.windowed(new TleQuery().setCredentials("user", "password"), TleQueryField.EPOCH_YMD_HMS, Duration.ofDays(1), directory);
+    });
+  }
+
+
+  @Test
+  @DisplayName("BulkDownloadJob: Paged jobs resume after a failure")
+  public void test2() throws IOException {
+
+    Path directory = Files.createTempDirectory("spacetrack");
+    List<String> queryStrings = new ArrayList<>();
+
+
+    // fail on the third page
+    BulkDownloadJob<SatCat> job = BulkDownloadJob.paged(createQuery(), 10, directory);
+    job.setSegmentDownloader((query, file) -> {
+
+      if (query.getQueryString().contains("/limit/10,20/")) {
+
+        throw new IOException("Test failure");
+      }
+
+      queryStrings.add(query.getQueryString());
+      savePage(query, file);
+    });
+
+    assertThrows(IOException.class, () -> {
+      job.run();
+    });
+
+    assertEquals(2, job.getCompletedSegments());
+    assertFalse(job.isComplete());
+
+
+    // resume in a new job
+    BulkDownloadJob<SatCat> resumedJob = BulkDownloadJob.paged(createQuery(), 10, directory);
+    resumedJob.setSegmentDownloader((query, file) -> {
+
+      queryStrings.add(query.getQueryString());
+      savePage(query, file);
+    });
+
+    assertEquals(2, resumedJob.getCompletedSegments());
+    resumedJob.run();
+
+    assertTrue(resumedJob.isComplete());
+    assertEquals(3, resumedJob.getCompletedSegments());
+    assertEquals(3, queryStrings.size());
+    assertTrue(queryStrings.get(2).contains("/limit/10,20/"));
+
+    List<Integer> catalogNumbers = resumedJob.getResults().stream().map(satCat -> satCat.getCatalogNumber().get()).collect(Collectors.toList());
+    assertEquals(25, catalogNumbers.size());
+    assertEquals(25, catalogNumbers.get(24).intValue());
+
+
+    // a finished job does nothing, and the directory can't be used for a different job
+    BulkDownloadJob.paged(createQuery(), 10, directory).run();
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      BulkDownloadJob.paged(createQuery(), 5, directory);
+    });
+  }
+
+
+  @Test
+  @DisplayName("BulkDownloadJob: Windowed jobs")
+  public void test3() throws IOException {
+
+    Path directory = Files.createTempDirectory("spacetrack");
+    List<String> queryStrings = new ArrayList<>();
+
+    TleQuery query = new TleQuery().setCredentials("user", "password").inclusiveRange(TleQueryField.EPOCH_YMD_HMS, Instant.parse("2020-01-01T00:00:00Z"), Instant.parse("2020-01-03T12:00:00Z"));
+
+    BulkDownloadJob<TleQuery.Tle> job = BulkDownloadJob.windowed(query, TleQueryField.EPOCH_YMD_HMS, Duration.ofDays(1), directory);
+    job.setSegmentDownloader((windowQuery, file) -> {
+
+      queryStrings.add(windowQuery.getQueryString());
+      Files.write(file, "[]".getBytes(StandardCharsets.UTF_8));
+    });
+
+    job.run();
+
+    assertTrue(job.isComplete());
+    assertEquals(3, queryStrings.size());
+    assertTrue(queryStrings.get(2).contains("/EPOCH/2020-01-03 00:00:00.000--2020-01-03 12:00:00.000/"));
+    assertEquals(0, job.getResults().size());
+  }
+}
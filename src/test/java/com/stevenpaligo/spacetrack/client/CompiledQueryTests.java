@@ -0,0 +1,84 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.Arrays;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.SatCatQuery.SatCatQueryField;
+import com.stevenpaligo.spacetrack.client.query.Limit;
+import com.stevenpaligo.spacetrack.client.query.Sort;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class CompiledQueryTests {
+
+  @Test
+  @DisplayName("CompiledQuery: Compiling requires credentials")
+  public void test1() {
+
+    assertThrows(IllegalStateException.class, () -> {
+
+      new SatCatQuery().compile();
+    });
+  }
+
+
+  @Test
+  @DisplayName("CompiledQuery: The compiled query is a snapshot")
+  public void test2() {
+
+    SatCatQuery query = new SatCatQuery().setCredentials("user", "password").equal(SatCatQueryField.CATALOG_NUMBER, 25544).setLimit(Limit.ONE);
+    String queryString = query.getQueryString();
+
+    CompiledQuery<SatCatQuery.SatCat> compiledQuery = query.compile();
+
+    assertEquals("satcat", compiledQuery.getQueryClass());
+    assertEquals(queryString, compiledQuery.getQueryString());
+    assertEquals(queryString, compiledQuery.toString());
+
+
+    // changing the original query doesn't change the compiled query
+    query.equal(SatCatQueryField.OBJECT_NAME, "ISS (ZARYA)");
+
+    assertNotEquals(queryString, query.getQueryString());
+    assertEquals(queryString, compiledQuery.getQueryString());
+  }
+
+
+  @Test
+  @DisplayName("CompiledQuery: Equivalent queries have the same cache key")
+  public void test3() {
+
+    SatCatQuery query1 = new SatCatQuery().setCredentials("user", "password").in(SatCatQueryField.CATALOG_NUMBER, 25544, 5).equal(SatCatQueryField.COUNTRY, "US").addFavorite("b")
+        .addFavorite("a");
+    SatCatQuery query2 = new SatCatQuery().setCredentials("user", "password").equal(SatCatQueryField.COUNTRY, "US").in(SatCatQueryField.CATALOG_NUMBER, 5, 25544, 5)
+        .equal(SatCatQueryField.COUNTRY, "US").addFavorites(Arrays.asList("a", "b"));
+
+    assertNotEquals(query1.getQueryString(), query2.getQueryString());
+    assertEquals(query1.getCacheKey(), query2.getCacheKey());
+    assertEquals(query1.getCacheKey(), query2.compile().getCacheKey());
+    assertEquals("https://www.space-track.org/basicspacedata/query/class/satcat/COUNTRY/US/NORAD_CAT_ID/25544,5/favorites/a,b/format/json/emptyresult/show", query1.getCacheKey());
+
+
+    // the order of sorts matters
+    assertNotEquals(new SatCatQuery().addSort(new Sort<>(SatCatQueryField.COUNTRY)).addSort(new Sort<>(SatCatQueryField.CATALOG_NUMBER))
+        .getCacheKey(),
+        new SatCatQuery().addSort(new Sort<>(SatCatQueryField.CATALOG_NUMBER)).addSort(new Sort<>(SatCatQueryField.COUNTRY)).getCacheKey());
+  }
+}
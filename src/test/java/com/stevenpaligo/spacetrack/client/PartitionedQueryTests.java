@@ -0,0 +1,194 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.PartitionedQuery.WindowSizing;
+import com.stevenpaligo.spacetrack.client.TleQuery.Tle;
+import com.stevenpaligo.spacetrack.client.TleQuery.TleQueryField;
+import com.stevenpaligo.spacetrack.client.predicate.CurrentDateTimeOffset;
+import com.stevenpaligo.spacetrack.client.query.Limit;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class PartitionedQueryTests {
+
+  private static final Instant START = Instant.parse("2020-01-01T00:00:00Z");
+  private static final Instant END = Instant.parse("2020-01-11T00:00:00Z");
+
+
+  private static TleQuery createQuery() {
+
+    return new TleQuery().setCredentials("user", "password").equal(TleQueryField.CATALOG_NUMBER, 25544).inclusiveRange(TleQueryField.EPOCH_YMD_HMS, START, END);
+  }
+
+
+  private static Tle createTle(String objectName) {
+
+    Tle tle = new Tle();
+    tle.setObjectName(objectName);
+
+    return tle;
+  }
+
+
+  @Test
+  @DisplayName("PartitionedQuery: Parameter validation")
+  public void test1() {
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new PartitionedQuery<>(null, TleQueryField.EPOCH_YMD_HMS);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new PartitionedQuery<>(createQuery(), null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new PartitionedQuery<>(createQuery(), TleQueryField.DECAYED);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new PartitionedQuery<>(createQuery().setLimit(Limit.TEN), TleQueryField.EPOCH_YMD_HMS);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new PartitionedQuery<>(new TleQuery().inclusiveRange(TleQueryField.EPOCH_YMD_HMS, new CurrentDateTimeOffset(Duration.ofDays(-10)), new CurrentDateTimeOffset(Duration.ZERO)),
+          TleQueryField.EPOCH_YMD_HMS);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new PartitionedQuery<>(createQuery(), TleQueryField.EPOCH_YMD_HMS).setParallelism(0);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new PartitionedQuery<>(createQuery(), TleQueryField.EPOCH_YMD_HMS).setWindowCount(0);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      WindowSizing.fixed(Duration.ZERO);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      WindowSizing.adaptive(100, Duration.ofDays(10), Duration.ofDays(1), Duration.ofDays(5));
+    });
+  }
+
+
+  @Test
+  @DisplayName("PartitionedQuery: Windows are queried in parallel and delivered in order")
+  public void test2() throws IOException {
+
+    List<String> queryStrings = Collections.synchronizedList(new ArrayList<>());
+    AtomicInteger windowNumber = new AtomicInteger();
+
+    PartitionedQuery<TleQueryField, Tle> partitionedQuery = new PartitionedQuery<>(createQuery(), TleQueryField.EPOCH_YMD_HMS).setWindowCount(4).setParallelism(3);
+    partitionedQuery.setWindowExecutor(query -> {
+
+      queryStrings.add(query.getQueryString());
+
+      // complete the windows out of order
+      if (windowNumber.getAndIncrement() == 0) {
+
+        try {
+          Thread.sleep(200L);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+      return Arrays.asList(createTle(query.getQueryString()));
+    });
+
+    List<Instant> checkpoints = new ArrayList<>();
+    List<String> results = new ArrayList<>();
+
+    partitionedQuery.execute((windowStart, windowEnd, windowResults) -> {
+
+      checkpoints.add(windowEnd);
+      windowResults.forEach(tle -> results.add(tle.getObjectName()));
+    });
+
+
+    assertEquals(Arrays.asList(Instant.parse("2020-01-03T12:00:00Z"), Instant.parse("2020-01-06T00:00:00Z"), Instant.parse("2020-01-08T12:00:00Z"), END), checkpoints);
+    assertEquals(4, results.size());
+
+    assertEquals(
+        "https://www.space-track.org/basicspacedata/query/class/tle/NORAD_CAT_ID/25544/EPOCH/2020-01-01 00:00:00.000--2020-01-03 12:00:00.000/EPOCH/<2020-01-03 12:00:00.000/orderby/EPOCH asc/format/json/emptyresult/show",
+        results.get(0));
+    assertEquals("https://www.space-track.org/basicspacedata/query/class/tle/NORAD_CAT_ID/25544/EPOCH/2020-01-08 12:00:00.000--2020-01-11 00:00:00.000/orderby/EPOCH asc/format/json/emptyresult/show",
+        results.get(3));
+    assertTrue(queryStrings.containsAll(results));
+  }
+
+
+  @Test
+  @DisplayName("PartitionedQuery: Resuming from a checkpoint")
+  public void test3() throws IOException {
+
+    PartitionedQuery<TleQueryField, Tle> partitionedQuery = new PartitionedQuery<>(createQuery(), TleQueryField.EPOCH_YMD_HMS).setWindowSizing(WindowSizing.fixed(Duration.ofDays(4)))
+        .setResumeFrom(Instant.parse("2020-01-05T00:00:00Z"));
+    partitionedQuery.setWindowExecutor(query -> Arrays.asList(createTle(query.getQueryString())));
+
+    List<Instant> windowStarts = new ArrayList<>();
+    partitionedQuery.execute((windowStart, windowEnd, windowResults) -> windowStarts.add(windowStart));
+
+    assertEquals(Arrays.asList(Instant.parse("2020-01-05T00:00:00Z"), Instant.parse("2020-01-09T00:00:00Z")), windowStarts);
+
+
+    // nothing is left after the end
+    partitionedQuery.setResumeFrom(END);
+    assertEquals(0, partitionedQuery.execute().size());
+  }
+
+
+  @Test
+  @DisplayName("PartitionedQuery: Adaptive windows and failures")
+  public void test4() throws IOException {
+
+    // 100 results per day, aiming for 50 per window
+    PartitionedQuery<TleQueryField, Tle> partitionedQuery = new PartitionedQuery<>(createQuery(), TleQueryField.EPOCH_YMD_HMS)
+        .setWindowSizing(WindowSizing.adaptive(50, Duration.ofDays(2), Duration.ofHours(1), Duration.ofDays(5))).setParallelism(1);
+    partitionedQuery.setWindowExecutor(query -> Collections.nCopies(query.getQueryString().contains("2020-01-01 00:00:00.000--2020-01-03") ? 200 : 50, new Tle()));
+
+    List<Duration> windowSizes = new ArrayList<>();
+    partitionedQuery.execute((windowStart, windowEnd, windowResults) -> windowSizes.add(Duration.between(windowStart, windowEnd)));
+
+    assertEquals(Duration.ofDays(2), windowSizes.get(0));
+    assertEquals(Duration.ofHours(12), windowSizes.get(1));
+
+
+    // failures are passed on
+    partitionedQuery.setWindowExecutor(query -> {
+      throw new IOException("Test failure");
+    });
+
+    assertThrows(IOException.class, () -> {
+      partitionedQuery.execute();
+    });
+  }
+}
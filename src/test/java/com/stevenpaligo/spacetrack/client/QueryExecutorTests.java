@@ -0,0 +1,73 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.metrics.QueryObservation;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class QueryExecutorTests {
+
+  @Test
+  @DisplayName("QueryExecutor: The Flight Recorder event includes the bytes received by a successful request")
+  public void test1() throws IOException {
+
+    Path recordingFile = Files.createTempFile("spacetrack-query", ".jfr");
+
+    try (Recording recording = new Recording()) {
+
+      recording.enable("com.stevenpaligo.spacetrack.Query");
+      recording.start();
+
+
+      // bind a response the way a request does, with the bytes still uncounted when the handler runs
+      SatCatQuery query = new SatCatQuery().setCredentials("user", "password");
+      QueryExecutor<SatCatQuery.SatCat> executor = new QueryExecutor<>(query);
+      QueryObservation observation = new QueryObservation("satcat", query.getQueryString());
+
+      assertEquals(0, executor.bind(new StringReader("[]"), observation, () -> 4096L).size());
+      assertEquals(4096L, observation.getBytesReceived());
+
+      recording.stop();
+      recording.dump(recordingFile);
+
+
+      // verify the event
+      List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile).stream().filter(event -> event.getEventType().getName().equals("com.stevenpaligo.spacetrack.Query")).collect(Collectors.toList());
+
+      assertEquals(1, events.size());
+      assertEquals(4096L, events.get(0).getLong("bytesReceived"));
+      assertEquals(0, events.get(0).getInt("resultCount"));
+      assertTrue(events.get(0).getBoolean("successful"));
+
+    } finally {
+
+      Files.deleteIfExists(recordingFile);
+    }
+  }
+}
@@ -18,6 +18,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -32,6 +33,7 @@ import com.stevenpaligo.spacetrack.TestUtils;
 import com.stevenpaligo.spacetrack.client.SatCatQuery.SatCat;
 import com.stevenpaligo.spacetrack.client.SatCatQuery.SatCatQueryField;
 import com.stevenpaligo.spacetrack.client.credential.CredentialProvider;
+import com.stevenpaligo.spacetrack.client.execution.CircuitBreaker;
 import com.stevenpaligo.spacetrack.client.predicate.Equal;
 import com.stevenpaligo.spacetrack.client.query.Limit;
 import com.stevenpaligo.spacetrack.client.query.QueryField;
@@ -131,6 +133,70 @@ public class QueryTests {
 
       new AnnouncementQuery().addFavorites(Collections.emptySet());
     });
+
+
+    // the call to setRetryPolicy(...) will not accept a null
+    assertThrows(IllegalArgumentException.class, () -> {
+
+      new AnnouncementQuery().setRetryPolicy(null);
+    });
+
+
+    // the call to setCircuitBreaker(Optional) will not accept a null
+    assertThrows(IllegalArgumentException.class, () -> {
+
+      new AnnouncementQuery().setCircuitBreaker((Optional<CircuitBreaker>) null);
+    });
+
+
+    // the call to setCircuitBreaker(CircuitBreaker) will not accept a null
+    assertThrows(IllegalArgumentException.class, () -> {
+
+      new AnnouncementQuery().setCircuitBreaker((CircuitBreaker) null);
+    });
+
+
+    // the calls to set the timeouts will not accept a null or a non-positive duration
+    assertThrows(IllegalArgumentException.class, () -> {
+
+      new AnnouncementQuery().setConnectTimeout(null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+
+      new AnnouncementQuery().setConnectTimeout(Optional.of(Duration.ZERO));
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+
+      new AnnouncementQuery().setReadTimeout(null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+
+      new AnnouncementQuery().setReadTimeout(Optional.of(Duration.ofSeconds(-1)));
+    });
+
+
+    // the call to setMetrics(...) will not accept a null
+    assertThrows(IllegalArgumentException.class, () -> {
+
+      new AnnouncementQuery().setMetrics(null);
+    });
+
+
+    // the call to setDiagnostics(...) will not accept a null
+    assertThrows(IllegalArgumentException.class, () -> {
+
+      new AnnouncementQuery().setDiagnostics(null);
+    });
+
+
+    // the call to setSanitizationMode(...) will not accept a null
+    assertThrows(IllegalArgumentException.class, () -> {
+
+      new AnnouncementQuery().setSanitizationMode(null);
+    });
   }
 
 
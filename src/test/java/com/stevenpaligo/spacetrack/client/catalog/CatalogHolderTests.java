@@ -0,0 +1,258 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.OrbitMeanElementsMessageQuery;
+import com.stevenpaligo.spacetrack.client.OrbitMeanElementsMessageQuery.OrbitMeanElementsMessage;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class CatalogHolderTests {
+
+  private static CatalogHolder createHolder() {
+
+    return new CatalogHolder(new OrbitMeanElementsMessageQuery().setCredentials("user", "password"));
+  }
+
+
+  private static OrbitMeanElementsMessage message(Integer catalogNumber, String epoch, String objectName) {
+
+    OrbitMeanElementsMessage message = new OrbitMeanElementsMessage();
+    message.setCatalogNumber(Optional.ofNullable(catalogNumber));
+    message.setEpoch(Optional.of(epoch));
+    message.setObjectName(objectName);
+
+    return message;
+  }
+
+
+  /**
+   * Creates a catalog whose object names all carry the version, so a reader can tell whether a snapshot mixes versions
+   */
+  private static List<OrbitMeanElementsMessage> catalog(int count, int version) {
+
+    List<OrbitMeanElementsMessage> messages = new ArrayList<>(count);
+
+    for (int i = 1; i <= count; i++) {
+      messages.add(message(i, "2020-01-01T00:00:00", "V" + version));
+    }
+
+    return messages;
+  }
+
+
+  @Test
+  @DisplayName("CatalogHolder: Parameter validation")
+  public void test1() {
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new CatalogHolder(null);
+    });
+
+    CatalogHolder holder = createHolder();
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      holder.publish(null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      holder.refreshAsync(null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      holder.addListener(null);
+    });
+  }
+
+
+  @Test
+  @DisplayName("CatalogHolder: Refresh and publish")
+  public void test2() throws IOException {
+
+    CatalogHolder holder = createHolder();
+    List<CatalogSnapshot> published = new ArrayList<>();
+    holder.addListener((previous, current) -> published.add(current));
+
+    assertEquals(0L, holder.getSnapshot().getGeneration());
+    assertEquals(0, holder.getSnapshot().size());
+
+
+    // the latest epoch wins, and messages without a catalog number are ignored
+    holder.setFetcher(query -> Arrays.asList(message(5, "2020-01-02T00:00:00", "NEWER"), message(5, "2020-01-01T00:00:00", "OLDER"), message(3, "2020-01-01T00:00:00", "OTHER"),
+        message(null, "2020-01-01T00:00:00", "NONE")));
+
+    CatalogSnapshot first = holder.refresh();
+
+    assertSame(first, holder.getSnapshot());
+    assertEquals(1L, first.getGeneration());
+    assertEquals(2, first.size());
+    assertEquals("NEWER", holder.get(5).get().getObjectName());
+    assertEquals(Arrays.asList(3, 5), first.getAll().stream().map(message -> message.getCatalogNumber().get()).collect(Collectors.toList()));
+
+
+    // a failed refresh keeps the current snapshot
+    holder.setFetcher(query -> {
+      throw new IOException("Failed");
+    });
+
+    assertThrows(IOException.class, () -> {
+      holder.refresh();
+    });
+
+    CompletionException exception = assertThrows(CompletionException.class, () -> {
+      holder.refreshAsync(Runnable::run).join();
+    });
+
+    assertTrue(exception.getCause() instanceof UncheckedIOException);
+    assertSame(first, holder.getSnapshot());
+
+
+    // a published snapshot replaces the whole catalog, while an old snapshot stays as it was
+    CatalogSnapshot second = holder.publish(catalog(2, 1));
+
+    assertEquals(2L, second.getGeneration());
+    assertFalse(holder.get(5).isPresent());
+    assertTrue(first.get(5).isPresent());
+    assertEquals(Arrays.asList(first, second), published);
+  }
+
+
+  @Test
+  @DisplayName("CatalogHolder: Readers never see a partly refreshed catalog")
+  public void test3() throws Exception {
+
+    CatalogHolder holder = createHolder();
+    holder.publish(catalog(1_000, 0));
+
+    AtomicBoolean done = new AtomicBoolean(false);
+    AtomicReference<String> failure = new AtomicReference<>();
+    CountDownLatch started = new CountDownLatch(3);
+    ExecutorService readers = Executors.newFixedThreadPool(3);
+
+    for (int i = 0; i < 3; i++) {
+
+      readers.execute(() -> {
+
+        started.countDown();
+
+        while (!done.get()) {
+
+          CatalogSnapshot snapshot = holder.getSnapshot();
+          String version = snapshot.get(1).get().getObjectName();
+
+          if (snapshot.size() != 1_000 || !snapshot.getAll().stream().allMatch(message -> message.getObjectName().equals(version))) {
+            failure.set("Snapshot " + snapshot.getGeneration() + " mixes versions");
+          }
+        }
+      });
+    }
+
+    started.await();
+
+    ExecutorService refresher = Executors.newSingleThreadExecutor();
+
+    for (int version = 1; version <= 100; version++) {
+
+      List<OrbitMeanElementsMessage> messages = catalog(1_000, version);
+      holder.setFetcher(query -> messages);
+      holder.refreshAsync(refresher).join();
+    }
+
+    done.set(true);
+    readers.shutdown();
+    refresher.shutdown();
+
+    assertTrue(readers.awaitTermination(10, TimeUnit.SECONDS));
+    assertEquals(null, failure.get());
+    assertEquals(101L, holder.getSnapshot().getGeneration());
+  }
+
+
+  @Test
+  @DisplayName("CatalogHolder: A slow refresh doesn't block publishing")
+  public void test4() throws Exception {
+
+    CatalogHolder holder = createHolder();
+    CountDownLatch fetching = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    holder.setFetcher(query -> {
+
+      fetching.countDown();
+
+      try {
+
+        release.await();
+
+      } catch (InterruptedException e) {
+
+        Thread.currentThread().interrupt();
+      }
+
+      return catalog(1, 2);
+    });
+
+    ExecutorService refresher = Executors.newSingleThreadExecutor();
+
+    try {
+
+      CompletableFuture<CatalogSnapshot> refresh = holder.refreshAsync(refresher);
+      assertTrue(fetching.await(10, TimeUnit.SECONDS));
+
+
+      // published directly while the refresh's query is still running
+      ExecutorService publisher = Executors.newSingleThreadExecutor();
+      CatalogSnapshot published = publisher.submit(() -> holder.publish(catalog(1, 1))).get(10, TimeUnit.SECONDS);
+      publisher.shutdown();
+
+      assertEquals(1L, published.getGeneration());
+      assertEquals("V1", holder.get(1).get().getObjectName());
+
+
+      // the refresh publishes when its query finishes
+      release.countDown();
+
+      assertEquals(2L, refresh.get(10, TimeUnit.SECONDS).getGeneration());
+      assertEquals("V2", holder.get(1).get().getObjectName());
+
+    } finally {
+
+      release.countDown();
+      refresher.shutdown();
+    }
+  }
+}
@@ -0,0 +1,345 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.threeten.extra.scale.UtcInstant;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.SatCatChangeQuery;
+import com.stevenpaligo.spacetrack.client.SatCatChangeQuery.SatCatChange;
+import com.stevenpaligo.spacetrack.client.SatCatDebutQuery;
+import com.stevenpaligo.spacetrack.client.SatCatDebutQuery.SatCatDebut;
+import com.stevenpaligo.spacetrack.client.SatCatQuery.SatCat;
+import com.stevenpaligo.spacetrack.client.SatCatQuery.SatCatQueryField;
+import com.stevenpaligo.spacetrack.client.catalog.SatCatChangeEvent.Field;
+import com.stevenpaligo.spacetrack.client.catalog.SatCatChangeEvent.Type;
+import com.stevenpaligo.spacetrack.client.index.SatCatNameIndex;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class SatCatChangeFeedTests {
+
+  private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+
+  private static SatCatChangeFeed createFeed(SatCatStore store) {
+
+    return new SatCatChangeFeed(new SatCatDebutQuery().setCredentials("user", "password"), new SatCatChangeQuery().setCredentials("user", "password"), store);
+  }
+
+
+  private static SatCat satCat(int catalogNumber, String name) {
+
+    SatCat record = new SatCat();
+    record.setCatalogNumber(Optional.of(catalogNumber));
+    record.setSatName(name);
+    record.setObjectName(name);
+    record.setInternationalDesignator("2021-001A");
+    record.setObjectId("2021-001A");
+    record.setCountry("US");
+    record.setLaunchDate(Optional.of(LocalDate.of(2021, 1, 1)));
+
+    return record;
+  }
+
+
+  private static SatCatDebut debut(int catalogNumber, String name, Instant debutTime) {
+
+    SatCatDebut debut = new SatCatDebut();
+    debut.setCatalogNumber(Optional.of(catalogNumber));
+    debut.setSatName(name);
+    debut.setObjectName(name);
+    debut.setInternationalDesignator("2021-099A");
+    debut.setObjectId("2021-099A");
+    debut.setCountry("PRC");
+    debut.setDebutTime(Optional.of(UtcInstant.of(debutTime)));
+
+    return debut;
+  }
+
+
+  private static SatCatChange change(int catalogNumber, String name, LocalDate decayDate, Instant updateTime) {
+
+    SatCatChange change = new SatCatChange();
+    change.setCatalogNumber(Optional.of(catalogNumber));
+    change.setCurrentName(name);
+    change.setCurrentInternationalDesignator("2021-001A");
+    change.setCurrentCountry("US");
+    change.setCurrentLaunchDate(Optional.of(LocalDate.of(2021, 1, 1)));
+    change.setCurrentDecayDate(Optional.ofNullable(decayDate));
+    change.setUpdateTime(Optional.of(UtcInstant.of(updateTime)));
+
+    return change;
+  }
+
+
+  @Test
+  @DisplayName("SatCatChangeFeed: Parameter validation")
+  public void test1() {
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new SatCatChangeFeed(null, new SatCatChangeQuery(), new SatCatStore());
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new SatCatChangeFeed(new SatCatDebutQuery(), null, new SatCatStore());
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new SatCatChangeFeed(new SatCatDebutQuery(), new SatCatChangeQuery(), null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      createFeed(new SatCatStore()).setLookback(Duration.ofDays(-1));
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      createFeed(new SatCatStore()).setCheckpointFile(null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new SatCatStore().put(new SatCat());
+    });
+  }
+
+
+  @Test
+  @DisplayName("SatCatChangeFeed: Debuts and changes are applied to the store")
+  public void test2() throws IOException {
+
+    SatCatStore store = new SatCatStore().putAll(Arrays.asList(satCat(100, "SAT A"), satCat(200, "SAT B"), null));
+    List<String> queryStrings = new ArrayList<>();
+    List<SatCatChangeEvent> listenedEvents = new ArrayList<>();
+
+    SatCatChangeFeed feed = createFeed(store).addListener(listenedEvents::add);
+    feed.setDebutFetcher(query -> {
+      queryStrings.add(query.getQueryString());
+      return Arrays.asList(debut(300, "SAT C", NOW.minus(Duration.ofDays(2))));
+    });
+    feed.setChangeFetcher(query -> {
+      queryStrings.add(query.getQueryString());
+      return Arrays.asList(change(100, "SAT A RENAMED", null, NOW.minus(Duration.ofDays(3))), change(200, "SAT B", LocalDate.of(2021, 11, 5), NOW.minus(Duration.ofDays(1))),
+          change(100, "SAT A RENAMED", null, NOW.minus(Duration.ofDays(3))));
+    });
+
+    assertEquals(2, store.size());
+
+
+    // the records are applied in time order
+    List<SatCatChangeEvent> events = feed.poll();
+
+    assertEquals(3, events.size());
+    assertEquals(events, listenedEvents);
+    assertTrue(queryStrings.get(0).contains("/DEBUT/>"));
+    assertTrue(queryStrings.get(0).contains("/orderby/DEBUT"));
+    assertTrue(queryStrings.get(1).contains("/CHANGE_MADE/>"));
+    assertTrue(queryStrings.get(1).contains("/orderby/CHANGE_MADE"));
+
+    assertEquals(Type.CHANGE, events.get(0).getType());
+    assertEquals(100, events.get(0).getCatalogNumber());
+    assertEquals(EnumSet.of(Field.NAME), events.get(0).getChangedFields());
+    assertEquals("SAT A", events.get(0).getPreviousRecord().get().getSatName());
+    assertEquals("SAT A RENAMED", events.get(0).getRecord().getSatName());
+
+    assertEquals(Type.DEBUT, events.get(1).getType());
+    assertEquals(300, events.get(1).getCatalogNumber());
+    assertFalse(events.get(1).getPreviousRecord().isPresent());
+    assertEquals("PRC", store.get(300).get().getCountry());
+
+    assertEquals(Type.CHANGE, events.get(2).getType());
+    assertEquals(EnumSet.of(Field.DECAY_DATE), events.get(2).getChangedFields());
+    assertEquals(LocalDate.of(2021, 11, 5), store.get(200).get().getDecayDate().get());
+
+    assertEquals(3, store.size());
+    assertEquals("SAT A RENAMED", store.get(100).get().getSatName());
+    assertEquals("SAT A RENAMED", store.get(100).get().getObjectName());
+    assertEquals("2021-001A", store.get(100).get().getInternationalDesignator());
+    assertEquals("2021-001A", store.get(100).get().getObjectId());
+    assertEquals(NOW.minus(Duration.ofDays(2)), feed.getDebutWatermark().get());
+    assertEquals(NOW.minus(Duration.ofDays(1)), feed.getChangeWatermark().get());
+
+
+    // the same records again are recognized as already applied
+    assertTrue(feed.poll().isEmpty());
+    assertEquals(3, listenedEvents.size());
+  }
+
+
+  @Test
+  @DisplayName("SatCatChangeFeed: Checkpoints")
+  public void test3() throws IOException {
+
+    Path checkpointFile = Files.createTempDirectory("spacetrack").resolve("satcat-feed.properties");
+
+    SatCatChangeFeed feed = createFeed(new SatCatStore()).setCheckpointFile(checkpointFile);
+    feed.setDebutFetcher(query -> Arrays.asList(debut(300, "SAT C", NOW.minus(Duration.ofDays(2)))));
+    feed.setChangeFetcher(query -> Arrays.asList(change(100, "SAT A", null, NOW.minus(Duration.ofDays(1)))));
+
+    assertEquals(2, feed.poll().size());
+    assertTrue(Files.exists(checkpointFile));
+
+
+    // a new feed resumes from the checkpoint, even with an empty store
+    List<String> queryStrings = new ArrayList<>();
+
+    SatCatStore store = new SatCatStore();
+    SatCatChangeFeed resumedFeed = createFeed(store).setCheckpointFile(checkpointFile);
+    resumedFeed.setDebutFetcher(query -> {
+      queryStrings.add(query.getQueryString());
+      return Arrays.asList(debut(300, "SAT C", NOW.minus(Duration.ofDays(2))), debut(400, "SAT D", NOW.minus(Duration.ofDays(2))));
+    });
+    resumedFeed.setChangeFetcher(query -> Arrays.asList(change(100, "SAT A", null, NOW.minus(Duration.ofDays(1)))));
+
+    assertEquals(NOW.minus(Duration.ofDays(2)), resumedFeed.getDebutWatermark().get());
+    assertEquals(NOW.minus(Duration.ofDays(1)), resumedFeed.getChangeWatermark().get());
+
+    assertThrows(IllegalStateException.class, () -> {
+      resumedFeed.setLookback(Duration.ofDays(1));
+    });
+
+    List<SatCatChangeEvent> events = resumedFeed.poll();
+
+    assertEquals(1, events.size());
+    assertEquals(400, events.get(0).getCatalogNumber());
+    assertEquals(1, store.size());
+    assertTrue(queryStrings.get(0).contains("/DEBUT/>" + NOW.minus(Duration.ofDays(2)).minusSeconds(1).toString().replace('T', ' ').replace("Z", "")));
+
+
+    // a corrupt checkpoint
+    Files.write(checkpointFile, "debutWatermark=yesterday".getBytes(StandardCharsets.UTF_8));
+
+    assertThrows(IOException.class, () -> {
+      createFeed(new SatCatStore()).setCheckpointFile(checkpointFile);
+    });
+  }
+
+
+  @Test
+  @DisplayName("SatCatChangeFeed: A failed poll applies nothing")
+  public void test4() throws IOException {
+
+    SatCatStore store = new SatCatStore();
+
+    SatCatChangeFeed feed = createFeed(store);
+    feed.setDebutFetcher(query -> Arrays.asList(debut(300, "SAT C", NOW.minus(Duration.ofDays(2)))));
+    feed.setChangeFetcher(query -> {
+      throw new IOException("test");
+    });
+
+    assertThrows(IOException.class, () -> {
+      feed.poll();
+    });
+
+    assertEquals(0, store.size());
+
+
+    // a change for an object that isn't in the store creates a partial record
+    feed.setChangeFetcher(query -> Collections.singletonList(change(100, "SAT A", null, NOW.minus(Duration.ofDays(1)))));
+
+    List<SatCatChangeEvent> events = feed.poll();
+
+    assertEquals(2, events.size());
+    assertEquals(Type.CHANGE, events.get(1).getType());
+    assertFalse(events.get(1).getPreviousRecord().isPresent());
+    assertEquals(EnumSet.of(Field.NAME, Field.INTERNATIONAL_DESIGNATOR, Field.COUNTRY, Field.LAUNCH_DATE), events.get(1).getChangedFields());
+    assertEquals("SAT A", store.get(100).get().getSatName());
+    assertEquals("SAT A", store.get(100).get().getObjectName());
+    assertEquals("2021-001A", store.get(100).get().getObjectId());
+  }
+
+
+  @Test
+  @DisplayName("SatCatChangeFeed: Both copies of the name and designator follow a change")
+  public void test5() throws IOException {
+
+    SatCatStore store = new SatCatStore().putAll(Arrays.asList(satCat(100, "SAT A")));
+
+    SatCatChange change = change(100, "SAT A RENAMED", null, NOW.minus(Duration.ofDays(1)));
+    change.setCurrentInternationalDesignator("2021-002B");
+
+    SatCatChangeFeed feed = createFeed(store);
+    feed.setDebutFetcher(query -> Collections.emptyList());
+    feed.setChangeFetcher(query -> Arrays.asList(change));
+
+    List<SatCatChangeEvent> events = feed.poll();
+
+    assertEquals(1, events.size());
+    assertEquals(EnumSet.of(Field.NAME, Field.INTERNATIONAL_DESIGNATOR), events.get(0).getChangedFields());
+
+    SatCat record = store.get(100).get();
+
+    assertEquals("SAT A RENAMED", record.getSatName());
+    assertEquals("SAT A RENAMED", record.getObjectName());
+    assertEquals("2021-002B", record.getInternationalDesignator());
+    assertEquals("2021-002B", record.getObjectId());
+
+
+    // the previous record is untouched
+    assertEquals("SAT A", events.get(0).getPreviousRecord().get().getObjectName());
+    assertEquals("2021-001A", events.get(0).getPreviousRecord().get().getObjectId());
+  }
+
+
+  @Test
+  @DisplayName("SatCatChangeFeed: A name index follows the feed")
+  public void test6() throws IOException {
+
+    SatCatStore store = new SatCatStore().putAll(Arrays.asList(satCat(100, "SAT A"), satCat(200, "SAT B")));
+    SatCatNameIndex index = new SatCatNameIndex().putAll(store.getAll());
+
+    SatCatChange change = change(100, "RENAMED", null, NOW.minus(Duration.ofDays(1)));
+    change.setCurrentInternationalDesignator("2021-002B");
+
+    SatCatChangeFeed feed = createFeed(store).addListener(index);
+    feed.setDebutFetcher(query -> Arrays.asList(debut(300, "SAT C", NOW.minus(Duration.ofDays(2)))));
+    feed.setChangeFetcher(query -> Arrays.asList(change));
+
+    assertEquals(2, feed.poll().size());
+
+
+    // the renamed object is only found by its new name and designator, under both fields
+    assertEquals(Arrays.asList(200, 300), catalogNumbers(index.startsWith(SatCatQueryField.OBJECT_NAME, "SAT ")));
+    assertEquals(Arrays.asList(200, 300), catalogNumbers(index.startsWith(SatCatQueryField.SATNAME, "SAT ")));
+    assertEquals(Arrays.asList(100), catalogNumbers(index.contains(SatCatQueryField.OBJECT_NAME, "renamed")));
+    assertEquals(Arrays.asList(100), catalogNumbers(index.contains(SatCatQueryField.SATNAME, "renamed")));
+    assertEquals(Arrays.asList(100), catalogNumbers(index.startsWith(SatCatQueryField.INTERNATIONAL_DESIGNATOR, "2021-002")));
+    assertEquals(3, index.size());
+  }
+
+
+  private static List<Integer> catalogNumbers(List<SatCat> records) {
+
+    return records.stream().map(record -> record.getCatalogNumber().get()).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,247 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.history.ElementSet;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class SharedCatalogTests {
+
+  /**
+   * Creates a record whose values are all derived from its catalog number and a version, so a reader can tell whether it is internally consistent
+   */
+  private static CatalogRecord record(int catalogNumber, int version) {
+
+    ElementSet elements = new ElementSet(Instant.parse("2020-01-01T00:00:00.123456Z").plusSeconds(version), 15.0 + version * 1e-6, 0.0001 * (catalogNumber % 100), 51.6 + version * 1e-3,
+        catalogNumber % 360, version % 360, (catalogNumber + version) % 360, 1e-5 * version);
+
+    return new CatalogRecord(catalogNumber, "OBJECT " + catalogNumber + " V" + version, "2020-" + catalogNumber + "A", elements, 90.0 + version * 1e-3, 400.0 + version, 390.0 + version);
+  }
+
+
+  private static List<CatalogRecord> catalog(int count, int version) {
+
+    List<CatalogRecord> records = new ArrayList<>(count);
+
+    for (int i = 0; i < count; i++) {
+      records.add(record(count - i, version)); // reversed so the writer has to sort them
+    }
+
+    return records;
+  }
+
+
+  private static boolean isConsistent(CatalogRecord record) {
+
+    int version = (int) (record.getApogeeHeightKilometers() - 400.0);
+
+    return record.equals(record(record.getCatalogNumber(), version));
+  }
+
+
+  @Test
+  @DisplayName("SharedCatalog: Parameter validation")
+  public void test1() throws IOException {
+
+    Path file = Files.createTempDirectory("spacetrack").resolve("catalog.bin");
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      SharedCatalogWriter.open(null, 10);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      SharedCatalogWriter.open(file, 0);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      SharedCatalogReader.open(null);
+    });
+
+    try (SharedCatalogWriter writer = SharedCatalogWriter.open(file, 10)) {
+
+      assertThrows(IllegalArgumentException.class, () -> {
+        writer.publish(null);
+      });
+
+      assertThrows(IllegalArgumentException.class, () -> {
+        writer.publish(Collections.singletonList(null));
+      });
+
+      // more records than the capacity
+      assertThrows(IllegalArgumentException.class, () -> {
+        writer.publish(catalog(11, 1));
+      });
+
+      // only one writer at a time
+      assertThrows(IOException.class, () -> {
+        SharedCatalogWriter.open(file, 10);
+      });
+    }
+
+
+    // a different capacity
+    assertThrows(IOException.class, () -> {
+      SharedCatalogWriter.open(file, 20);
+    });
+
+
+    // not a shared catalog file
+    Path otherFile = Files.createTempFile("spacetrack", ".bin");
+    Files.write(otherFile, "[{\"NORAD_CAT_ID\":\"1\"}]".getBytes(StandardCharsets.UTF_8));
+
+    assertThrows(IOException.class, () -> {
+      SharedCatalogReader.open(otherFile);
+    });
+
+    assertThrows(IOException.class, () -> {
+      SharedCatalogWriter.open(otherFile, 10);
+    });
+  }
+
+
+  @Test
+  @DisplayName("SharedCatalog: Publish and read")
+  public void test2() throws IOException {
+
+    Path file = Files.createTempDirectory("spacetrack").resolve("catalog.bin");
+
+    try (SharedCatalogWriter writer = SharedCatalogWriter.open(file, 100); SharedCatalogReader reader = SharedCatalogReader.open(file)) {
+
+      // nothing published yet
+      assertEquals(0L, reader.getGeneration());
+      assertEquals(0, reader.size());
+      assertFalse(reader.get(1).isPresent());
+      assertFalse(reader.getPublishedTime().isPresent());
+
+
+      // the reader sees each publication without reopening
+      assertEquals(1L, writer.publish(catalog(50, 1)));
+      assertEquals(1L, reader.getGeneration());
+      assertEquals(50, reader.size());
+      assertEquals(Optional.of(record(25, 1)), reader.get(25));
+      assertFalse(reader.get(51).isPresent());
+      assertTrue(reader.getPublishedTime().isPresent());
+
+      List<CatalogRecord> expected = catalog(50, 1);
+      Collections.reverse(expected);
+      assertEquals(expected, reader.getAll());
+
+      assertEquals(2L, writer.publish(Arrays.asList(record(7, 2), record(3, 2), record(7, 3))));
+      assertEquals(2L, reader.getGeneration());
+      assertEquals(Arrays.asList(record(3, 2), record(7, 3)), reader.getAll());
+      assertFalse(reader.get(25).isPresent());
+
+
+      // long names are truncated
+      CatalogRecord longName = new CatalogRecord(9, "A VERY LONG OBJECT NAME THAT DOES NOT FIT", "2020-001ABCDEFGHIJKLMN", record(9, 1).getElements(), 90.0, 400.0, 390.0);
+      writer.publish(Collections.singletonList(longName));
+      assertEquals("A VERY LONG OBJECT NAME THAT DOE", reader.get(9).get().getObjectName());
+      assertEquals("2020-001ABCDEFGH", reader.get(9).get().getInternationalDesignator());
+    }
+
+
+    // the catalog survives reopening, and a new writer continues the generations
+    try (SharedCatalogWriter writer = SharedCatalogWriter.open(file, 100); SharedCatalogReader reader = SharedCatalogReader.open(file)) {
+
+      assertEquals(3L, writer.getGeneration());
+      assertEquals(1, reader.size());
+
+      assertEquals(4L, writer.publish(catalog(100, 4)));
+      assertEquals(100, reader.size());
+    }
+  }
+
+
+  @Test
+  @DisplayName("SharedCatalog: Readers never see a partly written catalog")
+  public void test3() throws Exception {
+
+    Path file = Files.createTempDirectory("spacetrack").resolve("catalog.bin");
+    AtomicBoolean done = new AtomicBoolean(false);
+    AtomicReference<String> failure = new AtomicReference<>();
+
+    try (SharedCatalogWriter writer = SharedCatalogWriter.open(file, 500)) {
+
+      writer.publish(catalog(500, 0));
+
+      List<Thread> readers = new ArrayList<>();
+
+      for (int i = 0; i < 3; i++) {
+
+        Thread thread = new Thread(() -> {
+
+          try (SharedCatalogReader reader = SharedCatalogReader.open(file)) {
+
+            while (!done.get() && failure.get() == null) {
+
+              List<CatalogRecord> all = reader.getAll();
+
+              // every record in one read comes from the same publication
+              int version = (int) (all.get(0).getApogeeHeightKilometers() - 400.0);
+
+              if (all.size() != 500 || !all.stream().allMatch(record -> record.equals(record(record.getCatalogNumber(), version)))) {
+                failure.set("Inconsistent catalog at version " + version);
+              }
+
+              Optional<CatalogRecord> record = reader.get(1 + (int) (Math.random() * 500));
+
+              if (!record.isPresent() || !isConsistent(record.get())) {
+                failure.set("Inconsistent record " + record);
+              }
+            }
+
+          } catch (Exception e) {
+
+            failure.set(e.toString());
+          }
+        });
+
+        thread.start();
+        readers.add(thread);
+      }
+
+      for (int version = 1; version <= 200 && failure.get() == null; version++) {
+        writer.publish(catalog(500, version));
+      }
+
+      done.set(true);
+
+      for (Thread thread : readers) {
+        thread.join();
+      }
+    }
+
+    assertEquals(null, failure.get());
+  }
+}
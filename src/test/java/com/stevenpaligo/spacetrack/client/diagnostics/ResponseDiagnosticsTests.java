@@ -0,0 +1,134 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.diagnostics;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class ResponseDiagnosticsTests {
+
+  private static final String RESPONSE = "[{\"NORAD_CAT_ID\":\"25544\",\"OBJECT_NAME\":\"ISS (ZARYA)\"}]";
+
+
+  @Test
+  @DisplayName("ResponseDiagnostics: Constructor parameter validation")
+  public void test1() {
+
+    // disallowed values
+    assertThrows(IllegalArgumentException.class, () -> {
+      new ResponseDiagnostics(-1);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new ResponseDiagnostics(10, 1.5, Optional.of(Files.createTempDirectory("spacetrack")), 1, 1L);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new ResponseDiagnostics(10, 0.5, Optional.empty(), 1, 1L);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new ResponseDiagnostics(10, 0.0, null, 1, 1L);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new ResponseDiagnostics(10, 0.0, Optional.empty(), 0, 1L);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new ResponseDiagnostics(10, 0.0, Optional.empty(), 1, 0L);
+    });
+
+
+    // allowed values
+    assertDoesNotThrow(() -> {
+      new ResponseDiagnostics(0);
+    });
+  }
+
+
+  @Test
+  @DisplayName("ResponseDiagnostics: The preview is bounded and the stream is unchanged")
+  public void test2() throws IOException {
+
+    try (DiagnosticInputStream stream = new ResponseDiagnostics(10).wrap("satcat", new ByteArrayInputStream(RESPONSE.getBytes(StandardCharsets.UTF_8)))) {
+
+      assertEquals(RESPONSE, IOUtils.toString(stream, StandardCharsets.UTF_8));
+      assertEquals(RESPONSE.substring(0, 10), stream.getPreview());
+      assertTrue(stream.isPreviewTruncated());
+      assertEquals(RESPONSE.length(), stream.getBytesRead());
+      assertFalse(stream.getCaptureFile().isPresent());
+    }
+  }
+
+
+  @Test
+  @DisplayName("ResponseDiagnostics: Sampled responses are captured to rotating files")
+  public void test3() throws IOException {
+
+    Path directory = Files.createTempDirectory("spacetrack-capture");
+    ResponseDiagnostics diagnostics = new ResponseDiagnostics(10, 1.0, Optional.of(directory), 2, 20L);
+
+    try {
+
+      // capture three responses
+      for (int i = 0; i < 3; i++) {
+
+        try (DiagnosticInputStream stream = diagnostics.wrap("satcat", new ByteArrayInputStream(RESPONSE.getBytes(StandardCharsets.UTF_8)))) {
+
+          IOUtils.toString(stream, StandardCharsets.UTF_8);
+          assertTrue(stream.getCaptureFile().isPresent());
+        }
+      }
+
+
+      // only the newest two are kept, and each one is truncated
+      List<Path> captureFiles;
+
+      try (Stream<Path> files = Files.list(directory)) {
+
+        captureFiles = files.sorted().collect(Collectors.toList());
+      }
+
+      assertEquals(2, captureFiles.size());
+      assertEquals(RESPONSE.substring(0, 20), new String(Files.readAllBytes(captureFiles.get(0)), StandardCharsets.UTF_8));
+
+    } finally {
+
+      try (Stream<Path> files = Files.walk(directory)) {
+
+        files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+      }
+    }
+  }
+}
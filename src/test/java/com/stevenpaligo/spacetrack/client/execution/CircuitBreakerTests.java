@@ -0,0 +1,133 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.execution;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.exception.CircuitBreakerOpenException;
+import com.stevenpaligo.spacetrack.client.execution.CircuitBreaker.State;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class CircuitBreakerTests {
+
+  @Test
+  @DisplayName("CircuitBreaker: Constructor parameter validation")
+  public void test1() {
+
+    // disallowed values
+    assertThrows(IllegalArgumentException.class, () -> {
+      new CircuitBreaker(0, Duration.ofSeconds(1));
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new CircuitBreaker(1, null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new CircuitBreaker(1, Duration.ZERO);
+    });
+
+
+    // allowed values
+    assertDoesNotThrow(() -> {
+      new CircuitBreaker(1, Duration.ofSeconds(1));
+    });
+  }
+
+
+  @Test
+  @DisplayName("CircuitBreaker: Opens, half-opens, and closes")
+  public void test2() throws CircuitBreakerOpenException {
+
+    MutableClock clock = new MutableClock();
+    CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofMinutes(1), clock);
+
+
+    // a success resets the failure count
+    breaker.acquirePermission();
+    breaker.onFailure();
+    breaker.onSuccess();
+    breaker.onFailure();
+    assertEquals(State.CLOSED, breaker.getState());
+
+
+    // consecutive failures open the breaker, which rejects calls
+    breaker.onFailure();
+    assertEquals(State.OPEN, breaker.getState());
+    assertThrows(CircuitBreakerOpenException.class, breaker::acquirePermission);
+
+
+    // once the open duration elapses, a single trial call is allowed
+    clock.advance(Duration.ofMinutes(1));
+    assertEquals(State.HALF_OPEN, breaker.getState());
+    breaker.acquirePermission();
+    assertThrows(CircuitBreakerOpenException.class, breaker::acquirePermission);
+
+
+    // a failed trial re-opens the breaker
+    breaker.onFailure();
+    assertEquals(State.OPEN, breaker.getState());
+
+
+    // a successful trial closes the breaker
+    clock.advance(Duration.ofMinutes(1));
+    breaker.acquirePermission();
+    breaker.onSuccess();
+    assertEquals(State.CLOSED, breaker.getState());
+    assertDoesNotThrow(breaker::acquirePermission);
+  }
+
+
+  private static class MutableClock extends Clock {
+
+    private Instant now = Instant.parse("2020-01-01T00:00:00Z");
+
+
+    void advance(Duration duration) {
+
+      now = now.plus(duration);
+    }
+
+
+    @Override
+    public ZoneId getZone() {
+
+      return ZoneOffset.UTC;
+    }
+
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+
+      return this;
+    }
+
+
+    @Override
+    public Instant instant() {
+
+      return now;
+    }
+  }
+}
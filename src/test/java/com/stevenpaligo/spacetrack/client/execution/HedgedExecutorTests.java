@@ -0,0 +1,206 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.execution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.execution.RateLimiter.Window;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class HedgedExecutorTests {
+
+  @Test
+  @DisplayName("HedgingPolicy: Constructor parameter validation and percentile-based delay")
+  public void test1() {
+
+    // disallowed values
+    assertThrows(IllegalArgumentException.class, () -> {
+      new HedgingPolicy(1.0, Duration.ZERO, Duration.ZERO);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new HedgingPolicy(0.95, Duration.ofSeconds(2), Duration.ofSeconds(1));
+    });
+
+
+    // the initial delay is used until enough latencies are observed
+    HedgingPolicy policy = new HedgingPolicy(0.9, Duration.ofMillis(5), Duration.ofSeconds(1));
+    assertEquals(Duration.ofSeconds(1), policy.getHedgeDelay("tle_latest"));
+
+    for (int i = 1; i <= 100; i++) {
+
+      policy.recordLatency("tle_latest", Duration.ofMillis(i));
+    }
+
+    assertEquals(Duration.ofMillis(90), policy.getHedgeDelay("tle_latest"));
+    assertEquals(Duration.ofSeconds(1), policy.getHedgeDelay("satcat"));
+
+
+    // the minimum delay is a lower bound
+    for (int i = 1; i <= 100; i++) {
+
+      policy.recordLatency("boxscore", Duration.ofMillis(1));
+    }
+
+    assertEquals(Duration.ofMillis(5), policy.getHedgeDelay("boxscore"));
+  }
+
+
+  @Test
+  @DisplayName("HedgedExecutor: A slow request is hedged and the loser is cancelled")
+  public void test2() throws IOException, InterruptedException {
+
+    HedgingPolicy policy = new HedgingPolicy(0.95, Duration.ZERO, Duration.ofMillis(50));
+    AtomicInteger attempts = new AtomicInteger();
+    CountDownLatch loserCancelled = new CountDownLatch(1);
+
+
+    // the first request hangs until it is cancelled, the hedge answers right away
+    String result = new HedgedExecutor(policy, Optional.empty()).execute("tle_latest", cancellationToken -> {
+
+      if (attempts.incrementAndGet() == 1) {
+
+        CountDownLatch cancelled = new CountDownLatch(1);
+        cancellationToken.onCancel(() -> {
+          cancelled.countDown();
+          loserCancelled.countDown();
+        });
+
+        try {
+
+          cancelled.await();
+
+        } catch (InterruptedException e) {
+
+          Thread.currentThread().interrupt();
+        }
+
+        throw new SocketTimeoutException();
+      }
+
+      return "hedge";
+    });
+
+    assertEquals("hedge", result);
+    assertEquals(2, attempts.get());
+    assertTrue(loserCancelled.await(5, TimeUnit.SECONDS));
+  }
+
+
+  @Test
+  @DisplayName("HedgedExecutor: Fast requests and exhausted rate limits are not hedged")
+  public void test3() throws IOException {
+
+    HedgingPolicy policy = new HedgingPolicy(0.95, Duration.ZERO, Duration.ofMillis(50));
+    AtomicInteger attempts = new AtomicInteger();
+
+
+    // a fast request is not hedged
+    assertEquals("fast", new HedgedExecutor(policy, Optional.empty()).execute("tle_latest", cancellationToken -> {
+
+      attempts.incrementAndGet();
+      return "fast";
+    }));
+
+    assertEquals(1, attempts.get());
+
+
+    // a slow request is not hedged when the rate limiter has no permit to spare (the caller takes the first request's permit)
+    RateLimiter rateLimiter = new RateLimiter(new Window(1, Duration.ofHours(1)));
+    assertTrue(rateLimiter.tryAcquire());
+    attempts.set(0);
+
+    assertEquals("slow", new HedgedExecutor(policy, Optional.of(rateLimiter)).execute("satcat", cancellationToken -> {
+
+      attempts.incrementAndGet();
+
+      try {
+
+        Thread.sleep(200);
+
+      } catch (InterruptedException e) {
+
+        Thread.currentThread().interrupt();
+      }
+
+      return "slow";
+    }));
+
+    assertEquals(1, attempts.get());
+  }
+
+
+  @Test
+  @DisplayName("HedgedExecutor: Both requests' latencies are recorded from the start of the request")
+  public void test4() throws IOException {
+
+    List<Duration> latencies = new CopyOnWriteArrayList<>();
+
+    HedgingPolicy policy = new HedgingPolicy(0.95, Duration.ZERO, Duration.ofMillis(100)) {
+
+      @Override
+      public void recordLatency(String queryClass, Duration latency) {
+
+        latencies.add(latency);
+        super.recordLatency(queryClass, latency);
+      }
+    };
+
+    AtomicInteger attempts = new AtomicInteger();
+
+
+    // the first request hangs until it is cancelled and the hedge takes another 50 ms
+    String result = new HedgedExecutor(policy, Optional.empty()).execute("tle_latest", cancellationToken -> {
+
+      boolean first = (attempts.incrementAndGet() == 1);
+
+      try {
+
+        Thread.sleep(first ? 10_000 : 50);
+
+      } catch (InterruptedException e) {
+
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+
+      return first ? "first" : "hedge";
+    });
+
+    assertEquals("hedge", result);
+
+
+    // the hedge's latency includes the hedge delay, and the cancelled request is recorded as taking at least as long
+    assertEquals(2, latencies.size());
+
+    for (Duration latency : latencies) {
+      assertTrue(latency.toMillis() >= 150, latency.toString());
+    }
+  }
+}
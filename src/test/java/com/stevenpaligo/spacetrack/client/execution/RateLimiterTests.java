@@ -0,0 +1,83 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.execution;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.execution.RateLimiter.Window;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class RateLimiterTests {
+
+  @Test
+  @DisplayName("RateLimiter: Constructor parameter validation")
+  public void test1() {
+
+    // disallowed values
+    assertThrows(IllegalArgumentException.class, () -> {
+      new Window(0, Duration.ofSeconds(1));
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new Window(1, Duration.ZERO);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new RateLimiter();
+    });
+
+
+    // allowed values
+    assertDoesNotThrow(() -> {
+      RateLimiter.forSpaceTrack();
+    });
+  }
+
+
+  @Test
+  @DisplayName("RateLimiter: Permits are limited per window")
+  public void test2() throws InterruptedIOException {
+
+    RateLimiter rateLimiter = new RateLimiter(new Window(2, Duration.ofMillis(500)), new Window(3, Duration.ofHours(1)));
+
+
+    // the first window allows two immediate permits
+    assertEquals(Duration.ZERO, rateLimiter.getWaitTime());
+    assertTrue(rateLimiter.tryAcquire());
+    assertTrue(rateLimiter.tryAcquire());
+    assertFalse(rateLimiter.tryAcquire());
+
+    Duration waitTime = rateLimiter.getWaitTime();
+    assertTrue(waitTime.toMillis() > 0L && waitTime.toMillis() <= 500L, waitTime.toString());
+
+
+    // the third permit waits for the first window to slide
+    Duration waited = rateLimiter.acquire();
+    assertTrue(waited.toMillis() > 0L && waited.toMillis() <= 500L, waited.toString());
+
+
+    // the second window is now exhausted
+    assertFalse(rateLimiter.tryAcquire());
+    assertTrue(rateLimiter.getWaitTime().compareTo(Duration.ofMinutes(59)) > 0);
+  }
+}
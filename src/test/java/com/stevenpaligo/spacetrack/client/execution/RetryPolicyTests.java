@@ -0,0 +1,122 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.execution;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.exception.CircuitBreakerOpenException;
+import com.stevenpaligo.spacetrack.client.exception.SpaceTrackException;
+import com.stevenpaligo.spacetrack.client.exception.SpaceTrackResponseException;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class RetryPolicyTests {
+
+  @Test
+  @DisplayName("RetryPolicy: Constructor parameter validation")
+  public void test1() {
+
+    // disallowed values
+    assertThrows(IllegalArgumentException.class, () -> {
+      new RetryPolicy(0, Duration.ZERO, Duration.ZERO, 1.0, 0.0);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new RetryPolicy(1, null, Duration.ZERO, 1.0, 0.0);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new RetryPolicy(1, Duration.ofSeconds(-1), Duration.ZERO, 1.0, 0.0);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new RetryPolicy(1, Duration.ofSeconds(2), Duration.ofSeconds(1), 1.0, 0.0);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new RetryPolicy(1, Duration.ZERO, Duration.ZERO, 0.5, 0.0);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new RetryPolicy(1, Duration.ZERO, Duration.ZERO, 1.0, 1.5);
+    });
+
+
+    // allowed values
+    assertDoesNotThrow(() -> {
+      new RetryPolicy(3, Duration.ofSeconds(1), Duration.ofSeconds(10), 2.0, 0.5);
+    });
+  }
+
+
+  @Test
+  @DisplayName("RetryPolicy: Exponential backoff with jitter")
+  public void test2() {
+
+    // without jitter, the backoff grows exponentially up to the maximum
+    RetryPolicy policy = new RetryPolicy(10, Duration.ofSeconds(1), Duration.ofSeconds(5), 2.0, 0.0);
+
+    assertEquals(Duration.ofSeconds(1), policy.getBackoff(1));
+    assertEquals(Duration.ofSeconds(2), policy.getBackoff(2));
+    assertEquals(Duration.ofSeconds(4), policy.getBackoff(3));
+    assertEquals(Duration.ofSeconds(5), policy.getBackoff(4));
+    assertEquals(Duration.ofSeconds(5), policy.getBackoff(9));
+
+
+    // with jitter, the backoff stays within the jittered range
+    policy = new RetryPolicy(10, Duration.ofSeconds(4), Duration.ofSeconds(4), 1.0, 0.5);
+
+    for (int i = 0; i < 100; i++) {
+
+      Duration backoff = policy.getBackoff(1);
+      assertTrue(backoff.compareTo(Duration.ofSeconds(2)) >= 0 && backoff.compareTo(Duration.ofSeconds(4)) <= 0, backoff.toString());
+    }
+  }
+
+
+  @Test
+  @DisplayName("RetryPolicy: Retryable failures")
+  public void test3() {
+
+    // transport failures and server errors are retryable
+    assertTrue(RetryPolicy.DEFAULT.isRetryable(new SocketTimeoutException()));
+    assertTrue(RetryPolicy.DEFAULT.isRetryable(new SpaceTrackResponseException(503, "Service Unavailable", Optional.empty())));
+    assertTrue(RetryPolicy.DEFAULT.isRetryable(new SpaceTrackResponseException(429, "Too Many Requests", Optional.of(Duration.ofSeconds(30)))));
+    assertTrue(RetryPolicy.DEFAULT.isRetryable(new SpaceTrackException("Space-Track returned an empty response", true)));
+
+
+    // rejected queries, unparseable results, and an open circuit breaker are not
+    assertFalse(RetryPolicy.DEFAULT.isRetryable(new SpaceTrackResponseException(401, "Unauthorized", Optional.empty())));
+    assertFalse(RetryPolicy.DEFAULT.isRetryable(new SpaceTrackException("Space-Track returned an unsuccessful response", false)));
+    assertFalse(RetryPolicy.DEFAULT.isRetryable(new JsonParseException(null, "Unexpected character")));
+    assertFalse(RetryPolicy.DEFAULT.isRetryable(new CircuitBreakerOpenException("open")));
+    assertTrue(RetryPolicy.DEFAULT.isRetryable(new IOException()));
+
+
+    // an interrupted thread is not, although a socket timeout (which is also an InterruptedIOException) is
+    assertFalse(RetryPolicy.DEFAULT.isRetryable(new InterruptedIOException()));
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.execution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.exception.CircuitBreakerOpenException;
+import com.stevenpaligo.spacetrack.client.exception.SpaceTrackException;
+import com.stevenpaligo.spacetrack.client.exception.SpaceTrackResponseException;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class RetryingExecutorTests {
+
+  private static final RetryPolicy FAST_RETRIES = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(10), 2.0, 1.0);
+
+
+  @Test
+  @DisplayName("RetryingExecutor: Retries retryable failures until success or the attempts run out")
+  public void test1() throws IOException {
+
+    // succeeds on the third attempt
+    AtomicInteger attempts = new AtomicInteger();
+
+    String result = new RetryingExecutor(FAST_RETRIES, Optional.empty()).execute(() -> {
+
+      if (attempts.incrementAndGet() < 3) {
+
+        throw new SocketTimeoutException();
+      }
+
+      return "OK";
+    });
+
+    assertEquals("OK", result);
+    assertEquals(3, attempts.get());
+
+
+    // gives up after the maximum number of attempts
+    attempts.set(0);
+
+    assertThrows(SocketTimeoutException.class, () -> {
+
+      new RetryingExecutor(FAST_RETRIES, Optional.empty()).execute(() -> {
+
+        attempts.incrementAndGet();
+        throw new SocketTimeoutException();
+      });
+    });
+
+    assertEquals(3, attempts.get());
+  }
+
+
+  @Test
+  @DisplayName("RetryingExecutor: Does not retry non-retryable failures or excessive Retry-After waits")
+  public void test2() {
+
+    // a rejected query is not retried
+    AtomicInteger attempts = new AtomicInteger();
+
+    assertThrows(SpaceTrackException.class, () -> {
+
+      new RetryingExecutor(FAST_RETRIES, Optional.empty()).execute(() -> {
+
+        attempts.incrementAndGet();
+        throw new SpaceTrackException("rejected", false);
+      });
+    });
+
+    assertEquals(1, attempts.get());
+
+
+    // a Retry-After longer than the maximum backoff fails fast
+    attempts.set(0);
+
+    assertThrows(SpaceTrackResponseException.class, () -> {
+
+      new RetryingExecutor(FAST_RETRIES, Optional.empty()).execute(() -> {
+
+        attempts.incrementAndGet();
+        throw new SpaceTrackResponseException(429, "Too Many Requests", Optional.of(Duration.ofMinutes(5)));
+      });
+    });
+
+    assertEquals(1, attempts.get());
+  }
+
+
+  @Test
+  @DisplayName("RetryingExecutor: An open circuit breaker fails fast")
+  public void test3() {
+
+    CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofMinutes(1));
+    AtomicInteger attempts = new AtomicInteger();
+
+
+    // the first call's failed attempts open the breaker
+    assertThrows(CircuitBreakerOpenException.class, () -> {
+
+      new RetryingExecutor(FAST_RETRIES, Optional.of(breaker)).execute(() -> {
+
+        attempts.incrementAndGet();
+        throw new SocketTimeoutException();
+      });
+    });
+
+    assertEquals(2, attempts.get());
+
+
+    // later calls are rejected without being attempted
+    assertThrows(CircuitBreakerOpenException.class, () -> {
+
+      new RetryingExecutor(FAST_RETRIES, Optional.of(breaker)).execute(() -> {
+
+        attempts.incrementAndGet();
+        return "OK";
+      });
+    });
+
+    assertEquals(2, attempts.get());
+  }
+
+
+  @Test
+  @DisplayName("RetryingExecutor: An interrupted attempt is not retried and keeps the interrupt")
+  public void test4() {
+
+    CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofMinutes(1));
+    AtomicInteger attempts = new AtomicInteger();
+
+    try {
+
+      assertThrows(InterruptedIOException.class, () -> {
+
+        new RetryingExecutor(FAST_RETRIES, Optional.of(breaker)).execute(() -> {
+
+          attempts.incrementAndGet();
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while waiting for a Space-Track rate limit permit");
+        });
+      });
+
+      assertTrue(Thread.currentThread().isInterrupted());
+      assertEquals(1, attempts.get());
+
+      // the interruption doesn't count against Space-Track
+      assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+    } finally {
+
+      Thread.interrupted();
+    }
+  }
+}
@@ -0,0 +1,291 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.history;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.TleQuery.Tle;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class TleHistoryStoreTests {
+
+  private static final Instant START = Instant.parse("2015-01-01T00:00:00Z");
+
+
+  /**
+   * Creates a realistic history: epochs roughly twice a day with microsecond jitter and elements drifting slowly
+   */
+  private static List<ElementSet> history(int count, long seed) {
+
+    Random random = new Random(seed);
+    List<ElementSet> history = new ArrayList<>(count);
+
+    Instant epoch = START.plusSeconds(random.nextInt(86_400));
+    double meanMotion = 14.0 + random.nextDouble();
+    double raan = random.nextDouble() * 360.0;
+    double argOfPerigee = random.nextDouble() * 360.0;
+
+    for (int i = 0; i < count; i++) {
+
+      epoch = epoch.plusSeconds(43_000 + random.nextInt(1_000)).plusNanos(random.nextInt(1_000_000) * 1_000L);
+      meanMotion += 1e-6 * random.nextDouble();
+      raan = (raan + 359.0 + random.nextDouble()) % 360.0;
+      argOfPerigee = (argOfPerigee + 1.5) % 360.0;
+
+      history.add(new ElementSet(epoch, round(meanMotion, 8), round(0.0001 + 1e-5 * random.nextInt(3), 7), 51.6416, round(raan, 4), round(argOfPerigee, 4), round(random.nextDouble() * 360.0, 4),
+          round(1e-5 * random.nextDouble(), 9)));
+    }
+
+    return history;
+  }
+
+
+  private static double round(double value, int digits) {
+
+    double scale = Math.pow(10.0, digits);
+
+    return Math.round(value * scale) / scale;
+  }
+
+
+  @Test
+  @DisplayName("TleHistoryStore: Parameter validation")
+  public void test1() throws IOException {
+
+    Path file = Files.createTempDirectory("spacetrack").resolve("history.bin");
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      TleHistoryStore.open(null);
+    });
+
+    TleHistoryStore store = TleHistoryStore.open(file);
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      store.append(1, null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      store.getNearest(1, null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      store.appendTles(null);
+    });
+
+    store.close();
+
+    assertThrows(IllegalStateException.class, () -> {
+      store.getNearest(1, START);
+    });
+
+
+    // not a history file
+    Path otherFile = Files.createTempFile("spacetrack", ".bin");
+    Files.write(otherFile, "[{\"NORAD_CAT_ID\":\"1\"}]".getBytes(StandardCharsets.UTF_8));
+
+    assertThrows(IOException.class, () -> {
+      TleHistoryStore.open(otherFile);
+    });
+  }
+
+
+  @Test
+  @DisplayName("TleHistoryStore: Compression round trip")
+  public void test2() {
+
+    List<ElementSet> history = history(TleHistoryStore.BLOCK_SIZE, 1L);
+    byte[] compressed = ElementSetCodec.encode(history);
+
+    assertEquals(history, ElementSetCodec.decode(ByteBuffer.wrap(compressed), 0, history.size()));
+
+
+    // raw values take 64 bytes per element set
+    assertTrue(compressed.length < history.size() * 48, Integer.toString(compressed.length));
+
+
+    // unusual values survive
+    List<ElementSet> unusual = Arrays.asList(new ElementSet(Instant.parse("1957-10-04T19:28:34.123456Z"), 16.0, 0.0, -0.0, Double.NaN, Double.MAX_VALUE, Double.MIN_VALUE, -1e-300),
+        new ElementSet(Instant.parse("1957-10-04T19:28:34.123457Z"), 16.0, 0.0, 180.0, 1.0, -Double.MAX_VALUE, Double.MIN_VALUE, 1e-300),
+        new ElementSet(Instant.parse("2099-12-31T23:59:59.999999Z"), 1.0, 0.99, 180.0, 1.0, 0.0, 0.5, 0.0));
+
+    assertEquals(unusual, ElementSetCodec.decode(ByteBuffer.wrap(ElementSetCodec.encode(unusual)), 0, unusual.size()));
+  }
+
+
+  @Test
+  @DisplayName("TleHistoryStore: Nearest and range lookups")
+  public void test3() throws IOException {
+
+    Path file = Files.createTempDirectory("spacetrack").resolve("history.bin");
+    List<List<ElementSet>> histories = Arrays.asList(history(300, 2L), history(5, 3L), history(150, 4L));
+
+    try (TleHistoryStore store = TleHistoryStore.open(file)) {
+
+      // interleave the objects and flush part of the way through, so the blocks vary in size
+      for (int i = 0; i < 300; i++) {
+
+        for (int object = 0; object < histories.size(); object++) {
+
+          if (i < histories.get(object).size()) {
+            assertTrue(store.append(object + 1, histories.get(object).get(i)));
+          }
+        }
+
+        if (i == 100) {
+          store.flush();
+        }
+      }
+
+
+      // older and duplicate element sets are ignored
+      assertFalse(store.append(1, histories.get(0).get(10)));
+      assertFalse(store.append(1, histories.get(0).get(299)));
+
+      assertEquals(300, store.getCount(1));
+      assertEquals(5, store.getCount(2));
+      assertEquals(0, store.getCount(4));
+      assertTrue(Arrays.equals(new int[] {1, 2, 3}, store.getCatalogNumbers()));
+
+      checkLookups(store, histories);
+    }
+
+
+    // the history survives reopening, with the index rebuilt from the file
+    try (TleHistoryStore store = TleHistoryStore.open(file)) {
+
+      assertEquals(300, store.getCount(1));
+      assertEquals(histories.get(2), store.getRange(3, Instant.MIN, Instant.MAX));
+      checkLookups(store, histories);
+    }
+  }
+
+
+  private static void checkLookups(TleHistoryStore store, List<List<ElementSet>> histories) throws IOException {
+
+    Random random = new Random(5L);
+
+    for (int object = 0; object < histories.size(); object++) {
+
+      List<ElementSet> history = histories.get(object);
+      Instant first = history.get(0).getEpoch();
+      Instant last = history.get(history.size() - 1).getEpoch();
+
+      for (int i = 0; i < 200; i++) {
+
+        Instant time = first.minus(Duration.ofDays(2)).plusSeconds((long) (random.nextDouble() * (Duration.between(first, last).getSeconds() + 4 * 86_400L)));
+        ElementSet expected = history.stream().min(Comparator.comparing((ElementSet elementSet) -> Duration.between(elementSet.getEpoch(), time).abs()).thenComparing(ElementSet::getEpoch))
+            .get();
+
+        assertEquals(expected, store.getNearest(object + 1, time).get());
+      }
+
+      Instant from = history.get(history.size() / 3).getEpoch();
+      Instant to = history.get(2 * history.size() / 3).getEpoch().minusSeconds(1);
+      List<ElementSet> expectedRange = history.stream().filter(elementSet -> !elementSet.getEpoch().isBefore(from) && !elementSet.getEpoch().isAfter(to)).collect(Collectors.toList());
+
+      assertEquals(expectedRange, store.getRange(object + 1, from, to));
+    }
+
+    assertFalse(store.getNearest(99, START).isPresent());
+    assertTrue(store.getRange(99, Instant.MIN, Instant.MAX).isEmpty());
+  }
+
+
+  @Test
+  @DisplayName("TleHistoryStore: TLEs and interrupted writes")
+  public void test4() throws IOException {
+
+    Path file = Files.createTempDirectory("spacetrack").resolve("history.bin");
+
+    List<Tle> tles = new ArrayList<>();
+
+    for (ElementSet elementSet : history(20, 6L)) {
+
+      Tle tle = new Tle();
+      tle.setCatalogNumber(Optional.of(25544));
+      tle.setEpochYmdHms(elementSet.getEpoch().minusNanos(elementSet.getEpoch().getNano()));
+      tle.setEpochMicroseconds(elementSet.getEpoch().getNano() / 1_000);
+      tle.setMeanMotionRevsPerDay(elementSet.getMeanMotionRevsPerDay());
+      tle.setEccentricity(elementSet.getEccentricity());
+      tle.setInclinationDegrees(elementSet.getInclinationDegrees());
+      tle.setRightAscOfNodeDegrees(elementSet.getRightAscOfNodeDegrees());
+      tle.setArgOfPerigeeDegrees(elementSet.getArgOfPerigeeDegrees());
+      tle.setMeanAnomalyDegrees(elementSet.getMeanAnomalyDegrees());
+      tle.setBstar(elementSet.getBstar());
+      tles.add(tle);
+    }
+
+    Tle incomplete = new Tle();
+    incomplete.setCatalogNumber(Optional.of(25544));
+    incomplete.setEpochYmdHms(START);
+    tles.add(incomplete);
+    tles.add(null);
+
+    Collections.reverse(tles);
+
+    long sizeAfterFirstBlock;
+
+    try (TleHistoryStore store = TleHistoryStore.open(file)) {
+
+      assertEquals(20, store.appendTles(tles));
+      assertEquals(0, store.appendTles(tles));
+      store.flush();
+
+      sizeAfterFirstBlock = store.getFileSize();
+
+      assertEquals(ElementSet.of(tles.get(2)), store.getNearest(25544, START.plus(Duration.ofDays(3650))).get());
+      assertTrue(store.getNearest(25544, START).get().toPropagator().getEpoch().isAfter(START));
+    }
+
+
+    // a block cut short by a crash is discarded when the file is reopened
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+
+      randomAccessFile.seek(randomAccessFile.length());
+      randomAccessFile.writeInt(25544);
+      randomAccessFile.writeInt(3);
+      randomAccessFile.writeLong(0L);
+    }
+
+    try (TleHistoryStore store = TleHistoryStore.open(file)) {
+
+      assertEquals(sizeAfterFirstBlock, store.getFileSize());
+      assertEquals(20, store.getCount(25544));
+    }
+
+    assertEquals(sizeAfterFirstBlock, Files.size(file));
+  }
+}
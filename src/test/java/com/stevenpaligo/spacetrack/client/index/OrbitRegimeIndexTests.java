@@ -0,0 +1,145 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.OrbitMeanElementsMessageQuery.OrbitMeanElementsMessage;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class OrbitRegimeIndexTests {
+
+  private static OrbitMeanElementsMessage message(int catalogNumber, Double perigee, Double apogee, Double inclination, Double rightAscension) {
+
+    OrbitMeanElementsMessage message = new OrbitMeanElementsMessage();
+    message.setCatalogNumber(Optional.of(catalogNumber));
+    message.setPerigeeHeightKilometers(perigee);
+    message.setApogeeHeightKilometers(apogee);
+    message.setInclinationDegrees(inclination);
+    message.setRightAscOfNodeDegrees(rightAscension);
+
+    return message;
+  }
+
+
+  /**
+   * Finds the messages within a range by checking every one
+   */
+  private static List<OrbitMeanElementsMessage> bruteForce(List<OrbitMeanElementsMessage> messages, double[] bounds) {
+
+    return messages.stream().filter(message -> {
+
+      double rightAscension = message.getRightAscOfNodeDegrees();
+      boolean rightAscensionMatches = (bounds[6] <= bounds[7]) ? (rightAscension >= bounds[6] && rightAscension <= bounds[7]) : (rightAscension >= bounds[6] || rightAscension <= bounds[7]);
+
+      return message.getPerigeeHeightKilometers() >= bounds[0] && message.getPerigeeHeightKilometers() <= bounds[1] && message.getApogeeHeightKilometers() >= bounds[2]
+          && message.getApogeeHeightKilometers() <= bounds[3] && message.getInclinationDegrees() >= bounds[4] && message.getInclinationDegrees() <= bounds[5] && rightAscensionMatches;
+
+    }).collect(Collectors.toList());
+  }
+
+
+  @Test
+  @DisplayName("OrbitRegimeIndex: Parameter validation")
+  public void test1() {
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      OrbitRegimeIndex.ofTles(null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      OrbitRegimeIndex.ofOrbitMeanElementsMessages(new ArrayList<>()).find(null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new OrbitRegimeRange().setPerigeeHeight(600.0, 500.0);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new OrbitRegimeRange().setInclination(Double.NaN, 10.0);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new OrbitRegimeRange().setRightAscension(-1.0, 10.0);
+    });
+  }
+
+
+  @Test
+  @DisplayName("OrbitRegimeIndex: Small catalog")
+  public void test2() {
+
+    List<OrbitMeanElementsMessage> messages = Arrays.asList(message(1, 400.0, 420.0, 51.6, 10.0), message(2, 550.0, 560.0, 97.5, 355.0), message(3, 35_780.0, 35_790.0, 0.05, 90.0),
+        message(4, null, 420.0, 51.6, 10.0), message(5, 400.0, 410.0, 51.6, 200.0), null);
+
+    OrbitRegimeIndex<OrbitMeanElementsMessage> index = OrbitRegimeIndex.ofOrbitMeanElementsMessages(messages);
+
+    // the message without a perigee height is left out
+    assertEquals(4, index.size());
+    assertEquals(4, index.count(new OrbitRegimeRange()));
+
+    // the bounds are inclusive
+    assertEquals(Arrays.asList(messages.get(0), messages.get(4)), index.find(new OrbitRegimeRange().setPerigeeHeight(400.0, 400.0).setInclination(51.0, 52.0)));
+
+    // the right ascension wraps around zero
+    assertEquals(Arrays.asList(messages.get(0), messages.get(1)), index.find(new OrbitRegimeRange().setRightAscension(350.0, 20.0)));
+    assertEquals(0, index.count(new OrbitRegimeRange().setApogeeHeight(1_000.0, 2_000.0)));
+  }
+
+
+  @Test
+  @DisplayName("OrbitRegimeIndex: Matches a brute-force search")
+  public void test3() {
+
+    Random random = new Random(1L);
+    List<OrbitMeanElementsMessage> messages = new ArrayList<>();
+
+    for (int i = 0; i < 20_000; i++) {
+
+      // clustered regimes with many duplicate values, like a real catalog
+      double perigee = (random.nextInt(3) == 0) ? 35_786.0 : 200.0 + random.nextInt(1_500);
+      double apogee = perigee + ((random.nextInt(4) == 0) ? random.nextInt(40_000) : random.nextInt(50));
+      double inclination = (random.nextBoolean()) ? 98.0 : random.nextInt(1_800) / 10.0;
+      double rightAscension = random.nextInt(3_600) / 10.0;
+
+      messages.add(message(i, perigee, apogee, inclination, rightAscension));
+    }
+
+    OrbitRegimeIndex<OrbitMeanElementsMessage> index = OrbitRegimeIndex.ofOrbitMeanElementsMessages(messages);
+
+    for (int i = 0; i < 500; i++) {
+
+      double minimumPerigee = 200.0 + random.nextInt(1_500);
+      double minimumApogee = minimumPerigee + random.nextInt(100);
+      double minimumInclination = random.nextInt(1_800) / 10.0;
+      double[] bounds = {minimumPerigee, minimumPerigee + random.nextInt(500), minimumApogee, minimumApogee + random.nextInt(2_000), minimumInclination,
+          Math.min(180.0, minimumInclination + random.nextInt(30)), random.nextInt(3_600) / 10.0, random.nextInt(3_600) / 10.0};
+
+      OrbitRegimeRange range = new OrbitRegimeRange().setPerigeeHeight(bounds[0], bounds[1]).setApogeeHeight(bounds[2], bounds[3]).setInclination(bounds[4], bounds[5])
+          .setRightAscension(bounds[6], bounds[7]);
+
+      assertEquals(bruteForce(messages, bounds), index.find(range), range.toString());
+    }
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.SatCatQuery.SatCat;
+import com.stevenpaligo.spacetrack.client.SatCatQuery.SatCatQueryField;
+import com.stevenpaligo.spacetrack.client.predicate.Contains;
+import com.stevenpaligo.spacetrack.client.predicate.Equal;
+import com.stevenpaligo.spacetrack.client.predicate.StartsWith;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class SatCatNameIndexTests {
+
+  private static SatCat record(Integer catalogNumber, String objectName, String internationalDesignator) {
+
+    SatCat record = new SatCat();
+    record.setCatalogNumber(Optional.ofNullable(catalogNumber));
+    record.setObjectName(objectName);
+    record.setSatName(objectName);
+    record.setInternationalDesignator(internationalDesignator);
+
+    return record;
+  }
+
+
+  private static List<Integer> catalogNumbers(List<SatCat> records) {
+
+    return records.stream().map(record -> record.getCatalogNumber().get()).collect(Collectors.toList());
+  }
+
+
+  @Test
+  @DisplayName("SatCatNameIndex: Parameter validation")
+  public void test1() {
+
+    SatCatNameIndex index = new SatCatNameIndex();
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      index.putAll(null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      index.put(record(null, "NAME", "2020-001A"));
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      index.contains(SatCatQueryField.OBJECT_NAME, null);
+    });
+
+    // not an indexed field
+    assertThrows(IllegalArgumentException.class, () -> {
+      index.startsWith(SatCatQueryField.COUNTRY, "US");
+    });
+
+    // not a text search
+    assertThrows(IllegalArgumentException.class, () -> {
+      index.find(new Equal<>(SatCatQueryField.OBJECT_NAME, "ISS"));
+    });
+  }
+
+
+  @Test
+  @DisplayName("SatCatNameIndex: Searches and updates")
+  public void test2() {
+
+    SatCatNameIndex index = new SatCatNameIndex().putAll(Arrays.asList(record(44713, "STARLINK-1007", "2019-074A"), record(25544, "ISS (ZARYA)", "1998-067A"),
+        record(44714, "STARLINK-1008", "2019-074B"), record(48274, "CSS (TIANHE)", "2021-035A"), record(1, null, null), record(null, "IGNORED", "IGNORED")));
+
+    assertEquals(5, index.size());
+
+
+    // prefixes, ignoring case
+    assertEquals(Arrays.asList(44713, 44714), catalogNumbers(index.startsWith(SatCatQueryField.OBJECT_NAME, "starlink")));
+    assertEquals(Arrays.asList(44714), catalogNumbers(index.startsWith(SatCatQueryField.INTERNATIONAL_DESIGNATOR, "2019-074B")));
+    assertEquals(Arrays.asList(25544, 44713, 44714, 48274), catalogNumbers(index.startsWith(SatCatQueryField.SATNAME, "")));
+
+
+    // substrings of each length
+    assertEquals(Arrays.asList(25544, 48274), catalogNumbers(index.contains(SatCatQueryField.OBJECT_NAME, "(")));
+    assertEquals(Arrays.asList(25544, 48274), catalogNumbers(index.contains(SatCatQueryField.OBJECT_NAME, "ss")));
+    assertEquals(Arrays.asList(44713, 44714), catalogNumbers(index.contains(SatCatQueryField.OBJECT_NAME, "-10")));
+    assertEquals(Arrays.asList(44714), catalogNumbers(index.contains(SatCatQueryField.OBJECT_NAME, "link-1008")));
+    assertEquals(Arrays.asList(44713, 44714), catalogNumbers(index.contains(SatCatQueryField.INTERNATIONAL_DESIGNATOR, "-07")));
+    assertTrue(index.contains(SatCatQueryField.OBJECT_NAME, "STARLINK-1009").isEmpty());
+    assertTrue(index.contains(SatCatQueryField.OBJECT_NAME, "Q").isEmpty());
+
+
+    // predicates
+    assertEquals(Arrays.asList(25544), catalogNumbers(index.find(new Contains<>(SatCatQueryField.OBJECT_NAME, "ZARYA"))));
+    assertEquals(Arrays.asList(48274), catalogNumbers(index.find(new StartsWith<>(SatCatQueryField.INTERNATIONAL_DESIGNATOR, "2021"))));
+
+
+    // a replaced record is no longer found by its old values
+    index.put(record(44713, "RENAMED", "2019-074A"));
+
+    assertEquals(Arrays.asList(44714), catalogNumbers(index.startsWith(SatCatQueryField.OBJECT_NAME, "STARLINK")));
+    assertEquals(Arrays.asList(44713), catalogNumbers(index.contains(SatCatQueryField.OBJECT_NAME, "NAM")));
+
+    assertEquals("ISS (ZARYA)", index.remove(25544).get().getObjectName());
+    assertFalse(index.remove(25544).isPresent());
+    assertFalse(index.get(25544).isPresent());
+    assertEquals(Arrays.asList(48274), catalogNumbers(index.contains(SatCatQueryField.OBJECT_NAME, "SS (")));
+  }
+
+
+  @Test
+  @DisplayName("SatCatNameIndex: Matches a brute-force search")
+  public void test3() {
+
+    Random random = new Random(1L);
+    String[] words = {"STARLINK", "COSMOS", "DEB", "R/B", "ONEWEB", "IRIDIUM", "FENGYUN 1C", "SL-16"};
+    List<SatCat> records = new ArrayList<>();
+    SatCatNameIndex index = new SatCatNameIndex();
+
+    for (int i = 1; i <= 5_000; i++) {
+
+      String name = words[random.nextInt(words.length)] + " " + random.nextInt(3_000);
+      String designator = (1957 + random.nextInt(68)) + "-" + String.format("%03d", random.nextInt(300)) + (char) ('A' + random.nextInt(26));
+      SatCat record = record(i, name, designator);
+
+      records.add(record);
+      index.put(record);
+    }
+
+    for (int i = 0; i < 300; i++) {
+
+      SatCat sample = records.get(random.nextInt(records.size()));
+      String name = sample.getObjectName();
+      int start = random.nextInt(name.length());
+      String text = name.substring(start, Math.min(name.length(), start + 1 + random.nextInt(6))).toLowerCase(Locale.ROOT);
+
+      List<SatCat> expected = records.stream().filter(record -> record.getObjectName().contains(text.toUpperCase(Locale.ROOT))).collect(Collectors.toList());
+      assertEquals(expected, index.contains(SatCatQueryField.OBJECT_NAME, text), text);
+
+      String prefix = sample.getInternationalDesignator().substring(0, 1 + random.nextInt(9));
+      expected = records.stream().filter(record -> record.getInternationalDesignator().startsWith(prefix)).collect(Collectors.toList());
+      assertEquals(expected, index.startsWith(SatCatQueryField.INTERNATIONAL_DESIGNATOR, prefix), prefix);
+    }
+  }
+}
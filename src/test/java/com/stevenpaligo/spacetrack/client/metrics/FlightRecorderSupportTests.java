@@ -0,0 +1,86 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class FlightRecorderSupportTests {
+
+  private static final String QUERY_STRING = "https://www.space-track.org/basicspacedata/query/class/tle_latest/format/json/emptyresult/show";
+
+
+  @Test
+  @DisplayName("FlightRecorderSupport: No event is started when not recording")
+  public void test1() {
+
+    assertNull(FlightRecorderSupport.begin());
+  }
+
+
+  @Test
+  @DisplayName("FlightRecorderSupport: Recorded events contain the observation")
+  public void test2() throws IOException {
+
+    Path recordingFile = Files.createTempFile("spacetrack-query", ".jfr");
+
+    try (Recording recording = new Recording()) {
+
+      recording.enable("com.stevenpaligo.spacetrack.Query");
+      recording.start();
+
+
+      // a request ends while recording (bytes are counted before the request ends, as QueryExecutor does)
+      QueryObservation observation = new QueryObservation("tle_latest", QUERY_STRING);
+      observation.recordPhase(QueryPhase.RATE_LIMIT_WAIT, Duration.ofMillis(7));
+      observation.beginPhase(QueryPhase.DOWNLOAD);
+      observation.addBytesReceived(4096L);
+      observation.succeed(5);
+
+      recording.stop();
+      recording.dump(recordingFile);
+
+
+      // verify the event
+      List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile).stream().filter(event -> event.getEventType().getName().equals("com.stevenpaligo.spacetrack.Query")).collect(Collectors.toList());
+
+      assertEquals(1, events.size());
+      assertEquals("tle_latest", events.get(0).getString("queryClass"));
+      assertEquals(QUERY_STRING.hashCode(), events.get(0).getInt("queryStringHash"));
+      assertEquals(Duration.ofMillis(7), events.get(0).getDuration("rateLimitWait"));
+      assertEquals(4096L, events.get(0).getLong("bytesReceived"));
+      assertEquals(5, events.get(0).getInt("resultCount"));
+      assertTrue(events.get(0).getBoolean("successful"));
+
+    } finally {
+
+      Files.deleteIfExists(recordingFile);
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class MicrometerQueryMetricsTests {
+
+  @Test
+  @DisplayName("QueryObservation: Phases, sizes, and outcomes")
+  public void test1() {
+
+    // a successful request
+    QueryObservation observation = new QueryObservation("tle_latest", "https://www.space-track.org/basicspacedata/query/class/tle_latest/format/json/emptyresult/show");
+    observation.recordPhase(QueryPhase.RATE_LIMIT_WAIT, Duration.ofMillis(5));
+    observation.beginPhase(QueryPhase.CONNECT);
+    observation.beginPhase(QueryPhase.DOWNLOAD);
+    observation.addBytesReceived(1024L);
+    observation.succeed(3);
+
+    assertEquals(Duration.ofMillis(5), observation.getPhaseDuration(QueryPhase.RATE_LIMIT_WAIT).get());
+    assertTrue(observation.getPhaseDuration(QueryPhase.CONNECT).isPresent());
+    assertTrue(observation.getPhaseDuration(QueryPhase.DOWNLOAD).isPresent());
+    assertFalse(observation.getPhaseDuration(QueryPhase.BIND).isPresent());
+    assertEquals(1024L, observation.getBytesReceived());
+    assertEquals((Integer) 3, observation.getResultCount().get());
+    assertTrue(observation.isSuccessful());
+
+
+    // a failed request is attributed to the phase in progress
+    observation = new QueryObservation("tle_latest", "https://www.space-track.org/basicspacedata/query/class/tle_latest/format/json/emptyresult/show");
+    observation.beginPhase(QueryPhase.TIME_TO_FIRST_BYTE);
+    observation.fail(new SocketTimeoutException());
+
+    assertFalse(observation.isSuccessful());
+    assertFalse(observation.getResultCount().isPresent());
+    assertEquals(QueryPhase.TIME_TO_FIRST_BYTE, observation.getFailedPhase().get());
+    assertTrue(observation.getError().get() instanceof SocketTimeoutException);
+  }
+
+
+  @Test
+  @DisplayName("MicrometerQueryMetrics: Meters are recorded with tags")
+  public void test2() {
+
+    // parameter validation
+    assertThrows(IllegalArgumentException.class, () -> {
+      new MicrometerQueryMetrics(null);
+    });
+
+
+    // record a successful and a failed request
+    MeterRegistry registry = new SimpleMeterRegistry();
+    MicrometerQueryMetrics metrics = new MicrometerQueryMetrics(registry);
+
+    QueryObservation success = new QueryObservation("satcat", "https://www.space-track.org/basicspacedata/query/class/satcat/format/json/emptyresult/show");
+    success.recordPhase(QueryPhase.RATE_LIMIT_WAIT, Duration.ofMillis(20));
+    success.addBytesReceived(2048L);
+    success.succeed(10);
+    metrics.record(success);
+
+    QueryObservation failure = new QueryObservation("satcat", "https://www.space-track.org/basicspacedata/query/class/satcat/format/json/emptyresult/show");
+    failure.beginPhase(QueryPhase.CONNECT);
+    failure.fail(new SocketTimeoutException());
+    metrics.record(failure);
+
+
+    // verify the meters
+    assertEquals(20.0, registry.get("spacetrack.query.phase").tag("query.class", "satcat").tag("phase", "rate_limit_wait").timer().totalTime(TimeUnit.MILLISECONDS), 0.001);
+    assertEquals(1L, registry.get("spacetrack.query.requests").tag("outcome", "success").timer().count());
+    assertEquals(1L, registry.get("spacetrack.query.requests").tag("outcome", "failure").timer().count());
+    assertEquals(2048.0, registry.get("spacetrack.query.bytes").summary().totalAmount(), 0.001);
+    assertEquals(10.0, registry.get("spacetrack.query.results").summary().totalAmount(), 0.001);
+    assertEquals(1.0, registry.get("spacetrack.query.errors").tag("phase", "connect").tag("exception", "SocketTimeoutException").counter().count(), 0.001);
+  }
+}
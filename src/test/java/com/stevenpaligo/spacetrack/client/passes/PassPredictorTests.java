@@ -0,0 +1,174 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.passes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.LatestTleQuery.LatestTle;
+import com.stevenpaligo.spacetrack.client.propagation.ReferenceFrames;
+import com.stevenpaligo.spacetrack.client.propagation.Sgp4Propagator;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class PassPredictorTests {
+
+  private static final Instant EPOCH = Instant.parse("2021-11-01T00:00:00Z");
+  private static final GroundStation WALLOPS = new GroundStation("Wallops", 37.94, -75.46, 0.0, 5.0);
+  private static final GroundStation SVALBARD = new GroundStation("Svalbard", 78.23, 15.39, 0.5, 5.0);
+  private static final GroundStation QUITO = new GroundStation("Quito", -0.2, -78.5, 2.8, 5.0);
+
+
+  private static LatestTle tle(int catalogNumber, double meanMotion, double inclination, double rightAscOfNode) {
+
+    LatestTle tle = new LatestTle();
+    tle.setCatalogNumber(Optional.of(catalogNumber));
+    tle.setEpochYmdHms(EPOCH);
+    tle.setMeanMotionRevsPerDay(meanMotion);
+    tle.setEccentricity(0.0005);
+    tle.setInclinationDegrees(inclination);
+    tle.setRightAscOfNodeDegrees(rightAscOfNode);
+    tle.setArgOfPerigeeDegrees(90.0);
+    tle.setMeanAnomalyDegrees(0.0);
+    tle.setBstar(1e-5);
+
+    return tle;
+  }
+
+
+  @Test
+  @DisplayName("PassPredictor: Parameter validation")
+  public void test1() {
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new GroundStation(null, 0.0, 0.0, 0.0, 0.0);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new GroundStation("Station", 91.0, 0.0, 0.0, 0.0);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new GroundStation("Station", 0.0, 0.0, 0.0, 95.0);
+    });
+
+    PassPredictor predictor = PassPredictor.ofLatestTles(Arrays.asList(tle(1, 15.5, 51.6, 0.0)));
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      predictor.predict(null, EPOCH, EPOCH.plusSeconds(60));
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      predictor.predict(Arrays.asList(WALLOPS, null), EPOCH, EPOCH.plusSeconds(60));
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      predictor.predict(Arrays.asList(WALLOPS), EPOCH, EPOCH);
+    });
+  }
+
+
+  @Test
+  @DisplayName("PassPredictor: Agrees with fine stepping")
+  public void test2() {
+
+    LatestTle tle = tle(25544, 15.5, 51.6, 30.0);
+    Instant end = EPOCH.plus(Duration.ofDays(1));
+    List<Pass> passes = PassPredictor.ofLatestTles(Arrays.asList(tle)).predict(Arrays.asList(WALLOPS), EPOCH, end);
+
+    assertFalse(passes.isEmpty());
+
+
+    // sample the elevation every 5 seconds and collect the visible intervals
+    Sgp4Propagator propagator = Sgp4Propagator.of(tle);
+    double[] position = new double[3];
+    double[] velocity = new double[3];
+    List<Instant[]> intervals = new ArrayList<>();
+    Instant rise = null;
+
+    for (Instant time = EPOCH; !time.isAfter(end); time = time.plusSeconds(5)) {
+
+      propagator.propagate(time, position, velocity);
+      ReferenceFrames.temeToEcef(ReferenceFrames.greenwichSiderealTime(time), position, position);
+      boolean visible = WALLOPS.elevationDegrees(position) >= WALLOPS.getMinElevationDegrees();
+
+      if (visible && rise == null) {
+
+        rise = time;
+
+      } else if (!visible && rise != null) {
+
+        intervals.add(new Instant[] {rise, time});
+        rise = null;
+      }
+    }
+
+    assertEquals(intervals.size(), passes.size());
+
+    for (int i = 0; i < passes.size(); i++) {
+
+      Pass pass = passes.get(i);
+
+      assertEquals(25544, pass.getCatalogNumber());
+      assertTrue(Duration.between(intervals.get(i)[0], pass.getAcquisitionOfSignal()).abs().getSeconds() <= 6);
+      assertTrue(Duration.between(intervals.get(i)[1], pass.getLossOfSignal()).abs().getSeconds() <= 6);
+      assertTrue(pass.getMaxElevationTime().isAfter(pass.getAcquisitionOfSignal()) && pass.getMaxElevationTime().isBefore(pass.getLossOfSignal()));
+      assertTrue(pass.getMaxElevationDegrees() >= 5.0 && pass.getMaxElevationDegrees() <= 90.0);
+    }
+  }
+
+
+  @Test
+  @DisplayName("PassPredictor: Geometry")
+  public void test3() {
+
+    // an equatorial orbit can never be seen from Svalbard
+    LatestTle equatorial = tle(1, 15.5, 0.1, 0.0);
+    assertFalse(PassPredictor.canBeVisible(SVALBARD, Sgp4Propagator.of(equatorial)));
+    assertTrue(PassPredictor.canBeVisible(QUITO, Sgp4Propagator.of(equatorial)));
+
+
+    // a geostationary satellite above Quito is visible for the whole span
+    LatestTle geostationary = tle(2, 1.00273791, 0.01, 0.0);
+    Sgp4Propagator propagator = Sgp4Propagator.of(geostationary);
+    double[] position = new double[3];
+    propagator.propagate(EPOCH, position, new double[3]);
+    double longitude = Math.toDegrees(Math.atan2(position[1], position[0]) - ReferenceFrames.greenwichSiderealTime(EPOCH));
+    GroundStation below = new GroundStation("Below", 0.0, longitude, 0.0, 5.0);
+
+    Instant end = EPOCH.plus(Duration.ofHours(12));
+    List<Pass> passes = PassPredictor.ofLatestTles(Arrays.asList(equatorial, geostationary)).predict(Arrays.asList(SVALBARD, below), EPOCH, end);
+    List<Pass> geostationaryPasses = passes.stream().filter(pass -> pass.getCatalogNumber() == 2).collect(Collectors.toList());
+
+    assertTrue(passes.stream().noneMatch(pass -> pass.getStation() == SVALBARD && pass.getCatalogNumber() == 1));
+    assertEquals(1, geostationaryPasses.size());
+    assertEquals(EPOCH, geostationaryPasses.get(0).getAcquisitionOfSignal());
+    assertEquals(end, geostationaryPasses.get(0).getLossOfSignal());
+    assertTrue(geostationaryPasses.get(0).getMaxElevationDegrees() > 85.0);
+
+    assertEquals(Collections.emptyList(), PassPredictor.ofLatestTles(Arrays.asList(equatorial)).predict(Arrays.asList(SVALBARD), EPOCH, end));
+  }
+}
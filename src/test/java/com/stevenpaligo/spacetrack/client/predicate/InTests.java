@@ -158,6 +158,15 @@ public class InTests {
   public void test3() {
 
     assertEquals("NORAD_CAT_ID/ABC,DEF", new In<>(new TestQueryField(), "ABC", "DEF", "ABC", "DEF").toQueryParameter());
+
+
+    // the first occurrence of each value is kept
+    assertEquals("NORAD_CAT_ID/DEF,ABC", new In<>(new TestQueryField(), "DEF", "ABC", "DEF").toQueryParameter());
+    assertEquals("NORAD_CAT_ID/7,6", new In<>(new TestQueryField(), 7, 6, 7L).toQueryParameter());
+
+
+    // the canonical form is sorted
+    assertEquals("NORAD_CAT_ID/ABC,DEF", new In<>(new TestQueryField(), "DEF", "ABC", "DEF").toCanonicalQueryParameter());
   }
 
 
@@ -0,0 +1,109 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.propagation;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures how many objects per second {@link CatalogPropagator} propagates, single-threaded and on all cores. After <code>mvn test-compile</code>, run {@link #main(String[])} or
+ * <code>org.openjdk.jmh.Main CatalogPropagatorBenchmark</code> with the test classpath.
+ *
+ * @author Steven Paligo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogPropagatorBenchmark {
+
+  // roughly the size of the public catalog
+  private static final int CATALOG_SIZE = 25_000;
+
+
+  private CatalogPropagator sequential;
+  private CatalogPropagator parallel;
+  private CatalogState sequentialState;
+  private CatalogState parallelState;
+  private Instant time;
+
+
+  @Setup
+  public void setUp() {
+
+    Random random = new Random(42);
+    Instant epoch = Instant.parse("2021-11-01T00:00:00Z");
+    int[] catalogNumbers = new int[CATALOG_SIZE];
+    Sgp4Propagator[] propagators = new Sgp4Propagator[CATALOG_SIZE];
+
+    for (int i = 0; i < CATALOG_SIZE; i++) {
+
+      // mostly low orbits with some deep-space ones, like the real catalog
+      double meanMotion = (random.nextDouble() < 0.85) ? 12.0 + 4.0 * random.nextDouble() : 1.0 + 1.5 * random.nextDouble();
+
+      catalogNumbers[i] = i + 1;
+      propagators[i] = new Sgp4Propagator(epoch.minus(Duration.ofMinutes(random.nextInt(10_000))), meanMotion, 0.02 * random.nextDouble(), 180.0 * random.nextDouble(),
+          360.0 * random.nextDouble(), 360.0 * random.nextDouble(), 360.0 * random.nextDouble(), 1e-4 * random.nextDouble());
+    }
+
+    sequential = new CatalogPropagator(catalogNumbers, propagators).setPool(new ForkJoinPool(1));
+    parallel = new CatalogPropagator(catalogNumbers, propagators);
+    sequentialState = sequential.newState();
+    parallelState = parallel.newState();
+    time = epoch.plus(Duration.ofHours(6));
+  }
+
+
+  @Benchmark
+  @OperationsPerInvocation(CATALOG_SIZE)
+  public CatalogState sequential() {
+
+    sequential.propagate(time, sequentialState);
+    return sequentialState;
+  }
+
+
+  @Benchmark
+  @OperationsPerInvocation(CATALOG_SIZE)
+  public CatalogState parallel() {
+
+    parallel.propagate(time, parallelState);
+    return parallelState;
+  }
+
+
+  public static void main(String[] args) throws RunnerException {
+
+    new Runner(new OptionsBuilder().include(CatalogPropagatorBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.propagation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.LatestTleQuery.LatestTle;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class CatalogPropagatorTests {
+
+  private static final Instant EPOCH = Instant.parse("2021-11-01T00:00:00Z");
+
+
+  private static LatestTle tle(Integer catalogNumber, Instant epoch, double meanMotion) {
+
+    LatestTle tle = new LatestTle();
+    tle.setCatalogNumber(Optional.ofNullable(catalogNumber));
+    tle.setEpochYmdHms(epoch);
+    tle.setEpochMicroseconds(0);
+    tle.setMeanMotionRevsPerDay(meanMotion);
+    tle.setEccentricity(0.001);
+    tle.setInclinationDegrees(51.6);
+    tle.setRightAscOfNodeDegrees(10.0);
+    tle.setArgOfPerigeeDegrees(20.0);
+    tle.setMeanAnomalyDegrees(30.0);
+    tle.setBstar(1e-4);
+
+    return tle;
+  }
+
+
+  @Test
+  @DisplayName("CatalogPropagator: Parameter validation")
+  public void test1() {
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new CatalogPropagator(null, new Sgp4Propagator[0]);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new CatalogPropagator(new int[1], new Sgp4Propagator[0]);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new CatalogPropagator(new int[1], new Sgp4Propagator[1]);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      CatalogPropagator.ofLatestTles(null);
+    });
+
+    CatalogPropagator catalog = CatalogPropagator.ofLatestTles(Arrays.asList(tle(1, EPOCH, 15.5)));
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      catalog.setChunkSize(0);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      catalog.setPool(null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      catalog.propagate((Instant) null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      catalog.propagate(EPOCH, CatalogPropagator.ofLatestTles(Arrays.asList(tle(1, EPOCH, 15.5))).newState());
+    });
+  }
+
+
+  @Test
+  @DisplayName("CatalogPropagator: Matches the individual propagators")
+  public void test2() {
+
+    List<LatestTle> tles = new ArrayList<>();
+
+    for (int i = 0; i < 1000; i++) {
+      tles.add(tle(i + 1, EPOCH.plus(Duration.ofMinutes(i)), (i % 10 == 0) ? 2.0 : 15.0 + i / 1000.0));
+    }
+
+    tles.add(tle(null, EPOCH, 15.5)); // no catalog number
+    tles.add(tle(1001, EPOCH, -1.0)); // invalid elements
+
+    CatalogPropagator catalog = CatalogPropagator.ofLatestTles(tles).setChunkSize(16).setPool(new ForkJoinPool(4));
+    Instant time = EPOCH.plus(Duration.ofHours(3));
+    CatalogState state = catalog.propagate(time);
+
+    assertEquals(1000, catalog.size());
+    assertEquals(2, catalog.getRejectedCount());
+    assertEquals(time, state.getTime());
+
+    double[] expectedPosition = new double[3];
+    double[] expectedVelocity = new double[3];
+    double[] position = new double[3];
+    double[] velocity = new double[3];
+
+    for (int i = 0; i < catalog.size(); i++) {
+
+      Sgp4Propagator.of(tles.get(i)).propagate(time, expectedPosition, expectedVelocity);
+      state.getPosition(i, position);
+      state.getVelocity(i, velocity);
+
+      assertEquals(i + 1, state.getCatalogNumber(i));
+      assertTrue(state.isValid(i));
+      assertArrayEquals(expectedPosition, position, 1e-6);
+      assertArrayEquals(expectedVelocity, velocity, 1e-9);
+    }
+  }
+
+
+  @Test
+  @DisplayName("CatalogPropagator: Many instants and failed objects")
+  public void test3() {
+
+    Sgp4Propagator decaying = new Sgp4Propagator(EPOCH, 16.2, 0.0005, 51.6, 0.0, 0.0, 0.0, 0.01);
+    Sgp4Propagator healthy = Sgp4Propagator.of(tle(2, EPOCH, 15.5));
+    CatalogPropagator catalog = new CatalogPropagator(new int[] {1, 2}, new Sgp4Propagator[] {decaying, healthy});
+
+    List<Instant> times = Arrays.asList(EPOCH, EPOCH.plus(Duration.ofDays(365)));
+    List<Instant> seen = new ArrayList<>();
+    List<Boolean> decayingValid = new ArrayList<>();
+
+    catalog.propagate(times, state -> {
+
+      seen.add(state.getTime());
+      decayingValid.add(state.isValid(0));
+      assertTrue(state.isValid(1));
+    });
+
+    assertEquals(times, seen);
+    assertEquals(Arrays.asList(true, false), decayingValid);
+
+    CatalogState state = catalog.propagate(times.get(1));
+    assertFalse(state.isValid(0));
+    assertTrue(Double.isNaN(state.getX(0)));
+  }
+
+
+  @Test
+  @DisplayName("CatalogPropagator: The benchmark runs")
+  public void test4() {
+
+    CatalogPropagatorBenchmark benchmark = new CatalogPropagatorBenchmark();
+    benchmark.setUp();
+
+    CatalogState sequential = benchmark.sequential();
+    CatalogState parallel = benchmark.parallel();
+
+    assertEquals(sequential.size(), parallel.size());
+    assertEquals(sequential.getX(0), parallel.getX(0));
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.propagation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Instant;
+import java.util.Optional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.LatestTleQuery.LatestTle;
+import com.stevenpaligo.spacetrack.client.OrbitMeanElementsMessageQuery.OrbitMeanElementsMessage;
+import com.stevenpaligo.spacetrack.client.TleQuery.Tle;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class Sgp4PropagatorTests {
+
+  // element sets from the verification cases published with "Revisiting Spacetrack Report #3"
+  private static Tle tle00005() {
+
+    // 1 00005U 58002B   00179.78495062  .00000023  00000-0  28098-4 0  4753
+    // 2 00005  34.2682 348.7242 1859667 331.7664  19.3264 10.82419157413667
+    Tle tle = new Tle();
+    tle.setEpochYmdHms(Instant.parse("2000-06-27T18:50:19Z"));
+    tle.setEpochMicroseconds(733568);
+    tle.setMeanMotionRevsPerDay(10.82419157);
+    tle.setEccentricity(0.1859667);
+    tle.setInclinationDegrees(34.2682);
+    tle.setRightAscOfNodeDegrees(348.7242);
+    tle.setArgOfPerigeeDegrees(331.7664);
+    tle.setMeanAnomalyDegrees(19.3264);
+    tle.setBstar(0.28098e-4);
+
+    return tle;
+  }
+
+
+  private static LatestTle tle11801() {
+
+    // 1 11801U          80230.29629788  .01431103  00000-0  14311-1      13
+    // 2 11801  46.7916 230.4354 7318036  47.4722  10.4117  2.28537848    13
+    LatestTle tle = new LatestTle();
+    tle.setEpochYmdHms(Instant.parse("1980-08-17T07:06:40Z"));
+    tle.setEpochMicroseconds(136832);
+    tle.setMeanMotionRevsPerDay(2.28537848);
+    tle.setEccentricity(0.7318036);
+    tle.setInclinationDegrees(46.7916);
+    tle.setRightAscOfNodeDegrees(230.4354);
+    tle.setArgOfPerigeeDegrees(47.4722);
+    tle.setMeanAnomalyDegrees(10.4117);
+    tle.setBstar(0.014311);
+
+    return tle;
+  }
+
+
+  private static Tle tle08195() {
+
+    // 12 hour resonance
+    // 1 08195U 75081A   06176.33215444  .00000099  00000-0  11873-3 0   813
+    // 2 08195  64.1586 279.0717 6877146 264.7651  20.2257  2.00491383225656
+    Tle tle = new Tle();
+    tle.setEpochYmdHms(Instant.parse("2006-06-25T07:58:18Z"));
+    tle.setEpochMicroseconds(143616);
+    tle.setMeanMotionRevsPerDay(2.00491383);
+    tle.setEccentricity(0.6877146);
+    tle.setInclinationDegrees(64.1586);
+    tle.setRightAscOfNodeDegrees(279.0717);
+    tle.setArgOfPerigeeDegrees(264.7651);
+    tle.setMeanAnomalyDegrees(20.2257);
+    tle.setBstar(0.11873e-3);
+
+    return tle;
+  }
+
+
+  private static Tle tle24208() {
+
+    // 24 hour resonance
+    // 1 24208U 96044A   06177.04061740 -.00000094  00000-0  10000-3 0  1600
+    // 2 24208   3.8536  80.0121 0026640 311.0977  48.3000  1.00778054 36119
+    Tle tle = new Tle();
+    tle.setEpochYmdHms(Instant.parse("2006-06-26T00:58:29Z"));
+    tle.setEpochMicroseconds(343360);
+    tle.setMeanMotionRevsPerDay(1.00778054);
+    tle.setEccentricity(0.0026640);
+    tle.setInclinationDegrees(3.8536);
+    tle.setRightAscOfNodeDegrees(80.0121);
+    tle.setArgOfPerigeeDegrees(311.0977);
+    tle.setMeanAnomalyDegrees(48.3000);
+    tle.setBstar(0.1e-3);
+
+    return tle;
+  }
+
+
+  @Test
+  @DisplayName("Sgp4Propagator: Parameter validation")
+  public void test1() {
+
+    Instant epoch = Instant.parse("2000-06-27T18:50:19Z");
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new Sgp4Propagator(null, 10.0, 0.1, 34.0, 0.0, 0.0, 0.0, 0.0);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new Sgp4Propagator(epoch, 0.0, 0.1, 34.0, 0.0, 0.0, 0.0, 0.0);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new Sgp4Propagator(epoch, 10.0, 1.0, 34.0, 0.0, 0.0, 0.0, 0.0);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new Sgp4Propagator(epoch, 10.0, 0.1, Double.NaN, 0.0, 0.0, 0.0, 0.0);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new Sgp4Propagator(epoch, 10.0, 0.9, 34.0, 0.0, 0.0, 0.0, 0.0); // perigee inside the Earth
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      Sgp4Propagator.of((Tle) null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      Sgp4Propagator.of(new Tle());
+    });
+
+    Sgp4Propagator propagator = Sgp4Propagator.of(tle00005());
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      propagator.propagate(0.0, null, new double[3]);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      propagator.propagate(0.0, new double[3], null);
+    });
+  }
+
+
+  @Test
+  @DisplayName("Sgp4Propagator: Near-earth verification case")
+  public void test2() {
+
+    Sgp4Propagator propagator = Sgp4Propagator.of(tle00005());
+    double[] position = new double[3];
+    double[] velocity = new double[3];
+
+    assertFalse(propagator.isDeepSpace());
+
+    propagator.propagate(0.0, position, velocity);
+    assertArrayEquals(new double[] {7022.46529266, -1400.08296755, 0.03995155}, position, 1e-6);
+    assertArrayEquals(new double[] {1.893841015, 6.405893759, 4.534807250}, velocity, 1e-9);
+
+    propagator.propagate(360.0, position, velocity);
+    assertArrayEquals(new double[] {-7154.03120202, -3783.17682504, -3536.19412294}, position, 1e-6);
+    assertArrayEquals(new double[] {4.741887409, -4.151817765, -2.093935425}, velocity, 1e-9);
+  }
+
+
+  @Test
+  @DisplayName("Sgp4Propagator: Deep-space verification case")
+  public void test3() {
+
+    Sgp4Propagator propagator = Sgp4Propagator.of(tle11801());
+    double[] position = new double[3];
+    double[] velocity = new double[3];
+
+    assertTrue(propagator.isDeepSpace());
+
+    propagator.propagate(0.0, position, velocity);
+    assertArrayEquals(new double[] {7473.37102491, 428.94748312, 5828.74846783}, position, 1e-3);
+    assertArrayEquals(new double[] {5.107155391, 6.444680305, -0.186133297}, velocity, 1e-6);
+
+    propagator.propagate(720.0, position, velocity);
+    assertArrayEquals(new double[] {14271.29083858, 24110.44309009, -4725.76320143}, position, 1e-3);
+    assertArrayEquals(new double[] {-0.320504528, 2.679841539, -2.084054355}, velocity, 1e-6);
+  }
+
+
+  @Test
+  @DisplayName("Sgp4Propagator: Other element set sources")
+  public void test4() {
+
+    OrbitMeanElementsMessage omm = new OrbitMeanElementsMessage();
+    omm.setEpoch(Optional.of("2000-06-27 18:50:19.733568"));
+    omm.setMeanMotionRevsPerDay(10.82419157);
+    omm.setEccentricity(0.1859667);
+    omm.setInclinationDegrees(34.2682);
+    omm.setRightAscOfNodeDegrees(348.7242);
+    omm.setArgOfPerigeeDegrees(331.7664);
+    omm.setMeanAnomalyDegrees(19.3264);
+    omm.setBstar(0.28098e-4);
+
+    Sgp4Propagator fromOmm = Sgp4Propagator.of(omm);
+    Sgp4Propagator fromTle = Sgp4Propagator.of(tle00005());
+
+    assertEquals(fromTle.getEpoch(), fromOmm.getEpoch());
+    assertEquals(360.0, fromTle.minutesSinceEpoch(fromTle.getEpoch().plusSeconds(360 * 60)), 1e-9);
+
+    double[] expectedPosition = new double[3];
+    double[] expectedVelocity = new double[3];
+    double[] position = new double[3];
+    double[] velocity = new double[3];
+
+    fromTle.propagate(360.0, expectedPosition, expectedVelocity);
+    fromOmm.propagate(fromOmm.getEpoch().plusSeconds(360 * 60), position, velocity);
+    assertArrayEquals(expectedPosition, position, 1e-9);
+    assertArrayEquals(expectedVelocity, velocity, 1e-12);
+  }
+
+
+  @Test
+  @DisplayName("Sgp4Propagator: Decay")
+  public void test5() {
+
+    // a low orbit with heavy drag
+    Sgp4Propagator propagator = new Sgp4Propagator(Instant.parse("2020-01-01T00:00:00Z"), 16.2, 0.0005, 51.6, 0.0, 0.0, 0.0, 0.01);
+    double[] position = new double[3];
+    double[] velocity = new double[3];
+
+    propagator.propagate(0.0, position, velocity);
+
+    PropagationException exception = assertThrows(PropagationException.class, () -> {
+      propagator.propagate(60.0 * 24.0 * 365.0, position, velocity);
+    });
+
+    assertEquals(60.0 * 24.0 * 365.0, exception.getMinutesSinceEpoch());
+  }
+
+
+  @Test
+  @DisplayName("Sgp4Propagator: Resonant deep-space verification cases")
+  public void test6() {
+
+    double[] position = new double[3];
+    double[] velocity = new double[3];
+
+
+    // 12 hour resonance
+    Sgp4Propagator propagator = Sgp4Propagator.of(tle08195());
+    assertTrue(propagator.isDeepSpace());
+
+    propagator.propagate(0.0, position, velocity);
+    assertArrayEquals(new double[] {2349.89483350, -14785.93811562, 0.02119378}, position, 1e-3);
+    assertArrayEquals(new double[] {2.721488096, -3.256811655, 4.498416672}, velocity, 1e-6);
+
+    // the published position partway through the first resonance integration step, which exercises the resonance rates at the epoch
+    propagator.propagate(120.0, position, velocity);
+    assertArrayEquals(new double[] {15223.91713658, -17852.95881713, 25280.39558224}, position, 1e-3);
+
+    // regression values after two full integration steps
+    propagator.propagate(1440.0, position, velocity);
+    assertArrayEquals(new double[] {2890.80638268, -15446.43952300, 948.77010176}, position, 1e-3);
+    assertArrayEquals(new double[] {2.654407490, -2.909344895, 4.486437362}, velocity, 1e-6);
+
+
+    // 24 hour resonance
+    propagator = Sgp4Propagator.of(tle24208());
+    assertTrue(propagator.isDeepSpace());
+
+    propagator.propagate(0.0, position, velocity);
+    assertArrayEquals(new double[] {7534.10987189, 41266.39266843, -0.10801028}, position, 1e-3);
+    assertArrayEquals(new double[] {-3.027168008, 0.558848996, 0.207982755}, velocity, 1e-6);
+
+    // regression values after two full integration steps
+    propagator.propagate(1440.0, position, velocity);
+    assertArrayEquals(new double[] {5501.08137100, 41590.27784405, 138.32522930}, position, 1e-3);
+    assertArrayEquals(new double[] {-3.050691874, 0.409203052, 0.207958133}, velocity, 1e-6);
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.query;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.TleQuery;
+import com.stevenpaligo.spacetrack.client.TleQuery.TleQueryField;
+import com.stevenpaligo.spacetrack.client.predicate.Contains;
+import com.stevenpaligo.spacetrack.client.predicate.CurrentDateTimeOffset;
+import com.stevenpaligo.spacetrack.client.predicate.Equal;
+import com.stevenpaligo.spacetrack.client.predicate.GreaterThan;
+import com.stevenpaligo.spacetrack.client.predicate.In;
+import com.stevenpaligo.spacetrack.client.predicate.InclusiveRange;
+import com.stevenpaligo.spacetrack.client.predicate.IsNotNull;
+import com.stevenpaligo.spacetrack.client.predicate.IsNull;
+import com.stevenpaligo.spacetrack.client.predicate.LessThan;
+import com.stevenpaligo.spacetrack.client.predicate.NotEqual;
+import com.stevenpaligo.spacetrack.client.predicate.Predicate;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class PredicateOptimizerTests {
+
+  @SafeVarargs
+  private static Optional<List<String>> optimize(Predicate<TleQueryField>... predicates) {
+
+    // copy the predicates rather than passing the varargs array on
+    List<Predicate<TleQueryField>> predicateList = new ArrayList<>(predicates.length);
+
+    for (Predicate<TleQueryField> predicate : predicates) {
+      predicateList.add(predicate);
+    }
+
+    return PredicateOptimizer.optimize(predicateList).map(optimized -> optimized.stream().map(Predicate::toQueryParameter).collect(Collectors.toList()));
+  }
+
+
+  @Test
+  @DisplayName("PredicateOptimizer: Parameter validation")
+  public void test1() {
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      PredicateOptimizer.optimize(null);
+    });
+  }
+
+
+  @Test
+  @DisplayName("PredicateOptimizer: Ranges are merged")
+  public void test2() {
+
+    Instant start = Instant.parse("2020-01-01T00:00:00Z");
+    Instant end = Instant.parse("2021-01-01T00:00:00Z");
+
+    assertEquals(Optional.of(Arrays.asList("EPOCH/>2020-06-01 00:00:00.000")),
+        optimize(new GreaterThan<>(TleQueryField.EPOCH_YMD_HMS, start), new GreaterThan<>(TleQueryField.EPOCH_YMD_HMS, Instant.parse("2020-06-01T00:00:00Z"))));
+
+    assertEquals(Optional.of(Arrays.asList("EPOCH/2020-01-01 00:00:00.000--2020-06-01 00:00:00.000", "EPOCH/<2020-06-01 00:00:00.000")),
+        optimize(new InclusiveRange<>(TleQueryField.EPOCH_YMD_HMS, start, end), new LessThan<>(TleQueryField.EPOCH_YMD_HMS, Instant.parse("2020-06-01T00:00:00Z"))));
+
+    assertEquals(Optional.of(Arrays.asList("MEAN_MOTION/14--15.5")),
+        optimize(new InclusiveRange<>(TleQueryField.MEAN_MOTION_REVS_PER_DAY, 14, 16), new InclusiveRange<>(TleQueryField.MEAN_MOTION_REVS_PER_DAY, 13, 15.5)));
+
+    assertEquals(Optional.of(Arrays.asList("MEAN_MOTION/15.0")), optimize(new InclusiveRange<>(TleQueryField.MEAN_MOTION_REVS_PER_DAY, 14, 15), new InclusiveRange<>(TleQueryField.MEAN_MOTION_REVS_PER_DAY, 15.0, 16)));
+
+
+    // excluded values outside of the range are dropped
+    assertEquals(Optional.of(Arrays.asList("MEAN_MOTION/>14", "MEAN_MOTION/<>14.5")),
+        optimize(new GreaterThan<>(TleQueryField.MEAN_MOTION_REVS_PER_DAY, 14), new NotEqual<>(TleQueryField.MEAN_MOTION_REVS_PER_DAY, 13), new NotEqual<>(TleQueryField.MEAN_MOTION_REVS_PER_DAY, 14.5)));
+  }
+
+
+  @Test
+  @DisplayName("PredicateOptimizer: Equal and In are intersected")
+  public void test3() {
+
+    assertEquals(Optional.of(Arrays.asList("NORAD_CAT_ID/25544")), optimize(new In<>(TleQueryField.CATALOG_NUMBER, 5, 25544), new Equal<>(TleQueryField.CATALOG_NUMBER, 25544)));
+
+    assertEquals(Optional.of(Arrays.asList("NORAD_CAT_ID/5,11")),
+        optimize(new In<>(TleQueryField.CATALOG_NUMBER, 5, 11, 25544, 40000), new In<>(TleQueryField.CATALOG_NUMBER, 40000, 11, 5), new LessThan<>(TleQueryField.CATALOG_NUMBER, 30000),
+            new IsNotNull<>(TleQueryField.CATALOG_NUMBER)));
+  }
+
+
+  @Test
+  @DisplayName("PredicateOptimizer: Contradictions are detected")
+  public void test4() {
+
+    assertEquals(Optional.empty(), optimize(new Equal<>(TleQueryField.CATALOG_NUMBER, 5), new Equal<>(TleQueryField.CATALOG_NUMBER, 11)));
+    assertEquals(Optional.empty(), optimize(new GreaterThan<>(TleQueryField.CATALOG_NUMBER, 5), new LessThan<>(TleQueryField.CATALOG_NUMBER, 5)));
+    assertEquals(Optional.empty(), optimize(new InclusiveRange<>(TleQueryField.CATALOG_NUMBER, 1, 5), new GreaterThan<>(TleQueryField.CATALOG_NUMBER, 5)));
+    assertEquals(Optional.empty(), optimize(new Equal<>(TleQueryField.CATALOG_NUMBER, 5), new NotEqual<>(TleQueryField.CATALOG_NUMBER, 5)));
+    assertEquals(Optional.empty(), optimize(new IsNull<>(TleQueryField.DECAYED), new IsNotNull<>(TleQueryField.DECAYED)));
+  }
+
+
+  @Test
+  @DisplayName("PredicateOptimizer: Values that can't be compared are left alone")
+  public void test5() {
+
+    // duplicates are still removed
+    assertEquals(Optional.of(Arrays.asList("OBJECT_NAME/~~ISS", "OBJECT_NAME/>A", "OBJECT_NAME/>B")),
+        optimize(new Contains<>(TleQueryField.OBJECT_NAME, "ISS"), new GreaterThan<>(TleQueryField.OBJECT_NAME, "A"), new Contains<>(TleQueryField.OBJECT_NAME, "ISS"),
+            new GreaterThan<>(TleQueryField.OBJECT_NAME, "B")));
+
+    assertEquals(Optional.of(Arrays.asList("EPOCH/>now-1.0", "EPOCH/>2020-01-01 00:00:00.000")),
+        optimize(new GreaterThan<>(TleQueryField.EPOCH_YMD_HMS, new CurrentDateTimeOffset(Duration.ofDays(-1))), new GreaterThan<>(TleQueryField.EPOCH_YMD_HMS, Instant.parse("2020-01-01T00:00:00Z"))));
+  }
+
+
+  @Test
+  @DisplayName("PredicateOptimizer: Queries")
+  public void test6() {
+
+    TleQuery query = new TleQuery().setCredentials("user", "password").greaterThan(TleQueryField.CATALOG_NUMBER, 5).greaterThan(TleQueryField.CATALOG_NUMBER, 10);
+
+    assertEquals("https://www.space-track.org/basicspacedata/query/class/tle/NORAD_CAT_ID/>5/NORAD_CAT_ID/>10/format/json/emptyresult/show", query.getQueryString());
+    assertFalse(query.compile().isContradictory());
+
+    query.setOptimizePredicates(true);
+    assertEquals("https://www.space-track.org/basicspacedata/query/class/tle/NORAD_CAT_ID/>10/format/json/emptyresult/show", query.getQueryString());
+  }
+}
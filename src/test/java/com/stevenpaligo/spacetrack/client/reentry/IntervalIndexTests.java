@@ -0,0 +1,79 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.reentry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class IntervalIndexTests {
+
+  @Test
+  @DisplayName("IntervalIndex: Matches a linear search")
+  public void test1() {
+
+    Random random = new Random(42);
+    List<Instant[]> intervals = new ArrayList<>();
+
+    for (int i = 0; i < 2000; i++) {
+
+      long start = random.nextInt(1_000_000);
+      intervals.add(new Instant[] {Instant.ofEpochSecond(start), Instant.ofEpochSecond(start + random.nextInt((i % 10 == 0) ? 200_000 : 2_000))});
+    }
+
+    IntervalIndex<Instant[]> index = new IntervalIndex<>(intervals, interval -> interval[0], interval -> interval[1]);
+
+    assertEquals(intervals.size(), index.size());
+
+    for (int i = 0; i < 500; i++) {
+
+      Instant from = Instant.ofEpochSecond(random.nextInt(1_100_000) - 50_000);
+      Instant to = from.plusSeconds(random.nextInt(20_000));
+
+      List<Instant[]> expected = intervals.stream().filter(interval -> !interval[1].isBefore(from) && !interval[0].isAfter(to)).collect(Collectors.toList());
+      List<Instant[]> actual = index.overlapping(from, to);
+
+      assertEquals(expected.size(), actual.size());
+      assertTrue(actual.containsAll(expected));
+    }
+  }
+
+
+  @Test
+  @DisplayName("IntervalIndex: Empty index and touching intervals")
+  public void test2() {
+
+    IntervalIndex<Instant[]> empty = new IntervalIndex<>(Collections.emptyList(), interval -> interval[0], interval -> interval[1]);
+
+    assertTrue(empty.overlapping(Instant.EPOCH, Instant.EPOCH.plusSeconds(10)).isEmpty());
+
+
+    Instant[] point = {Instant.ofEpochSecond(100), Instant.ofEpochSecond(100)};
+    IntervalIndex<Instant[]> index = new IntervalIndex<>(Collections.singletonList(point), interval -> interval[0], interval -> interval[1]);
+
+    assertEquals(1, index.overlapping(Instant.ofEpochSecond(100), Instant.ofEpochSecond(200)).size());
+    assertEquals(1, index.overlapping(Instant.ofEpochSecond(0), Instant.ofEpochSecond(100)).size());
+    assertTrue(index.overlapping(Instant.ofEpochSecond(101), Instant.ofEpochSecond(200)).isEmpty());
+  }
+}
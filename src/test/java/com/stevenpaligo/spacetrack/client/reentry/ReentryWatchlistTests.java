@@ -0,0 +1,260 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.reentry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.threeten.extra.scale.UtcInstant;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.DecayQuery;
+import com.stevenpaligo.spacetrack.client.DecayQuery.Decay;
+import com.stevenpaligo.spacetrack.client.TipMessageQuery;
+import com.stevenpaligo.spacetrack.client.TipMessageQuery.TipMessage;
+import com.stevenpaligo.spacetrack.client.reentry.ReentryEvent.Type;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class ReentryWatchlistTests {
+
+  private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+
+  private static ReentryWatchlist createWatchlist() {
+
+    return new ReentryWatchlist(new DecayQuery().setCredentials("user", "password"), new TipMessageQuery().setCredentials("user", "password"));
+  }
+
+
+  private static Decay decay(int catalogNumber, Instant messageEpoch, String decayEpoch, String messageType) {
+
+    Decay decay = new Decay();
+    decay.setCatalogNumber(Optional.of(catalogNumber));
+    decay.setObjectName("OBJECT " + catalogNumber);
+    decay.setMessageEpoch(Optional.of(UtcInstant.of(messageEpoch)));
+    decay.setDecayEpoch(Optional.of(decayEpoch));
+    decay.setMessageType(messageType);
+    decay.setSource("satcat");
+
+    return decay;
+  }
+
+
+  private static TipMessage tip(int messageId, int catalogNumber, Instant insertEpoch, Instant decayEpoch, int windowMinutes) {
+
+    TipMessage tip = new TipMessage();
+    tip.setMessageId(messageId);
+    tip.setCatalogNumber(Optional.of(catalogNumber));
+    tip.setMessageEpoch(UtcInstant.of(insertEpoch));
+    tip.setInsertEpoch(UtcInstant.of(insertEpoch));
+    tip.setDecayEpoch(UtcInstant.of(decayEpoch));
+    tip.setWindowSizeMinutes(windowMinutes);
+
+    return tip;
+  }
+
+
+  @Test
+  @DisplayName("ReentryWatchlist: Parameter validation")
+  public void test1() {
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new ReentryWatchlist(null, new TipMessageQuery());
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new ReentryWatchlist(new DecayQuery(), null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      createWatchlist().setLookback(Duration.ZERO);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      createWatchlist().addListener(null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      createWatchlist().getReentering(NOW, NOW.minusSeconds(1));
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      createWatchlist().removeDecayed(null);
+    });
+  }
+
+
+  @Test
+  @DisplayName("ReentryWatchlist: Only new messages are requested and applied")
+  public void test2() throws IOException {
+
+    List<String> queryStrings = new ArrayList<>();
+    List<ReentryEvent> listenedEvents = new ArrayList<>();
+
+    Instant decayEpoch = NOW.plus(Duration.ofDays(3));
+
+    ReentryWatchlist watchlist = createWatchlist().setLookback(Duration.ofDays(10)).addListener(listenedEvents::add);
+    watchlist.setDecayFetcher(query -> {
+      queryStrings.add(query.getQueryString());
+      return Arrays.asList(decay(100, NOW.minus(Duration.ofDays(2)), "2021-01-01", "Prediction"));
+    });
+    watchlist.setTipMessageFetcher(query -> {
+      queryStrings.add(query.getQueryString());
+      return Arrays.asList(tip(1, 100, NOW.minus(Duration.ofDays(1)), decayEpoch, 30), tip(2, 200, NOW.minus(Duration.ofDays(1)), decayEpoch.plus(Duration.ofDays(1)), 60));
+    });
+
+
+    // the first poll looks back from now and adds both objects
+    List<ReentryEvent> events = watchlist.poll();
+
+    assertEquals(2, events.size());
+    assertEquals(events, listenedEvents);
+    assertTrue(events.stream().allMatch(event -> event.getType() == Type.ADDED && !event.getPreviousStatus().isPresent()));
+    assertTrue(queryStrings.get(0).contains("/MSG_EPOCH/>"));
+    assertTrue(queryStrings.get(0).contains("/orderby/MSG_EPOCH"));
+    assertTrue(queryStrings.get(1).contains("/INSERT_EPOCH/>"));
+    assertTrue(queryStrings.get(1).contains("/orderby/INSERT_EPOCH"));
+
+
+    // the TIP message is newer than the decay message, so its prediction is used
+    ReentryStatus status = watchlist.get(100).get();
+
+    assertEquals("OBJECT 100", status.getObjectName().get());
+    assertEquals(decayEpoch, status.getReentryEpoch().get());
+    assertEquals(decayEpoch.minus(Duration.ofMinutes(30)), status.getWindowStart().get());
+    assertEquals(decayEpoch.plus(Duration.ofMinutes(30)), status.getWindowEnd().get());
+    assertFalse(status.isDecayed());
+    assertEquals(2, watchlist.size());
+
+
+    // the same messages again are recognized as already received, and the next poll starts from the latest epochs
+    queryStrings.clear();
+
+    assertTrue(watchlist.poll().isEmpty());
+    assertEquals(2, listenedEvents.size());
+    assertTrue(queryStrings.get(1).contains("/INSERT_EPOCH/>" + NOW.minus(Duration.ofDays(1)).minusSeconds(1).toString().replace('T', ' ').replace("Z", "")));
+  }
+
+
+  @Test
+  @DisplayName("ReentryWatchlist: Updates, decays and window searches")
+  public void test3() throws IOException {
+
+    List<List<Decay>> decayResponses = new ArrayList<>();
+    List<List<TipMessage>> tipResponses = new ArrayList<>();
+
+    ReentryWatchlist watchlist = createWatchlist();
+    watchlist.setDecayFetcher(query -> decayResponses.remove(0));
+    watchlist.setTipMessageFetcher(query -> tipResponses.remove(0));
+
+    Instant decayEpoch = NOW.plus(Duration.ofHours(6));
+
+
+    // three objects with different windows
+    decayResponses.add(Collections.emptyList());
+    tipResponses.add(Arrays.asList(tip(1, 100, NOW.minus(Duration.ofHours(3)), decayEpoch, 60), tip(2, 200, NOW.minus(Duration.ofHours(3)), decayEpoch.plus(Duration.ofHours(4)), 30),
+        tip(3, 300, NOW.minus(Duration.ofHours(3)), decayEpoch.plus(Duration.ofDays(2)), 600)));
+
+    assertEquals(3, watchlist.poll().size());
+
+    assertEquals(Arrays.asList(100), catalogNumbers(watchlist.getReentering(decayEpoch.minus(Duration.ofMinutes(61)), decayEpoch.minus(Duration.ofMinutes(59)))));
+    assertEquals(Arrays.asList(100, 200), catalogNumbers(watchlist.getReentering(decayEpoch, decayEpoch.plus(Duration.ofHours(4)))));
+    assertEquals(Arrays.asList(100, 200, 300), catalogNumbers(watchlist.getReentering(NOW, NOW.plus(Duration.ofDays(3)))));
+    assertTrue(watchlist.getReentering(NOW, NOW.plus(Duration.ofHours(4))).isEmpty());
+
+
+    // a newer TIP message moves an object's window, and an older one is ignored
+    decayResponses.add(Collections.emptyList());
+    tipResponses.add(Arrays.asList(tip(4, 200, NOW.minus(Duration.ofHours(2)), decayEpoch.plus(Duration.ofHours(1)), 30), tip(5, 300, NOW.minus(Duration.ofHours(2)), decayEpoch, 10)));
+    tipResponses.get(0).get(1).setMessageEpoch(UtcInstant.of(NOW.minus(Duration.ofDays(1))));
+
+    List<ReentryEvent> events = watchlist.poll();
+
+    assertEquals(1, events.size());
+    assertEquals(Type.UPDATED, events.get(0).getType());
+    assertEquals(200, events.get(0).getStatus().getCatalogNumber());
+    assertEquals(decayEpoch.plus(Duration.ofHours(4)), events.get(0).getPreviousStatus().get().getReentryEpoch().get());
+    assertEquals(Arrays.asList(100, 200), catalogNumbers(watchlist.getReentering(decayEpoch, decayEpoch.plus(Duration.ofHours(1)))));
+
+
+    // a historical decay message marks an object as decayed, and later predictions don't replace it
+    decayResponses.add(Arrays.asList(decay(100, NOW.minus(Duration.ofHours(1)), "2021-11-05 12:34:56", "Historical")));
+    tipResponses.add(Collections.emptyList());
+
+    events = watchlist.poll();
+
+    assertEquals(1, events.size());
+    assertEquals(Type.DECAYED, events.get(0).getType());
+    assertEquals(Instant.parse("2021-11-05T12:34:56Z"), watchlist.get(100).get().getReentryEpoch().get());
+    assertTrue(watchlist.get(100).get().isDecayed());
+
+    decayResponses.add(Arrays.asList(decay(100, NOW.minus(Duration.ofMinutes(30)), "2021-11-07", "Prediction")));
+    tipResponses.add(Collections.emptyList());
+
+    assertTrue(watchlist.poll().isEmpty());
+    assertEquals(Instant.parse("2021-11-05T12:34:56Z"), watchlist.get(100).get().getReentryEpoch().get());
+
+
+    // decayed objects can be removed once their window has passed
+    assertEquals(0, watchlist.removeDecayed(Instant.parse("2021-11-01T00:00:00Z")));
+    assertEquals(1, watchlist.removeDecayed(NOW));
+    assertFalse(watchlist.get(100).isPresent());
+    assertEquals(2, watchlist.getAll().size());
+  }
+
+
+  @Test
+  @DisplayName("ReentryWatchlist: A failed poll leaves the watchlist unchanged")
+  public void test4() throws IOException {
+
+    ReentryWatchlist watchlist = createWatchlist();
+    watchlist.setDecayFetcher(query -> Arrays.asList(decay(100, NOW.minus(Duration.ofDays(1)), "2021-11-07", "Prediction")));
+    watchlist.setTipMessageFetcher(query -> {
+      throw new IOException("test");
+    });
+
+    assertThrows(IOException.class, () -> {
+      watchlist.poll();
+    });
+
+    assertEquals(0, watchlist.size());
+
+
+    // the decay message is applied by the next successful poll, with a date-only epoch covering the whole day
+    watchlist.setTipMessageFetcher(query -> Collections.emptyList());
+
+    assertEquals(1, watchlist.poll().size());
+    assertEquals(Instant.parse("2021-11-07T00:00:00Z"), watchlist.get(100).get().getWindowStart().get());
+    assertEquals(Instant.parse("2021-11-08T00:00:00Z"), watchlist.get(100).get().getWindowEnd().get());
+  }
+
+
+  private static List<Integer> catalogNumbers(List<ReentryStatus> statuses) {
+
+    return statuses.stream().map(ReentryStatus::getCatalogNumber).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.scheduling;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.threeten.extra.scale.UtcInstant;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.SatCatQuery.SatCat;
+import com.stevenpaligo.spacetrack.client.TipMessageQuery;
+import com.stevenpaligo.spacetrack.client.TipMessageQuery.TipMessage;
+import com.stevenpaligo.spacetrack.client.execution.RateLimiter;
+import com.stevenpaligo.spacetrack.client.execution.RateLimiter.Window;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class PollingSchedulerTests {
+
+  @Test
+  @DisplayName("PollingScheduler: Parameter validation")
+  public void test1() {
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new PollingPolicy(Duration.ZERO, Duration.ofMinutes(1));
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new PollingPolicy(Duration.ofMinutes(2), Duration.ofMinutes(1));
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new PollingPolicy(Duration.ofMinutes(1), Duration.ofMinutes(2)).setBackOffFactor(0.5);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new PollingPolicy(Duration.ofMinutes(1), Duration.ofMinutes(2)).setSpeedUpFactor(Double.NaN);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new PollingScheduler(null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new PollingScheduler(RateLimiter.forSpaceTrack()).setParallelism(0);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new PollingScheduler(RateLimiter.forSpaceTrack()).subscribe(new TipMessageQuery().setCredentials("user", "password"), null, results -> {
+      });
+    });
+
+    assertThrows(IllegalStateException.class, () -> {
+      new PollingScheduler(RateLimiter.forSpaceTrack()).subscribe(new TipMessageQuery(), new PollingPolicy(Duration.ofMinutes(1), Duration.ofMinutes(2)), results -> {
+      });
+    });
+
+    assertThrows(IllegalStateException.class, () -> {
+      PollingScheduler scheduler = new PollingScheduler(RateLimiter.forSpaceTrack());
+      scheduler.close();
+      scheduler.start();
+    });
+  }
+
+
+  @Test
+  @DisplayName("PollingScheduler: Intervals adapt to the change rate")
+  public void test2() {
+
+    PollingPolicy policy = new PollingPolicy(Duration.ofSeconds(10), Duration.ofMinutes(5));
+
+    assertEquals(Duration.ofSeconds(90), policy.getNextInterval(Duration.ofSeconds(60), false));
+    assertEquals(Duration.ofSeconds(30), policy.getNextInterval(Duration.ofSeconds(60), true));
+    assertEquals(Duration.ofMinutes(5), policy.getNextInterval(Duration.ofMinutes(4), false));
+    assertEquals(Duration.ofSeconds(10), policy.getNextInterval(Duration.ofSeconds(15), true));
+
+    policy.setBackOffFactor(3.0).setSpeedUpFactor(4.0);
+
+    assertEquals(Duration.ofSeconds(180), policy.getNextInterval(Duration.ofSeconds(60), false));
+    assertEquals(Duration.ofSeconds(15), policy.getNextInterval(Duration.ofSeconds(60), true));
+  }
+
+
+  @Test
+  @DisplayName("PollingScheduler: Only changed results are delivered")
+  public void test3() throws InterruptedException {
+
+    List<List<Integer>> delivered = new CopyOnWriteArrayList<>();
+    AtomicInteger steadyPolls = new AtomicInteger();
+    AtomicInteger churningPolls = new AtomicInteger();
+    List<Integer> churningDeliveries = new CopyOnWriteArrayList<>();
+
+    PollingPolicy policy = new PollingPolicy(Duration.ofMillis(20), Duration.ofMillis(400));
+
+    try (PollingScheduler scheduler = new PollingScheduler(RateLimiter.forSpaceTrack()).start()) {
+
+      PollingSubscription<Integer> steady = scheduler.subscribe("steady", () -> {
+        steadyPolls.incrementAndGet();
+        return Arrays.asList(1, 2, 3);
+      }, policy, delivered::add);
+
+      PollingSubscription<Integer> churning = scheduler.subscribe("churning", () -> Collections.singletonList(churningPolls.incrementAndGet()), policy, results -> {
+        churningDeliveries.add(results.get(0));
+      });
+
+      Thread.sleep(1500L);
+
+
+      // the steady query was delivered once and backed off to the maximum interval
+      assertEquals(1, delivered.size());
+      assertEquals(Arrays.asList(1, 2, 3), delivered.get(0));
+      assertTrue(steadyPolls.get() >= 3, Integer.toString(steadyPolls.get()));
+      assertEquals(1L, steady.getChangeCount());
+      assertEquals(steadyPolls.get(), steady.getPollCount(), 1L);
+      assertEquals(Duration.ofMillis(400), steady.getInterval());
+
+
+      // the churning query sped up to the minimum interval and every poll was delivered
+      assertTrue(churningPolls.get() > 2 * steadyPolls.get(), churningPolls.get() + " vs " + steadyPolls.get());
+      assertEquals(Duration.ofMillis(20), churning.getInterval());
+      assertEquals(churningDeliveries.size(), churning.getChangeCount(), 1L);
+      assertEquals("churning", churning.getQueryClass());
+      assertTrue(churning.getLastChangeTime().isPresent());
+
+
+      // a cancelled query isn't polled again
+      churning.cancel();
+      assertTrue(churning.isCancelled());
+      assertEquals(1, scheduler.getSubscriptions().size());
+
+      Thread.sleep(100L);
+      int pollsAfterCancel = churningPolls.get();
+      Thread.sleep(200L);
+
+      assertEquals(pollsAfterCancel, churningPolls.get());
+    }
+  }
+
+
+  @Test
+  @DisplayName("PollingScheduler: Polls stay within the rate budget and errors are reported")
+  public void test4() throws InterruptedException {
+
+    RateLimiter rateLimiter = new RateLimiter(new Window(3, Duration.ofMillis(500)));
+    AtomicInteger polls = new AtomicInteger();
+    List<IOException> errors = new CopyOnWriteArrayList<>();
+
+    PollingPolicy policy = new PollingPolicy(Duration.ofMillis(10), Duration.ofMillis(10));
+
+    try (PollingScheduler scheduler = new PollingScheduler(rateLimiter).setParallelism(4).start()) {
+
+      for (int i = 0; i < 4; i++) {
+
+        scheduler.subscribe("query" + i, () -> {
+
+          // a real query takes its own permit
+          rateLimiter.acquire();
+          polls.incrementAndGet();
+          return Collections.singletonList(polls.get());
+
+        }, policy, results -> {
+        });
+      }
+
+      scheduler.subscribe("failing", () -> {
+        throw new IOException("test");
+      }, policy, new PollingScheduler.Subscriber<Object>() {
+
+        @Override
+        public void onResults(List<Object> results) {
+        }
+
+
+        @Override
+        public void onError(IOException e) {
+
+          errors.add(e);
+        }
+      });
+
+      Thread.sleep(1200L);
+    }
+
+
+    // three windows at most, with some polls going to the failing query
+    assertTrue(polls.get() >= 3 && polls.get() <= 9, Integer.toString(polls.get()));
+    assertFalse(errors.isEmpty());
+    assertEquals("test", errors.get(0).getMessage());
+  }
+
+
+  @Test
+  @DisplayName("PollingScheduler: Fingerprints of query results")
+  public void test5() throws IOException {
+
+    TipMessage tip = new TipMessage();
+    tip.setCatalogNumber(Optional.of(100));
+    tip.setDecayEpoch(UtcInstant.of(Instant.parse("2021-11-05T12:00:00Z")));
+
+    SatCat satCat = new SatCat();
+    satCat.setCatalogNumber(Optional.of(100));
+    satCat.setLaunchDate(Optional.of(LocalDate.of(2021, 1, 1)));
+    satCat.setCurrentRecord(true);
+
+    byte[] tipFingerprint = PollingScheduler.fingerprint(Collections.singletonList(tip));
+    byte[] satCatFingerprint = PollingScheduler.fingerprint(Collections.singletonList(satCat));
+
+    assertArrayEquals(tipFingerprint, PollingScheduler.fingerprint(Collections.singletonList(tip)));
+    assertFalse(Arrays.equals(tipFingerprint, satCatFingerprint));
+
+    tip.setDecayEpoch(UtcInstant.of(Instant.parse("2021-11-05T12:00:01Z")));
+
+    assertFalse(Arrays.equals(tipFingerprint, PollingScheduler.fingerprint(Collections.singletonList(tip))));
+  }
+
+
+  @Test
+  @DisplayName("PollingScheduler: A slow subscriber is never called for two polls at once")
+  public void test6() throws InterruptedException {
+
+    AtomicInteger polls = new AtomicInteger();
+    AtomicBoolean delivering = new AtomicBoolean();
+    AtomicBoolean overlapped = new AtomicBoolean();
+    List<Integer> delivered = new CopyOnWriteArrayList<>();
+
+    PollingPolicy policy = new PollingPolicy(Duration.ofMillis(1), Duration.ofMillis(1));
+
+    try (PollingScheduler scheduler = new PollingScheduler(RateLimiter.forSpaceTrack()).setParallelism(4).start()) {
+
+      scheduler.subscribe("slow", () -> Collections.singletonList(polls.incrementAndGet()), policy, results -> {
+
+        if (!delivering.compareAndSet(false, true)) {
+
+          overlapped.set(true);
+        }
+
+        try {
+
+          Thread.sleep(20L);
+
+        } catch (InterruptedException e) {
+
+          Thread.currentThread().interrupt();
+        }
+
+        delivered.add(results.get(0));
+        delivering.set(false);
+      });
+
+      Thread.sleep(500L);
+    }
+
+
+    // every delivery finished before the next began, in the order the polls were made
+    assertFalse(overlapped.get());
+    assertTrue(delivered.size() >= 3, Integer.toString(delivered.size()));
+
+    for (int i = 1; i < delivered.size(); i++) {
+
+      assertTrue(delivered.get(i - 1) < delivered.get(i), delivered.toString());
+    }
+  }
+}
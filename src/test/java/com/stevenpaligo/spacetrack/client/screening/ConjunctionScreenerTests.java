@@ -0,0 +1,230 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.screening;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.LatestTleQuery.LatestTle;
+import com.stevenpaligo.spacetrack.client.propagation.CatalogPropagator;
+import com.stevenpaligo.spacetrack.client.propagation.Sgp4Propagator;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class ConjunctionScreenerTests {
+
+  private static final Instant EPOCH = Instant.parse("2021-11-01T00:00:00Z");
+
+
+  private static LatestTle tle(int catalogNumber, double inclination, double rightAscOfNode, double meanAnomaly) {
+
+    LatestTle tle = new LatestTle();
+    tle.setCatalogNumber(Optional.of(catalogNumber));
+    tle.setEpochYmdHms(EPOCH);
+    tle.setMeanMotionRevsPerDay(15.2);
+    tle.setEccentricity(0.0001);
+    tle.setInclinationDegrees(inclination);
+    tle.setRightAscOfNodeDegrees(rightAscOfNode);
+    tle.setArgOfPerigeeDegrees(0.0);
+    tle.setMeanAnomalyDegrees(meanAnomaly);
+    tle.setBstar(0.0);
+
+    return tle;
+  }
+
+
+  @Test
+  @DisplayName("ConjunctionScreener: Parameter validation")
+  public void test1() {
+
+    ConjunctionScreener screener = ConjunctionScreener.ofLatestTles(Arrays.asList(tle(1, 51.6, 0.0, 0.0)));
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new ConjunctionScreener(null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      ConjunctionScreener.ofLatestTles(null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      screener.setThresholdKilometers(0.0);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      screener.setStep(Duration.ofMillis(999));
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      screener.setAltitudePaddingKilometers(-1.0);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      screener.screen(EPOCH, EPOCH);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      screener.screen(null, EPOCH);
+    });
+  }
+
+
+  @Test
+  @DisplayName("ConjunctionScreener: Crossing orbits")
+  public void test2() {
+
+    // both objects cross the ascending node at the epoch, one in an equatorial orbit and one in a polar orbit
+    LatestTle equatorial = tle(100, 0.5, 0.0, 0.0);
+    LatestTle polar = tle(200, 90.0, 0.0, 0.0);
+    LatestTle distant = tle(300, 51.6, 180.0, 90.0);
+
+    distant.setPerigeeHeightKilometers(35780.0); // only the altitude band keeps it out
+    distant.setApogeeHeightKilometers(35790.0);
+
+    List<Conjunction> conjunctions = ConjunctionScreener.ofLatestTles(Arrays.asList(polar, distant, equatorial)).setThresholdKilometers(25.0)
+        .screen(EPOCH.minus(Duration.ofMinutes(10)), EPOCH.plus(Duration.ofMinutes(10)));
+
+    assertEquals(1, conjunctions.size());
+
+    Conjunction conjunction = conjunctions.get(0);
+
+    assertEquals(100, conjunction.getCatalogNumber1());
+    assertEquals(200, conjunction.getCatalogNumber2());
+    assertTrue(Duration.between(EPOCH, conjunction.getTimeOfClosestApproach()).abs().compareTo(Duration.ofSeconds(10)) < 0);
+    assertTrue(conjunction.getMissDistanceKilometers() < 25.0);
+    assertEquals(7.6 * Math.sqrt(2.0), conjunction.getRelativeSpeedKilometersPerSecond(), 0.3);
+  }
+
+
+  @Test
+  @DisplayName("ConjunctionScreener: Agrees with an exhaustive search")
+  public void test3() {
+
+    // a crowded shell so there are plenty of approaches
+    Random random = new Random(7);
+    int size = 120;
+    int[] catalogNumbers = new int[size];
+    Sgp4Propagator[] propagators = new Sgp4Propagator[size];
+
+    for (int i = 0; i < size; i++) {
+
+      catalogNumbers[i] = i + 1;
+      propagators[i] = new Sgp4Propagator(EPOCH, 15.0 + 0.05 * random.nextDouble(), 0.001 * random.nextDouble(), 180.0 * random.nextDouble(), 360.0 * random.nextDouble(),
+          360.0 * random.nextDouble(), 360.0 * random.nextDouble(), 0.0);
+    }
+
+    double threshold = 50.0;
+    Instant start = EPOCH;
+    int spanSeconds = 2 * 3600;
+    List<Conjunction> screened = new ConjunctionScreener(new CatalogPropagator(catalogNumbers, propagators)).setThresholdKilometers(threshold).setStep(Duration.ofSeconds(60))
+        .screen(start, start.plusSeconds(spanSeconds));
+
+    assertFalse(screened.isEmpty());
+
+
+    // every local minimum of the distance sampled each second
+    double[][] positions = new double[size * 3][spanSeconds + 1];
+    double[] position = new double[3];
+    double[] velocity = new double[3];
+
+    for (int i = 0; i < size; i++) {
+      for (int second = 0; second <= spanSeconds; second++) {
+
+        propagators[i].propagate(second / 60.0, position, velocity);
+
+        for (int axis = 0; axis < 3; axis++) {
+          positions[i * 3 + axis][second] = position[axis];
+        }
+      }
+    }
+
+    List<int[]> minima = new ArrayList<>();
+
+    for (int i = 0; i < size; i++) {
+      for (int j = i + 1; j < size; j++) {
+
+        double previous = Double.MAX_VALUE;
+        double current = distance(positions, i, j, 0);
+
+        for (int second = 0; second <= spanSeconds; second++) {
+
+          double next = (second < spanSeconds) ? distance(positions, i, j, second + 1) : Double.MAX_VALUE;
+
+          if (current <= previous && current <= next && current < threshold * 0.98) {
+            minima.add(new int[] {i + 1, j + 1, second});
+          }
+
+          previous = current;
+          current = next;
+        }
+      }
+    }
+
+    assertFalse(minima.isEmpty());
+
+    for (int[] minimum : minima) {
+
+      assertTrue(screened.stream().anyMatch(conjunction -> conjunction.getCatalogNumber1() == minimum[0] && conjunction.getCatalogNumber2() == minimum[1]
+          && Math.abs(Duration.between(start, conjunction.getTimeOfClosestApproach()).getSeconds() - minimum[2]) <= 2), "Missed approach " + Arrays.toString(minimum));
+    }
+
+    for (Conjunction conjunction : screened) {
+
+      long second = Duration.between(start, conjunction.getTimeOfClosestApproach()).getSeconds();
+      assertTrue(conjunction.getMissDistanceKilometers() <= distance(positions, conjunction.getCatalogNumber1() - 1, conjunction.getCatalogNumber2() - 1, (int) second) + 1e-6);
+    }
+  }
+
+
+  @Test
+  @DisplayName("ConjunctionScreener: Approaches faster than a low orbit allows")
+  public void test4() {
+
+    // an eccentric orbit at perigee meets a retrograde circular one head-on, closing at about 18 km/s
+    Sgp4Propagator eccentric = new Sgp4Propagator(EPOCH, 2.556, 0.7, 2.0, 0.0, 0.0, 0.0, 0.0);
+    Sgp4Propagator retrograde = new Sgp4Propagator(EPOCH, 15.56, 0.0001, 178.0, 0.0, 0.0, 0.0, 0.0);
+    ConjunctionScreener screener = new ConjunctionScreener(new CatalogPropagator(new int[] {1, 2}, new Sgp4Propagator[] {eccentric, retrograde})).setThresholdKilometers(10.0)
+        .setStep(Duration.ofSeconds(60));
+
+    for (int offset = 0; offset < 60; offset++) {
+
+      List<Conjunction> conjunctions = screener.screen(EPOCH.minusSeconds(offset), EPOCH.plusSeconds(120));
+
+      assertEquals(1, conjunctions.size(), "Missed with the steps offset by " + offset + " seconds");
+      assertTrue(conjunctions.get(0).getRelativeSpeedKilometersPerSecond() > 16.0);
+      assertTrue(Duration.between(EPOCH, conjunctions.get(0).getTimeOfClosestApproach()).abs().compareTo(Duration.ofSeconds(10)) < 0);
+    }
+  }
+
+
+  private static double distance(double[][] positions, int i, int j, int second) {
+
+    double dx = positions[i * 3][second] - positions[j * 3][second];
+    double dy = positions[i * 3 + 1][second] - positions[j * 3 + 1][second];
+    double dz = positions[i * 3 + 2][second] - positions[j * 3 + 2][second];
+
+    return Math.sqrt(dx * dx + dy * dy + dz * dz);
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class DaemonThreadFactoryTests {
+
+  @Test
+  @DisplayName("DaemonThreadFactory: Threads are numbered daemons")
+  public void test1() {
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new DaemonThreadFactory(null);
+    });
+
+    DaemonThreadFactory factory = new DaemonThreadFactory("spacetrack-test-");
+    Thread first = factory.newThread(() -> {});
+    Thread second = factory.newThread(() -> {});
+
+    assertEquals("spacetrack-test-1", first.getName());
+    assertEquals("spacetrack-test-2", second.getName());
+    assertTrue(first.isDaemon());
+    assertTrue(second.isDaemon());
+  }
+}
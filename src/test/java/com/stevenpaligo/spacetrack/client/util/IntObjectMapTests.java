@@ -0,0 +1,145 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class IntObjectMapTests {
+
+  @Test
+  @DisplayName("IntObjectMap: Parameter validation")
+  public void test1() {
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new IntObjectMap<>(-1);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new IntObjectMap<>(null);
+    });
+
+    IntObjectMap<String> map = new IntObjectMap<>();
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      map.put(1, null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      map.computeIfAbsent(1, null);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      map.forEach(null);
+    });
+  }
+
+
+  @Test
+  @DisplayName("IntObjectMap: Basic operations")
+  public void test2() {
+
+    IntObjectMap<String> map = new IntObjectMap<>();
+
+    assertTrue(map.isEmpty());
+    assertNull(map.put(25544, "ISS"));
+    assertNull(map.put(0, "ZERO"));
+    assertNull(map.put(-5, "NEGATIVE"));
+    assertEquals("ISS", map.put(25544, "ISS (ZARYA)"));
+    assertEquals("ISS (ZARYA)", map.putIfAbsent(25544, "OTHER"));
+    assertEquals(3, map.size());
+
+    assertEquals("ISS (ZARYA)", map.get(25544));
+    assertEquals("ZERO", map.get(0));
+    assertNull(map.get(1));
+    assertEquals("DEFAULT", map.getOrDefault(1, "DEFAULT"));
+    assertTrue(map.containsKey(-5));
+
+
+    // a null computed value leaves the map unchanged
+    assertNull(map.computeIfAbsent(7, key -> null));
+    assertFalse(map.containsKey(7));
+    assertEquals("7", map.computeIfAbsent(7, Integer::toString));
+    assertEquals("7", map.computeIfAbsent(7, key -> "OTHER"));
+
+    int[] keys = map.keys();
+    Arrays.sort(keys);
+    assertArrayEquals(new int[] {-5, 0, 7, 25544}, keys);
+
+
+    // a copy is independent of the original
+    IntObjectMap<String> copy = new IntObjectMap<>(map);
+
+    assertEquals("ZERO", map.remove(0));
+    assertNull(map.remove(0));
+    assertEquals(3, map.size());
+    assertEquals(4, copy.size());
+    assertEquals("ZERO", copy.get(0));
+
+    map.clear();
+    assertTrue(map.isEmpty());
+    assertNull(map.get(25544));
+  }
+
+
+  @Test
+  @DisplayName("IntObjectMap: Matches HashMap under random operations")
+  public void test3() {
+
+    Random random = new Random(1L);
+    IntObjectMap<Integer> map = new IntObjectMap<>();
+    Map<Integer, Integer> expected = new HashMap<>();
+
+    // a narrow key range forces collisions, removals in the middle of probe sequences and resizes
+    for (int i = 0; i < 200_000; i++) {
+
+      int key = (random.nextInt(4) == 0) ? random.nextInt() : random.nextInt(2_000);
+      int operation = random.nextInt(10);
+
+      if (operation < 5) {
+
+        assertEquals(expected.put(key, i), map.put(key, i));
+
+      } else if (operation < 8) {
+
+        assertEquals(expected.remove(key), map.remove(key));
+
+      } else {
+
+        assertEquals(expected.get(key), map.get(key));
+      }
+
+      assertEquals(expected.size(), map.size());
+    }
+
+    Map<Integer, Integer> actual = new HashMap<>();
+    map.forEach(actual::put);
+
+    assertEquals(expected, actual);
+    assertEquals(expected.size(), map.values().size());
+  }
+}
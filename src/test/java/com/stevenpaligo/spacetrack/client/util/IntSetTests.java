@@ -0,0 +1,98 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class IntSetTests {
+
+  @Test
+  @DisplayName("IntSet: Basic operations")
+  public void test1() {
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new IntSet(-1);
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      IntSet.of((int[]) null);
+    });
+
+    IntSet set = IntSet.of(5, 0, 5, -1);
+
+    assertEquals(3, set.size());
+    assertTrue(set.contains(0));
+    assertTrue(set.contains(-1));
+    assertFalse(set.contains(1));
+    assertFalse(set.add(0));
+    assertTrue(set.add(1));
+
+    int[] values = set.toArray();
+    Arrays.sort(values);
+    assertArrayEquals(new int[] {-1, 0, 1, 5}, values);
+
+    assertTrue(set.remove(0));
+    assertFalse(set.remove(0));
+    assertFalse(set.contains(0));
+    assertEquals(3, set.size());
+
+    set.clear();
+    assertTrue(set.isEmpty());
+    assertFalse(set.contains(5));
+  }
+
+
+  @Test
+  @DisplayName("IntSet: Matches HashSet under random operations")
+  public void test2() {
+
+    Random random = new Random(2L);
+    IntSet set = new IntSet();
+    Set<Integer> expected = new HashSet<>();
+
+    for (int i = 0; i < 200_000; i++) {
+
+      int value = (random.nextInt(4) == 0) ? random.nextInt() : random.nextInt(2_000) - 1_000;
+
+      if (random.nextBoolean()) {
+
+        assertEquals(expected.add(value), set.add(value));
+
+      } else {
+
+        assertEquals(expected.remove(value), set.remove(value));
+      }
+
+      assertEquals(expected.size(), set.size());
+    }
+
+    Set<Integer> actual = new HashSet<>();
+    set.forEach(actual::add);
+
+    assertEquals(expected, actual);
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.exception.MalformedResponseException;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class JsonSanitizingReaderTests {
+
+  private static String sanitize(String json) throws IOException {
+
+    try (Reader reader = new JsonSanitizingReader(new StringReader(json))) {
+
+      return IOUtils.toString(reader);
+    }
+  }
+
+
+  @Test
+  @DisplayName("JsonSanitizingReader: Well-formed JSON passes through unchanged")
+  public void test1() throws IOException {
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      new JsonSanitizingReader(null);
+    });
+
+    String json = "[{\"NORAD_CAT_ID\":\"25544\",\"OBJECT_NAME\":\"ISS (ZARYA)\",\"COMMENT\":\"a \\\"quoted\\\" \\u00e9 [,] {}\"}, {\"A\": [1, 2.5, null]}]";
+    assertEquals(json, sanitize(json));
+    assertEquals("", sanitize(""));
+  }
+
+
+  @Test
+  @DisplayName("JsonSanitizingReader: Repairs")
+  public void test2() throws IOException {
+
+    // raw control characters in strings
+    assertEquals("[\"a\\u0009b\\u000a\"]", sanitize("[\"a\tb\n\"]"));
+
+    // invalid escape sequences
+    assertEquals("[\"a\\\\qb\"]", sanitize("[\"a\\qb\"]"));
+    assertEquals("[\"\\\\u12x\"]", sanitize("[\"\\u12x\"]"));
+
+    // trailing commas
+    assertEquals("[1, 2 ]", sanitize("[1, 2, ]"));
+    assertEquals("[{\"A\":1}]", sanitize("[{\"A\":1,},]"));
+
+    // truncation
+    assertEquals("[{\"A\":\"ab\"}]", sanitize("[{\"A\":\"ab"));
+    assertEquals("[{\"A\":\"\\\\\"}]", sanitize("[{\"A\":\"\\"));
+    assertEquals("[1]", sanitize("[1,"));
+  }
+
+
+  @Test
+  @DisplayName("JsonSanitizingReader: Rejections")
+  public void test3() {
+
+    MalformedResponseException exception = assertThrows(MalformedResponseException.class, () -> {
+      sanitize("[{\"A\":1]");
+    });
+
+    assertEquals(7L, exception.getOffset());
+
+    assertThrows(MalformedResponseException.class, () -> {
+      sanitize("[1]]");
+    });
+
+    assertThrows(MalformedResponseException.class, () -> {
+
+      StringBuilder json = new StringBuilder();
+
+      for (int i = 0; i < 2000; i++) {
+        json.append('[');
+      }
+
+      sanitize(json.toString());
+    });
+  }
+
+
+  @Test
+  @DisplayName("JsonSanitizingReader: Large responses stream through the parser")
+  public void test4() throws IOException {
+
+    StringBuilder json = new StringBuilder("[");
+
+    for (int i = 0; i < 10000; i++) {
+      json.append("{\"NORAD_CAT_ID\":\"").append(i).append("\",\"OBJECT_NAME\":\"OBJECT\t").append(i).append("\"},");
+    }
+
+    try (Reader reader = new JsonSanitizingReader(new StringReader(json.toString()))) {
+
+      List<Map<String, String>> results = new ObjectMapper().readValue(reader, new TypeReference<List<Map<String, String>>>() {});
+
+      assertEquals(10000, results.size());
+      assertEquals("9999", results.get(9999).get("NORAD_CAT_ID"));
+      assertEquals("OBJECT\t9999", results.get(9999).get("OBJECT_NAME"));
+    }
+  }
+
+
+  @Test
+  @DisplayName("JsonSanitizingReader: Truncated documents are completed as valid JSON")
+  public void test5() throws IOException {
+
+    // object members cut off before their values
+    assertEquals("[{\"a\":null}]", sanitize("[{\"a\":"));
+    assertEquals("[{\"ke\":null}]", sanitize("[{\"ke"));
+    assertEquals("[{\"a\":1, \"b\":null}]", sanitize("[{\"a\":1, \"b\""));
+
+    // literals and numbers cut off
+    assertEquals("[{\"a\":null}]", sanitize("[{\"a\":tru"));
+    assertEquals("[{\"a\":null}]", sanitize("[{\"a\":1."));
+    assertEquals("[1 ]", sanitize("[1, nul"));
+    assertEquals("[1, 2]", sanitize("[1, 2"));
+    assertEquals("[{\"a\":true}]", sanitize("[{\"a\":true"));
+
+
+    // every completion parses
+    ObjectMapper mapper = new ObjectMapper();
+
+    String json = "[{\"NORAD_CAT_ID\":\"25544\",\"OBJECT_NAME\":\"ISS (ZARYA)\",\"DECAYED\":false,\"PERIOD\":92.68,\"TAGS\":[1, -2.5e3, null]}]";
+
+    for (int i = 0; i <= json.length(); i++) {
+
+      mapper.readTree(sanitize(json.substring(0, i)));
+    }
+  }
+
+
+  @Test
+  @DisplayName("JsonSanitizingReader: Limits")
+  public void test6() throws IOException {
+
+    // whitespace after a comma is only kept up to a limit
+    StringBuilder json = new StringBuilder("[1,");
+
+    for (int i = 0; i < 100000; i++) {
+      json.append(' ');
+    }
+
+    json.append("2]");
+    assertEquals(2, new ObjectMapper().readTree(sanitize(json.toString())).size());
+    assertEquals(true, sanitize(json.toString()).length() < 100);
+
+
+    // an unquoted value can't grow without limit
+    StringBuilder longValue = new StringBuilder("[");
+
+    for (int i = 0; i < 1000; i++) {
+      longValue.append('1');
+    }
+
+    assertThrows(MalformedResponseException.class, () -> {
+      sanitize(longValue.toString());
+    });
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * The author licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.stevenpaligo.spacetrack.client.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import com.stevenpaligo.spacetrack.DelayBeforeEachTestExtension;
+import com.stevenpaligo.spacetrack.client.exception.EmptyResponseException;
+import com.stevenpaligo.spacetrack.client.exception.ErrorResponseException;
+import com.stevenpaligo.spacetrack.client.exception.MalformedResponseException;
+
+@ExtendWith(DelayBeforeEachTestExtension.class)
+public class ResponseBodyReaderTests {
+
+  private static InputStream stream(String content) {
+
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+
+  private static String read(String content, Optional<String> contentType) throws IOException {
+
+    try (Reader reader = ResponseBodyReader.open(stream(content), contentType)) {
+
+      return IOUtils.toString(reader);
+    }
+  }
+
+
+  @Test
+  @DisplayName("ResponseBodyReader: Parameter validation")
+  public void test1() {
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      ResponseBodyReader.open(null, Optional.empty());
+    });
+
+    assertThrows(IllegalArgumentException.class, () -> {
+      ResponseBodyReader.open(stream("[]"), null);
+    });
+  }
+
+
+  @Test
+  @DisplayName("ResponseBodyReader: Results")
+  public void test2() throws IOException {
+
+    assertEquals("[{\"OBJECT_NAME\":\"ISS (ZARYA)\"}]", read("[{\"OBJECT_NAME\":\"ISS (ZARYA)\"}]", Optional.of("application/json")));
+    assertEquals("[]", read("\uFEFF \r\n\t[]", Optional.empty()));
+    assertEquals("[\"\u00e9\"]", read("[\"\u00e9\"]", Optional.of("text/plain; charset=\"UTF-8\"")));
+  }
+
+
+  @Test
+  @DisplayName("ResponseBodyReader: Errors")
+  public void test3() {
+
+    // empty
+    EmptyResponseException emptyException = assertThrows(EmptyResponseException.class, () -> {
+      read(" \n", Optional.of("application/json"));
+    });
+
+    assertTrue(emptyException.isRetryable());
+
+
+    // HTML error page
+    ErrorResponseException pageException = assertThrows(ErrorResponseException.class, () -> {
+      read("<!DOCTYPE html>\n<html><head><title>\n  Something Went Horribly Wrong  </title></head><body></body></html>", Optional.empty());
+    });
+
+    assertEquals("Space-Track returned an error page: Something Went Horribly Wrong", pageException.getMessage());
+    assertFalse(pageException.isRetryable());
+
+    assertThrows(ErrorResponseException.class, () -> {
+      read("[]", Optional.of("text/html; charset=UTF-8"));
+    });
+
+
+    // JSON error object
+    ErrorResponseException objectException = assertThrows(ErrorResponseException.class, () -> {
+      read("{\"Login\":\"Failed\"}", Optional.of("application/json"));
+    });
+
+    assertEquals("{\"Login\":\"Failed\"}", objectException.getContent());
+    assertEquals(Optional.of("application/json"), objectException.getContentType());
+
+
+    // error content is bounded
+    StringBuilder longPage = new StringBuilder("<html>");
+
+    for (int i = 0; i < 10000; i++) {
+      longPage.append("<p>error</p>");
+    }
+
+    ErrorResponseException longException = assertThrows(ErrorResponseException.class, () -> {
+      read(longPage.toString(), Optional.empty());
+    });
+
+    assertEquals(ResponseBodyReader.MAX_ERROR_CONTENT_LENGTH, longException.getContent().length());
+
+
+    // something else
+    MalformedResponseException malformedException = assertThrows(MalformedResponseException.class, () -> {
+      read("  nonsense", Optional.empty());
+    });
+
+    assertEquals(2L, malformedException.getOffset());
+  }
+}
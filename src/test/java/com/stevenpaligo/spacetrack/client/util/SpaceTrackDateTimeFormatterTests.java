@@ -17,6 +17,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.Date;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -110,4 +111,29 @@ public class SpaceTrackDateTimeFormatterTests {
     // verify the correct formatting of a TAI instant
     assertEquals("2016-12-31 23:59:60.000", SpaceTrackDateTimeFormatter.format(TaiInstant.of(UtcInstant.parse("2016-12-31T23:59:60.000Z"))));
   }
+
+
+  @Test
+  @DisplayName("Date/Time Formatter: Parsing")
+  public void test5() {
+
+    // a null value is not allowed
+    assertThrows(IllegalArgumentException.class, () -> {
+
+      SpaceTrackDateTimeFormatter.parse(null);
+    });
+
+
+    // invalid values
+    assertThrows(DateTimeParseException.class, () -> {
+
+      SpaceTrackDateTimeFormatter.parse("now-1.0");
+    });
+
+
+    // verify the correct parsing of formatted values, including a leap second
+    assertEquals(UtcInstant.parse("2007-12-03T10:15:30.123Z"), SpaceTrackDateTimeFormatter.parse("2007-12-03 10:15:30.123"));
+    assertEquals(UtcInstant.parse("2007-12-03T10:15:30Z"), SpaceTrackDateTimeFormatter.parse("2007-12-03 10:15:30"));
+    assertEquals(UtcInstant.parse("2016-12-31T23:59:60.000Z"), SpaceTrackDateTimeFormatter.parse(SpaceTrackDateTimeFormatter.format(UtcInstant.parse("2016-12-31T23:59:60.000Z"))));
+  }
 }